@@ -0,0 +1,41 @@
+package org.delcom.app.configs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Penyesuaian indeks cash_flows yang tidak dapat dinyatakan lewat @Index:
+ * menghapus indeks lama yang sudah digantikan idx_cash_flows_user_created_id, dan
+ * memasang indeks BRIN pada created_at jika tabel sudah sangat besar (BRIN jauh lebih
+ * kecil dari B-tree untuk data yang masuk berurutan waktu). Aman dijalankan berulang kali.
+ */
+@Component
+public class CashFlowIndexMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long brinMinRows;
+
+    // EntityManagerFactory di-inject agar migrasi berjalan setelah ddl-auto selesai
+    public CashFlowIndexMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+            @Value("${cashflow.index.brin-min-rows:10000000}") long brinMinRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.brinMinRows = brinMinRows;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_cash_flows_user_created");
+
+        // reltuples adalah perkiraan jumlah baris dari statistik planner (tanpa COUNT(*))
+        Long rows = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(reltuples), 0)::bigint FROM pg_class " +
+                "WHERE relname = 'cash_flows'", Long.class);
+        if (rows != null && rows >= brinMinRows) {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_cash_flows_created_brin " +
+                    "ON cash_flows USING brin (created_at)");
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.delcom.app.configs;
+
+import org.delcom.app.entities.CashFlowTerm;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Migrasi satu kali kolom type/source/label (VARCHAR) di cash_flows ke id kamus
+ * cash_flow_terms. ddl-auto hanya menambah kolom baru, sehingga pengisian data dan
+ * pemasangan NOT NULL dilakukan di sini sebelum aplikasi mulai menerima request.
+ * Kolom lama tidak dihapus: setelah jumlah baris terverifikasi, kolom diganti nama
+ * menjadi *_legacy (tanpa NOT NULL) dan baru boleh dihapus manual di rilis berikutnya.
+ * Migrasi gagal (startup dibatalkan) jika masih ada baris yang belum terisi id-nya.
+ * Aman dijalankan berulang kali dan oleh beberapa instance sekaligus.
+ */
+@Component
+public class CashFlowTermMigration {
+
+    private record Column(String name, String idColumn, CashFlowTerm.Kind kind) {
+    }
+
+    private static final Column[] COLUMNS = {
+            new Column("type", "type_id", CashFlowTerm.Kind.TYPE),
+            new Column("source", "source_id", CashFlowTerm.Kind.SOURCE),
+            new Column("label", "label_id", CashFlowTerm.Kind.LABEL)
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // EntityManagerFactory di-inject agar migrasi berjalan setelah ddl-auto selesai
+    public CashFlowTermMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void migrate() {
+        transactionTemplate.executeWithoutResult(tx -> {
+            // Instance lain yang boot bersamaan menunggu sampai migrasi ini commit
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_advisory_xact_lock(hashtext('cash_flow_terms'))",
+                    Integer.class);
+            for (Column column : COLUMNS) {
+                if (columnExists(column.name())) {
+                    backfill(column);
+                    verifyBackfill(column);
+                    jdbcTemplate.execute("ALTER TABLE cash_flows ALTER COLUMN " + column.name() + " DROP NOT NULL");
+                    jdbcTemplate.execute("ALTER TABLE cash_flows RENAME COLUMN " + column.name() + " TO "
+                            + column.name() + "_legacy");
+                }
+                if (isNullable(column.idColumn())) {
+                    jdbcTemplate.execute("ALTER TABLE cash_flows ALTER COLUMN " + column.idColumn() + " SET NOT NULL");
+                }
+            }
+        });
+    }
+
+    private void backfill(Column column) {
+        jdbcTemplate.update("INSERT INTO cash_flow_terms (user_id, kind, name) " +
+                "SELECT DISTINCT user_id, ?, " + column.name() + " FROM cash_flows WHERE " + column.name() +
+                " IS NOT NULL ON CONFLICT (user_id, kind, name) DO NOTHING", column.kind().ordinal());
+        jdbcTemplate.update("UPDATE cash_flows c SET " + column.idColumn() + " = t.id FROM cash_flow_terms t " +
+                "WHERE c." + column.idColumn() + " IS NULL AND t.user_id = c.user_id AND t.kind = ?" +
+                " AND t.name = c." + column.name(), column.kind().ordinal());
+    }
+
+    // Setiap baris yang memiliki nilai lama harus sudah memiliki id kamus
+    private void verifyBackfill(Column column) {
+        Long missing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cash_flows WHERE " + column.name() +
+                " IS NOT NULL AND " + column.idColumn() + " IS NULL", Long.class);
+        if (missing != null && missing > 0) {
+            throw new IllegalStateException("Migrasi " + column.name() + " belum lengkap: " + missing
+                    + " baris cash_flows belum memiliki " + column.idColumn());
+        }
+    }
+
+    private boolean columnExists(String column) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE table_name = 'cash_flows' AND column_name = ?", Integer.class, column);
+        return count != null && count > 0;
+    }
+
+    private boolean isNullable(String column) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE table_name = 'cash_flows' AND column_name = ? AND is_nullable = 'YES'", Integer.class, column);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,62 @@
+package org.delcom.app.configs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Mengaktifkan read replica jika datasource.replica.urls diisi. Tanpa properti tersebut
+ * aplikasi memakai DataSource bawaan Spring Boot (hanya primary).
+ *
+ * Routing diputuskan per koneksi, sehingga setiap transaksi harus mengambil koneksinya
+ * sendiri. Dengan spring.jpa.open-in-view=true, EntityManager request memegang koneksi
+ * pertama sampai request selesai (bacaan ikut ke primary, atau tulisan ikut ke replica),
+ * maka aplikasi menolak start jika open-in-view tidak dimatikan.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replica", name = "urls")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties,
+            @Value("${datasource.replica.urls}") String[] urls,
+            @Value("${datasource.replica.sticky-ms:2000}") long stickyMillis,
+            @Value("${datasource.replica.max-lag-bytes:1048576}") long maxLagBytes,
+            @Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        if (openInView) {
+            throw new IllegalStateException(
+                    "datasource.replica.urls requires spring.jpa.open-in-view=false so each transaction is routed");
+        }
+        DataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.length; i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(urls[i].trim());
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, stickyMillis, maxLagBytes);
+    }
+
+    // Koneksi baru diambil saat statement pertama, setelah status readOnly transaksi terpasang
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
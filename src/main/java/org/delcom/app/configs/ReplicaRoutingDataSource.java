@@ -0,0 +1,196 @@
+package org.delcom.app.configs;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.delcom.app.utils.AfterCommit;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource yang mengarahkan transaksi @Transactional(readOnly = true) milik user yang
+ * sudah login ke salah satu replica (round-robin), dan semua transaksi lain ke primary.
+ *
+ * - Read-your-writes: setelah transaksi read-write user di-commit, bacaan user tersebut
+ *   tetap ke primary selama jendela sticky (dihitung sejak commit).
+ * - Lag-aware: replica yang tertinggal lebih dari batas byte WAL (atau tidak dapat dihubungi)
+ *   tidak dipakai sampai pemeriksaan berikutnya menyatakannya sehat kembali.
+ * - Request tanpa user (login, register, pengecekan token) selalu ke primary agar token
+ *   yang baru dibuat langsung terbaca.
+ *
+ * Harus dibungkus LazyConnectionDataSourceProxy agar koneksi baru diambil setelah status
+ * read-only transaksi diketahui.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+
+    // User pada request yang sedang berjalan, diisi oleh AuthInterceptor
+    private static final ThreadLocal<UUID> CURRENT_USER = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final long stickyMillis;
+    private final long maxLagBytes;
+    private final LongSupplier clock;
+
+    private final Map<UUID, Long> lastWriteAt = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private volatile boolean[] healthy;
+    // Jumlah transaksi per tujuan: indeks 0 = primary, 1..n = replica
+    private final AtomicLongArray routed;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long stickyMillis,
+            long maxLagBytes) {
+        this(primary, replicas, stickyMillis, maxLagBytes, System::currentTimeMillis);
+    }
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long stickyMillis,
+            long maxLagBytes, LongSupplier clock) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.stickyMillis = stickyMillis;
+        this.maxLagBytes = maxLagBytes;
+        this.clock = clock;
+        this.healthy = new boolean[replicas.size()];
+        Arrays.fill(this.healthy, true);
+        this.routed = new AtomicLongArray(replicas.size() + 1);
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(replicaKey(i), replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public static void setCurrentUser(UUID userId) {
+        CURRENT_USER.set(userId);
+    }
+
+    public static UUID getCurrentUser() {
+        return CURRENT_USER.get();
+    }
+
+    public static void clearCurrentUser() {
+        CURRENT_USER.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        UUID userId = CURRENT_USER.get();
+        if (userId == null) {
+            return route(-1);
+        }
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Dicatat saat commit: transaksi tulis yang lama tidak menghabiskan jendela sticky
+            // sebelum datanya terlihat, dan transaksi yang di-rollback tidak dicatat
+            AfterCommit.run(() -> lastWriteAt.put(userId, clock.getAsLong()));
+            return route(-1);
+        }
+
+        Long lastWrite = lastWriteAt.get(userId);
+        if (lastWrite != null && clock.getAsLong() - lastWrite < stickyMillis) {
+            return route(-1);
+        }
+        return route(pickReplica());
+    }
+
+    /**
+     * Memeriksa lag setiap replica terhadap posisi WAL primary. Replica yang gagal diperiksa
+     * atau tertinggal lebih dari maxLagBytes ditandai tidak sehat. Entri sticky yang sudah
+     * kedaluwarsa juga dibersihkan di sini.
+     */
+    @Scheduled(fixedDelayString = "${datasource.replica.check-interval-ms:1000}")
+    public void refreshReplicaHealth() {
+        long now = clock.getAsLong();
+        lastWriteAt.values().removeIf(lastWrite -> now - lastWrite >= stickyMillis);
+
+        String primaryLsn;
+        try (Connection connection = primary.getConnection();
+                PreparedStatement statement = connection.prepareStatement("SELECT pg_current_wal_lsn()::text");
+                ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            primaryLsn = resultSet.getString(1);
+        } catch (SQLException e) {
+            // Primary tidak dapat diperiksa: status replica dibiarkan seperti sebelumnya
+            return;
+        }
+
+        boolean[] status = new boolean[replicas.size()];
+        for (int i = 0; i < replicas.size(); i++) {
+            status[i] = lagOf(replicas.get(i), primaryLsn) <= maxLagBytes;
+        }
+        healthy = status;
+    }
+
+    public boolean isReplicaHealthy(int index) {
+        return healthy[index];
+    }
+
+    // Jumlah transaksi yang diarahkan ke setiap tujuan sejak aplikasi berjalan
+    public Map<String, Long> getRoutedCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put(PRIMARY, routed.get(0));
+        for (int i = 0; i < replicas.size(); i++) {
+            counts.put(replicaKey(i), routed.get(i + 1));
+        }
+        return counts;
+    }
+
+    private static String replicaKey(int index) {
+        return "replica-" + index;
+    }
+
+    // Round-robin di antara replica sehat; -1 (primary) jika tidak ada
+    private int pickReplica() {
+        boolean[] status = healthy;
+        int count = status.length;
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(count, 1));
+        for (int offset = 0; offset < count; offset++) {
+            int index = (start + offset) % count;
+            if (status[index]) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private Object route(int replicaIndex) {
+        routed.incrementAndGet(replicaIndex + 1);
+        return replicaIndex < 0 ? PRIMARY : replicaKey(replicaIndex);
+    }
+
+    // Selisih byte WAL replica terhadap primary; Long.MAX_VALUE jika tidak dapat diperiksa.
+    // Instance yang bukan standby (pg_last_wal_replay_lsn null) dianggap tidak tertinggal.
+    private static long lagOf(DataSource replica, String primaryLsn) {
+        try (Connection connection = replica.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT COALESCE(pg_wal_lsn_diff(CAST(? AS pg_lsn), pg_last_wal_replay_lsn()), 0)")) {
+            statement.setString(1, primaryLsn);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return Math.max(resultSet.getLong(1), 0);
+            }
+        } catch (SQLException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
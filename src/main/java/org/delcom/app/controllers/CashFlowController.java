@@ -1,14 +1,54 @@
 package org.delcom.app.controllers;
 
 import org.delcom.app.configs.AuthContext;
+import org.delcom.app.dto.CashFlowAnalytics;
+import org.delcom.app.dto.CashFlowBalanceAt;
+import org.delcom.app.dto.CashFlowBalanceSeries;
+import org.delcom.app.dto.CashFlowExportResult;
+import org.delcom.app.dto.CashFlowForecast;
+import org.delcom.app.dto.CashFlowImportResult;
+import org.delcom.app.dto.CashFlowLabelQuantiles;
+import org.delcom.app.dto.CashFlowMonthlyStatement;
+import org.delcom.app.dto.CashFlowNetFlow;
+import org.delcom.app.dto.CashFlowPage;
+import org.delcom.app.dto.CashFlowReceiptUploadStatus;
+import org.delcom.app.dto.CashFlowReconciliation;
+import org.delcom.app.dto.CashFlowSearchResult;
+import org.delcom.app.dto.CashFlowSummary;
 import org.delcom.app.entities.CashFlow;
+import org.delcom.app.entities.CashFlowReceipt;
+import org.delcom.app.entities.CashFlowReceiptUpload;
 import org.delcom.app.entities.User;
+import org.delcom.app.services.CashFlowAnalyticsService;
+import org.delcom.app.services.CashFlowAutocompleteService;
+import org.delcom.app.services.CashFlowBalanceService;
+import org.delcom.app.services.CashFlowExportService;
+import org.delcom.app.services.CashFlowForecastService;
+import org.delcom.app.services.CashFlowGroupCommitter;
+import org.delcom.app.services.CashFlowImportService;
+import org.delcom.app.services.CashFlowLabelSuggestionService;
+import org.delcom.app.services.CashFlowQuantileService;
+import org.delcom.app.services.CashFlowReceiptService;
+import org.delcom.app.services.CashFlowReconcileService;
+import org.delcom.app.services.CashFlowSearchService;
 import org.delcom.app.services.CashFlowService;
+import org.delcom.app.services.CashFlowStatementService;
+import org.delcom.app.services.IdempotencyService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,39 +60,416 @@ import java.util.UUID;
 @RequestMapping("/api/cashflows")
 public class CashFlowController {
 
+    // Jumlah item default dan batas atas per halaman daftar transaksi
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    // Batas atas jumlah transaksi pada hasil top-N analitik
+    private static final int MAX_TOP = 100;
+    // Batas jumlah titik grafik saldo (LTTB memerlukan minimal 3 titik)
+    private static final int MIN_BALANCE_POINTS = 3;
+    private static final int MAX_BALANCE_POINTS = 2000;
+    // Batas atas jumlah saran autocomplete
+    private static final int MAX_SUGGESTIONS = 50;
+    // Batas atas jumlah hits pencarian
+    private static final int MAX_SEARCH_HITS = 100;
+
     private final CashFlowService cashFlowService;
+    private final CashFlowAnalyticsService cashFlowAnalyticsService;
+    private final CashFlowAutocompleteService cashFlowAutocompleteService;
+    private final CashFlowBalanceService cashFlowBalanceService;
+    private final CashFlowImportService cashFlowImportService;
+    private final CashFlowExportService cashFlowExportService;
+    private final CashFlowQuantileService cashFlowQuantileService;
+    private final CashFlowGroupCommitter cashFlowGroupCommitter;
+    private final CashFlowReconcileService cashFlowReconcileService;
+    private final CashFlowStatementService cashFlowStatementService;
+    private final CashFlowForecastService cashFlowForecastService;
+    private final CashFlowLabelSuggestionService cashFlowLabelSuggestionService;
+    private final CashFlowSearchService cashFlowSearchService;
+    private final CashFlowReceiptService cashFlowReceiptService;
+    private final IdempotencyService idempotencyService;
     private final AuthContext authContext;
 
     @Autowired
-    public CashFlowController(CashFlowService cashFlowService, AuthContext authContext) {
+    public CashFlowController(CashFlowService cashFlowService, CashFlowAnalyticsService cashFlowAnalyticsService,
+            CashFlowAutocompleteService cashFlowAutocompleteService, CashFlowBalanceService cashFlowBalanceService,
+            CashFlowImportService cashFlowImportService, CashFlowExportService cashFlowExportService,
+            CashFlowQuantileService cashFlowQuantileService, CashFlowGroupCommitter cashFlowGroupCommitter,
+            CashFlowReconcileService cashFlowReconcileService, CashFlowStatementService cashFlowStatementService,
+            CashFlowForecastService cashFlowForecastService,
+            CashFlowLabelSuggestionService cashFlowLabelSuggestionService, CashFlowSearchService cashFlowSearchService,
+            CashFlowReceiptService cashFlowReceiptService, IdempotencyService idempotencyService,
+            AuthContext authContext) {
         this.cashFlowService = cashFlowService;
+        this.cashFlowAnalyticsService = cashFlowAnalyticsService;
+        this.cashFlowAutocompleteService = cashFlowAutocompleteService;
+        this.cashFlowBalanceService = cashFlowBalanceService;
+        this.cashFlowImportService = cashFlowImportService;
+        this.cashFlowExportService = cashFlowExportService;
+        this.cashFlowQuantileService = cashFlowQuantileService;
+        this.cashFlowGroupCommitter = cashFlowGroupCommitter;
+        this.cashFlowReconcileService = cashFlowReconcileService;
+        this.cashFlowStatementService = cashFlowStatementService;
+        this.cashFlowForecastService = cashFlowForecastService;
+        this.cashFlowLabelSuggestionService = cashFlowLabelSuggestionService;
+        this.cashFlowSearchService = cashFlowSearchService;
+        this.cashFlowReceiptService = cashFlowReceiptService;
+        this.idempotencyService = idempotencyService;
         this.authContext = authContext;
     }
 
     /**
-     * Mengambil semua catatan Cash Flow (Pemasukan/Pengeluaran) untuk pengguna yang sedang login.
-     * @return ResponseEntity dengan list CashFlow atau 401 Unauthorized jika tidak terautentikasi.
+     * Mengambil catatan Cash Flow pengguna yang sedang login. Tanpa parameter apa pun,
+     * response tetap berupa list seluruh CashFlow seperti sebelumnya. Jika salah satu
+     * parameter paging/filter dikirim, response berupa satu halaman {items, nextCursor}
+     * (terbaru dulu).
+     * @param from Tanggal awal (yyyy-MM-dd, inklusif, opsional).
+     * @param to Tanggal akhir (yyyy-MM-dd, inklusif, opsional).
+     * @param type Filter tipe (opsional).
+     * @param label Filter label (opsional).
+     * @param cursor nextCursor dari halaman sebelumnya (kosongkan untuk halaman pertama).
+     * @param limit Jumlah item per halaman (1-200, default: 50).
+     * @return ResponseEntity dengan list CashFlow atau halaman CashFlow dan nextCursor, atau error.
      */
     @GetMapping
-    public ResponseEntity<?> getFlows() {
+    public ResponseEntity<?> getFlows(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String label,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        // Klien lama (tanpa parameter) tetap menerima list penuh
+        if (from == null && to == null && type == null && label == null && cursor == null && limit == null) {
+            User user = authContext.getAuthUser();
+            List<CashFlow> flows = cashFlowService.getAllCashFlows(user.getId(), null);
+            return new ResponseEntity<>(flows, HttpStatus.OK);
+        }
+        if (limit == null) {
+            limit = DEFAULT_PAGE_SIZE;
+        }
+
+        if (from != null && to != null && from.isAfter(to)) {
+            return new ResponseEntity<>("Invalid date range. 'from' must not be after 'to'.", HttpStatus.BAD_REQUEST);
+        }
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>("Invalid limit. Must be between 1 and " + MAX_PAGE_SIZE + ".", HttpStatus.BAD_REQUEST);
+        }
+
+        User user = authContext.getAuthUser();
+        CashFlowPage page = cashFlowService.getCashFlowPage(user.getId(), from, to, type, label, cursor, limit);
+        if (page == null) {
+            return new ResponseEntity<>("Invalid cursor.", HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    /**
+     * Mengambil total Cash Flow yang dikelompokkan di sisi server.
+     * @param groupBy type, label, source, day, week, atau month (default: type).
+     * @param from Tanggal awal (yyyy-MM-dd, inklusif, opsional).
+     * @param to Tanggal akhir (yyyy-MM-dd, inklusif, opsional).
+     * @return ResponseEntity dengan list ringkasan per grup dan tipe, atau error.
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<?> getSummary(
+            @RequestParam(defaultValue = "type") String groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        if (from != null && to != null && from.isAfter(to)) {
+            return new ResponseEntity<>("Invalid date range. 'from' must not be after 'to'.", HttpStatus.BAD_REQUEST);
+        }
+
+        User user = authContext.getAuthUser();
+        List<CashFlowSummary> summary = cashFlowService.getCashFlowSummary(user.getId(), groupBy, from, to);
+        if (summary == null) {
+            return new ResponseEntity<>("Invalid groupBy. Use type, label, source, day, week, or month.", HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(summary, HttpStatus.OK);
+    }
+
+    /**
+     * Mengambil analitik interaktif dari snapshot in-memory milik pengguna.
+     * @param from Tanggal awal (yyyy-MM-dd, inklusif, opsional).
+     * @param to Tanggal akhir (yyyy-MM-dd, inklusif, opsional).
+     * @param type Filter tipe untuk daftar transaksi terbesar (opsional).
+     * @param top Jumlah transaksi terbesar (1-100, default: 10).
+     * @return ResponseEntity dengan total per tipe/label/source dan top-N, atau error.
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<?> getAnalytics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "10") int top) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        if (from != null && to != null && from.isAfter(to)) {
+            return new ResponseEntity<>("Invalid date range. 'from' must not be after 'to'.", HttpStatus.BAD_REQUEST);
+        }
+
+        if (top < 1 || top > MAX_TOP) {
+            return new ResponseEntity<>("Invalid top. Must be between 1 and " + MAX_TOP + ".", HttpStatus.BAD_REQUEST);
+        }
+
+        User user = authContext.getAuthUser();
+        CashFlowAnalytics analytics = cashFlowAnalyticsService.getAnalytics(user.getId(), from, to, type, top);
+        return new ResponseEntity<>(analytics, HttpStatus.OK);
+    }
+
+    /**
+     * Mengambil deret saldo berjalan (Inflow - Outflow) yang sudah di-downsample untuk grafik.
+     * @param from Tanggal awal (yyyy-MM-dd, inklusif, opsional).
+     * @param to Tanggal akhir (yyyy-MM-dd, inklusif, opsional).
+     * @param points Jumlah titik maksimum (3-2000, default: 200).
+     * @return ResponseEntity dengan saldo awal dan titik-titik saldo, atau error.
+     */
+    @GetMapping("/balance")
+    public ResponseEntity<?> getBalanceSeries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "200") int points) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        if (from != null && to != null && from.isAfter(to)) {
+            return new ResponseEntity<>("Invalid date range. 'from' must not be after 'to'.", HttpStatus.BAD_REQUEST);
+        }
+
+        if (points < MIN_BALANCE_POINTS || points > MAX_BALANCE_POINTS) {
+            return new ResponseEntity<>("Invalid points. Must be between " + MIN_BALANCE_POINTS + " and "
+                    + MAX_BALANCE_POINTS + ".", HttpStatus.BAD_REQUEST);
+        }
+
+        User user = authContext.getAuthUser();
+        CashFlowBalanceSeries series = cashFlowAnalyticsService.getBalanceSeries(user.getId(), from, to, points);
+        return new ResponseEntity<>(series, HttpStatus.OK);
+    }
+
+    /**
+     * Mengambil saldo kumulatif (Inflow - Outflow) sampai akhir suatu tanggal.
+     * @param date Tanggal (yyyy-MM-dd).
+     * @return ResponseEntity dengan tanggal dan saldo, atau 401 Unauthorized.
+     */
+    @GetMapping("/balance/at")
+    public ResponseEntity<?> getBalanceAt(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         if (!authContext.isAuthenticated()) {
             return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
         }
 
         User user = authContext.getAuthUser();
-        // Memanggil service untuk mengambil semua cash flow berdasarkan ID pengguna
-        // PERBAIKAN: Menggunakan getAllCashFlows(userId, keyword)
-        List<CashFlow> flows = cashFlowService.getAllCashFlows(user.getId(), null); // keyword null untuk ambil semua
-        return new ResponseEntity<>(flows, HttpStatus.OK);
+        CashFlowBalanceAt balance = cashFlowBalanceService.getBalanceAt(user.getId(), date);
+        return new ResponseEntity<>(balance, HttpStatus.OK);
+    }
+
+    /**
+     * Mengambil selisih Inflow - Outflow di antara dua tanggal.
+     * @param from Tanggal awal (yyyy-MM-dd, inklusif).
+     * @param to Tanggal akhir (yyyy-MM-dd, inklusif).
+     * @return ResponseEntity dengan net flow, atau error.
+     */
+    @GetMapping("/net-flow")
+    public ResponseEntity<?> getNetFlow(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        if (from.isAfter(to)) {
+            return new ResponseEntity<>("Invalid date range. 'from' must not be after 'to'.", HttpStatus.BAD_REQUEST);
+        }
+
+        User user = authContext.getAuthUser();
+        CashFlowNetFlow netFlow = cashFlowBalanceService.getNetFlow(user.getId(), from, to);
+        return new ResponseEntity<>(netFlow, HttpStatus.OK);
+    }
+
+    /**
+     * Mengambil daftar label unik milik pengguna (dibaca dari kamus label).
+     * @return ResponseEntity dengan list label terurut atau 401 Unauthorized.
+     */
+    @GetMapping("/labels")
+    public ResponseEntity<?> getLabels() {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        User user = authContext.getAuthUser();
+        List<String> labels = cashFlowService.getCashFlowLabels(user.getId());
+        return new ResponseEntity<>(labels, HttpStatus.OK);
+    }
+
+    /**
+     * Mengambil median, p90, dan p99 amount transaksi sebuah label dari sketsa kuantil,
+     * tanpa mengurutkan riwayat transaksi. Galat rank dilaporkan di field rankError.
+     * @param label Nama label (kosongkan untuk transaksi tanpa label).
+     * @param amount Amount yang ingin dinilai (opsional), mis. untuk menandai pengeluaran tidak biasa.
+     * @return ResponseEntity dengan distribusi amount label, atau error.
+     */
+    @GetMapping("/quantiles")
+    public ResponseEntity<?> getLabelQuantiles(@RequestParam String label,
+            @RequestParam(required = false) Long amount) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        User user = authContext.getAuthUser();
+        CashFlowLabelQuantiles quantiles = cashFlowQuantileService.getQuantiles(user.getId(), label, amount);
+        if (quantiles == null) {
+            return new ResponseEntity<>("Label not found.", HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<>(quantiles, HttpStatus.OK);
+    }
+
+    /**
+     * Mengambil laporan bulanan (saldo awal/akhir, total per tipe dan label, pengeluaran
+     * terbesar) yang dibuat oleh batch awal bulan.
+     * @param month Bulan laporan (yyyy-MM).
+     * @return ResponseEntity dengan laporan bulanan, atau 404 jika belum dibuat.
+     */
+    @GetMapping("/statements/{month}")
+    public ResponseEntity<?> getMonthlyStatement(@PathVariable YearMonth month) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        User user = authContext.getAuthUser();
+        CashFlowMonthlyStatement statement = cashFlowStatementService.getStatement(user.getId(), month.atDay(1));
+        if (statement == null) {
+            return new ResponseEntity<>("Statement not found.", HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<>(statement, HttpStatus.OK);
+    }
+
+    /**
+     * Proyeksi saldo akhir bulan ke depan (persentil 5/25/50/75/95) dari simulasi Monte Carlo
+     * atas riwayat bulanan per label. Hasil di-cache sampai data user berubah.
+     * @param months Jumlah bulan ke depan (1 s/d cashflow.forecast.max-months, default: 12).
+     * @return ResponseEntity dengan pita proyeksi saldo per bulan, atau error.
+     */
+    @GetMapping("/forecast")
+    public ResponseEntity<?> getForecast(@RequestParam(defaultValue = "12") int months) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+        if (months < 1 || months > cashFlowForecastService.getMaxMonths()) {
+            return new ResponseEntity<>("Invalid months. Must be between 1 and "
+                    + cashFlowForecastService.getMaxMonths() + ".", HttpStatus.BAD_REQUEST);
+        }
+
+        User user = authContext.getAuthUser();
+        CashFlowForecast forecast = cashFlowForecastService.getForecast(user.getId(), months);
+        return new ResponseEntity<>(forecast, HttpStatus.OK);
+    }
+
+    /**
+     * Mengambil saran label atau source berdasarkan prefix, diurutkan dari yang paling sering dipakai.
+     * @param field label atau source (default: label).
+     * @param prefix Awalan teks yang sedang diketik (tidak membedakan huruf besar/kecil).
+     * @param limit Jumlah saran (1-50, default: 10).
+     * @return ResponseEntity dengan list saran atau error.
+     */
+    @GetMapping("/suggestions")
+    public ResponseEntity<?> getSuggestions(
+            @RequestParam(defaultValue = "label") String field,
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            return new ResponseEntity<>("Invalid limit. Must be between 1 and " + MAX_SUGGESTIONS + ".", HttpStatus.BAD_REQUEST);
+        }
+
+        User user = authContext.getAuthUser();
+        List<String> suggestions = cashFlowAutocompleteService.suggest(user.getId(), field, prefix, limit);
+        if (suggestions == null) {
+            return new ResponseEntity<>("Invalid field. Use label or source.", HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(suggestions, HttpStatus.OK);
+    }
+
+    /**
+     * Pencarian full-text cash flow dengan ranking relevansi dan hitungan facet per label,
+     * type, dan bulan dari seluruh transaksi yang cocok.
+     * @param q Kata kunci; transaksi harus memuat seluruh kata (type, source, label, atau deskripsi).
+     * @param limit Jumlah hits (0-100, default: 20; 0 = hanya total dan facet).
+     * @return ResponseEntity dengan hits dan facet (indexing = true selama indeks user masih dibangun), atau error.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchFlows(@RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "20") int limit) throws IOException {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+        if (q.isBlank()) {
+            return new ResponseEntity<>("Query is required.", HttpStatus.BAD_REQUEST);
+        }
+        if (limit < 0 || limit > MAX_SEARCH_HITS) {
+            return new ResponseEntity<>("Invalid limit. Must be between 0 and " + MAX_SEARCH_HITS + ".",
+                    HttpStatus.BAD_REQUEST);
+        }
+
+        User user = authContext.getAuthUser();
+        CashFlowSearchResult result = cashFlowSearchService.search(user.getId(), q.trim(), limit);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * Mengganti nama label pada seluruh catatan Cash Flow milik pengguna.
+     * @param from Nama label lama.
+     * @param to Nama label baru (jika sudah ada, kedua label digabung).
+     * @return ResponseEntity 204 No Content atau error.
+     */
+    @PutMapping("/labels")
+    public ResponseEntity<?> renameLabel(@RequestParam String from, @RequestParam String to) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        if (to.isBlank()) {
+            return new ResponseEntity<>("Invalid label. 'to' must not be empty.", HttpStatus.BAD_REQUEST);
+        }
+
+        User user = authContext.getAuthUser();
+        boolean renamed = cashFlowService.renameLabel(user.getId(), from, to);
+        if (!renamed) {
+            return new ResponseEntity<>("Label not found.", HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
     /**
      * Membuat catatan Cash Flow baru.
      * @param flow Data CashFlow baru (tanpa ID/User ID).
+     * @param idempotencyKey Header Idempotency-Key (opsional); request ulang dengan key yang sama
+     *                       mendapat response pertama tanpa membuat catatan baru.
      * @return ResponseEntity dengan CashFlow yang telah disimpan atau error.
      */
     @PostMapping
-    public ResponseEntity<?> createFlow(@RequestBody CashFlow flow) {
+    public ResponseEntity<?> createFlow(@RequestBody CashFlow flow,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         if (!authContext.isAuthenticated()) {
             return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
         }
@@ -65,14 +482,46 @@ public class CashFlowController {
         }
 
         User user = authContext.getAuthUser();
-        
+        if (idempotencyKey == null) {
+            return createFlow(user, flow);
+        }
+        if (!IdempotencyService.isValidKey(idempotencyKey)) {
+            return new ResponseEntity<>("Invalid Idempotency-Key header.", HttpStatus.BAD_REQUEST);
+        }
+
+        byte[] requestHash = IdempotencyService.hashRequest("cashflows", flow.getType(), flow.getSource(),
+                flow.getLabel(), String.valueOf(flow.getAmount()), flow.getDescription());
+        ResponseEntity<?> response = idempotencyService.execute(user.getId(), idempotencyKey, requestHash,
+                () -> createFlow(user, flow));
+        if (response == null) {
+            return new ResponseEntity<>("Idempotency-Key is already used by a different or unfinished request.",
+                    HttpStatus.CONFLICT);
+        }
+        return response;
+    }
+
+    private ResponseEntity<?> createFlow(User user, CashFlow flow) {
+        // Label kosong diisi saran dari riwayat deskripsi-label user (jika model cukup yakin)
+        String label = flow.getLabel();
+        if (label == null || label.isBlank()) {
+            String suggested = cashFlowLabelSuggestionService.suggestLabel(user.getId(), flow.getDescription());
+            label = suggested != null ? suggested : label;
+        }
+
+        // Mode group commit: insert digabung dengan request lain dalam satu transaksi
+        if (cashFlowGroupCommitter.isEnabled()) {
+            CashFlow createdFlow = cashFlowGroupCommitter.createCashFlow(user.getId(), flow.getType(),
+                    flow.getSource(), label, flow.getAmount().intValue(), flow.getDescription());
+            return new ResponseEntity<>(createdFlow, HttpStatus.CREATED);
+        }
+
         // PERBAIKAN: Menggunakan createCashFlow() dengan parameter eksplisit dari Service
         // Pastikan tipe data 'amount' sesuai antara CashFlow (dari @RequestBody) dan service (Integer)
         CashFlow createdFlow = cashFlowService.createCashFlow(
             user.getId(),
             flow.getType(),
             flow.getSource(),
-            flow.getLabel(),
+            label,
             flow.getAmount().intValue(), // Mengonversi Double ke Integer, asumsikan jumlah tidak ada desimal
             flow.getDescription()
         );
@@ -84,6 +533,324 @@ public class CashFlowController {
         return new ResponseEntity<>(createdFlow, HttpStatus.CREATED);
     }
 
+    /**
+     * Mengimpor banyak catatan Cash Flow sekaligus dari body request yang dibaca secara streaming.
+     * Baris yang tidak valid dilewati dan dilaporkan tanpa membatalkan baris lainnya.
+     * @param format csv (baris pertama berisi header) atau jsonl (default: csv).
+     * @param body Isi file import (UTF-8).
+     * @return ResponseEntity dengan jumlah baris diterima/ditolak dan daftar kesalahan, atau error.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importFlows(@RequestParam(defaultValue = "csv") String format, InputStream body) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        User user = authContext.getAuthUser();
+        CashFlowImportResult result;
+        try {
+            result = cashFlowImportService.importCashFlows(user.getId(), format, body);
+        } catch (IOException e) {
+            return new ResponseEntity<>("Failed to read import data.", HttpStatus.BAD_REQUEST);
+        }
+
+        if (result == null) {
+            return new ResponseEntity<>("Invalid import format. Use csv (with header type,source,label,amount,description[,createdAt]) or jsonl.", HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * Mencocokkan rekening koran bank dengan catatan Cash Flow pengguna berdasarkan amount,
+     * jendela tanggal, dan kemiripan deskripsi.
+     * @param body CSV rekening koran (UTF-8) dengan header date,amount[,description][,type].
+     * @return ResponseEntity dengan baris matched, ambiguous, dan unmatched, atau error.
+     */
+    @PostMapping("/reconcile")
+    public ResponseEntity<?> reconcileStatement(InputStream body) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        User user = authContext.getAuthUser();
+        CashFlowReconciliation result;
+        try {
+            result = cashFlowReconcileService.reconcile(user.getId(), body);
+        } catch (IOException e) {
+            return new ResponseEntity<>("Failed to read statement data.", HttpStatus.BAD_REQUEST);
+        }
+
+        if (result == null) {
+            return new ResponseEntity<>("Invalid statement. Use csv with header date,amount[,description][,type].", HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * Mengekspor catatan Cash Flow pengguna (urut tanggal) secara streaming.
+     * @param format csv atau columnar (default: csv).
+     * @param from Tanggal awal (yyyy-MM-dd, inklusif, opsional).
+     * @param to Tanggal akhir (yyyy-MM-dd, inklusif, opsional).
+     * @param label Filter label (opsional).
+     * @param gzip Kompres output dengan gzip (default: false).
+     * @param destination response (langsung diunduh) atau file (disimpan untuk diunduh kemudian).
+     * @return ResponseEntity dengan isi export, hasil export ke file (201), atau error.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportFlows(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String label,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(defaultValue = "response") String destination) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        if (from != null && to != null && from.isAfter(to)) {
+            return new ResponseEntity<>("Invalid date range. 'from' must not be after 'to'.", HttpStatus.BAD_REQUEST);
+        }
+
+        if (!cashFlowExportService.isSupportedFormat(format)) {
+            return new ResponseEntity<>("Invalid export format. Use csv or columnar.", HttpStatus.BAD_REQUEST);
+        }
+
+        User user = authContext.getAuthUser();
+        UUID userId = user.getId();
+
+        if (destination.equals("file")) {
+            try {
+                CashFlowExportResult result = cashFlowExportService.exportToFile(userId, format, from, to, label, gzip);
+                return new ResponseEntity<>(result, HttpStatus.CREATED);
+            } catch (IOException e) {
+                return new ResponseEntity<>("Failed to export cash flows.", HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        }
+
+        if (!destination.equals("response")) {
+            return new ResponseEntity<>("Invalid destination. Use response or file.", HttpStatus.BAD_REQUEST);
+        }
+
+        // Baris ditulis langsung ke response (chunked) saat dibaca dari cursor database
+        StreamingResponseBody body = out -> cashFlowExportService.export(userId, format, from, to, label, gzip, out);
+        return attachment(CashFlowExportService.fileName(format, gzip), body);
+    }
+
+    /**
+     * Mengunduh file hasil export dengan destination=file.
+     * @param id ID export yang dikembalikan saat export dibuat.
+     * @return ResponseEntity dengan isi file atau 404 jika tidak ditemukan.
+     */
+    @GetMapping("/exports/{id}")
+    public ResponseEntity<?> downloadExport(@PathVariable String id) throws IOException {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        User user = authContext.getAuthUser();
+        Path file = cashFlowExportService.findExportFile(user.getId(), id);
+        if (file == null) {
+            return new ResponseEntity<>("Export not found.", HttpStatus.NOT_FOUND);
+        }
+
+        String fileName = file.getFileName().toString();
+        return attachment("cashflows" + fileName.substring(fileName.indexOf('.')), new FileSystemResource(file));
+    }
+
+    private static ResponseEntity<?> attachment(String fileName, Object body) {
+        MediaType contentType = MediaType.APPLICATION_OCTET_STREAM;
+        if (fileName.endsWith(".gz")) {
+            contentType = MediaType.parseMediaType("application/gzip");
+        } else if (fileName.endsWith(".csv")) {
+            contentType = MediaType.parseMediaType("text/csv");
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(contentType)
+                .body(body);
+    }
+
+    /**
+     * Memulai upload bukti transaksi (foto/PDF) untuk catatan Cash Flow. File dikirim per
+     * chunk (lihat uploadReceiptChunk) lalu diselesaikan dengan completeReceiptUpload.
+     * @param id ID catatan Cash Flow.
+     * @param fileName Nama file asli.
+     * @param contentType image/jpeg, image/png, image/webp, image/heic, atau application/pdf.
+     * @param size Ukuran file dalam byte.
+     * @return ResponseEntity 201 dengan status upload (uploadId, chunkSize, chunkCount), atau error.
+     */
+    @PostMapping("/{id}/receipts/uploads")
+    public ResponseEntity<?> initiateReceiptUpload(@PathVariable UUID id, @RequestParam String fileName,
+            @RequestParam String contentType, @RequestParam long size) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        if (fileName.isBlank()) {
+            return new ResponseEntity<>("File name is required.", HttpStatus.BAD_REQUEST);
+        }
+        if (!cashFlowReceiptService.isSupportedContentType(contentType)) {
+            return new ResponseEntity<>("Invalid content type. Use image/jpeg, image/png, image/webp, image/heic, or application/pdf.", HttpStatus.BAD_REQUEST);
+        }
+        long maxBytes = cashFlowReceiptService.getMaxBytes();
+        if (size < 1 || size > maxBytes) {
+            return new ResponseEntity<>("Invalid size. Must be between 1 and " + maxBytes + " bytes.",
+                    HttpStatus.BAD_REQUEST);
+        }
+
+        User user = authContext.getAuthUser();
+        CashFlowReceiptUploadStatus status;
+        try {
+            status = cashFlowReceiptService.initiateUpload(user.getId(), id, fileName, contentType, size);
+        } catch (IOException e) {
+            return new ResponseEntity<>("Failed to create receipt upload.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        if (status == null) {
+            return new ResponseEntity<>("Cash Flow record not found or access denied.", HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<>(status, HttpStatus.CREATED);
+    }
+
+    /**
+     * Mengambil status upload bukti transaksi, dipakai untuk melanjutkan upload yang terputus
+     * (kirim ulang chunk pada missingChunks).
+     * @param uploadId ID upload.
+     * @return ResponseEntity dengan status upload atau 404 jika tidak ditemukan.
+     */
+    @GetMapping("/receipts/uploads/{uploadId}")
+    public ResponseEntity<?> getReceiptUpload(@PathVariable UUID uploadId) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        User user = authContext.getAuthUser();
+        CashFlowReceiptUpload upload = cashFlowReceiptService.findUpload(user.getId(), uploadId);
+        if (upload == null) {
+            return new ResponseEntity<>("Upload not found.", HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<>(cashFlowReceiptService.getStatus(upload), HttpStatus.OK);
+    }
+
+    /**
+     * Mengirim satu chunk upload bukti transaksi. Chunk boleh dikirim dengan urutan bebas
+     * dan dikirim ulang; body harus tepat chunkSize byte (chunk terakhir: sisa file).
+     * @param uploadId ID upload.
+     * @param index Nomor chunk (mulai dari 0).
+     * @param body Isi chunk (application/octet-stream).
+     * @return ResponseEntity dengan status upload terbaru, atau error.
+     */
+    @PutMapping("/receipts/uploads/{uploadId}/chunks/{index}")
+    public ResponseEntity<?> uploadReceiptChunk(@PathVariable UUID uploadId, @PathVariable int index,
+            InputStream body) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        User user = authContext.getAuthUser();
+        CashFlowReceiptUpload upload = cashFlowReceiptService.findUpload(user.getId(), uploadId);
+        if (upload == null) {
+            return new ResponseEntity<>("Upload not found.", HttpStatus.NOT_FOUND);
+        }
+        if (index < 0 || index >= upload.getChunkCount()) {
+            return new ResponseEntity<>("Invalid chunk index. Must be between 0 and " + (upload.getChunkCount() - 1) + ".",
+                    HttpStatus.BAD_REQUEST);
+        }
+
+        CashFlowReceiptUploadStatus status;
+        try {
+            status = cashFlowReceiptService.writeChunk(upload, index, body);
+        } catch (IOException e) {
+            return new ResponseEntity<>("Failed to store receipt chunk.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        if (status == null) {
+            return new ResponseEntity<>("Invalid chunk size. Chunk " + index + " must be " + upload.getChunkLength(index) + " bytes.",
+                    HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(status, HttpStatus.OK);
+    }
+
+    /**
+     * Menyelesaikan upload bukti transaksi yang seluruh chunk-nya sudah diterima.
+     * @param uploadId ID upload.
+     * @return ResponseEntity 201 dengan bukti transaksi, 409 jika masih ada chunk yang belum diterima, atau error.
+     */
+    @PostMapping("/receipts/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeReceiptUpload(@PathVariable UUID uploadId) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        User user = authContext.getAuthUser();
+        CashFlowReceiptUpload upload = cashFlowReceiptService.findUpload(user.getId(), uploadId);
+        if (upload == null) {
+            return new ResponseEntity<>("Upload not found.", HttpStatus.NOT_FOUND);
+        }
+        int missing = upload.getMissingChunks().size();
+        if (missing > 0) {
+            return new ResponseEntity<>("Upload is incomplete. " + missing + " chunk(s) missing.", HttpStatus.CONFLICT);
+        }
+
+        CashFlowReceipt receipt;
+        try {
+            receipt = cashFlowReceiptService.completeUpload(upload);
+        } catch (IOException e) {
+            return new ResponseEntity<>("Failed to store receipt.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        if (receipt == null) {
+            return new ResponseEntity<>("Upload not found.", HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<>(receipt, HttpStatus.CREATED);
+    }
+
+    /**
+     * Mengambil daftar bukti transaksi sebuah catatan Cash Flow (urut waktu upload).
+     * @param id ID catatan Cash Flow.
+     * @return ResponseEntity dengan daftar bukti transaksi.
+     */
+    @GetMapping("/{id}/receipts")
+    public ResponseEntity<?> getReceipts(@PathVariable UUID id) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        User user = authContext.getAuthUser();
+        List<CashFlowReceipt> receipts = cashFlowReceiptService.findReceipts(user.getId(), id);
+        return new ResponseEntity<>(receipts, HttpStatus.OK);
+    }
+
+    /**
+     * Mengunduh isi bukti transaksi.
+     * @param receiptId ID bukti transaksi.
+     * @return ResponseEntity dengan isi file atau 404 jika tidak ditemukan.
+     */
+    @GetMapping("/receipts/{receiptId}")
+    public ResponseEntity<?> downloadReceipt(@PathVariable UUID receiptId) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+
+        User user = authContext.getAuthUser();
+        CashFlowReceipt receipt = cashFlowReceiptService.findReceipt(user.getId(), receiptId);
+        if (receipt == null) {
+            return new ResponseEntity<>("Receipt not found.", HttpStatus.NOT_FOUND);
+        }
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + receipt.getFileName() + "\"")
+                .contentType(MediaType.parseMediaType(receipt.getContentType()))
+                .body(new FileSystemResource(cashFlowReceiptService.getReceiptFile(receipt)));
+    }
+
     /**
      * Mengubah catatan Cash Flow yang sudah ada.
      * @param id ID dari catatan Cash Flow yang akan diubah.
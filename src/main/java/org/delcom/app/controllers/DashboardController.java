@@ -0,0 +1,42 @@
+package org.delcom.app.controllers;
+
+import org.delcom.app.configs.ApiResponse;
+import org.delcom.app.configs.AuthContext;
+import org.delcom.app.dto.DashboardSummary;
+import org.delcom.app.entities.User;
+import org.delcom.app.services.DashboardService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Kontroler REST untuk halaman utama: menggantikan panggilan berurutan ke /users/me,
+ * /todos, /cashflows, dan /cashflows/labels dengan satu request.
+ */
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+    private final DashboardService dashboardService;
+    private final AuthContext authContext;
+
+    public DashboardController(DashboardService dashboardService, AuthContext authContext) {
+        this.dashboardService = dashboardService;
+        this.authContext = authContext;
+    }
+
+    // Mengambil ringkasan dashboard; bagian yang melewati tenggat ada di incompleteSections
+    @GetMapping
+    public ResponseEntity<ApiResponse<DashboardSummary>> getDashboard() {
+
+        // Validasi autentikasi
+        if (!authContext.isAuthenticated()) {
+            return ResponseEntity.status(401).body(new ApiResponse<>("fail", "User tidak terautentikasi", null));
+        }
+        User authUser = authContext.getAuthUser();
+        authUser.setPassword(null); // Sembunyikan password dalam response
+
+        return ResponseEntity.ok(new ApiResponse<>("success", "Berhasil mendapatkan dashboard",
+                dashboardService.getDashboard(authUser)));
+    }
+}
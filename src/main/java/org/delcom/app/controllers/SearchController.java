@@ -0,0 +1,57 @@
+package org.delcom.app.controllers;
+
+import org.delcom.app.configs.AuthContext;
+import org.delcom.app.dto.UnifiedSearchResult;
+import org.delcom.app.entities.User;
+import org.delcom.app.services.UnifiedSearchService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Kontroler REST untuk kotak pencarian global (todo dan cash flow sekaligus).
+ */
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    // Batas atas jumlah hits gabungan
+    private static final int MAX_HITS = 50;
+
+    private final UnifiedSearchService unifiedSearchService;
+    private final AuthContext authContext;
+
+    public SearchController(UnifiedSearchService unifiedSearchService, AuthContext authContext) {
+        this.unifiedSearchService = unifiedSearchService;
+        this.authContext = authContext;
+    }
+
+    /**
+     * Mencari todo dan cash flow milik pengguna secara paralel lalu menggabungkan hasilnya
+     * berdasarkan skor. Sumber yang melewati tenggat dilaporkan di incompleteSources.
+     * @param q Query pencarian.
+     * @param limit Jumlah hits gabungan (1-50, default: 20).
+     * @return ResponseEntity dengan hits gabungan, atau error.
+     */
+    @GetMapping
+    public ResponseEntity<?> search(@RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (!authContext.isAuthenticated()) {
+            return new ResponseEntity<>("Unauthorized. User must be logged in.", HttpStatus.UNAUTHORIZED);
+        }
+        if (q.isBlank()) {
+            return new ResponseEntity<>("Query is required.", HttpStatus.BAD_REQUEST);
+        }
+        if (limit < 1 || limit > MAX_HITS) {
+            return new ResponseEntity<>("Invalid limit. Must be between 1 and " + MAX_HITS + ".",
+                    HttpStatus.BAD_REQUEST);
+        }
+
+        User user = authContext.getAuthUser();
+        UnifiedSearchResult result = unifiedSearchService.search(user.getId(), q.trim(), limit);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+}
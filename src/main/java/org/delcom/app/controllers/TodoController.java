@@ -6,8 +6,10 @@ import java.util.UUID;
 
 import org.delcom.app.configs.ApiResponse;
 import org.delcom.app.configs.AuthContext;
+import org.delcom.app.dto.TodoProgress;
 import org.delcom.app.entities.Todo;
 import org.delcom.app.entities.User;
+import org.delcom.app.services.IdempotencyService;
 import org.delcom.app.services.TodoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -25,18 +28,22 @@ import org.springframework.web.bind.annotation.PutMapping;
 @RequestMapping("/api/todos")
 public class TodoController {
     private final TodoService todoService;
+    private final IdempotencyService idempotencyService;
 
     @Autowired
     protected AuthContext authContext;
 
-    public TodoController(TodoService todoService) {
+    public TodoController(TodoService todoService, IdempotencyService idempotencyService) {
         this.todoService = todoService;
+        this.idempotencyService = idempotencyService;
     }
 
     // Menambahkan todo baru
+    // Header Idempotency-Key (opsional) mencegah todo ganda saat klien mengulang request
     // -------------------------------
     @PostMapping
-    public ResponseEntity<ApiResponse<Map<String, UUID>>> createTodo(@RequestBody Todo reqTodo) {
+    public ResponseEntity<?> createTodo(@RequestBody Todo reqTodo,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
 
         if (reqTodo.getTitle() == null || reqTodo.getTitle().isEmpty()) {
             return ResponseEntity.badRequest().body(new ApiResponse<>("fail", "Data title tidak valid", null));
@@ -50,7 +57,31 @@ public class TodoController {
         }
         User authUser = authContext.getAuthUser();
 
-        Todo newTodo = todoService.createTodo(authUser.getId(), reqTodo.getTitle(), reqTodo.getDescription());
+        if (idempotencyKey == null) {
+            return createTodo(authUser, reqTodo);
+        }
+        if (!IdempotencyService.isValidKey(idempotencyKey)) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("fail", "Header Idempotency-Key tidak valid", null));
+        }
+
+        byte[] requestHash = IdempotencyService.hashRequest("todos", reqTodo.getTitle(), reqTodo.getDescription(),
+                reqTodo.getParentId() != null ? reqTodo.getParentId().toString() : null);
+        ResponseEntity<?> response = idempotencyService.execute(authUser.getId(), idempotencyKey, requestHash,
+                () -> createTodo(authUser, reqTodo));
+        if (response == null) {
+            return ResponseEntity.status(409).body(new ApiResponse<>("fail",
+                    "Idempotency-Key sudah dipakai request lain atau request sebelumnya belum selesai", null));
+        }
+        return response;
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, UUID>>> createTodo(User authUser, Todo reqTodo) {
+        Todo newTodo = todoService.createTodo(authUser.getId(), reqTodo.getTitle(), reqTodo.getDescription(),
+                reqTodo.getParentId());
+        if (newTodo == null) {
+            return ResponseEntity.status(404).body(new ApiResponse<>("fail", "Data parent todo tidak ditemukan", null));
+        }
+
         return ResponseEntity.ok(new ApiResponse<Map<String, UUID>>(
                 "success",
                 "Todo berhasil dibuat",
@@ -96,6 +127,72 @@ public class TodoController {
                 Map.of("todo", todo)));
     }
 
+    // Mendapatkan seluruh subtask (semua kedalaman) dari sebuah todo
+    // -------------------------------
+    @GetMapping("/{id}/subtasks")
+    public ResponseEntity<ApiResponse<Map<String, List<Todo>>>> getSubtasks(@PathVariable UUID id) {
+        // Validasi autentikasi
+        if (!authContext.isAuthenticated()) {
+            return ResponseEntity.status(403).body(new ApiResponse<>("fail", "User tidak terautentikasi", null));
+        }
+        User authUser = authContext.getAuthUser();
+
+        List<Todo> subtasks = todoService.getSubtasks(authUser.getId(), id);
+        if (subtasks == null) {
+            return ResponseEntity.status(404).body(new ApiResponse<>("fail", "Data todo tidak ditemukan", null));
+        }
+
+        return ResponseEntity.ok(new ApiResponse<>(
+                "success",
+                "Daftar subtask berhasil diambil",
+                Map.of("todos", subtasks)));
+    }
+
+    // Mendapatkan progres subtask dari sebuah todo
+    // -------------------------------
+    @GetMapping("/{id}/progress")
+    public ResponseEntity<ApiResponse<Map<String, TodoProgress>>> getProgress(@PathVariable UUID id) {
+        // Validasi autentikasi
+        if (!authContext.isAuthenticated()) {
+            return ResponseEntity.status(403).body(new ApiResponse<>("fail", "User tidak terautentikasi", null));
+        }
+        User authUser = authContext.getAuthUser();
+
+        TodoProgress progress = todoService.getProgress(authUser.getId(), id);
+        if (progress == null) {
+            return ResponseEntity.status(404).body(new ApiResponse<>("fail", "Data todo tidak ditemukan", null));
+        }
+
+        return ResponseEntity.ok(new ApiResponse<>(
+                "success",
+                "Progres todo berhasil diambil",
+                Map.of("progress", progress)));
+    }
+
+    // Memindahkan todo (beserta subtask-nya) ke parent lain
+    // -------------------------------
+    @PutMapping("/{id}/parent")
+    public ResponseEntity<ApiResponse<Todo>> moveTodo(@PathVariable UUID id, @RequestBody Todo reqTodo) {
+        // Validasi autentikasi
+        if (!authContext.isAuthenticated()) {
+            return ResponseEntity.status(403).body(new ApiResponse<>("fail", "User tidak terautentikasi", null));
+        }
+        User authUser = authContext.getAuthUser();
+
+        UUID parentId = reqTodo.getParentId();
+        if (parentId != null && todoService.isInSubtree(id, parentId)) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>("fail", "Todo tidak dapat dipindahkan ke subtask-nya sendiri", null));
+        }
+
+        Todo movedTodo = todoService.moveTodo(authUser.getId(), id, parentId);
+        if (movedTodo == null) {
+            return ResponseEntity.status(404).body(new ApiResponse<>("fail", "Data todo tidak ditemukan", null));
+        }
+
+        return ResponseEntity.ok(new ApiResponse<>("success", "Todo berhasil dipindahkan", null));
+    }
+
     // Memperbarui todo berdasarkan ID
     // -------------------------------
     @PutMapping("/{id}")
@@ -124,6 +221,28 @@ public class TodoController {
         return ResponseEntity.ok(new ApiResponse<>("success", "Data todo berhasil diperbarui", null));
     }
 
+    // Mengubah status selesai todo saja (dapat di-coalesce saat toggle cepat)
+    // -------------------------------
+    @PutMapping("/{id}/status")
+    public ResponseEntity<ApiResponse<Todo>> updateTodoStatus(@PathVariable UUID id, @RequestBody Todo reqTodo) {
+        if (reqTodo.isFinished() == null) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>("fail", "Data isFinished tidak valid", null));
+        }
+
+        // Validasi autentikasi
+        if (!authContext.isAuthenticated()) {
+            return ResponseEntity.status(403).body(new ApiResponse<>("fail", "User tidak terautentikasi", null));
+        }
+        User authUser = authContext.getAuthUser();
+
+        boolean status = todoService.updateTodoStatus(authUser.getId(), id, reqTodo.isFinished());
+        if (!status) {
+            return ResponseEntity.status(404).body(new ApiResponse<>("fail", "Data todo tidak ditemukan", null));
+        }
+
+        return ResponseEntity.ok(new ApiResponse<>("success", "Status todo berhasil diperbarui", null));
+    }
+
     // Menghapus todo berdasarkan ID
     // -------------------------------
     @DeleteMapping("/{id}")
@@ -0,0 +1,11 @@
+package org.delcom.app.dto;
+
+import java.util.List;
+
+/**
+ * Hasil analitik cash flow dari snapshot in-memory: total per tipe, label, dan source,
+ * serta transaksi dengan amount terbesar.
+ */
+public record CashFlowAnalytics(List<CashFlowSummary> byType, List<CashFlowSummary> byLabel,
+        List<CashFlowSummary> bySource, List<CashFlowTopItem> top) {
+}
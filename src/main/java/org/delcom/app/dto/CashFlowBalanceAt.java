@@ -0,0 +1,7 @@
+package org.delcom.app.dto;
+
+import java.time.LocalDate;
+
+// Saldo kumulatif (Inflow - Outflow) sampai akhir tanggal date
+public record CashFlowBalanceAt(LocalDate date, long balance) {
+}
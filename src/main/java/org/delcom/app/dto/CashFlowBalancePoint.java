@@ -0,0 +1,7 @@
+package org.delcom.app.dto;
+
+import java.time.LocalDateTime;
+
+// Satu titik grafik saldo: saldo setelah transaksi pada waktu tersebut
+public record CashFlowBalancePoint(LocalDateTime time, long balance) {
+}
@@ -0,0 +1,10 @@
+package org.delcom.app.dto;
+
+import java.util.List;
+
+/**
+ * Deret saldo berjalan untuk grafik. totalPoints adalah jumlah titik sebelum downsampling;
+ * points berisi titik yang dipilih (paling banyak sejumlah yang diminta).
+ */
+public record CashFlowBalanceSeries(long openingBalance, int totalPoints, List<CashFlowBalancePoint> points) {
+}
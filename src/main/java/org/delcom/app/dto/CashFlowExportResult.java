@@ -0,0 +1,9 @@
+package org.delcom.app.dto;
+
+/**
+ * Hasil export cash flow: jumlah baris dan byte yang ditulis beserta durasi dan
+ * throughput. id hanya terisi untuk export ke file (dipakai untuk mengunduh file).
+ */
+public record CashFlowExportResult(String id, String format, long rows, long bytes, long elapsedMs,
+        long rowsPerSecond) {
+}
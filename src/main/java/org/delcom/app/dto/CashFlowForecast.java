@@ -0,0 +1,17 @@
+package org.delcom.app.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Proyeksi saldo akhir bulan ke depan dari simulasi Monte Carlo. Setiap bulan berisi
+ * persentil 5/25/50/75/95 saldo dari seluruh path. truncated bernilai true jika batas
+ * waktu simulasi habis sebelum semua path selesai (paths lebih kecil dari konfigurasi).
+ */
+public record CashFlowForecast(long startingBalance, int historyMonths, int paths, boolean truncated,
+        List<Month> months) {
+
+    // month selalu tanggal 1
+    public record Month(LocalDate month, long p5, long p25, long p50, long p75, long p95) {
+    }
+}
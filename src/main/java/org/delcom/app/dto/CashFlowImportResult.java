@@ -0,0 +1,14 @@
+package org.delcom.app.dto;
+
+import java.util.List;
+
+/**
+ * Hasil import massal cash flow: jumlah baris yang diterima dan ditolak, daftar
+ * kesalahan per baris (dibatasi jumlahnya), serta durasi dan throughput import.
+ */
+public record CashFlowImportResult(long accepted, long rejected, List<RowError> errors, boolean errorsTruncated,
+        long elapsedMs, long rowsPerSecond) {
+
+    public record RowError(long line, String message) {
+    }
+}
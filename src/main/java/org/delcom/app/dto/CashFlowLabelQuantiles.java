@@ -0,0 +1,8 @@
+package org.delcom.app.dto;
+
+// Distribusi amount transaksi satu label dari sketsa KLL. rankError adalah galat rank
+// ternormalisasi (mis. 0.0133 = kuantil yang dilaporkan berada dalam ±1,33% rank dari
+// kuantil sebenarnya). amountRank/unusual hanya diisi jika amount diminta.
+public record CashFlowLabelQuantiles(String label, long count, long min, long median, long p90, long p99,
+        long max, double rankError, Double amountRank, Boolean unusual) {
+}
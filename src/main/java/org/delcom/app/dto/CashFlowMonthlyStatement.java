@@ -0,0 +1,14 @@
+package org.delcom.app.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Laporan bulanan satu user: saldo awal dan akhir, total Inflow/Outflow, total per tipe
+ * dan per label, serta pengeluaran terbesar di bulan tersebut. month selalu tanggal 1.
+ */
+public record CashFlowMonthlyStatement(LocalDate month, long openingBalance, long totalInflow, long totalOutflow,
+        long closingBalance, long txCount, List<CashFlowSummary> byType, List<CashFlowSummary> byLabel,
+        List<CashFlowTopItem> topExpenses, LocalDateTime generatedAt) {
+}
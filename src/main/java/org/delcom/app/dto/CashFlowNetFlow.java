@@ -0,0 +1,7 @@
+package org.delcom.app.dto;
+
+import java.time.LocalDate;
+
+// Selisih Inflow - Outflow dari tanggal from s/d to (inklusif)
+public record CashFlowNetFlow(LocalDate from, LocalDate to, long netFlow) {
+}
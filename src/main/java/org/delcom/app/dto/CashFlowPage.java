@@ -0,0 +1,12 @@
+package org.delcom.app.dto;
+
+import java.util.List;
+
+import org.delcom.app.entities.CashFlow;
+
+/**
+ * Satu halaman daftar cash flow (terbaru dulu). nextCursor dikirim kembali sebagai
+ * parameter cursor untuk halaman berikutnya; null jika sudah halaman terakhir.
+ */
+public record CashFlowPage(List<CashFlow> items, String nextCursor) {
+}
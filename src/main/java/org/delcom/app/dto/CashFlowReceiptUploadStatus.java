@@ -0,0 +1,12 @@
+package org.delcom.app.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Status upload bukti transaksi. Chunk ke-i dimulai di byte i * chunkSize; missingChunks
+ * berisi chunk yang belum diterima (kosong berarti upload siap diselesaikan).
+ */
+public record CashFlowReceiptUploadStatus(UUID uploadId, UUID cashFlowId, String fileName, long size,
+        int chunkSize, int chunkCount, List<Integer> missingChunks) {
+}
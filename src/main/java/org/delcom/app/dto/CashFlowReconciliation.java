@@ -0,0 +1,26 @@
+package org.delcom.app.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.dto.CashFlowImportResult.RowError;
+
+/**
+ * Hasil rekonsiliasi rekening koran terhadap cash flow user. Setiap baris valid masuk
+ * tepat satu dari matched (satu cash flow terpilih), ambiguous (beberapa kandidat dengan
+ * skor hampir sama), atau unmatched (tidak ada cash flow dengan amount dan tanggal cocok).
+ */
+public record CashFlowReconciliation(List<Match> matched, List<Ambiguous> ambiguous, List<StatementLine> unmatched,
+        List<RowError> errors, boolean errorsTruncated, long elapsedMs) {
+
+    // type null berarti baris rekening koran tidak menentukan arah (cocok dengan Inflow maupun Outflow)
+    public record StatementLine(long line, LocalDate date, int amount, String type, String description) {
+    }
+
+    public record Match(StatementLine statement, UUID cashFlowId, double score) {
+    }
+
+    public record Ambiguous(StatementLine statement, List<UUID> candidateIds) {
+    }
+}
@@ -0,0 +1,22 @@
+package org.delcom.app.dto;
+
+import java.util.List;
+
+import org.delcom.app.entities.CashFlow;
+
+/**
+ * Hasil pencarian cash flow: hits terurut relevansi (BM25) dan hitungan facet dari
+ * seluruh dokumen yang cocok. byLabel dan byType terurut dari jumlah terbanyak, byMonth
+ * (yyyy-MM) dari bulan terbaru. indexing true jika indeks user masih dibangun di latar
+ * belakang sehingga hasil belum mencakup seluruh riwayat.
+ */
+public record CashFlowSearchResult(String query, long total, List<Hit> hits, List<Facet> byLabel,
+        List<Facet> byType, List<Facet> byMonth, boolean indexing, long elapsedMs) {
+
+    public record Hit(CashFlow cashFlow, double score) {
+    }
+
+    // value "" untuk transaksi tanpa label
+    public record Facet(String value, long count) {
+    }
+}
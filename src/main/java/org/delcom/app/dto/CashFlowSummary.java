@@ -0,0 +1,8 @@
+package org.delcom.app.dto;
+
+/**
+ * Satu baris hasil agregasi cash flow: kunci grup (type/label/source/periode),
+ * tipe transaksi, total amount, dan jumlah transaksi di grup tersebut.
+ */
+public record CashFlowSummary(String key, String type, long total, long count) {
+}
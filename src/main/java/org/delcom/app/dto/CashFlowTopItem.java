@@ -0,0 +1,9 @@
+package org.delcom.app.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Satu baris hasil top-N analitik in-memory
+public record CashFlowTopItem(UUID id, String type, String source, String label, long amount,
+        LocalDateTime createdAt) {
+}
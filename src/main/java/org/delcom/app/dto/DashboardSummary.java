@@ -0,0 +1,16 @@
+package org.delcom.app.dto;
+
+import java.util.List;
+
+import org.delcom.app.entities.Todo;
+import org.delcom.app.entities.User;
+
+/**
+ * Payload halaman utama dalam satu response: user, jumlah todo, todo terbaru, total
+ * cash flow per tipe, dan label. Bagian yang gagal atau melewati tenggat bernilai null
+ * dan dicantumkan di incompleteSections (hasil parsial).
+ */
+public record DashboardSummary(User user, TodoProgress todoCounts, List<Todo> recentTodos,
+        List<CashFlowSummary> cashFlowTotals, List<String> labels, List<String> incompleteSections,
+        long elapsedMs) {
+}
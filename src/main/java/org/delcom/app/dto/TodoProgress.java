@@ -0,0 +1,7 @@
+package org.delcom.app.dto;
+
+/**
+ * Ringkasan progres subtree todo: jumlah subtask dan berapa yang sudah selesai.
+ */
+public record TodoProgress(long total, long finished) {
+}
@@ -0,0 +1,17 @@
+package org.delcom.app.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hasil pencarian gabungan todo dan cash flow. hits terurut dari skor tertinggi; skor
+ * setiap sumber dinormalisasi ke (0, 1] terhadap skor tertinggi sumber tersebut.
+ * incompleteSources berisi sumber yang gagal atau melewati tenggat (hasil parsial).
+ */
+public record UnifiedSearchResult(String query, long todoTotal, long cashFlowTotal, List<Hit> hits,
+        List<String> incompleteSources, long elapsedMs) {
+
+    // item berisi Todo atau CashFlow sesuai source
+    public record Hit(String source, UUID id, double score, Object item) {
+    }
+}
@@ -1,11 +1,19 @@
 package org.delcom.app.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "cash_flows") 
+@Table(name = "cash_flows", indexes = {
+    // Keyset pagination daftar transaksi, filter rentang tanggal, dan GROUP BY pada endpoint ringkasan
+    @Index(name = "idx_cash_flows_user_created_id", columnList = "user_id, created_at, id"),
+    // Dipakai saat rename/penghapusan entri kamus yang tidak lagi dipakai
+    @Index(name = "idx_cash_flows_user_label_term", columnList = "user_id, label_id"),
+    @Index(name = "idx_cash_flows_user_source_term", columnList = "user_id, source_id")
+})
 public class CashFlow {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -16,14 +24,29 @@ public class CashFlow {
     @Column(name = "user_id", updatable = false, nullable = false, columnDefinition = "uuid")
     private UUID userId; 
     
-    @Column(name = "type", nullable = false)
+    // type, source, dan label disimpan sebagai id kamus (CashFlowTerm); nilai string
+    // hanya dipegang di memori agar JSON API tetap sama. Kolom dibuat nullable agar
+    // ddl-auto dapat menambahkannya ke tabel lama; NOT NULL dipasang oleh CashFlowTermMigration.
+    @Transient
     private String type; 
     
-    @Column(name = "source", nullable = false)
+    @Transient
     private String source; 
     
-    @Column(name = "label", nullable = false)
+    @Transient
     private String label; 
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "type_id")
+    private CashFlowTerm typeTerm;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "source_id")
+    private CashFlowTerm sourceTerm;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "label_id")
+    private CashFlowTerm labelTerm;
     
     @Column(name = "amount", nullable = false)
     private Integer amount;
@@ -70,16 +93,32 @@ public class CashFlow {
     public UUID getUserId() { return userId; }
     public void setUserId(UUID userId) { this.userId = userId; } 
     
-    public String getType() { return type; }
+    public String getType() { return type != null ? type : nameOf(typeTerm); }
     public void setType(String type) { this.type = type; }
-    public String getSource() { return source; }
+    public String getSource() { return source != null ? source : nameOf(sourceTerm); }
     public void setSource(String source) { this.source = source; }
-    public String getLabel() { return label; }
+    public String getLabel() { return label != null ? label : nameOf(labelTerm); }
     public void setLabel(String label) { this.label = label; }
+
+    // 👈 Referensi kamus, diisi oleh CashFlowService sebelum disimpan
+    @JsonIgnore
+    public CashFlowTerm getTypeTerm() { return typeTerm; }
+    public void setTypeTerm(CashFlowTerm typeTerm) { this.typeTerm = typeTerm; this.type = nameOf(typeTerm); }
+    @JsonIgnore
+    public CashFlowTerm getSourceTerm() { return sourceTerm; }
+    public void setSourceTerm(CashFlowTerm sourceTerm) { this.sourceTerm = sourceTerm; this.source = nameOf(sourceTerm); }
+    @JsonIgnore
+    public CashFlowTerm getLabelTerm() { return labelTerm; }
+    public void setLabelTerm(CashFlowTerm labelTerm) { this.labelTerm = labelTerm; this.label = nameOf(labelTerm); }
+
     public Integer getAmount() { return amount; }
     public void setAmount(double amount) { this.amount = (int) amount; }
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
+
+    private static String nameOf(CashFlowTerm term) {
+        return term != null ? term.getName() : null;
+    }
 }
\ No newline at end of file
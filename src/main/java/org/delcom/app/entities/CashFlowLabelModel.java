@@ -0,0 +1,47 @@
+package org.delcom.app.entities;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+/**
+ * Model naive Bayes deskripsi -> label per user (hasil NaiveBayesLabeler.toBytes).
+ * Ditulis ulang secara berkala oleh CashFlowLabelSuggestionService agar model tidak perlu
+ * dilatih dari seluruh riwayat transaksi setiap kali aplikasi dijalankan ulang.
+ */
+@Entity
+@Table(name = "cash_flow_label_models")
+public class CashFlowLabelModel {
+
+    @Id
+    @Column(name = "user_id", nullable = false, columnDefinition = "uuid")
+    private UUID userId;
+
+    @Column(name = "model", nullable = false, columnDefinition = "bytea")
+    private byte[] model;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public CashFlowLabelModel() {
+    }
+
+    public CashFlowLabelModel(UUID userId, byte[] model, LocalDateTime updatedAt) {
+        this.userId = userId;
+        this.model = model;
+        this.updatedAt = updatedAt;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public byte[] getModel() {
+        return model;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
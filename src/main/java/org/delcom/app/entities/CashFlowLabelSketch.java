@@ -0,0 +1,90 @@
+package org.delcom.app.entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+/**
+ * Sketsa kuantil (KLL, hasil KllSketch.toBytes) amount transaksi per user dan label.
+ * Ditulis ulang secara berkala oleh CashFlowQuantileService agar sketsa tidak perlu
+ * dibangun dari seluruh riwayat transaksi setiap kali aplikasi dijalankan ulang.
+ */
+@Entity
+@Table(name = "cash_flow_label_sketches")
+@IdClass(CashFlowLabelSketch.Key.class)
+public class CashFlowLabelSketch {
+
+    @Id
+    @Column(name = "user_id", nullable = false, columnDefinition = "uuid")
+    private UUID userId;
+
+    // String kosong untuk transaksi tanpa label
+    @Id
+    @Column(name = "label", nullable = false)
+    private String label;
+
+    @Column(name = "sketch", nullable = false, columnDefinition = "bytea")
+    private byte[] sketch;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public CashFlowLabelSketch() {
+    }
+
+    public CashFlowLabelSketch(UUID userId, String label, byte[] sketch, LocalDateTime updatedAt) {
+        this.userId = userId;
+        this.label = label;
+        this.sketch = sketch;
+        this.updatedAt = updatedAt;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public byte[] getSketch() {
+        return sketch;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    // ======= Composite Key =======
+    public static class Key implements Serializable {
+        private UUID userId;
+        private String label;
+
+        public Key() {
+        }
+
+        public Key(UUID userId, String label) {
+            this.userId = userId;
+            this.label = label;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(userId, other.userId) && Objects.equals(label, other.label);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, label);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.delcom.app.entities;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+/**
+ * Bukti transaksi (foto/PDF) yang dilampirkan ke cash flow. Isi file disimpan di disk
+ * berdasarkan hash SHA-256 per user, sehingga file yang sama yang diunggah ulang (untuk
+ * cash flow mana pun milik user tersebut) hanya disimpan sekali.
+ */
+@Entity
+@Table(name = "cash_flow_receipts", indexes = {
+    @Index(name = "idx_cash_flow_receipts_user_flow", columnList = "user_id, cash_flow_id")
+})
+public class CashFlowReceipt {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id", updatable = false, nullable = false, columnDefinition = "uuid")
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false, columnDefinition = "uuid")
+    private UUID userId;
+
+    @Column(name = "cash_flow_id", nullable = false, columnDefinition = "uuid")
+    private UUID cashFlowId;
+
+    // Hex SHA-256 isi file
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "content_type", nullable = false, length = 64)
+    private String contentType;
+
+    @Column(name = "size", nullable = false)
+    private long size;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public CashFlowReceipt() {
+    }
+
+    public CashFlowReceipt(UUID userId, UUID cashFlowId, String sha256, String fileName, String contentType,
+            long size, LocalDateTime createdAt) {
+        this.userId = userId;
+        this.cashFlowId = cashFlowId;
+        this.sha256 = sha256;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.size = size;
+        this.createdAt = createdAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public UUID getCashFlowId() {
+        return cashFlowId;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
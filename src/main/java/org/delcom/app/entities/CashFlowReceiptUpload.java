@@ -0,0 +1,134 @@
+package org.delcom.app.entities;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+/**
+ * Upload bukti transaksi (foto/PDF) yang sedang berjalan. Isi file ditulis per chunk ke
+ * file sementara; kolom received adalah bitmap chunk yang sudah diterima (bit ke-i =
+ * bit (i % 8) dari byte i / 8, sama dengan penomoran set_bit PostgreSQL), sehingga upload
+ * yang terputus dilanjutkan dari chunk yang belum diterima.
+ */
+@Entity
+@Table(name = "cash_flow_receipt_uploads", indexes = {
+    // Garbage collection upload yang ditinggalkan
+    @Index(name = "idx_cash_flow_receipt_uploads_updated", columnList = "updated_at")
+})
+public class CashFlowReceiptUpload {
+
+    @Id
+    @Column(name = "id", nullable = false, columnDefinition = "uuid")
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false, columnDefinition = "uuid")
+    private UUID userId;
+
+    @Column(name = "cash_flow_id", nullable = false, columnDefinition = "uuid")
+    private UUID cashFlowId;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "content_type", nullable = false, length = 64)
+    private String contentType;
+
+    @Column(name = "size", nullable = false)
+    private long size;
+
+    @Column(name = "chunk_size", nullable = false)
+    private int chunkSize;
+
+    @Column(name = "received", nullable = false, columnDefinition = "bytea")
+    private byte[] received;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public CashFlowReceiptUpload() {
+    }
+
+    public CashFlowReceiptUpload(UUID id, UUID userId, UUID cashFlowId, String fileName, String contentType,
+            long size, int chunkSize, LocalDateTime createdAt) {
+        this.id = id;
+        this.userId = userId;
+        this.cashFlowId = cashFlowId;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.received = new byte[(getChunkCount() + 7) / 8];
+        this.createdAt = createdAt;
+        this.updatedAt = createdAt;
+    }
+
+    public int getChunkCount() {
+        return (int) ((size + chunkSize - 1) / chunkSize);
+    }
+
+    // Panjang chunk ke-index; chunk terakhir bisa lebih pendek dari chunkSize
+    public long getChunkLength(int index) {
+        return Math.min(chunkSize, size - (long) index * chunkSize);
+    }
+
+    public boolean isReceived(int index) {
+        return (received[index >> 3] & (1 << (index & 7))) != 0;
+    }
+
+    public void markReceived(int index, LocalDateTime now) {
+        received[index >> 3] |= (byte) (1 << (index & 7));
+        this.updatedAt = now;
+    }
+
+    public List<Integer> getMissingChunks() {
+        List<Integer> missing = new ArrayList<>();
+        for (int index = 0; index < getChunkCount(); index++) {
+            if (!isReceived(index)) {
+                missing.add(index);
+            }
+        }
+        return missing;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public UUID getCashFlowId() {
+        return cashFlowId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,112 @@
+package org.delcom.app.entities;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+/**
+ * Ringkasan bulanan CashFlow per user, tipe, dan label. Baris ini dipelihara secara
+ * inkremental oleh CashFlowRollupService di transaksi yang sama dengan perubahan CashFlow.
+ */
+@Entity
+@Table(name = "cash_flow_rollups")
+@IdClass(CashFlowRollup.Key.class)
+public class CashFlowRollup {
+
+    @Id
+    @Column(name = "user_id", nullable = false, columnDefinition = "uuid")
+    private UUID userId;
+
+    // Selalu tanggal 1 pada bulan tersebut
+    @Id
+    @Column(name = "month", nullable = false)
+    private LocalDate month;
+
+    @Id
+    @Column(name = "type", nullable = false)
+    private String type;
+
+    @Id
+    @Column(name = "label", nullable = false)
+    private String label;
+
+    @Column(name = "total_amount", nullable = false)
+    private long totalAmount;
+
+    @Column(name = "tx_count", nullable = false)
+    private long txCount;
+
+    public CashFlowRollup() {
+    }
+
+    public CashFlowRollup(UUID userId, LocalDate month, String type, String label, long totalAmount, long txCount) {
+        this.userId = userId;
+        this.month = month;
+        this.type = type;
+        this.label = label;
+        this.totalAmount = totalAmount;
+        this.txCount = txCount;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public LocalDate getMonth() {
+        return month;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getTotalAmount() {
+        return totalAmount;
+    }
+
+    public long getTxCount() {
+        return txCount;
+    }
+
+    // ======= Composite Key =======
+    public static class Key implements Serializable {
+        private UUID userId;
+        private LocalDate month;
+        private String type;
+        private String label;
+
+        public Key() {
+        }
+
+        public Key(UUID userId, LocalDate month, String type, String label) {
+            this.userId = userId;
+            this.month = month;
+            this.type = type;
+            this.label = label;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(userId, other.userId) && Objects.equals(month, other.month)
+                    && Objects.equals(type, other.type) && Objects.equals(label, other.label);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, month, type, label);
+        }
+    }
+}
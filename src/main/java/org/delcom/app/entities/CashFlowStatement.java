@@ -0,0 +1,108 @@
+package org.delcom.app.entities;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+/**
+ * Laporan bulanan hasil batch CashFlowStatementService. Isi lengkap laporan
+ * (CashFlowMonthlyStatement) disimpan sebagai JSON; saldo akhir dan jumlah transaksi
+ * disimpan sebagai kolom agar dapat di-query langsung.
+ */
+@Entity
+@Table(name = "cash_flow_statements")
+@IdClass(CashFlowStatement.Key.class)
+public class CashFlowStatement {
+
+    @Id
+    @Column(name = "user_id", nullable = false, columnDefinition = "uuid")
+    private UUID userId;
+
+    // Selalu tanggal 1 pada bulan tersebut
+    @Id
+    @Column(name = "month", nullable = false)
+    private LocalDate month;
+
+    @Column(name = "closing_balance", nullable = false)
+    private long closingBalance;
+
+    @Column(name = "tx_count", nullable = false)
+    private long txCount;
+
+    @Column(name = "content", nullable = false, columnDefinition = "TEXT")
+    private String content;
+
+    @Column(name = "generated_at", nullable = false)
+    private LocalDateTime generatedAt;
+
+    public CashFlowStatement() {
+    }
+
+    public CashFlowStatement(UUID userId, LocalDate month, long closingBalance, long txCount, String content,
+            LocalDateTime generatedAt) {
+        this.userId = userId;
+        this.month = month;
+        this.closingBalance = closingBalance;
+        this.txCount = txCount;
+        this.content = content;
+        this.generatedAt = generatedAt;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public LocalDate getMonth() {
+        return month;
+    }
+
+    public long getClosingBalance() {
+        return closingBalance;
+    }
+
+    public long getTxCount() {
+        return txCount;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+
+    // ======= Composite Key =======
+    public static class Key implements Serializable {
+        private UUID userId;
+        private LocalDate month;
+
+        public Key() {
+        }
+
+        public Key(UUID userId, LocalDate month) {
+            this.userId = userId;
+            this.month = month;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(userId, other.userId) && Objects.equals(month, other.month);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, month);
+        }
+    }
+}
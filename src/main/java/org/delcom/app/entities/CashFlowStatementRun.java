@@ -0,0 +1,124 @@
+package org.delcom.app.entities;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+/**
+ * Checkpoint batch laporan bulanan. User diproses berurutan menurut id; checkpointUserId
+ * adalah id terbesar yang seluruh user sebelumnya sudah selesai diproses, sehingga run
+ * yang terputus dilanjutkan dari user setelahnya. User yang laporannya gagal dibuat
+ * disimpan di failedUserIds dan harus berhasil dicoba ulang sebelum run selesai.
+ */
+@Entity
+@Table(name = "cash_flow_statement_runs")
+public class CashFlowStatementRun {
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+
+    // Selalu tanggal 1 pada bulan laporan
+    @Id
+    @Column(name = "month", nullable = false)
+    private LocalDate month;
+
+    @Column(name = "status", nullable = false, length = 16)
+    private String status;
+
+    // Null sebelum chunk pertama selesai
+    @Column(name = "checkpoint_user_id", columnDefinition = "uuid")
+    private UUID checkpointUserId;
+
+    @Column(name = "processed_users", nullable = false)
+    private long processedUsers;
+
+    // Jumlah user di failedUserIds
+    @Column(name = "failed_users", nullable = false)
+    private long failedUsers;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "cash_flow_statement_run_failures", joinColumns = @JoinColumn(name = "month"))
+    @Column(name = "user_id", nullable = false, columnDefinition = "uuid")
+    private Set<UUID> failedUserIds = new LinkedHashSet<>();
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public CashFlowStatementRun() {
+    }
+
+    public CashFlowStatementRun(LocalDate month, LocalDateTime startedAt) {
+        this.month = month;
+        this.status = RUNNING;
+        this.startedAt = startedAt;
+        this.updatedAt = startedAt;
+    }
+
+    public void checkpoint(UUID userId, long processed, Collection<UUID> failed, LocalDateTime now) {
+        this.checkpointUserId = userId;
+        this.processedUsers += processed;
+        this.failedUserIds.addAll(failed);
+        this.failedUsers = failedUserIds.size();
+        this.updatedAt = now;
+    }
+
+    // User gagal yang berhasil diproses saat dicoba ulang
+    public void recover(Collection<UUID> recovered, LocalDateTime now) {
+        this.failedUserIds.removeAll(recovered);
+        this.processedUsers += recovered.size();
+        this.failedUsers = failedUserIds.size();
+        this.updatedAt = now;
+    }
+
+    public void complete(LocalDateTime now) {
+        this.status = COMPLETED;
+        this.updatedAt = now;
+        this.completedAt = now;
+    }
+
+    public LocalDate getMonth() {
+        return month;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public UUID getCheckpointUserId() {
+        return checkpointUserId;
+    }
+
+    public long getProcessedUsers() {
+        return processedUsers;
+    }
+
+    public long getFailedUsers() {
+        return failedUsers;
+    }
+
+    public Set<UUID> getFailedUserIds() {
+        return failedUserIds;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+}
@@ -0,0 +1,70 @@
+package org.delcom.app.entities;
+
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+/**
+ * Kamus nilai type, source, dan label CashFlow per user. Baris cash_flows hanya
+ * menyimpan id integer ke tabel ini, sehingga daftar label unik dan rename label
+ * cukup membaca/mengubah kamus, bukan seluruh riwayat transaksi.
+ */
+@Entity
+@Table(name = "cash_flow_terms", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_cash_flow_terms_user_kind_name", columnNames = { "user_id", "kind", "name" })
+})
+public class CashFlowTerm {
+
+    // Disimpan sebagai ordinal (smallint); urutan konstanta tidak boleh diubah
+    public enum Kind {
+        TYPE, SOURCE, LABEL
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", updatable = false, nullable = false)
+    private Integer id;
+
+    @Column(name = "user_id", updatable = false, nullable = false, columnDefinition = "uuid")
+    private UUID userId;
+
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "kind", updatable = false, nullable = false, columnDefinition = "smallint")
+    private Kind kind;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    public CashFlowTerm() {
+    }
+
+    public CashFlowTerm(UUID userId, Kind kind, String name) {
+        this.userId = userId;
+        this.kind = kind;
+        this.name = name;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,111 @@
+package org.delcom.app.entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+/**
+ * Hasil request POST yang dikirim dengan header Idempotency-Key. Baris dibuat (status
+ * masih null) sebelum request diproses, lalu diisi response-nya setelah selesai, sehingga
+ * request ulang dengan key yang sama dapat dijawab tanpa menulis data lagi.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+    // Penghapusan key kedaluwarsa secara bertahap
+    @Index(name = "idx_idempotency_keys_expires", columnList = "expires_at")
+})
+@IdClass(IdempotencyRecord.Key.class)
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "user_id", nullable = false, columnDefinition = "uuid")
+    private UUID userId;
+
+    @Id
+    @Column(name = "idem_key", nullable = false, length = 255)
+    private String idemKey;
+
+    // SHA-256 dari isi request; key yang sama dengan isi berbeda ditolak
+    @Column(name = "request_hash", nullable = false, columnDefinition = "bytea")
+    private byte[] requestHash;
+
+    // Null selama request pertama masih diproses
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(UUID userId, String idemKey, byte[] requestHash, Integer statusCode,
+            String responseBody, LocalDateTime expiresAt) {
+        this.userId = userId;
+        this.idemKey = idemKey;
+        this.requestHash = requestHash;
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+        this.expiresAt = expiresAt;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public String getIdemKey() {
+        return idemKey;
+    }
+
+    public byte[] getRequestHash() {
+        return requestHash;
+    }
+
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    // ======= Composite Key =======
+    public static class Key implements Serializable {
+        private UUID userId;
+        private String idemKey;
+
+        public Key() {
+        }
+
+        public Key(UUID userId, String idemKey) {
+            this.userId = userId;
+            this.idemKey = idemKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(userId, other.userId) && Objects.equals(idemKey, other.idemKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, idemKey);
+        }
+    }
+}
@@ -6,7 +6,9 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "todos")
+@Table(name = "todos", indexes = {
+        @Index(name = "idx_todos_user_parent", columnList = "user_id, parent_id")
+})
 public class Todo {
 
     @Id
@@ -17,6 +19,10 @@ public class Todo {
     @Column(name = "user_id", nullable = false)
     private UUID userId;
 
+    // Null untuk todo level teratas, selain itu ID todo induk (subtask)
+    @Column(name = "parent_id", nullable = true, columnDefinition = "uuid")
+    private UUID parentId;
+
     @Column(name = "title", nullable = false)
     private String title;
 
@@ -63,6 +69,14 @@ public class Todo {
         this.userId = userId;
     }
 
+    public UUID getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(UUID parentId) {
+        this.parentId = parentId;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -0,0 +1,83 @@
+package org.delcom.app.entities;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+/**
+ * Closure table untuk hierarki todo. Setiap pasangan (ancestor, descendant)
+ * disimpan sebagai satu baris, termasuk baris diri sendiri dengan depth 0,
+ * sehingga seluruh subtree dapat diambil dengan satu query ber-index.
+ */
+@Entity
+@Table(name = "todo_closures", indexes = {
+        @Index(name = "idx_todo_closures_ancestor_depth", columnList = "ancestor_id, depth"),
+        @Index(name = "idx_todo_closures_descendant", columnList = "descendant_id")
+})
+@IdClass(TodoClosure.Key.class)
+public class TodoClosure {
+
+    @Id
+    @Column(name = "ancestor_id", nullable = false, columnDefinition = "uuid")
+    private UUID ancestorId;
+
+    @Id
+    @Column(name = "descendant_id", nullable = false, columnDefinition = "uuid")
+    private UUID descendantId;
+
+    @Column(name = "depth", nullable = false)
+    private int depth;
+
+    public TodoClosure() {
+    }
+
+    public TodoClosure(UUID ancestorId, UUID descendantId, int depth) {
+        this.ancestorId = ancestorId;
+        this.descendantId = descendantId;
+        this.depth = depth;
+    }
+
+    public UUID getAncestorId() {
+        return ancestorId;
+    }
+
+    public UUID getDescendantId() {
+        return descendantId;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    // ======= Composite Key =======
+    public static class Key implements Serializable {
+        private UUID ancestorId;
+        private UUID descendantId;
+
+        public Key() {
+        }
+
+        public Key(UUID ancestorId, UUID descendantId) {
+            this.ancestorId = ancestorId;
+            this.descendantId = descendantId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(ancestorId, other.ancestorId) && Objects.equals(descendantId, other.descendantId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ancestorId, descendantId);
+        }
+    }
+}
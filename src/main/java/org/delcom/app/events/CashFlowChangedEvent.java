@@ -0,0 +1,37 @@
+package org.delcom.app.events;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.delcom.app.entities.CashFlow;
+
+/**
+ * Dipublikasikan oleh CashFlowService setiap kali CashFlow dibuat, diubah, atau dihapus.
+ * before bernilai null saat create, after bernilai null saat delete.
+ */
+public record CashFlowChangedEvent(Snapshot before, Snapshot after) {
+
+    /**
+     * Salinan nilai CashFlow pada satu titik waktu (entity bersifat mutable,
+     * sehingga nilai lama harus disalin sebelum di-update).
+     */
+    public record Snapshot(UUID id, UUID userId, String type, String source, String label, int amount,
+            String description, LocalDateTime createdAt) {
+
+        public static Snapshot of(CashFlow flow) {
+            return new Snapshot(
+                    flow.getId(),
+                    flow.getUserId(),
+                    flow.getType(),
+                    flow.getSource(),
+                    flow.getLabel(),
+                    flow.getAmount() != null ? flow.getAmount() : 0,
+                    flow.getDescription(),
+                    flow.getCreatedAt() != null ? flow.getCreatedAt() : LocalDateTime.now());
+        }
+    }
+
+    public UUID userId() {
+        return after != null ? after.userId() : before.userId();
+    }
+}
@@ -0,0 +1,10 @@
+package org.delcom.app.events;
+
+import java.util.UUID;
+
+/**
+ * Dipublikasikan oleh CashFlowImportService setelah import massal menyimpan
+ * setidaknya satu CashFlow milik user.
+ */
+public record CashFlowImportedEvent(UUID userId, long count) {
+}
@@ -0,0 +1,10 @@
+package org.delcom.app.events;
+
+import java.util.UUID;
+
+/**
+ * Dipublikasikan oleh CashFlowService saat label milik user diganti namanya
+ * (termasuk digabung ke label lain yang sudah ada).
+ */
+public record CashFlowLabelRenamedEvent(UUID userId, String from, String to) {
+}
@@ -1,6 +1,7 @@
 package org.delcom.app.interceptors;
 
 import org.delcom.app.configs.AuthContext;
+import org.delcom.app.configs.ReplicaRoutingDataSource;
 import org.delcom.app.entities.AuthToken;
 import org.delcom.app.entities.User;
 import org.delcom.app.services.AuthTokenService;
@@ -74,9 +75,18 @@ public class AuthInterceptor implements HandlerInterceptor {
 
         // Set user ke auth context
         authContext.setAuthUser(authUser);
+
+        // Transaksi read-only user ini boleh diarahkan ke replica (jika dikonfigurasi)
+        ReplicaRoutingDataSource.setCurrentUser(authUser.getId());
         return true;
     }
 
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        ReplicaRoutingDataSource.clearCurrentUser();
+    }
+
     private String extractToken(String rawAuthToken) {
         if (rawAuthToken != null && rawAuthToken.startsWith("Bearer ")) {
             return rawAuthToken.substring(7); // hapus "Bearer "
@@ -0,0 +1,16 @@
+package org.delcom.app.repositories;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.entities.CashFlowLabelModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CashFlowLabelModelRepository extends JpaRepository<CashFlowLabelModel, UUID> {
+
+    @Query("SELECT m.userId FROM CashFlowLabelModel m")
+    List<UUID> findAllUserIds();
+}
@@ -0,0 +1,24 @@
+package org.delcom.app.repositories;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.entities.CashFlowLabelSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CashFlowLabelSketchRepository extends JpaRepository<CashFlowLabelSketch, CashFlowLabelSketch.Key> {
+
+    List<CashFlowLabelSketch> findByUserId(UUID userId);
+
+    @Query("SELECT DISTINCT s.userId FROM CashFlowLabelSketch s")
+    List<UUID> findDistinctUserIds();
+
+    @Modifying
+    @Query("DELETE FROM CashFlowLabelSketch s WHERE s.userId = :userId")
+    void deleteByUserId(@Param("userId") UUID userId);
+}
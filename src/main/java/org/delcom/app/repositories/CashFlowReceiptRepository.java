@@ -0,0 +1,29 @@
+package org.delcom.app.repositories;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.entities.CashFlowReceipt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CashFlowReceiptRepository extends JpaRepository<CashFlowReceipt, UUID> {
+
+    CashFlowReceipt findByUserIdAndId(UUID userId, UUID id);
+
+    List<CashFlowReceipt> findByUserIdAndCashFlowIdOrderByCreatedAt(UUID userId, UUID cashFlowId);
+
+    CashFlowReceipt findFirstByUserIdAndCashFlowIdAndSha256(UUID userId, UUID cashFlowId, String sha256);
+
+    // Blob per user dipakai bersama; blob dihapus hanya jika tidak ada lagi bukti yang memakainya
+    boolean existsByUserIdAndSha256(UUID userId, String sha256);
+
+    // Kunci advisory per blob sampai akhir transaksi, agar pemakaian ulang blob saat complete
+    // dan penghapusan blob yang tidak dipakai lagi tidak berjalan bersamaan
+    @Query(value = "SELECT COUNT(*) FROM pg_advisory_xact_lock(" +
+            "hashtextextended(CAST(:userId AS text) || '/' || :sha256, 0))", nativeQuery = true)
+    long lockBlob(@Param("userId") UUID userId, @Param("sha256") String sha256);
+}
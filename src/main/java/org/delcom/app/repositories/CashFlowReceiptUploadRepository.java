@@ -0,0 +1,36 @@
+package org.delcom.app.repositories;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.delcom.app.entities.CashFlowReceiptUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CashFlowReceiptUploadRepository extends JpaRepository<CashFlowReceiptUpload, UUID> {
+
+    CashFlowReceiptUpload findByIdAndUserId(UUID id, UUID userId);
+
+    // Set bit secara atomik agar chunk yang diunggah bersamaan tidak saling menimpa bitmap
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE cash_flow_receipt_uploads SET received = set_bit(received, :chunk, 1), " +
+            "updated_at = :now WHERE id = :id", nativeQuery = true)
+    int markReceived(@Param("id") UUID id, @Param("chunk") int chunk, @Param("now") LocalDateTime now);
+
+    // Klaim upload untuk diselesaikan: hanya satu request yang berhasil menghapus baris
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CashFlowReceiptUpload u WHERE u.id = :id")
+    int claim(@Param("id") UUID id);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CashFlowReceiptUpload u WHERE u.updatedAt < :threshold")
+    int deleteByUpdatedAtBefore(@Param("threshold") LocalDateTime threshold);
+}
@@ -1,11 +1,18 @@
 package org.delcom.app.repositories; 
 
+import org.delcom.app.dto.CashFlowSummary;
 import org.delcom.app.entities.CashFlow;
+import org.delcom.app.entities.CashFlowTerm;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param; // 👈 Import untuk @Param
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,22 +21,163 @@ public interface CashFlowRepository extends JpaRepository<CashFlow, UUID> {
     
     // Wajib: findByKeyword untuk pencarian (sesuai Test TA)
     // 👈 Modifikasi Query: Tambahkan WHERE c.userId = :userId
-    @Query("SELECT c FROM CashFlow c WHERE c.userId = :userId AND (" + 
-            "LOWER(c.type) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(c.source) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(c.label) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+    // type/source/label diambil dari kamus dengan JOIN FETCH (tanpa query tambahan per baris)
+    @Query("SELECT c FROM CashFlow c JOIN FETCH c.typeTerm t JOIN FETCH c.sourceTerm s JOIN FETCH c.labelTerm l " +
+            "WHERE c.userId = :userId AND (" + 
+            "LOWER(t.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+            "LOWER(s.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+            "LOWER(l.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
             "LOWER(c.description) LIKE LOWER(CONCAT('%', :keyword, '%')))")
     List<CashFlow> findByKeyword(@Param("userId") UUID userId, @Param("keyword") String keyword); // 👈 Tambahkan userId
 
+    // Seluruh transaksi user tanpa predikat keyword (dipakai saat keyword kosong)
+    @Query("SELECT c FROM CashFlow c JOIN FETCH c.typeTerm JOIN FETCH c.sourceTerm JOIN FETCH c.labelTerm " +
+            "WHERE c.userId = :userId ORDER BY c.createdAt DESC, c.id DESC")
+    List<CashFlow> findAllByUserId(@Param("userId") UUID userId);
+
+    // Keyset pagination (terbaru dulu): baris setelah (afterCreatedAt, afterId) dalam rentang [from, to).
+    // Dilayani oleh indeks (user_id, created_at, id), sehingga biaya per halaman tidak bergantung pada
+    // kedalaman halaman. typeId/labelId null berarti tanpa filter.
+    @Query("SELECT c FROM CashFlow c JOIN FETCH c.typeTerm t JOIN FETCH c.sourceTerm JOIN FETCH c.labelTerm l " +
+            "WHERE c.userId = :userId AND c.createdAt >= :from AND c.createdAt < :to " +
+            "AND (c.createdAt, c.id) < (:afterCreatedAt, :afterId) " +
+            "AND (:typeId IS NULL OR t.id = :typeId) AND (:labelId IS NULL OR l.id = :labelId) " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<CashFlow> findPage(@Param("userId") UUID userId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to, @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+            @Param("afterId") UUID afterId, @Param("typeId") Integer typeId, @Param("labelId") Integer labelId,
+            Pageable pageable);
+
     // Wajib: findDistinctLabels (sesuai Test TA)
     // 👈 Modifikasi Query: Tambahkan WHERE c.userId = :userId
-    @Query("SELECT DISTINCT c.label FROM CashFlow c WHERE c.userId = :userId")
-    List<String> findDistinctLabels(@Param("userId") UUID userId); // 👈 Tambahkan userId
+    // Dibaca dari kamus label (sebanding ukuran kamus, bukan seluruh riwayat transaksi)
+    default List<String> findDistinctLabels(UUID userId) { // 👈 Tambahkan userId
+        return findTermNames(userId, CashFlowTerm.Kind.LABEL);
+    }
+
+    @Query("SELECT t.name FROM CashFlowTerm t WHERE t.userId = :userId AND t.kind = :kind ORDER BY t.name")
+    List<String> findTermNames(@Param("userId") UUID userId, @Param("kind") CashFlowTerm.Kind kind);
     
     // Opsional: Untuk membantu operasi CRUD non-Query, buat method findByUserIdAndId
     // Spring Data JPA akan mengimplementasikannya secara otomatis
+    @EntityGraph(attributePaths = { "typeTerm", "sourceTerm", "labelTerm" })
     CashFlow findByUserIdAndId(UUID userId, UUID id);
     
     // Opsional: Untuk membantu operasi Delete
     boolean existsByUserIdAndId(UUID userId, UUID id);
+
+    // Sama dengan existsByUserIdAndId, tetapi baris dikunci (FOR KEY SHARE) sampai akhir transaksi
+    // sehingga delete yang bersamaan menunggu transaksi ini selesai
+    @Query(value = "SELECT COUNT(*) FROM (SELECT 1 FROM cash_flows WHERE user_id = :userId AND id = :id " +
+            "FOR KEY SHARE) c", nativeQuery = true)
+    long lockByUserIdAndId(@Param("userId") UUID userId, @Param("id") UUID id);
+
+    // Agregasi: total & jumlah transaksi per grup dalam rentang [from, to)
+    @Query("SELECT new org.delcom.app.dto.CashFlowSummary(t.name, t.name, SUM(c.amount), COUNT(c)) " +
+            "FROM CashFlow c JOIN c.typeTerm t " +
+            "WHERE c.userId = :userId AND c.createdAt >= :from AND c.createdAt < :to " +
+            "GROUP BY t.name ORDER BY t.name")
+    List<CashFlowSummary> sumByType(@Param("userId") UUID userId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    @Query("SELECT new org.delcom.app.dto.CashFlowSummary(l.name, t.name, SUM(c.amount), COUNT(c)) " +
+            "FROM CashFlow c JOIN c.typeTerm t JOIN c.labelTerm l " +
+            "WHERE c.userId = :userId AND c.createdAt >= :from AND c.createdAt < :to " +
+            "GROUP BY l.name, t.name ORDER BY l.name, t.name")
+    List<CashFlowSummary> sumByLabel(@Param("userId") UUID userId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    @Query("SELECT new org.delcom.app.dto.CashFlowSummary(s.name, t.name, SUM(c.amount), COUNT(c)) " +
+            "FROM CashFlow c JOIN c.typeTerm t JOIN c.sourceTerm s " +
+            "WHERE c.userId = :userId AND c.createdAt >= :from AND c.createdAt < :to " +
+            "GROUP BY s.name, t.name ORDER BY s.name, t.name")
+    List<CashFlowSummary> sumBySource(@Param("userId") UUID userId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    // unit: 'day' | 'week' | 'month' (argumen date_trunc PostgreSQL)
+    // Kolom: [periode (yyyy-mm-dd), type, total, count]
+    @Query(value = "SELECT to_char(date_trunc(:unit, c.created_at), 'YYYY-MM-DD'), t.name, " +
+            "SUM(c.amount), COUNT(*) FROM cash_flows c JOIN cash_flow_terms t ON t.id = c.type_id " +
+            "WHERE c.user_id = :userId AND c.created_at >= :from AND c.created_at < :to " +
+            "GROUP BY 1, 2 ORDER BY 1, 2", nativeQuery = true)
+    List<Object[]> sumByPeriod(@Param("userId") UUID userId, @Param("unit") String unit,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Agregasi bulanan mentah untuk verifikasi rollup
+    // Kolom: [bulan (yyyy-mm-dd), type, label, total, count]
+    @Query(value = "SELECT to_char(date_trunc('month', c.created_at), 'YYYY-MM-DD'), t.name, " +
+            "COALESCE(l.name, ''), SUM(c.amount), COUNT(*) FROM cash_flows c " +
+            "JOIN cash_flow_terms t ON t.id = c.type_id LEFT JOIN cash_flow_terms l ON l.id = c.label_id " +
+            "WHERE c.user_id = :userId " +
+            "GROUP BY 1, 2, 3", nativeQuery = true)
+    List<Object[]> aggregateMonthly(@Param("userId") UUID userId);
+
+    // Proyeksi kolom untuk snapshot analitik in-memory
+    // Kolom: [id, type, source, label, amount, createdAt]
+    @Query("SELECT c.id, t.name, s.name, l.name, c.amount, c.createdAt FROM CashFlow c " +
+            "JOIN c.typeTerm t LEFT JOIN c.sourceTerm s LEFT JOIN c.labelTerm l WHERE c.userId = :userId")
+    List<Object[]> findColumnsByUserId(@Param("userId") UUID userId);
+
+    // Transaksi user dalam rentang [from, to) untuk laporan bulanan. Kolom: [id, type, source, label, amount, createdAt]
+    @Query("SELECT c.id, t.name, s.name, l.name, c.amount, c.createdAt FROM CashFlow c " +
+            "JOIN c.typeTerm t LEFT JOIN c.sourceTerm s LEFT JOIN c.labelTerm l " +
+            "WHERE c.userId = :userId AND c.createdAt >= :from AND c.createdAt < :to")
+    List<Object[]> findColumnsInRange(@Param("userId") UUID userId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    // Jumlah bertanda (Inflow positif, Outflow negatif) per tanggal untuk indeks saldo
+    // Kolom: [tanggal (yyyy-mm-dd), total]
+    @Query(value = "SELECT to_char(c.created_at, 'YYYY-MM-DD'), " +
+            "SUM(CASE t.name WHEN 'Inflow' THEN c.amount WHEN 'Outflow' THEN -c.amount ELSE 0 END) " +
+            "FROM cash_flows c JOIN cash_flow_terms t ON t.id = c.type_id " +
+            "WHERE c.user_id = :userId GROUP BY 1", nativeQuery = true)
+    List<Object[]> sumSignedByDay(@Param("userId") UUID userId);
+
+    // Kandidat rekonsiliasi rekening koran dalam rentang [from, to). Kolom: [id, type, amount, createdAt, description]
+    @Query("SELECT c.id, t.name, c.amount, c.createdAt, c.description FROM CashFlow c JOIN c.typeTerm t " +
+            "WHERE c.userId = :userId AND c.createdAt >= :from AND c.createdAt < :to")
+    List<Object[]> findReconcileColumns(@Param("userId") UUID userId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    // Amount seluruh transaksi user per label untuk membangun sketsa kuantil. Kolom: [label, amount]
+    @Query("SELECT l.name, c.amount FROM CashFlow c LEFT JOIN c.labelTerm l WHERE c.userId = :userId")
+    List<Object[]> findLabelAmounts(@Param("userId") UUID userId);
+
+    // Pasangan label-deskripsi transaksi berlabel untuk melatih saran label. Kolom: [label, description]
+    @Query("SELECT l.name, c.description FROM CashFlow c JOIN c.labelTerm l WHERE c.userId = :userId")
+    List<Object[]> findLabelDescriptions(@Param("userId") UUID userId);
+
+    // Seluruh transaksi user untuk membangun indeks pencarian.
+    // Cash flow user berurutan setelah after (keyset), untuk membangun indeks pencarian per halaman.
+    // Kolom: [id, type, source, label, amount, description, createdAt]
+    @Query("SELECT c.id, t.name, s.name, l.name, c.amount, c.description, c.createdAt FROM CashFlow c " +
+            "LEFT JOIN c.typeTerm t LEFT JOIN c.sourceTerm s LEFT JOIN c.labelTerm l " +
+            "WHERE c.userId = :userId AND c.id > :after ORDER BY c.id")
+    List<Object[]> findSearchColumnsAfter(@Param("userId") UUID userId, @Param("after") UUID after,
+            Pageable pageable);
+
+    // Jumlah transaksi dan total amount user. Kolom: [count, sum]
+    @Query("SELECT COUNT(c), COALESCE(SUM(c.amount), 0) FROM CashFlow c WHERE c.userId = :userId")
+    List<Object[]> countAndSumByUserId(@Param("userId") UUID userId);
+
+    // Hits pencarian beserta type/source/label (LEFT JOIN: label boleh kosong)
+    @Query("SELECT c FROM CashFlow c LEFT JOIN FETCH c.typeTerm LEFT JOIN FETCH c.sourceTerm " +
+            "LEFT JOIN FETCH c.labelTerm WHERE c.userId = :userId AND c.id IN :ids")
+    List<CashFlow> findAllByUserIdAndIdIn(@Param("userId") UUID userId, @Param("ids") Collection<UUID> ids);
+
+    // Frekuensi pemakaian label/source untuk autocomplete. Kolom: [nama, jumlah transaksi]
+    @Query("SELECT l.name, COUNT(c) FROM CashFlow c JOIN c.labelTerm l WHERE c.userId = :userId GROUP BY l.name")
+    List<Object[]> countByLabel(@Param("userId") UUID userId);
+
+    @Query("SELECT s.name, COUNT(c) FROM CashFlow c JOIN c.sourceTerm s WHERE c.userId = :userId GROUP BY s.name")
+    List<Object[]> countBySource(@Param("userId") UUID userId);
+
+    // Pindahkan seluruh transaksi dari satu entri label ke entri lain (rename ke label yang sudah ada)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CashFlow c SET c.labelTerm = :target WHERE c.userId = :userId AND c.labelTerm = :source")
+    int relabel(@Param("userId") UUID userId, @Param("source") CashFlowTerm source,
+            @Param("target") CashFlowTerm target);
+
+    @Query("SELECT DISTINCT c.userId FROM CashFlow c")
+    List<UUID> findDistinctUserIds();
 }
\ No newline at end of file
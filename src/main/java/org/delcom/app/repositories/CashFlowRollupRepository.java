@@ -0,0 +1,101 @@
+package org.delcom.app.repositories;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.dto.CashFlowSummary;
+import org.delcom.app.entities.CashFlowRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CashFlowRollupRepository extends JpaRepository<CashFlowRollup, CashFlowRollup.Key> {
+
+    List<CashFlowRollup> findByUserId(UUID userId);
+
+    @Query("SELECT DISTINCT r.userId FROM CashFlowRollup r")
+    List<UUID> findDistinctUserIds();
+
+    // Kunci advisory per user sampai akhir transaksi: shared untuk penulisan delta,
+    // exclusive untuk verifikasi/rebuild agar keduanya tidak saling menimpa
+    @Query(value = "SELECT COUNT(*) FROM pg_advisory_xact_lock_shared(hashtextextended(CAST(:userId AS text), 0))",
+            nativeQuery = true)
+    long lockUserShared(@Param("userId") UUID userId);
+
+    @Query(value = "SELECT COUNT(*) FROM pg_advisory_xact_lock(hashtextextended(CAST(:userId AS text), 0))",
+            nativeQuery = true)
+    long lockUser(@Param("userId") UUID userId);
+
+    // Tambahkan delta ke bucket (user, bulan, tipe, label); bucket dibuat jika belum ada
+    @Modifying
+    @Query(value = "INSERT INTO cash_flow_rollups (user_id, month, type, label, total_amount, tx_count) " +
+            "VALUES (:userId, :month, :type, :label, :amountDelta, :countDelta) " +
+            "ON CONFLICT (user_id, month, type, label) DO UPDATE SET " +
+            "total_amount = cash_flow_rollups.total_amount + EXCLUDED.total_amount, " +
+            "tx_count = cash_flow_rollups.tx_count + EXCLUDED.tx_count", nativeQuery = true)
+    void upsertDelta(@Param("userId") UUID userId, @Param("month") LocalDate month, @Param("type") String type,
+            @Param("label") String label, @Param("amountDelta") long amountDelta,
+            @Param("countDelta") long countDelta);
+
+    @Modifying
+    @Query("DELETE FROM CashFlowRollup r WHERE r.userId = :userId AND r.month = :month " +
+            "AND r.type = :type AND r.label = :label AND r.txCount <= 0")
+    void deleteIfEmpty(@Param("userId") UUID userId, @Param("month") LocalDate month, @Param("type") String type,
+            @Param("label") String label);
+
+    @Modifying
+    @Query("DELETE FROM CashFlowRollup r WHERE r.userId = :userId")
+    void deleteByUserId(@Param("userId") UUID userId);
+
+    // Hitung ulang seluruh bucket user dari tabel cash_flows
+    @Modifying
+    @Query(value = "INSERT INTO cash_flow_rollups (user_id, month, type, label, total_amount, tx_count) " +
+            "SELECT c.user_id, CAST(date_trunc('month', c.created_at) AS date), t.name, COALESCE(l.name, ''), " +
+            "SUM(c.amount), COUNT(*) FROM cash_flows c JOIN cash_flow_terms t ON t.id = c.type_id " +
+            "LEFT JOIN cash_flow_terms l ON l.id = c.label_id WHERE c.user_id = :userId GROUP BY 1, 2, 3, 4",
+            nativeQuery = true)
+    void rebuildForUser(@Param("userId") UUID userId);
+
+    // Rename label: gabungkan bucket label lama ke label baru, lalu hapus bucket lama
+    @Modifying
+    @Query(value = "INSERT INTO cash_flow_rollups (user_id, month, type, label, total_amount, tx_count) " +
+            "SELECT r.user_id, r.month, r.type, :to, r.total_amount, r.tx_count FROM cash_flow_rollups r " +
+            "WHERE r.user_id = :userId AND r.label = :from " +
+            "ON CONFLICT (user_id, month, type, label) DO UPDATE SET " +
+            "total_amount = cash_flow_rollups.total_amount + EXCLUDED.total_amount, " +
+            "tx_count = cash_flow_rollups.tx_count + EXCLUDED.tx_count", nativeQuery = true)
+    void mergeLabel(@Param("userId") UUID userId, @Param("from") String from, @Param("to") String to);
+
+    @Modifying
+    @Query("DELETE FROM CashFlowRollup r WHERE r.userId = :userId AND r.label = :label")
+    void deleteByUserIdAndLabel(@Param("userId") UUID userId, @Param("label") String label);
+
+    // Saldo (Inflow - Outflow) seluruh bulan sebelum month
+    @Query("SELECT COALESCE(SUM(CASE WHEN r.type = 'Inflow' THEN r.totalAmount " +
+            "WHEN r.type = 'Outflow' THEN -r.totalAmount ELSE 0 END), 0) " +
+            "FROM CashFlowRollup r WHERE r.userId = :userId AND r.month < :month")
+    long sumBalanceBefore(@Param("userId") UUID userId, @Param("month") LocalDate month);
+
+    // Ringkasan dari rollup untuk rentang bulan [fromMonth, toMonth]
+    @Query("SELECT new org.delcom.app.dto.CashFlowSummary(str(r.month), r.type, SUM(r.totalAmount), SUM(r.txCount)) " +
+            "FROM CashFlowRollup r WHERE r.userId = :userId AND r.month >= :fromMonth AND r.month <= :toMonth " +
+            "GROUP BY r.month, r.type ORDER BY r.month, r.type")
+    List<CashFlowSummary> sumByMonth(@Param("userId") UUID userId, @Param("fromMonth") LocalDate fromMonth,
+            @Param("toMonth") LocalDate toMonth);
+
+    @Query("SELECT new org.delcom.app.dto.CashFlowSummary(r.type, r.type, SUM(r.totalAmount), SUM(r.txCount)) " +
+            "FROM CashFlowRollup r WHERE r.userId = :userId AND r.month >= :fromMonth AND r.month <= :toMonth " +
+            "GROUP BY r.type ORDER BY r.type")
+    List<CashFlowSummary> sumByType(@Param("userId") UUID userId, @Param("fromMonth") LocalDate fromMonth,
+            @Param("toMonth") LocalDate toMonth);
+
+    @Query("SELECT new org.delcom.app.dto.CashFlowSummary(r.label, r.type, SUM(r.totalAmount), SUM(r.txCount)) " +
+            "FROM CashFlowRollup r WHERE r.userId = :userId AND r.month >= :fromMonth AND r.month <= :toMonth " +
+            "GROUP BY r.label, r.type ORDER BY r.label, r.type")
+    List<CashFlowSummary> sumByLabel(@Param("userId") UUID userId, @Param("fromMonth") LocalDate fromMonth,
+            @Param("toMonth") LocalDate toMonth);
+}
@@ -0,0 +1,9 @@
+package org.delcom.app.repositories;
+
+import org.delcom.app.entities.CashFlowStatement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CashFlowStatementRepository extends JpaRepository<CashFlowStatement, CashFlowStatement.Key> {
+}
@@ -0,0 +1,14 @@
+package org.delcom.app.repositories;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.delcom.app.entities.CashFlowStatementRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CashFlowStatementRunRepository extends JpaRepository<CashFlowStatementRun, LocalDate> {
+
+    List<CashFlowStatementRun> findByStatus(String status);
+}
@@ -0,0 +1,43 @@
+package org.delcom.app.repositories;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.entities.CashFlowTerm;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CashFlowTermRepository extends JpaRepository<CashFlowTerm, Integer> {
+
+    CashFlowTerm findByUserIdAndKindAndName(UUID userId, CashFlowTerm.Kind kind, String name);
+
+    @Query("SELECT t.name FROM CashFlowTerm t WHERE t.userId = :userId AND t.kind = :kind ORDER BY t.name")
+    List<String> findNames(@Param("userId") UUID userId, @Param("kind") CashFlowTerm.Kind kind);
+
+    // Kunci advisory kamus per user sampai akhir transaksi, agar entri yang baru dirujuk
+    // transaksi lain tidak dihapus atau diganti namanya sebelum transaksi tersebut di-commit
+    @Query(value = "SELECT COUNT(*) FROM pg_advisory_xact_lock(" +
+            "hashtextextended(CAST(:userId AS text) || '/terms', 0))", nativeQuery = true)
+    long lockUser(@Param("userId") UUID userId);
+
+    // Aman terhadap insert bersamaan: entri yang sudah ada dibiarkan
+    @Modifying
+    @Query(value = "INSERT INTO cash_flow_terms (user_id, kind, name) VALUES (:userId, :kind, :name) " +
+            "ON CONFLICT (user_id, kind, name) DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(@Param("userId") UUID userId, @Param("kind") int kind, @Param("name") String name);
+
+    // Hapus entri kamus yang sudah tidak dirujuk baris cash_flows mana pun
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM cash_flow_terms t WHERE t.id = :id AND NOT EXISTS " +
+            "(SELECT 1 FROM cash_flows c WHERE c.user_id = t.user_id AND c.label_id = t.id)", nativeQuery = true)
+    int deleteLabelIfUnused(@Param("id") Integer id);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM cash_flow_terms t WHERE t.id = :id AND NOT EXISTS " +
+            "(SELECT 1 FROM cash_flows c WHERE c.user_id = t.user_id AND c.source_id = t.id)", nativeQuery = true)
+    int deleteSourceIfUnused(@Param("id") Integer id);
+}
@@ -0,0 +1,41 @@
+package org.delcom.app.repositories;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.delcom.app.entities.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyRecord.Key> {
+
+    // Klaim key: hanya satu request yang berhasil (1 baris); key kedaluwarsa boleh diklaim ulang.
+    // Dipanggil di dalam transaksi request, sehingga klaim lain atas key yang sama menunggu commit/rollback.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_keys (user_id, idem_key, request_hash, status_code, response_body, " +
+            "expires_at) VALUES (:userId, :key, :requestHash, NULL, NULL, :expiresAt) " +
+            "ON CONFLICT (user_id, idem_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, " +
+            "status_code = NULL, response_body = NULL, expires_at = EXCLUDED.expires_at " +
+            "WHERE idempotency_keys.expires_at < :now", nativeQuery = true)
+    int claim(@Param("userId") UUID userId, @Param("key") String key, @Param("requestHash") byte[] requestHash,
+            @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.statusCode = :statusCode, r.responseBody = :responseBody " +
+            "WHERE r.userId = :userId AND r.idemKey = :key")
+    void complete(@Param("userId") UUID userId, @Param("key") String key, @Param("statusCode") int statusCode,
+            @Param("responseBody") String responseBody);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_keys WHERE ctid IN (SELECT ctid FROM idempotency_keys " +
+            "WHERE expires_at < :now LIMIT :batchSize)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+}
@@ -0,0 +1,48 @@
+package org.delcom.app.repositories;
+
+import java.util.UUID;
+
+import org.delcom.app.entities.TodoClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TodoClosureRepository extends JpaRepository<TodoClosure, TodoClosure.Key> {
+    boolean existsByAncestorIdAndDescendantId(UUID ancestorId, UUID descendantId);
+
+    // Baris diri sendiri (depth 0); aman dipanggil berulang untuk todo lama
+    @Modifying
+    @Query(value = "INSERT INTO todo_closures (ancestor_id, descendant_id, depth) VALUES (:id, :id, 0) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    void insertSelf(UUID id);
+
+    // Salin seluruh ancestor milik parent sebagai ancestor todo baru
+    @Modifying
+    @Query(value = "INSERT INTO todo_closures (ancestor_id, descendant_id, depth) " +
+            "SELECT c.ancestor_id, :id, c.depth + 1 FROM todo_closures c WHERE c.descendant_id = :parentId",
+            nativeQuery = true)
+    void insertUnderParent(UUID id, UUID parentId);
+
+    // Putuskan subtree dari semua ancestor di luar subtree tersebut
+    @Modifying
+    @Query(value = "DELETE FROM todo_closures WHERE descendant_id IN " +
+            "(SELECT s.descendant_id FROM todo_closures s WHERE s.ancestor_id = :id) " +
+            "AND ancestor_id NOT IN (SELECT s.descendant_id FROM todo_closures s WHERE s.ancestor_id = :id)",
+            nativeQuery = true)
+    void detachSubtree(UUID id);
+
+    // Sambungkan subtree ke parent baru (cross join ancestor parent x isi subtree)
+    @Modifying
+    @Query(value = "INSERT INTO todo_closures (ancestor_id, descendant_id, depth) " +
+            "SELECT p.ancestor_id, s.descendant_id, p.depth + s.depth + 1 " +
+            "FROM todo_closures p CROSS JOIN todo_closures s " +
+            "WHERE p.descendant_id = :parentId AND s.ancestor_id = :id", nativeQuery = true)
+    void attachSubtree(UUID id, UUID parentId);
+
+    @Modifying
+    @Query(value = "DELETE FROM todo_closures WHERE descendant_id IN " +
+            "(SELECT s.descendant_id FROM todo_closures s WHERE s.ancestor_id = :id)", nativeQuery = true)
+    void deleteSubtree(UUID id);
+}
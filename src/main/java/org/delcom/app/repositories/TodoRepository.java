@@ -1,12 +1,19 @@
 package org.delcom.app.repositories;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.delcom.app.dto.TodoProgress;
 import org.delcom.app.entities.Todo;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -15,9 +22,76 @@ public interface TodoRepository extends JpaRepository<Todo, UUID> {
             "OR LOWER(t.description) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND t.userId = :userId")
     List<Todo> findByKeyword(UUID userId, String keyword);
 
+    // Pencarian gabungan: todo harus memuat setiap kata (terms dipisah spasi) di judul atau
+    // deskripsi; urut skor 2 per kata di judul + 1 per kata di deskripsi, lalu yang terbaru
+    @Query(value = "SELECT t.* FROM todos t WHERE t.user_id = :userId AND NOT EXISTS (" +
+            "SELECT 1 FROM regexp_split_to_table(:terms, ' ') AS term " +
+            "WHERE LOWER(t.title) NOT LIKE '%' || term || '%' AND LOWER(t.description) NOT LIKE '%' || term || '%') " +
+            "ORDER BY (SELECT SUM(CASE WHEN LOWER(t.title) LIKE '%' || term || '%' THEN 2 ELSE 0 END + " +
+            "CASE WHEN LOWER(t.description) LIKE '%' || term || '%' THEN 1 ELSE 0 END) " +
+            "FROM regexp_split_to_table(:terms, ' ') AS term) DESC, t.updated_at DESC",
+            countQuery = "SELECT COUNT(*) FROM todos t WHERE t.user_id = :userId AND NOT EXISTS (" +
+                    "SELECT 1 FROM regexp_split_to_table(:terms, ' ') AS term " +
+                    "WHERE LOWER(t.title) NOT LIKE '%' || term || '%' AND LOWER(t.description) NOT LIKE '%' || term || '%')",
+            nativeQuery = true)
+    Page<Todo> searchByTerms(@Param("userId") UUID userId, @Param("terms") String terms, Pageable pageable);
+
     @Query("SELECT t FROM Todo t WHERE t.userId = :userId")
     List<Todo> findAllByUserId(UUID userId);
 
     @Query("SELECT t FROM Todo t WHERE t.id = :id AND t.userId = :userId")
     Optional<Todo> findByUserIdAndId(UUID userId, UUID id);
-}
\ No newline at end of file
+
+    // Seluruh subtask (semua kedalaman) dalam satu query lewat closure table
+    @Query("SELECT t FROM Todo t JOIN TodoClosure c ON c.descendantId = t.id " +
+            "WHERE c.ancestorId = :id AND c.depth > 0 AND t.userId = :userId ORDER BY c.depth, t.createdAt")
+    List<Todo> findSubtree(UUID userId, UUID id);
+
+    @Query("SELECT new org.delcom.app.dto.TodoProgress(COUNT(t), " +
+            "COALESCE(SUM(CASE WHEN t.isFinished = true THEN 1L ELSE 0L END), 0L)) " +
+            "FROM Todo t JOIN TodoClosure c ON c.descendantId = t.id " +
+            "WHERE c.ancestorId = :id AND c.depth > 0 AND t.userId = :userId")
+    TodoProgress countSubtreeProgress(UUID userId, UUID id);
+
+    // Jumlah seluruh todo user dan berapa yang sudah selesai, untuk ringkasan dashboard
+    @Query("SELECT new org.delcom.app.dto.TodoProgress(COUNT(t), " +
+            "COALESCE(SUM(CASE WHEN t.isFinished = true THEN 1L ELSE 0L END), 0L)) " +
+            "FROM Todo t WHERE t.userId = :userId")
+    TodoProgress countProgressByUserId(UUID userId);
+
+    List<Todo> findFirst5ByUserIdOrderByUpdatedAtDesc(UUID userId);
+
+    // UPDATE massal untuk flush status isFinished dari TodoStatusCoalescer
+    @Modifying
+    @Query("UPDATE Todo t SET t.isFinished = :finished, t.updatedAt = :updatedAt WHERE t.id IN :ids")
+    int updateFinishedByIds(Collection<UUID> ids, boolean finished, LocalDateTime updatedAt);
+
+    // Tandai selesai setiap ancestor (termasuk :id) yang seluruh subtask-nya sudah selesai.
+    // Node di jalur :id yang punya subtask dikecualikan dari pengecekan karena ikut diperbarui di
+    // statement yang sama; :id tanpa subtask (mis. setelah subtask terakhirnya dihapus atau
+    // dipindah) tidak ikut diselesaikan sehingga tetap dicek.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE todos SET is_finished = true, updated_at = now() " +
+            "WHERE is_finished = false " +
+            "AND id IN (SELECT a.ancestor_id FROM todo_closures a WHERE a.descendant_id = :id) " +
+            "AND EXISTS (SELECT 1 FROM todo_closures d WHERE d.ancestor_id = todos.id AND d.depth > 0) " +
+            "AND NOT EXISTS (SELECT 1 FROM todo_closures d JOIN todos x ON x.id = d.descendant_id " +
+            "WHERE d.ancestor_id = todos.id AND d.depth > 0 AND x.is_finished = false " +
+            "AND x.id NOT IN (SELECT p.ancestor_id FROM todo_closures p WHERE p.descendant_id = :id " +
+            "AND EXISTS (SELECT 1 FROM todo_closures c WHERE c.ancestor_id = p.ancestor_id AND c.depth > 0)))",
+            nativeQuery = true)
+    int finishCompletedAncestors(UUID id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE todos SET is_finished = false, updated_at = now() " +
+            "WHERE is_finished = true " +
+            "AND id IN (SELECT a.ancestor_id FROM todo_closures a WHERE a.descendant_id = :id AND a.depth > 0)",
+            nativeQuery = true)
+    int reopenAncestors(UUID id);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM todos WHERE id IN " +
+            "(SELECT c.descendant_id FROM todo_closures c WHERE c.ancestor_id = :id AND c.depth > 0)",
+            nativeQuery = true)
+    int deleteDescendants(UUID id);
+}
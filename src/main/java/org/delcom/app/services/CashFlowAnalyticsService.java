@@ -0,0 +1,146 @@
+package org.delcom.app.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.dto.CashFlowAnalytics;
+import org.delcom.app.dto.CashFlowBalancePoint;
+import org.delcom.app.dto.CashFlowBalanceSeries;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.utils.BoundedUserCache;
+import org.delcom.app.utils.CashFlowColumns;
+import org.delcom.app.utils.CashFlowColumns.BalanceSeries;
+import org.delcom.app.utils.Lttb;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Analitik interaktif cash flow dari snapshot kolumnar per user yang disimpan di JVM.
+ * Snapshot dimuat saat pertama kali dibutuhkan, diperbarui setelah setiap write
+ * CashFlowService di-commit, dan dibuang (LRU) jika total ukurannya melewati batas heap.
+ */
+@Service
+public class CashFlowAnalyticsService {
+    // Batas bucket saldo sebelum downsampling, sehingga biaya LTTB tidak bergantung pada jumlah transaksi
+    private static final int MAX_BALANCE_BUCKETS = 8192;
+
+    private final CashFlowRepository cashFlowRepository;
+    private final BoundedUserCache<CashFlowColumns> snapshots;
+
+    public CashFlowAnalyticsService(CashFlowRepository cashFlowRepository,
+            @Value("${cashflow.analytics.max-bytes:67108864}") long maxBytes,
+            @Value("${cashflow.analytics.max-idle-ms:1800000}") long maxIdleMs) {
+        this.cashFlowRepository = cashFlowRepository;
+        this.snapshots = new BoundedUserCache<>(maxBytes, maxIdleMs, CashFlowColumns::estimatedBytes);
+    }
+
+    public CashFlowColumns getSnapshot(UUID userId) {
+        return snapshots.get(userId, this::load);
+    }
+
+    /**
+     * Menghitung analitik untuk tanggal from s/d to (inklusif, keduanya opsional).
+     * @param type Filter tipe untuk top-N (null = semua tipe).
+     * @param top Jumlah transaksi terbesar yang dikembalikan.
+     */
+    public CashFlowAnalytics getAnalytics(UUID userId, LocalDate from, LocalDate to, String type, int top) {
+        CashFlowColumns columns = getSnapshot(userId);
+        long start = from != null ? CashFlowColumns.toEpoch(from.atStartOfDay()) : Long.MIN_VALUE;
+        long end = to != null ? CashFlowColumns.toEpoch(to.plusDays(1).atStartOfDay()) : Long.MAX_VALUE;
+        return new CashFlowAnalytics(
+                columns.sumByType(start, end),
+                columns.sumByLabel(start, end),
+                columns.sumBySource(start, end),
+                columns.topN(top, type, start, end));
+    }
+
+    /**
+     * Deret saldo berjalan (Inflow - Outflow) untuk tanggal from s/d to (inklusif, keduanya
+     * opsional), di-downsample dengan LTTB agar bentuk grafik tetap terjaga.
+     * @param points Jumlah titik maksimum (minimal 3).
+     */
+    public CashFlowBalanceSeries getBalanceSeries(UUID userId, LocalDate from, LocalDate to, int points) {
+        CashFlowColumns columns = getSnapshot(userId);
+        long start = from != null ? CashFlowColumns.toEpoch(from.atStartOfDay()) : Long.MIN_VALUE;
+        long end = to != null ? CashFlowColumns.toEpoch(to.plusDays(1).atStartOfDay()) : Long.MAX_VALUE;
+        BalanceSeries series = columns.balanceSeries(start, end, MAX_BALANCE_BUCKETS);
+
+        int[] selected = Lttb.downsample(series.times(), series.balances(), points);
+        List<CashFlowBalancePoint> result = new ArrayList<>(selected.length);
+        for (int index : selected) {
+            result.add(new CashFlowBalancePoint(CashFlowColumns.fromEpoch(series.times()[index]),
+                    series.balances()[index]));
+        }
+        return new CashFlowBalanceSeries(series.openingBalance(), series.times().length, result);
+    }
+
+    // Dijalankan setelah commit agar snapshot tidak pernah berisi data yang di-rollback
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCashFlowChanged(CashFlowChangedEvent event) {
+        UUID userId = event.userId();
+        snapshots.markChanged(userId);
+
+        CashFlowColumns columns = snapshots.getIfPresent(userId);
+        if (columns == null) {
+            return;
+        }
+
+        Snapshot before = event.before();
+        Snapshot after = event.after();
+        if (after != null) {
+            columns.upsert(after.id(), after.type(), after.source(), after.label(), after.amount(),
+                    after.createdAt());
+        } else {
+            columns.remove(before.id());
+        }
+    }
+
+    // Kamus label di snapshot sudah tidak cocok; snapshot dimuat ulang saat dibutuhkan
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLabelRenamed(CashFlowLabelRenamedEvent event) {
+        snapshots.markChanged(event.userId());
+        snapshots.invalidate(event.userId());
+    }
+
+    // Import massal tidak mengirim event per baris; snapshot dimuat ulang saat dibutuhkan
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImported(CashFlowImportedEvent event) {
+        snapshots.markChanged(event.userId());
+        snapshots.invalidate(event.userId());
+    }
+
+    @Scheduled(fixedDelayString = "${cashflow.analytics.evict-interval-ms:60000}")
+    public int evictIdleSnapshots() {
+        return snapshots.evictIdle();
+    }
+
+    public int getSnapshotCount() {
+        return snapshots.size();
+    }
+
+    public long getSnapshotBytes() {
+        return snapshots.weight();
+    }
+
+    private CashFlowColumns load(UUID userId) {
+        List<Object[]> rows = cashFlowRepository.findColumnsByUserId(userId);
+        CashFlowColumns columns = new CashFlowColumns();
+        for (Object[] row : rows) {
+            Number amount = (Number) row[4];
+            LocalDateTime createdAt = (LocalDateTime) row[5];
+            columns.upsert((UUID) row[0], (String) row[1], (String) row[2], (String) row[3],
+                    amount != null ? amount.longValue() : 0,
+                    createdAt != null ? createdAt : LocalDateTime.now());
+        }
+        return columns;
+    }
+}
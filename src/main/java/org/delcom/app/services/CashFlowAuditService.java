@@ -0,0 +1,73 @@
+package org.delcom.app.services;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.utils.AuditJournal;
+import org.delcom.app.utils.AuditJournal.Entry;
+import org.delcom.app.utils.AuditJournal.FsyncPolicy;
+import org.delcom.app.utils.AuditJournal.Operation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Mencatat setiap create, update, dan delete CashFlowService yang sudah di-commit ke
+ * jurnal audit memory-mapped (AuditJournal), tanpa INSERT tambahan ke database.
+ * Jurnal dibaca secara offline dengan AuditJournalTool.
+ *
+ * cashflow.audit.dir wajib diisi dengan direktori persisten; tidak ada default agar
+ * jurnal tidak diam-diam ditulis ke direktori sementara yang dibersihkan OS.
+ */
+@Service
+public class CashFlowAuditService {
+
+    private final AuditJournal.Writer writer;
+    private final FsyncPolicy fsyncPolicy;
+
+    public CashFlowAuditService(
+            @Value("${cashflow.audit.dir}") String dir,
+            @Value("${cashflow.audit.segment-bytes:67108864}") int segmentBytes,
+            @Value("${cashflow.audit.fsync:INTERVAL}") FsyncPolicy fsyncPolicy) throws IOException {
+        this.writer = new AuditJournal.Writer(Path.of(dir), segmentBytes, fsyncPolicy);
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    // Hanya perubahan yang sudah di-commit yang dicatat; kegagalan jurnal tidak membatalkan write
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCashFlowChanged(CashFlowChangedEvent event) {
+        Snapshot before = event.before();
+        Snapshot after = event.after();
+        Operation operation = before == null ? Operation.CREATE
+                : after == null ? Operation.DELETE : Operation.UPDATE;
+        Snapshot state = after != null ? after : before;
+        try {
+            writer.append(new Entry(operation, 0L, state.id(), state.userId(),
+                    state.type(), state.source(), state.label(), state.amount(), state.description(),
+                    state.createdAt()));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Gagal menulis jurnal audit cash flow " + state.id() + ": " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cashflow.audit.fsync-interval-ms:1000}")
+    public void forceInterval() {
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            writer.force();
+        }
+    }
+
+    public long getAppendCount() {
+        return writer.getAppendCount();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.close();
+    }
+}
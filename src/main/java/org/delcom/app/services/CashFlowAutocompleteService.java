@@ -0,0 +1,119 @@
+package org.delcom.app.services;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.utils.AfterCommit;
+import org.delcom.app.utils.BoundedUserCache;
+import org.delcom.app.utils.PrefixIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Saran label dan source untuk form input cash flow. Setiap user memiliki indeks
+ * prefix in-memory yang diurutkan berdasarkan frekuensi pemakaian, dimuat saat
+ * pertama kali dibutuhkan dan diperbarui setelah setiap write di-commit.
+ */
+@Service
+public class CashFlowAutocompleteService {
+
+    record Indexes(PrefixIndex labels, PrefixIndex sources) {
+        long estimatedBytes() {
+            return labels.estimatedBytes() + sources.estimatedBytes();
+        }
+    }
+
+    private final CashFlowRepository cashFlowRepository;
+    private final BoundedUserCache<Indexes> indexes;
+
+    public CashFlowAutocompleteService(CashFlowRepository cashFlowRepository,
+            @Value("${cashflow.autocomplete.max-bytes:8388608}") long maxBytes,
+            @Value("${cashflow.autocomplete.max-idle-ms:900000}") long maxIdleMs) {
+        this.cashFlowRepository = cashFlowRepository;
+        this.indexes = new BoundedUserCache<>(maxBytes, maxIdleMs, Indexes::estimatedBytes);
+    }
+
+    /**
+     * Mengambil saran nilai yang diawali prefix.
+     * @param field label atau source.
+     * @return Daftar saran, atau null jika field tidak dikenal.
+     */
+    public List<String> suggest(UUID userId, String field, String prefix, int limit) {
+        Indexes userIndexes = indexes.get(userId, this::load);
+        switch (field) {
+            case "label":
+                return userIndexes.labels().suggest(prefix, limit);
+            case "source":
+                return userIndexes.sources().suggest(prefix, limit);
+            default:
+                return null;
+        }
+    }
+
+    // Versi dinaikkan sebelum commit: pemuatan yang berjalan antara commit dan update
+    // di bawah sudah berisi baris baru, sehingga indeksnya dibuang, bukan ditambah lagi
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCashFlowChanged(CashFlowChangedEvent event) {
+        long version = indexes.markChanged(event.userId());
+        AfterCommit.run(() -> applyChange(event, version));
+    }
+
+    private void applyChange(CashFlowChangedEvent event, long version) {
+        Indexes userIndexes = indexes.getIfLoadedBefore(event.userId(), version);
+        if (userIndexes == null) {
+            return;
+        }
+
+        Snapshot before = event.before();
+        Snapshot after = event.after();
+        if (before != null) {
+            userIndexes.labels().add(before.label(), -1);
+            userIndexes.sources().add(before.source(), -1);
+        }
+        if (after != null) {
+            userIndexes.labels().add(after.label(), 1);
+            userIndexes.sources().add(after.source(), 1);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLabelRenamed(CashFlowLabelRenamedEvent event) {
+        indexes.markChanged(event.userId());
+        indexes.invalidate(event.userId());
+    }
+
+    // Frekuensi dari import massal tidak diketahui per baris; indeks dimuat ulang saat dibutuhkan
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImported(CashFlowImportedEvent event) {
+        indexes.markChanged(event.userId());
+        indexes.invalidate(event.userId());
+    }
+
+    @Scheduled(fixedDelayString = "${cashflow.autocomplete.evict-interval-ms:60000}")
+    public int evictIdleIndexes() {
+        return indexes.evictIdle();
+    }
+
+    public int getIndexCount() {
+        return indexes.size();
+    }
+
+    private Indexes load(UUID userId) {
+        Indexes userIndexes = new Indexes(new PrefixIndex(), new PrefixIndex());
+        for (Object[] row : cashFlowRepository.countByLabel(userId)) {
+            userIndexes.labels().add((String) row[0], ((Number) row[1]).longValue());
+        }
+        for (Object[] row : cashFlowRepository.countBySource(userId)) {
+            userIndexes.sources().add((String) row[0], ((Number) row[1]).longValue());
+        }
+        return userIndexes;
+    }
+}
@@ -0,0 +1,107 @@
+package org.delcom.app.services;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import org.delcom.app.dto.CashFlowBalanceAt;
+import org.delcom.app.dto.CashFlowNetFlow;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.utils.BalanceIndex;
+import org.delcom.app.utils.AfterCommit;
+import org.delcom.app.utils.BoundedUserCache;
+import org.delcom.app.utils.CashFlowColumns;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Saldo pada suatu tanggal dan net flow antar tanggal dari indeks Fenwick per user.
+ * Indeks dimuat dari agregasi harian saat pertama kali dibutuhkan, lalu diperbarui
+ * O(log n) setelah setiap write CashFlowService di-commit, sehingga query tidak
+ * perlu menjumlahkan ulang seluruh riwayat transaksi.
+ */
+@Service
+public class CashFlowBalanceService {
+
+    private final CashFlowRepository cashFlowRepository;
+    private final BoundedUserCache<BalanceIndex> indexes;
+
+    public CashFlowBalanceService(CashFlowRepository cashFlowRepository,
+            @Value("${cashflow.balance-index.max-bytes:16777216}") long maxBytes,
+            @Value("${cashflow.balance-index.max-idle-ms:1800000}") long maxIdleMs) {
+        this.cashFlowRepository = cashFlowRepository;
+        this.indexes = new BoundedUserCache<>(maxBytes, maxIdleMs, BalanceIndex::estimatedBytes);
+    }
+
+    public CashFlowBalanceAt getBalanceAt(UUID userId, LocalDate date) {
+        return new CashFlowBalanceAt(date, indexes.get(userId, this::load).balanceAt(date));
+    }
+
+    // from dan to inklusif; pemanggil memastikan from tidak setelah to
+    public CashFlowNetFlow getNetFlow(UUID userId, LocalDate from, LocalDate to) {
+        return new CashFlowNetFlow(from, to, indexes.get(userId, this::load).netFlow(from, to));
+    }
+
+    // Versi dinaikkan sebelum commit: pemuatan yang berjalan antara commit dan update
+    // di bawah sudah berisi baris baru, sehingga indeksnya dibuang, bukan ditambah lagi
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCashFlowChanged(CashFlowChangedEvent event) {
+        long version = indexes.markChanged(event.userId());
+        AfterCommit.run(() -> applyChange(event, version));
+    }
+
+    private void applyChange(CashFlowChangedEvent event, long version) {
+        BalanceIndex index = indexes.getIfLoadedBefore(event.userId(), version);
+        if (index == null) {
+            return;
+        }
+
+        Snapshot before = event.before();
+        Snapshot after = event.after();
+        if (before != null) {
+            index.add(before.createdAt().toLocalDate(), -signedAmount(before.type(), before.amount()));
+        }
+        if (after != null) {
+            index.add(after.createdAt().toLocalDate(), signedAmount(after.type(), after.amount()));
+        }
+    }
+
+    // Import massal tidak mengirim event per baris; indeks dimuat ulang saat dibutuhkan
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImported(CashFlowImportedEvent event) {
+        indexes.markChanged(event.userId());
+        indexes.invalidate(event.userId());
+    }
+
+    @Scheduled(fixedDelayString = "${cashflow.balance-index.evict-interval-ms:60000}")
+    public int evictIdleIndexes() {
+        return indexes.evictIdle();
+    }
+
+    public int getIndexCount() {
+        return indexes.size();
+    }
+
+    private static long signedAmount(String type, long amount) {
+        if (CashFlowColumns.INFLOW.equals(type)) {
+            return amount;
+        }
+        if (CashFlowColumns.OUTFLOW.equals(type)) {
+            return -amount;
+        }
+        return 0;
+    }
+
+    private BalanceIndex load(UUID userId) {
+        BalanceIndex index = new BalanceIndex();
+        for (Object[] row : cashFlowRepository.sumSignedByDay(userId)) {
+            index.add(LocalDate.parse((String) row[0]), ((Number) row[1]).longValue());
+        }
+        return index;
+    }
+}
@@ -0,0 +1,320 @@
+package org.delcom.app.services;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.sql.DataSource;
+
+import org.delcom.app.dto.CashFlowExportResult;
+import org.delcom.app.utils.CashFlowColumnarFile;
+import org.delcom.app.utils.CashFlowColumnarFile.Row;
+import org.delcom.app.utils.CsvUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Export seluruh cash flow milik user ke CSV atau format kolumnar (CashFlowColumnarFile).
+ * Baris dibaca lewat cursor sisi server (fetch size terbatas) dan langsung ditulis ke
+ * output, sehingga memori yang dipakai tidak bergantung pada jumlah baris.
+ */
+@Service
+public class CashFlowExportService {
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_COLUMNAR = "columnar";
+
+    private static final String CSV_HEADER = "id,type,source,label,amount,description,createdAt\n";
+    private static final String PART_SUFFIX = ".part";
+
+    private static final String SELECT_FLOWS = "SELECT c.id, t.name, so.name, l.name, c.amount, c.description, " +
+            "c.created_at FROM cash_flows c JOIN cash_flow_terms t ON t.id = c.type_id " +
+            "LEFT JOIN cash_flow_terms so ON so.id = c.source_id " +
+            "LEFT JOIN cash_flow_terms l ON l.id = c.label_id WHERE c.user_id = ?";
+
+    private final DataSource dataSource;
+    private final int fetchSize;
+    private final int rowGroupSize;
+    private final Path exportDir;
+    private final long retentionMs;
+
+    public CashFlowExportService(DataSource dataSource,
+            @Value("${cashflow.export.fetch-size:1000}") int fetchSize,
+            @Value("${cashflow.export.row-group-size:16384}") int rowGroupSize,
+            @Value("${cashflow.export.dir:${java.io.tmpdir}/cashflow-exports}") String exportDir,
+            @Value("${cashflow.export.retention-ms:86400000}") long retentionMs) {
+        this.dataSource = dataSource;
+        this.fetchSize = fetchSize;
+        this.rowGroupSize = rowGroupSize;
+        this.exportDir = Path.of(exportDir);
+        this.retentionMs = retentionMs;
+    }
+
+    public boolean isSupportedFormat(String format) {
+        return FORMAT_CSV.equals(format) || FORMAT_COLUMNAR.equals(format);
+    }
+
+    // Nama file unduhan, misalnya cashflows.csv.gz
+    public static String fileName(String format, boolean gzip) {
+        return "cashflows" + extension(format, gzip);
+    }
+
+    /**
+     * Menulis cash flow user (urut createdAt) ke output lalu menutup output tersebut.
+     * @param from Tanggal awal (inklusif, opsional).
+     * @param to Tanggal akhir (inklusif, opsional).
+     * @param label Filter label (opsional).
+     * @return Statistik export, atau null jika format tidak dikenal.
+     */
+    public CashFlowExportResult export(UUID userId, String format, LocalDate from, LocalDate to, String label,
+            boolean gzip, OutputStream out) throws IOException {
+        if (!isSupportedFormat(format)) {
+            return null;
+        }
+
+        long startNanos = System.nanoTime();
+        CountingOutputStream counting = new CountingOutputStream(out);
+        OutputStream target = gzip ? new GZIPOutputStream(counting, 1 << 16) : counting;
+        long rows = writeRows(userId, format, from, to, label, target);
+
+        long elapsedNanos = Math.max(System.nanoTime() - startNanos, 1);
+        return new CashFlowExportResult(null, format, rows, counting.count, elapsedNanos / 1_000_000,
+                rows * 1_000_000_000L / elapsedNanos);
+    }
+
+    /**
+     * Export ke file di direktori export agar dapat diunduh kemudian (lihat findExportFile).
+     * File ditulis dengan akhiran .part lalu di-rename, sehingga file setengah jadi tidak
+     * pernah terlihat oleh unduhan.
+     * @return Statistik export beserta id file, atau null jika format tidak dikenal.
+     */
+    public CashFlowExportResult exportToFile(UUID userId, String format, LocalDate from, LocalDate to,
+            String label, boolean gzip) throws IOException {
+        if (!isSupportedFormat(format)) {
+            return null;
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path userDir = exportDir.resolve(userId.toString());
+        Files.createDirectories(userDir);
+        Path part = userDir.resolve(id + PART_SUFFIX);
+
+        CashFlowExportResult result;
+        try (OutputStream out = Files.newOutputStream(part)) {
+            result = export(userId, format, from, to, label, gzip, out);
+        } catch (IOException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        Files.move(part, userDir.resolve(id + extension(format, gzip)), StandardCopyOption.ATOMIC_MOVE);
+
+        return new CashFlowExportResult(id, format, result.rows(), result.bytes(), result.elapsedMs(),
+                result.rowsPerSecond());
+    }
+
+    /**
+     * Mencari file hasil exportToFile milik user.
+     * @return Path file, atau null jika id tidak valid atau file tidak ada.
+     */
+    public Path findExportFile(UUID userId, String id) throws IOException {
+        try {
+            UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        Path userDir = exportDir.resolve(userId.toString());
+        if (!Files.isDirectory(userDir)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.list(userDir)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(id + ".") && !name.endsWith(PART_SUFFIX);
+            }).findFirst().orElse(null);
+        }
+    }
+
+    // Menghapus file export (termasuk .part yang tertinggal) yang lebih tua dari masa simpan
+    @Scheduled(fixedDelayString = "${cashflow.export.cleanup-interval-ms:3600000}")
+    public int deleteExpiredExports() throws IOException {
+        if (!Files.isDirectory(exportDir)) {
+            return 0;
+        }
+
+        long threshold = System.currentTimeMillis() - retentionMs;
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(exportDir, 2)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+
+        int deleted = 0;
+        for (Path file : files) {
+            if (Files.getLastModifiedTime(file).toMillis() < threshold) {
+                Files.deleteIfExists(file);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private long writeRows(UUID userId, String format, LocalDate from, LocalDate to, String label,
+            OutputStream target) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT_FLOWS);
+        if (from != null) {
+            sql.append(" AND c.created_at >= ?");
+        }
+        if (to != null) {
+            sql.append(" AND c.created_at < ?");
+        }
+        if (label != null) {
+            sql.append(" AND l.name = ?");
+        }
+        sql.append(" ORDER BY c.created_at, c.id");
+
+        try (Connection connection = dataSource.getConnection()) {
+            // pgjdbc hanya memakai cursor (bukan membaca seluruh hasil) jika autocommit mati
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                statement.setFetchSize(fetchSize);
+                int index = 1;
+                statement.setObject(index++, userId);
+                if (from != null) {
+                    statement.setObject(index++, from.atStartOfDay());
+                }
+                if (to != null) {
+                    statement.setObject(index++, to.plusDays(1).atStartOfDay());
+                }
+                if (label != null) {
+                    statement.setString(index, label);
+                }
+
+                long rows = 0;
+                try (ResultSet resultSet = statement.executeQuery();
+                        RowSink sink = FORMAT_CSV.equals(format) ? new CsvSink(target)
+                                : new ColumnarSink(target, rowGroupSize)) {
+                    while (resultSet.next()) {
+                        sink.write(new Row(
+                                resultSet.getObject(1, UUID.class),
+                                resultSet.getString(2),
+                                resultSet.getString(3),
+                                resultSet.getString(4),
+                                resultSet.getLong(5),
+                                resultSet.getString(6),
+                                resultSet.getObject(7, LocalDateTime.class)));
+                        rows++;
+                    }
+                }
+                connection.commit();
+                return rows;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to read cash flows for export.", e);
+        }
+    }
+
+    private static String extension(String format, boolean gzip) {
+        String extension = FORMAT_CSV.equals(format) ? ".csv" : ".cfc";
+        return gzip ? extension + ".gz" : extension;
+    }
+
+    private interface RowSink extends AutoCloseable {
+        void write(Row row) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static class CsvSink implements RowSink {
+        private final BufferedWriter writer;
+        private final StringBuilder line = new StringBuilder();
+
+        CsvSink(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+            writer.write(CSV_HEADER);
+        }
+
+        @Override
+        public void write(Row row) throws IOException {
+            line.setLength(0);
+            line.append(row.id()).append(',');
+            appendText(row.type());
+            line.append(',');
+            appendText(row.source());
+            line.append(',');
+            appendText(row.label());
+            line.append(',').append(row.amount()).append(',');
+            appendText(row.description());
+            line.append(',').append(row.createdAt()).append('\n');
+            writer.append(line);
+        }
+
+        // null ditulis sebagai field kosong tanpa kutip
+        private void appendText(String value) {
+            if (value != null) {
+                CsvUtil.appendQuoted(line, value);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    private static class ColumnarSink implements RowSink {
+        private final CashFlowColumnarFile.Writer writer;
+
+        ColumnarSink(OutputStream out, int rowGroupSize) throws IOException {
+            this.writer = new CashFlowColumnarFile.Writer(out, rowGroupSize);
+        }
+
+        @Override
+        public void write(Row row) throws IOException {
+            writer.write(row);
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    // Menghitung byte yang benar-benar ditulis ke tujuan (setelah kompresi)
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.delcom.app.services;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import org.delcom.app.dto.CashFlowForecast;
+import org.delcom.app.entities.CashFlowRollup;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
+import org.delcom.app.utils.BoundedUserCache;
+import org.delcom.app.utils.CashFlowColumns;
+import org.delcom.app.utils.MonteCarloForecast;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Proyeksi saldo beberapa bulan ke depan dengan simulasi Monte Carlo (MonteCarloForecast)
+ * atas total bulanan per label dari tabel rollup. Simulasi dijalankan di ForkJoinPool
+ * sendiri dengan batas waktu, untuk max-months bulan sekaligus, lalu di-cache per user
+ * sampai data user berubah; request dengan jumlah bulan lebih kecil memakai hasil yang sama.
+ */
+@Service
+public class CashFlowForecastService {
+
+    private final CashFlowRollupService rollupService;
+    private final BoundedUserCache<CashFlowForecast> forecasts;
+    private final ForkJoinPool pool;
+    private final int paths;
+    private final int maxMonths;
+    private final int historyMonths;
+    private final long budgetMs;
+    private final Clock clock;
+    private volatile long lastPathsPerSecond;
+
+    @Autowired
+    public CashFlowForecastService(CashFlowRollupService rollupService,
+            @Value("${cashflow.forecast.paths:10000}") int paths,
+            @Value("${cashflow.forecast.max-months:24}") int maxMonths,
+            @Value("${cashflow.forecast.history-months:12}") int historyMonths,
+            @Value("${cashflow.forecast.budget-ms:2000}") long budgetMs,
+            @Value("${cashflow.forecast.parallelism:0}") int parallelism,
+            @Value("${cashflow.forecast.max-bytes:4194304}") long maxBytes,
+            @Value("${cashflow.forecast.max-idle-ms:1800000}") long maxIdleMs) {
+        this(rollupService, paths, maxMonths, historyMonths, budgetMs, parallelism, maxBytes, maxIdleMs,
+                Clock.systemDefaultZone());
+    }
+
+    CashFlowForecastService(CashFlowRollupService rollupService, int paths, int maxMonths, int historyMonths,
+            long budgetMs, int parallelism, long maxBytes, long maxIdleMs, Clock clock) {
+        this.rollupService = rollupService;
+        this.forecasts = new BoundedUserCache<>(maxBytes, maxIdleMs,
+                forecast -> 64 + 56L * forecast.months().size());
+        // parallelism 0 = seluruh core
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.paths = paths;
+        this.maxMonths = maxMonths;
+        this.historyMonths = historyMonths;
+        this.budgetMs = budgetMs;
+        this.clock = clock;
+    }
+
+    public int getMaxMonths() {
+        return maxMonths;
+    }
+
+    /**
+     * Proyeksi saldo akhir bulan untuk months bulan setelah bulan berjalan.
+     * @param months 1 s/d getMaxMonths() (divalidasi pemanggil).
+     */
+    public CashFlowForecast getForecast(UUID userId, int months) {
+        LocalDate nextMonth = LocalDate.now(clock).withDayOfMonth(1).plusMonths(1);
+        CashFlowForecast forecast = forecasts.get(userId, this::simulate);
+        // Hasil cache dari bulan sebelumnya sudah bergeser satu bulan
+        if (!forecast.months().get(0).month().equals(nextMonth)) {
+            forecasts.invalidate(userId);
+            forecast = forecasts.get(userId, this::simulate);
+        }
+        return new CashFlowForecast(forecast.startingBalance(), forecast.historyMonths(), forecast.paths(),
+                forecast.truncated(), List.copyOf(forecast.months().subList(0, months)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCashFlowChanged(CashFlowChangedEvent event) {
+        forecasts.markChanged(event.userId());
+        forecasts.invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLabelRenamed(CashFlowLabelRenamedEvent event) {
+        forecasts.markChanged(event.userId());
+        forecasts.invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImported(CashFlowImportedEvent event) {
+        forecasts.markChanged(event.userId());
+        forecasts.invalidate(event.userId());
+    }
+
+    @Scheduled(fixedDelayString = "${cashflow.forecast.evict-interval-ms:60000}")
+    public int evictIdleForecasts() {
+        return forecasts.evictIdle();
+    }
+
+    public int getForecastCount() {
+        return forecasts.size();
+    }
+
+    // Throughput simulasi terakhir (path per detik, seluruh core)
+    public long getLastPathsPerSecond() {
+        return lastPathsPerSecond;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private CashFlowForecast simulate(UUID userId) {
+        LocalDate currentMonth = LocalDate.now(clock).withDayOfMonth(1);
+        LocalDate firstHistoryMonth = currentMonth.minusMonths(historyMonths);
+
+        // Riwayat hanya bulan yang sudah lengkap (sebelum bulan berjalan)
+        long startingBalance = 0;
+        LocalDate earliest = currentMonth;
+        Map<String, long[]> labels = new TreeMap<>();
+        for (CashFlowRollup rollup : rollupService.findRollups(userId)) {
+            long signed = signedAmount(rollup.getType(), rollup.getTotalAmount());
+            startingBalance += signed;
+            LocalDate month = rollup.getMonth();
+            if (signed == 0 || month.isBefore(firstHistoryMonth) || !month.isBefore(currentMonth)) {
+                continue;
+            }
+            earliest = month.isBefore(earliest) ? month : earliest;
+            int index = (int) ChronoUnit.MONTHS.between(firstHistoryMonth, month);
+            labels.computeIfAbsent(rollup.getLabel(), label -> new long[historyMonths])[index] += signed;
+        }
+        // User baru: bulan sebelum transaksi pertama tidak dihitung sebagai bulan kosong
+        int skip = (int) ChronoUnit.MONTHS.between(firstHistoryMonth, earliest);
+        long[][] history = labels.values().stream()
+                .map(series -> Arrays.copyOfRange(series, skip, historyMonths))
+                .toArray(long[][]::new);
+
+        long seed = userId.getMostSignificantBits() ^ userId.getLeastSignificantBits();
+        long startNanos = System.nanoTime();
+        MonteCarloForecast.Result result = MonteCarloForecast.simulate(history, startingBalance, maxMonths, paths,
+                seed, startNanos + budgetMs * 1_000_000, pool);
+        lastPathsPerSecond = result.paths() * 1_000_000_000L / Math.max(System.nanoTime() - startNanos, 1);
+
+        List<CashFlowForecast.Month> months = new ArrayList<>(maxMonths);
+        for (int i = 0; i < maxMonths; i++) {
+            long[] band = result.bands()[i];
+            months.add(new CashFlowForecast.Month(currentMonth.plusMonths(i + 1L), band[0], band[1], band[2],
+                    band[3], band[4]));
+        }
+        return new CashFlowForecast(startingBalance, historyMonths - skip, result.paths(), result.paths() < paths,
+                months);
+    }
+
+    private static long signedAmount(String type, long amount) {
+        if (CashFlowColumns.INFLOW.equals(type)) {
+            return amount;
+        }
+        if (CashFlowColumns.OUTFLOW.equals(type)) {
+            return -amount;
+        }
+        return 0;
+    }
+}
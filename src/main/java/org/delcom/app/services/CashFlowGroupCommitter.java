@@ -0,0 +1,162 @@
+package org.delcom.app.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.delcom.app.entities.CashFlow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Group commit untuk createCashFlow: request yang datang bersamaan dikumpulkan per shard
+ * (berdasarkan user) lalu di-commit bersama dalam satu transaksi, sehingga banyak insert
+ * berbagi satu flush WAL.
+ *
+ * Tidak ada thread writer terpisah. Pemanggil yang mendapat lock shard menjadi writer dan
+ * menulis seluruh antrean, termasuk request pemanggil lain; selama commit berlangsung
+ * request baru menumpuk dan ditulis oleh writer berikutnya. Setiap pemanggil baru kembali
+ * setelah transaksi yang memuat request-nya di-commit, jadi durabilitas per request sama
+ * dengan jalur biasa.
+ *
+ * Batch selalu ditulis di transaksi baru. Pemanggil yang sudah berada di transaksi (mis.
+ * IdempotencyService) tidak ikut group commit: insert-nya ditulis langsung di transaksi
+ * pemanggil agar ikut rollback bersamanya, dan request pemanggil lain tidak ikut hilang
+ * jika transaksi luar itu di-rollback.
+ */
+@Service
+public class CashFlowGroupCommitter {
+
+    record PendingCreate(UUID userId, String type, String source, String label, Integer amount,
+            String description, CompletableFuture<CashFlow> result) {
+    }
+
+    private static final class Shard {
+        final ConcurrentLinkedQueue<PendingCreate> queue = new ConcurrentLinkedQueue<>();
+        final ReentrantLock writer = new ReentrantLock();
+    }
+
+    private final CashFlowService cashFlowService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final Shard[] shards;
+
+    private final AtomicLong committedRowCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong failedBatchCount = new AtomicLong();
+
+    public CashFlowGroupCommitter(CashFlowService cashFlowService, PlatformTransactionManager transactionManager,
+            @Value("${cashflow.group-commit.enabled:false}") boolean enabled,
+            @Value("${cashflow.group-commit.shards:4}") int shardCount,
+            @Value("${cashflow.group-commit.max-batch-size:256}") int maxBatchSize) {
+        this.cashFlowService = cashFlowService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sama dengan CashFlowService.createCashFlow, tetapi insert digabung dengan request
+     * lain pada shard yang sama. Exception dari insert diteruskan ke pemanggilnya saja.
+     * Di dalam transaksi yang sedang aktif insert ditulis langsung di transaksi tersebut.
+     * @return CashFlow yang sudah di-commit.
+     */
+    public CashFlow createCashFlow(UUID userId, String type, String source, String label, Integer amount,
+            String description) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return cashFlowService.createCashFlow(userId, type, source, label, amount, description);
+        }
+        PendingCreate request = new PendingCreate(userId, type, source, label, amount, description,
+                new CompletableFuture<>());
+        Shard shard = shards[Math.floorMod(userId.hashCode(), shards.length)];
+        shard.queue.add(request);
+
+        shard.writer.lock();
+        try {
+            // Request bisa sudah ditulis oleh writer sebelumnya
+            while (!request.result().isDone()) {
+                List<PendingCreate> batch = new ArrayList<>();
+                PendingCreate next;
+                while (batch.size() < maxBatchSize && (next = shard.queue.poll()) != null) {
+                    batch.add(next);
+                }
+                writeBatch(batch);
+            }
+        } finally {
+            shard.writer.unlock();
+        }
+
+        try {
+            return request.result().join();
+        } catch (CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    // Request yang gagal membatalkan seluruh batch; request lain diulang satu per satu
+    // agar kegagalan satu request tidak ikut menggagalkan request lain.
+    private void writeBatch(List<PendingCreate> batch) {
+        List<CashFlow> saved;
+        try {
+            saved = transactionTemplate.execute(tx -> {
+                List<CashFlow> flows = new ArrayList<>(batch.size());
+                for (PendingCreate request : batch) {
+                    flows.add(insert(request));
+                }
+                return flows;
+            });
+        } catch (RuntimeException e) {
+            failedBatchCount.incrementAndGet();
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            for (PendingCreate request : batch) {
+                writeBatch(List.of(request));
+            }
+            return;
+        }
+
+        batchCount.incrementAndGet();
+        committedRowCount.addAndGet(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(saved.get(i));
+        }
+    }
+
+    private CashFlow insert(PendingCreate request) {
+        return cashFlowService.createCashFlow(request.userId(), request.type(), request.source(),
+                request.label(), request.amount(), request.description());
+    }
+
+    public long getCommittedRowCount() {
+        return committedRowCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatchCount.get();
+    }
+}
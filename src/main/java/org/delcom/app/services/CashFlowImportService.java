@@ -0,0 +1,378 @@
+package org.delcom.app.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.delcom.app.dto.CashFlowImportResult;
+import org.delcom.app.dto.CashFlowImportResult.RowError;
+import org.delcom.app.entities.CashFlowTerm.Kind;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.delcom.app.utils.CsvUtil;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Import massal cash flow dari CSV (dengan header) atau JSON-lines yang dibaca secara
+ * streaming. Baris valid dikumpulkan per chunk, dikirim dengan protokol COPY ke tabel
+ * staging sementara, lalu digabung ke cash_flows, kamus, dan rollup dalam satu transaksi
+ * per chunk. Baris yang tidak valid dilaporkan tanpa menghentikan import.
+ */
+@Service
+public class CashFlowImportService {
+    // Batas jumlah kesalahan yang dikembalikan agar memori tetap konstan
+    public static final int MAX_REPORTED_ERRORS = 1000;
+    // Panjang maksimum kolom varchar bawaan Hibernate
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final BigDecimal MAX_AMOUNT = BigDecimal.valueOf(Integer.MAX_VALUE);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final String CREATE_STAGING = "CREATE TEMP TABLE IF NOT EXISTS cash_flow_import (" +
+            "user_id uuid NOT NULL, type varchar(255) NOT NULL, source varchar(255) NOT NULL, " +
+            "label varchar(255) NOT NULL, amount integer NOT NULL, description varchar(255) NOT NULL, " +
+            "created_at timestamp(6) NOT NULL) ON COMMIT DROP";
+
+    private static final String COPY_STAGING = "COPY cash_flow_import " +
+            "(user_id, type, source, label, amount, description, created_at) FROM STDIN WITH (FORMAT csv)";
+
+    // Kunci kamus per user yang diimpor, sama dengan CashFlowTermRepository.lockUser, agar
+    // entri yang digabung tidak dihapus pruneIfUnused sebelum cash flow impor di-commit.
+    // Diambil sebelum kunci rollup, urutan yang sama dengan transaksi CashFlowService.
+    private static final String LOCK_TERMS = "SELECT COUNT(pg_advisory_xact_lock(" +
+            "hashtextextended(CAST(user_id AS text) || '/terms', 0))) " +
+            "FROM (SELECT DISTINCT user_id FROM cash_flow_import ORDER BY user_id) u";
+
+    // Kunci rollup per user yang diimpor, sama dengan CashFlowRollupRepository.lockUserShared,
+    // agar verifikasi rollup tidak membangun ulang bucket di tengah penggabungan chunk
+    private static final String LOCK_USERS = "SELECT COUNT(pg_advisory_xact_lock_shared(" +
+            "hashtextextended(CAST(user_id AS text), 0))) " +
+            "FROM (SELECT DISTINCT user_id FROM cash_flow_import ORDER BY user_id) u";
+
+    // Parameter kind: CashFlowTerm.Kind.ordinal()
+    private static final String MERGE_TYPES = "INSERT INTO cash_flow_terms (user_id, kind, name) " +
+            "SELECT DISTINCT user_id, ?, type FROM cash_flow_import ON CONFLICT (user_id, kind, name) DO NOTHING";
+    private static final String MERGE_SOURCES = "INSERT INTO cash_flow_terms (user_id, kind, name) " +
+            "SELECT DISTINCT user_id, ?, source FROM cash_flow_import ON CONFLICT (user_id, kind, name) DO NOTHING";
+    private static final String MERGE_LABELS = "INSERT INTO cash_flow_terms (user_id, kind, name) " +
+            "SELECT DISTINCT user_id, ?, label FROM cash_flow_import ON CONFLICT (user_id, kind, name) DO NOTHING";
+
+    // Parameter kind TYPE, SOURCE, LABEL
+    private static final String MERGE_FLOWS = "INSERT INTO cash_flows (id, user_id, type_id, source_id, label_id, " +
+            "amount, description, created_at, updated_at) " +
+            "SELECT gen_random_uuid(), s.user_id, t.id, so.id, l.id, s.amount, s.description, " +
+            "s.created_at, now() FROM cash_flow_import s " +
+            "JOIN cash_flow_terms t ON t.user_id = s.user_id AND t.kind = ? AND t.name = s.type " +
+            "JOIN cash_flow_terms so ON so.user_id = s.user_id AND so.kind = ? AND so.name = s.source " +
+            "JOIN cash_flow_terms l ON l.user_id = s.user_id AND l.kind = ? AND l.name = s.label";
+
+    private static final String MERGE_ROLLUPS = "INSERT INTO cash_flow_rollups " +
+            "(user_id, month, type, label, total_amount, tx_count) " +
+            "SELECT user_id, CAST(date_trunc('month', created_at) AS date), type, label, " +
+            "SUM(amount), COUNT(*) FROM cash_flow_import GROUP BY 1, 2, 3, 4 " +
+            "ON CONFLICT (user_id, month, type, label) DO UPDATE SET " +
+            "total_amount = cash_flow_rollups.total_amount + EXCLUDED.total_amount, " +
+            "tx_count = cash_flow_rollups.tx_count + EXCLUDED.tx_count";
+
+    private static final String[] FIELDS = { "type", "source", "label", "amount", "description", "createdAt" };
+
+    private final DataSource dataSource;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public CashFlowImportService(DataSource dataSource, ApplicationEventPublisher eventPublisher,
+            @Value("${cashflow.import.chunk-size:5000}") int chunkSize) {
+        this.dataSource = dataSource;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Mengimpor cash flow milik user dari stream.
+     * @param format csv (baris pertama header) atau jsonl.
+     * @return Hasil import, atau null jika format atau header CSV tidak valid.
+     */
+    public CashFlowImportResult importCashFlows(UUID userId, String format, InputStream input) throws IOException {
+        boolean csv = "csv".equals(format);
+        if (!csv && !"jsonl".equals(format)) {
+            return null;
+        }
+
+        long startNanos = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Batch batch = new Batch(userId);
+        int[] columns = null;
+
+        try {
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (csv && columns == null) {
+                    columns = parseHeader(line);
+                    if (columns == null) {
+                        return null;
+                    }
+                    continue;
+                }
+
+                String[] values = csv ? parseCsv(line, columns) : parseJson(line);
+                if (values == null) {
+                    batch.reject(lineNumber, csv ? "Malformed CSV line." : "Malformed JSON line.");
+                    continue;
+                }
+                batch.add(lineNumber, values);
+            }
+            batch.flush();
+        } finally {
+            // Cache in-memory (analitik, autocomplete) dimuat ulang setelah ada data masuk
+            if (batch.accepted > 0) {
+                eventPublisher.publishEvent(new CashFlowImportedEvent(userId, batch.accepted));
+            }
+        }
+
+        long elapsedNanos = Math.max(System.nanoTime() - startNanos, 1);
+        long rowsPerSecond = batch.accepted * 1_000_000_000L / elapsedNanos;
+        return new CashFlowImportResult(batch.accepted, batch.rejected, batch.errors, batch.errorsTruncated,
+                elapsedNanos / 1_000_000, rowsPerSecond);
+    }
+
+    // Posisi setiap field di baris CSV (-1 jika kolom tidak ada), atau null jika kolom wajib hilang
+    private static int[] parseHeader(String line) {
+        List<String> header = CsvUtil.parseLine(line);
+        if (header == null) {
+            return null;
+        }
+        int[] columns = new int[FIELDS.length];
+        for (int f = 0; f < FIELDS.length; f++) {
+            columns[f] = -1;
+            for (int c = 0; c < header.size(); c++) {
+                if (header.get(c).trim().equalsIgnoreCase(FIELDS[f])) {
+                    columns[f] = c;
+                }
+            }
+        }
+        // Hanya createdAt yang opsional
+        for (int f = 0; f < FIELDS.length - 1; f++) {
+            if (columns[f] < 0) {
+                return null;
+            }
+        }
+        return columns;
+    }
+
+    private static String[] parseCsv(String line, int[] columns) {
+        List<String> fields = CsvUtil.parseLine(line);
+        if (fields == null) {
+            return null;
+        }
+        String[] values = new String[FIELDS.length];
+        for (int f = 0; f < FIELDS.length; f++) {
+            int column = columns[f];
+            values[f] = column >= 0 && column < fields.size() ? fields.get(column) : null;
+        }
+        return values;
+    }
+
+    private static String[] parseJson(String line) {
+        JsonNode node;
+        try {
+            node = JSON.readTree(line);
+        } catch (JacksonException e) {
+            return null;
+        }
+        if (!node.isObject()) {
+            return null;
+        }
+        String[] values = new String[FIELDS.length];
+        for (int f = 0; f < FIELDS.length; f++) {
+            JsonNode value = node.get(FIELDS[f]);
+            values[f] = value == null || value.isNull() ? null : value.asString();
+        }
+        return values;
+    }
+
+    /**
+     * Validasi sama dengan createFlow (type, amount > 0, description wajib), ditambah
+     * source/label wajib, amount bilangan bulat, dan batas panjang kolom database.
+     * @return Pesan kesalahan, atau null jika baris valid.
+     */
+    static String validate(String[] values) {
+        String type = values[0];
+        String description = values[4];
+        if (type == null || type.isEmpty() || description == null || description.isEmpty()) {
+            return "Invalid cash flow data. Type, amount, and description are required.";
+        }
+        if (values[1] == null || values[2] == null) {
+            return "Invalid cash flow data. Source and label are required.";
+        }
+        for (int f = 0; f < 5; f++) {
+            if (f != 3 && values[f].length() > MAX_TEXT_LENGTH) {
+                return "Invalid cash flow data. '" + FIELDS[f] + "' exceeds " + MAX_TEXT_LENGTH + " characters.";
+            }
+        }
+        BigDecimal amount = parseAmount(values[3]);
+        if (amount == null || amount.signum() <= 0 || amount.compareTo(MAX_AMOUNT) > 0) {
+            return "Invalid cash flow data. Amount must be a positive number.";
+        }
+        if (amount.stripTrailingZeros().scale() > 0) {
+            return "Invalid cash flow data. Amount must be a whole number.";
+        }
+        if (values[5] != null && !values[5].isBlank() && parseCreatedAt(values[5]) == null) {
+            return "Invalid createdAt. Use yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss.";
+        }
+        return null;
+    }
+
+    // null jika bukan angka
+    private static BigDecimal parseAmount(String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(text.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static LocalDateTime parseCreatedAt(String text) {
+        String value = text.trim();
+        try {
+            return value.length() <= 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static void execute(Connection connection, String sql, int... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setInt(i + 1, parameters[i]);
+            }
+            statement.execute();
+        }
+    }
+
+    /**
+     * Penampung satu chunk baris valid (sudah dalam format CSV untuk COPY) beserta
+     * statistik import.
+     */
+    private class Batch {
+        private final String userId;
+        private final StringBuilder buffer = new StringBuilder();
+        private final List<RowError> errors = new ArrayList<>();
+        private int pending;
+        private long firstLine;
+        private long lastLine;
+        private long accepted;
+        private long rejected;
+        private boolean errorsTruncated;
+
+        Batch(UUID userId) {
+            this.userId = userId.toString();
+        }
+
+        void add(long lineNumber, String[] values) {
+            String error = validate(values);
+            if (error != null) {
+                reject(lineNumber, error);
+                return;
+            }
+
+            LocalDateTime createdAt = values[5] != null && !values[5].isBlank()
+                    ? parseCreatedAt(values[5])
+                    : LocalDateTime.now();
+
+            buffer.append(userId).append(',');
+            CsvUtil.appendQuoted(buffer, values[0]);
+            buffer.append(',');
+            CsvUtil.appendQuoted(buffer, values[1]);
+            buffer.append(',');
+            CsvUtil.appendQuoted(buffer, values[2]);
+            buffer.append(',').append(parseAmount(values[3]).intValueExact()).append(',');
+            CsvUtil.appendQuoted(buffer, values[4]);
+            buffer.append(',').append(createdAt).append('\n');
+
+            if (pending == 0) {
+                firstLine = lineNumber;
+            }
+            lastLine = lineNumber;
+            if (++pending >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long lineNumber, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(lineNumber, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        // Satu chunk = satu transaksi; chunk yang gagal ditolak seluruhnya tanpa menghentikan import
+        void flush() {
+            if (pending == 0) {
+                return;
+            }
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    execute(connection, CREATE_STAGING);
+                    connection.unwrap(PGConnection.class).getCopyAPI()
+                            .copyIn(COPY_STAGING, new StringReader(buffer.toString()));
+                    execute(connection, LOCK_TERMS);
+                    execute(connection, LOCK_USERS);
+                    execute(connection, MERGE_TYPES, Kind.TYPE.ordinal());
+                    execute(connection, MERGE_SOURCES, Kind.SOURCE.ordinal());
+                    execute(connection, MERGE_LABELS, Kind.LABEL.ordinal());
+                    execute(connection, MERGE_FLOWS, Kind.TYPE.ordinal(), Kind.SOURCE.ordinal(),
+                            Kind.LABEL.ordinal());
+                    execute(connection, MERGE_ROLLUPS);
+                    connection.commit();
+                    accepted += pending;
+                } catch (SQLException | IOException e) {
+                    connection.rollback();
+                    throw e;
+                }
+            } catch (SQLException | IOException e) {
+                rejected += pending;
+                String message = String.format(Locale.ROOT, "Lines %d-%d could not be saved: %s", firstLine,
+                        lastLine, e.getMessage());
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(new RowError(firstLine, message));
+                } else {
+                    errorsTruncated = true;
+                }
+            }
+            buffer.setLength(0);
+            pending = 0;
+        }
+    }
+}
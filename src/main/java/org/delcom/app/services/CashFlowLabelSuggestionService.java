@@ -0,0 +1,237 @@
+package org.delcom.app.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.delcom.app.entities.CashFlowLabelModel;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
+import org.delcom.app.repositories.CashFlowLabelModelRepository;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.utils.AfterCommit;
+import org.delcom.app.utils.BoundedUserCache;
+import org.delcom.app.utils.NaiveBayesLabeler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Saran label untuk cash flow baru dari deskripsinya, dengan model naive Bayes per user
+ * (NaiveBayesLabeler) yang dilatih dari pasangan deskripsi-label milik user tersebut.
+ *
+ * Insert, update, dan delete diterapkan langsung ke model di memori (tambah/kurangi
+ * hitungan token). Rename, import, dan perubahan saat model tidak ada di cache menandai
+ * user "stale"; job berkala melatih ulang model user stale dari cash_flows dan menyimpan
+ * model yang berubah ke tabel cash_flow_label_models. Job harian melatih ulang seluruh
+ * user untuk menyerap perubahan yang hilang saat aplikasi dijalankan ulang.
+ *
+ * Saran diminta di jalur create cash flow, sehingga model tidak pernah dimuat atau dilatih
+ * di thread request: jika model user belum ada di cache, saran kosong dikembalikan dan
+ * pemuatannya diantrekan ke thread trainer.
+ */
+@Service
+public class CashFlowLabelSuggestionService {
+
+    private final CashFlowLabelModelRepository cashFlowLabelModelRepository;
+    private final CashFlowRepository cashFlowRepository;
+    private final BoundedUserCache<NaiveBayesLabeler> models;
+    private final double minConfidence;
+    private final long minSamples;
+
+    // User yang modelnya tidak lagi mencerminkan cash_flows (perlu dilatih ulang)
+    private final Set<UUID> staleUsers = ConcurrentHashMap.newKeySet();
+    // User dengan perubahan di memori yang belum disimpan
+    private final Set<UUID> dirtyUsers = ConcurrentHashMap.newKeySet();
+    // User yang pemuatan modelnya sudah diantrekan
+    private final Set<UUID> pendingLoads = ConcurrentHashMap.newKeySet();
+    private final ExecutorService trainer = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+            .name("cash-flow-label-trainer")
+            .daemon(true)
+            .factory());
+
+    public CashFlowLabelSuggestionService(CashFlowLabelModelRepository cashFlowLabelModelRepository,
+            CashFlowRepository cashFlowRepository,
+            @Value("${cashflow.label-suggestions.max-bytes:16777216}") long maxBytes,
+            @Value("${cashflow.label-suggestions.max-idle-ms:1800000}") long maxIdleMs,
+            @Value("${cashflow.label-suggestions.min-confidence:0.6}") double minConfidence,
+            @Value("${cashflow.label-suggestions.min-samples:5}") long minSamples) {
+        this.cashFlowLabelModelRepository = cashFlowLabelModelRepository;
+        this.cashFlowRepository = cashFlowRepository;
+        this.models = new BoundedUserCache<>(maxBytes, maxIdleMs, NaiveBayesLabeler::estimatedBytes);
+        this.minConfidence = minConfidence;
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Menyarankan label untuk deskripsi cash flow baru.
+     * @return Label dengan peluang posterior >= min-confidence, atau null jika model user
+     *         belum ada di cache, belum memiliki min-samples contoh, atau tidak cukup yakin.
+     */
+    public String suggestLabel(UUID userId, String description) {
+        NaiveBayesLabeler model = models.getIfPresent(userId);
+        if (model == null) {
+            scheduleLoad(userId);
+            return null;
+        }
+        if (model.getDocuments() < minSamples) {
+            return null;
+        }
+        NaiveBayesLabeler.Prediction prediction = model.classify(description);
+        return prediction != null && prediction.probability() >= minConfidence ? prediction.label() : null;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCashFlowChanged(CashFlowChangedEvent event) {
+        long version = models.markChanged(event.userId());
+        AfterCommit.run(() -> applyChange(event, version));
+    }
+
+    private void applyChange(CashFlowChangedEvent event, long version) {
+        UUID userId = event.userId();
+        // Model yang dimuat setelah perubahan mungkin sudah berisi baris ini; dibuang dan dilatih ulang
+        NaiveBayesLabeler model = models.getIfLoadedBefore(userId, version);
+        if (model == null) {
+            staleUsers.add(userId);
+            return;
+        }
+
+        Snapshot before = event.before();
+        Snapshot after = event.after();
+        if (before != null) {
+            model.add(before.label(), before.description(), -1);
+        }
+        if (after != null) {
+            model.add(after.label(), after.description(), 1);
+        }
+        dirtyUsers.add(userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLabelRenamed(CashFlowLabelRenamedEvent event) {
+        staleUsers.add(event.userId());
+        models.markChanged(event.userId());
+        models.invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImported(CashFlowImportedEvent event) {
+        staleUsers.add(event.userId());
+        models.markChanged(event.userId());
+        models.invalidate(event.userId());
+    }
+
+    /**
+     * Melatih ulang model user stale dan menyimpan perubahan yang belum tersimpan.
+     * @return Jumlah user yang modelnya ditulis ke tabel.
+     */
+    @Scheduled(fixedDelayString = "${cashflow.label-suggestions.flush-interval-ms:300000}")
+    public int flush() {
+        int written = 0;
+        for (UUID userId : new ArrayList<>(staleUsers)) {
+            // Flag dilepas sebelum membaca cash_flows; perubahan selama training menandai ulang user
+            staleUsers.remove(userId);
+            dirtyUsers.remove(userId);
+            save(userId, train(userId));
+            models.markChanged(userId);
+            models.invalidate(userId);
+            written++;
+        }
+
+        for (UUID userId : new ArrayList<>(dirtyUsers)) {
+            dirtyUsers.remove(userId);
+            NaiveBayesLabeler model = models.getIfPresent(userId);
+            if (model == null) {
+                // Sudah dibuang dari cache sebelum disimpan; perubahannya diserap training berikutnya
+                staleUsers.add(userId);
+                continue;
+            }
+            save(userId, model);
+            written++;
+        }
+        return written;
+    }
+
+    // Perubahan yang hanya ada di model memori hilang saat restart; simpan sebelum aplikasi berhenti
+    @PreDestroy
+    public void shutdown() {
+        // Pemuatan yang masih antre hanya mengisi cache, tidak perlu ditunggu
+        trainer.shutdownNow();
+        flush();
+    }
+
+    // Job harian: latih ulang seluruh user agar perubahan yang terlewat ikut terserap
+    @Scheduled(cron = "${cashflow.label-suggestions.rebuild-cron:0 30 4 * * *}")
+    public int rebuildAll() {
+        Set<UUID> userIds = new LinkedHashSet<>(cashFlowRepository.findDistinctUserIds());
+        userIds.addAll(cashFlowLabelModelRepository.findAllUserIds());
+        staleUsers.addAll(userIds);
+        return flush();
+    }
+
+    @Scheduled(fixedDelayString = "${cashflow.label-suggestions.evict-interval-ms:60000}")
+    public int evictIdleModels() {
+        return models.evictIdle();
+    }
+
+    public int getModelCount() {
+        return models.size();
+    }
+
+    // Menunggu seluruh pemuatan model yang sudah diantrekan selesai
+    void awaitTraining() {
+        CompletableFuture.runAsync(() -> {
+        }, trainer).join();
+    }
+
+    private void scheduleLoad(UUID userId) {
+        if (pendingLoads.add(userId)) {
+            trainer.execute(() -> {
+                pendingLoads.remove(userId);
+                try {
+                    models.get(userId, this::load);
+                } catch (RuntimeException e) {
+                    System.err.println("Gagal memuat model saran label user " + userId + ": " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    private NaiveBayesLabeler load(UUID userId) {
+        // Perubahan user dirty yang modelnya sudah dibuang dari cache belum ada di tabel
+        if (staleUsers.contains(userId) || dirtyUsers.contains(userId)) {
+            return train(userId);
+        }
+        CashFlowLabelModel row = cashFlowLabelModelRepository.findById(userId).orElse(null);
+        if (row == null) {
+            // Belum pernah disimpan; dilatih dari cash_flows dan disimpan pada flush berikutnya
+            staleUsers.add(userId);
+            return train(userId);
+        }
+        return NaiveBayesLabeler.fromBytes(row.getModel());
+    }
+
+    private NaiveBayesLabeler train(UUID userId) {
+        NaiveBayesLabeler model = new NaiveBayesLabeler();
+        for (Object[] row : cashFlowRepository.findLabelDescriptions(userId)) {
+            model.add((String) row[0], (String) row[1], 1);
+        }
+        return model;
+    }
+
+    private void save(UUID userId, NaiveBayesLabeler model) {
+        cashFlowLabelModelRepository.save(new CashFlowLabelModel(userId, model.toBytes(), LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,234 @@
+package org.delcom.app.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.delcom.app.dto.CashFlowLabelQuantiles;
+import org.delcom.app.entities.CashFlowLabelSketch;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
+import org.delcom.app.repositories.CashFlowLabelSketchRepository;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.utils.AfterCommit;
+import org.delcom.app.utils.BoundedUserCache;
+import org.delcom.app.utils.KllSketch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Median/p90/p99 amount transaksi per label dari sketsa kuantil KLL per user dan label.
+ *
+ * Insert diterapkan langsung ke sketsa di memori. Sketsa tidak mendukung penghapusan,
+ * sehingga update, delete, rename, dan import menandai user "stale"; job berkala
+ * membangun ulang sketsa user stale dari cash_flows dan menyimpan sketsa yang berubah
+ * ke tabel cash_flow_label_sketches. Job harian membangun ulang seluruh user untuk
+ * menyerap perubahan yang hilang saat aplikasi dijalankan ulang.
+ */
+@Service
+public class CashFlowQuantileService {
+
+    record UserSketches(Map<String, KllSketch> byLabel) {
+        long estimatedBytes() {
+            long bytes = 64;
+            for (Map.Entry<String, KllSketch> entry : byLabel.entrySet()) {
+                bytes += 64 + 2L * entry.getKey().length() + entry.getValue().estimatedBytes();
+            }
+            return bytes;
+        }
+    }
+
+    private final CashFlowLabelSketchRepository cashFlowLabelSketchRepository;
+    private final CashFlowRepository cashFlowRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BoundedUserCache<UserSketches> sketches;
+    private final double unusualRank;
+
+    // User yang sketsanya tidak lagi mencerminkan cash_flows (perlu dibangun ulang)
+    private final Set<UUID> staleUsers = ConcurrentHashMap.newKeySet();
+    // User dengan insert di memori yang belum disimpan
+    private final Set<UUID> dirtyUsers = ConcurrentHashMap.newKeySet();
+
+    public CashFlowQuantileService(CashFlowLabelSketchRepository cashFlowLabelSketchRepository,
+            CashFlowRepository cashFlowRepository, PlatformTransactionManager transactionManager,
+            @Value("${cashflow.quantiles.max-bytes:16777216}") long maxBytes,
+            @Value("${cashflow.quantiles.max-idle-ms:1800000}") long maxIdleMs,
+            @Value("${cashflow.quantiles.unusual-rank:0.95}") double unusualRank) {
+        this.cashFlowLabelSketchRepository = cashFlowLabelSketchRepository;
+        this.cashFlowRepository = cashFlowRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sketches = new BoundedUserCache<>(maxBytes, maxIdleMs, UserSketches::estimatedBytes);
+        this.unusualRank = unusualRank;
+    }
+
+    /**
+     * Mengambil distribusi amount sebuah label. Waktu query tidak bergantung pada jumlah
+     * transaksi (sebanding ukuran sketsa).
+     * @param label Nama label ("" untuk transaksi tanpa label).
+     * @param amount Amount yang dinilai (opsional); unusual jika rank-nya >= unusual-rank.
+     * @return Distribusi label, atau null jika label tidak memiliki transaksi.
+     */
+    public CashFlowLabelQuantiles getQuantiles(UUID userId, String label, Long amount) {
+        KllSketch sketch = sketches.get(userId, this::load).byLabel().get(label);
+        if (sketch == null) {
+            return null;
+        }
+
+        Double amountRank = null;
+        Boolean unusual = null;
+        if (amount != null) {
+            amountRank = sketch.rank(amount);
+            unusual = amountRank >= unusualRank;
+        }
+        return new CashFlowLabelQuantiles(label, sketch.getN(), sketch.getMin(), sketch.quantile(0.5),
+                sketch.quantile(0.9), sketch.quantile(0.99), sketch.getMax(),
+                KllSketch.normalizedRankError(sketch.getK()), amountRank, unusual);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCashFlowChanged(CashFlowChangedEvent event) {
+        long version = sketches.markChanged(event.userId());
+        AfterCommit.run(() -> applyChange(event, version));
+    }
+
+    private void applyChange(CashFlowChangedEvent event, long version) {
+        UUID userId = event.userId();
+        // Sketsa yang dimuat setelah perubahan mungkin sudah berisi baris ini; dibuang dan dibangun ulang
+        UserSketches userSketches = sketches.getIfLoadedBefore(userId, version);
+        Snapshot after = event.after();
+        if (event.before() != null || userSketches == null) {
+            staleUsers.add(userId);
+            return;
+        }
+
+        userSketches.byLabel().computeIfAbsent(labelOf(after), label -> new KllSketch()).update(after.amount());
+        dirtyUsers.add(userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLabelRenamed(CashFlowLabelRenamedEvent event) {
+        staleUsers.add(event.userId());
+        sketches.markChanged(event.userId());
+        sketches.invalidate(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImported(CashFlowImportedEvent event) {
+        staleUsers.add(event.userId());
+        sketches.markChanged(event.userId());
+        sketches.invalidate(event.userId());
+    }
+
+    /**
+     * Membangun ulang sketsa user stale dan menyimpan insert yang belum tersimpan.
+     * @return Jumlah user yang sketsanya ditulis ke tabel.
+     */
+    @Scheduled(fixedDelayString = "${cashflow.quantiles.flush-interval-ms:300000}")
+    public int flush() {
+        int written = 0;
+        for (UUID userId : new ArrayList<>(staleUsers)) {
+            // Flag dilepas sebelum membaca cash_flows; perubahan selama rebuild menandai ulang user
+            staleUsers.remove(userId);
+            dirtyUsers.remove(userId);
+            save(userId, build(userId));
+            sketches.markChanged(userId);
+            sketches.invalidate(userId);
+            written++;
+        }
+
+        for (UUID userId : new ArrayList<>(dirtyUsers)) {
+            dirtyUsers.remove(userId);
+            UserSketches userSketches = sketches.getIfPresent(userId);
+            if (userSketches == null) {
+                // Sudah dibuang dari cache sebelum disimpan; insert-nya diserap rebuild berikutnya
+                staleUsers.add(userId);
+                continue;
+            }
+            save(userId, userSketches);
+            written++;
+        }
+        return written;
+    }
+
+    // Insert yang hanya ada di memori hilang saat restart; simpan sebelum aplikasi berhenti
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Job harian: bangun ulang seluruh user agar penghapusan/update yang terlewat ikut terserap
+    @Scheduled(cron = "${cashflow.quantiles.rebuild-cron:0 0 4 * * *}")
+    public int rebuildAll() {
+        Set<UUID> userIds = new LinkedHashSet<>(cashFlowRepository.findDistinctUserIds());
+        userIds.addAll(cashFlowLabelSketchRepository.findDistinctUserIds());
+        staleUsers.addAll(userIds);
+        return flush();
+    }
+
+    @Scheduled(fixedDelayString = "${cashflow.quantiles.evict-interval-ms:60000}")
+    public int evictIdleSketches() {
+        return sketches.evictIdle();
+    }
+
+    public int getSketchCount() {
+        return sketches.size();
+    }
+
+    private UserSketches load(UUID userId) {
+        // Insert user dirty yang sketsanya sudah dibuang dari cache belum ada di tabel
+        if (staleUsers.contains(userId) || dirtyUsers.contains(userId)) {
+            return build(userId);
+        }
+        List<CashFlowLabelSketch> rows = cashFlowLabelSketchRepository.findByUserId(userId);
+        if (rows.isEmpty()) {
+            // Belum pernah disimpan; dibangun dari cash_flows dan disimpan pada flush berikutnya
+            staleUsers.add(userId);
+            return build(userId);
+        }
+        UserSketches userSketches = new UserSketches(new ConcurrentHashMap<>());
+        for (CashFlowLabelSketch row : rows) {
+            userSketches.byLabel().put(row.getLabel(), KllSketch.fromBytes(row.getSketch()));
+        }
+        return userSketches;
+    }
+
+    private UserSketches build(UUID userId) {
+        UserSketches userSketches = new UserSketches(new ConcurrentHashMap<>());
+        for (Object[] row : cashFlowRepository.findLabelAmounts(userId)) {
+            String label = row[0] != null ? (String) row[0] : "";
+            userSketches.byLabel().computeIfAbsent(label, key -> new KllSketch())
+                    .update(((Number) row[1]).longValue());
+        }
+        return userSketches;
+    }
+
+    private void save(UUID userId, UserSketches userSketches) {
+        LocalDateTime now = LocalDateTime.now();
+        List<CashFlowLabelSketch> rows = new ArrayList<>();
+        for (Map.Entry<String, KllSketch> entry : userSketches.byLabel().entrySet()) {
+            rows.add(new CashFlowLabelSketch(userId, entry.getKey(), entry.getValue().toBytes(), now));
+        }
+        transactionTemplate.executeWithoutResult(tx -> {
+            cashFlowLabelSketchRepository.deleteByUserId(userId);
+            cashFlowLabelSketchRepository.saveAll(rows);
+        });
+    }
+
+    private static String labelOf(Snapshot snapshot) {
+        return snapshot.label() != null ? snapshot.label() : "";
+    }
+}
@@ -0,0 +1,361 @@
+package org.delcom.app.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.delcom.app.dto.CashFlowReceiptUploadStatus;
+import org.delcom.app.entities.CashFlowReceipt;
+import org.delcom.app.entities.CashFlowReceiptUpload;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.repositories.CashFlowReceiptRepository;
+import org.delcom.app.repositories.CashFlowReceiptUploadRepository;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.utils.AfterCommit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Upload bukti transaksi (foto/PDF) secara bertahap: initiate, kirim chunk bernomor
+ * (urutan bebas, boleh diulang), lalu complete. Setiap chunk ditulis langsung dari body
+ * request ke posisinya di satu file sementara (FileChannel.transferFrom), sehingga file
+ * tidak pernah ditampung utuh di heap dan tidak perlu disusun ulang saat complete.
+ *
+ * Saat complete, file di-hash (SHA-256) lalu di-rename menjadi blob per user; file yang
+ * isinya sudah pernah diunggah user tersebut dibuang dan blob lama dipakai bersama.
+ * Pemakaian ulang blob dan penghapusan blob yang tidak dipakai lagi diserialkan dengan
+ * kunci advisory per blob, sehingga blob tidak terhapus sebelum bukti barunya di-commit.
+ * Upload yang tidak disentuh selama upload-ttl-ms dihapus beserta file sementaranya, dan
+ * bukti ikut dihapus saat cash flow-nya dihapus.
+ */
+@Service
+public class CashFlowReceiptService {
+    public static final Set<String> CONTENT_TYPES = Set.of("image/jpeg", "image/png", "image/webp", "image/heic",
+            "application/pdf");
+
+    private static final String PART_SUFFIX = ".part";
+    private static final int DIGEST_BUFFER_BYTES = 1 << 16;
+
+    private final CashFlowReceiptRepository receiptRepository;
+    private final CashFlowReceiptUploadRepository uploadRepository;
+    private final CashFlowRepository cashFlowRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Path uploadDir;
+    private final Path blobDir;
+    private final int chunkBytes;
+    private final long maxBytes;
+    private final long uploadTtlMs;
+
+    public CashFlowReceiptService(CashFlowReceiptRepository receiptRepository,
+            CashFlowReceiptUploadRepository uploadRepository, CashFlowRepository cashFlowRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${cashflow.receipts.dir:${java.io.tmpdir}/cashflow-receipts}") String dir,
+            @Value("${cashflow.receipts.chunk-bytes:1048576}") int chunkBytes,
+            @Value("${cashflow.receipts.max-bytes:20971520}") long maxBytes,
+            @Value("${cashflow.receipts.upload-ttl-ms:86400000}") long uploadTtlMs) {
+        this.receiptRepository = receiptRepository;
+        this.uploadRepository = uploadRepository;
+        this.cashFlowRepository = cashFlowRepository;
+        // Transaksi sendiri, juga saat dipanggil dari afterCommit transaksi delete cash flow
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.uploadDir = Path.of(dir, "uploads");
+        this.blobDir = Path.of(dir, "blobs");
+        this.chunkBytes = chunkBytes;
+        this.maxBytes = maxBytes;
+        this.uploadTtlMs = uploadTtlMs;
+    }
+
+    public boolean isSupportedContentType(String contentType) {
+        return CONTENT_TYPES.contains(contentType);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Memulai upload bukti untuk cash flow milik user.
+     * @param size Ukuran file dalam byte (1 sampai max-bytes, divalidasi pemanggil).
+     * @return Status upload, atau null jika cash flow tidak ditemukan.
+     */
+    public CashFlowReceiptUploadStatus initiateUpload(UUID userId, UUID cashFlowId, String fileName,
+            String contentType, long size) throws IOException {
+        if (!cashFlowRepository.existsByUserIdAndId(userId, cashFlowId)) {
+            return null;
+        }
+
+        CashFlowReceiptUpload upload = new CashFlowReceiptUpload(UUID.randomUUID(), userId, cashFlowId,
+                sanitizeFileName(fileName), contentType, size, chunkBytes, LocalDateTime.now());
+        Files.createDirectories(uploadDir);
+        // File sparse sepanjang size: transferFrom tidak menulis di posisi setelah akhir file
+        try (FileChannel channel = FileChannel.open(part(upload.getId()), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(1), size - 1);
+        }
+        uploadRepository.save(upload);
+        return getStatus(upload);
+    }
+
+    /**
+     * @return Upload milik user, atau null jika tidak ditemukan (atau sudah selesai/dihapus).
+     */
+    public CashFlowReceiptUpload findUpload(UUID userId, UUID uploadId) {
+        return uploadRepository.findByIdAndUserId(uploadId, userId);
+    }
+
+    public CashFlowReceiptUploadStatus getStatus(CashFlowReceiptUpload upload) {
+        return new CashFlowReceiptUploadStatus(upload.getId(), upload.getCashFlowId(), upload.getFileName(),
+                upload.getSize(), upload.getChunkSize(), upload.getChunkCount(), upload.getMissingChunks());
+    }
+
+    /**
+     * Menulis satu chunk dari body ke posisinya di file sementara. Chunk yang sudah
+     * diterima tidak ditulis ulang (request ulang setelah response hilang).
+     * @param index Nomor chunk (0 sampai chunkCount - 1, divalidasi pemanggil).
+     * @return Status upload, atau null jika panjang body tidak sama dengan panjang chunk.
+     */
+    public CashFlowReceiptUploadStatus writeChunk(CashFlowReceiptUpload upload, int index, InputStream body)
+            throws IOException {
+        if (upload.isReceived(index)) {
+            return getStatus(upload);
+        }
+
+        long position = (long) index * upload.getChunkSize();
+        long expected = upload.getChunkLength(index);
+        ReadableByteChannel in = Channels.newChannel(body);
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(part(upload.getId()), StandardOpenOption.WRITE)) {
+            while (written < expected) {
+                long transferred = channel.transferFrom(in, position + written, expected - written);
+                if (transferred == 0) {
+                    break;
+                }
+                written += transferred;
+            }
+        }
+        if (written != expected || in.read(ByteBuffer.allocate(1)) >= 0) {
+            return null;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        uploadRepository.markReceived(upload.getId(), index, now);
+        upload.markReceived(index, now);
+        return getStatus(upload);
+    }
+
+    /**
+     * Menyelesaikan upload yang seluruh chunk-nya sudah diterima (divalidasi pemanggil)
+     * menjadi bukti transaksi. Jika cash flow sudah memiliki bukti dengan isi yang sama,
+     * bukti tersebut yang dikembalikan.
+     *
+     * File di-hash sebelum upload diklaim, dan klaim dibatalkan jika file gagal dipindahkan,
+     * sehingga complete yang gagal karena IOException dapat diulang dengan file yang sama.
+     * @return Bukti transaksi, atau null jika upload sudah diselesaikan request lain atau
+     *         cash flow-nya sudah dihapus.
+     */
+    public CashFlowReceipt completeUpload(CashFlowReceiptUpload upload) throws IOException {
+        UUID userId = upload.getUserId();
+        Path part = part(upload.getId());
+        String sha256;
+        try {
+            sha256 = sha256(part);
+        } catch (NoSuchFileException e) {
+            // File sudah dipindahkan oleh request lain yang menyelesaikan upload ini
+            if (!uploadRepository.existsById(upload.getId())) {
+                return null;
+            }
+            throw e;
+        }
+        Path blob = blob(userId, sha256);
+        Files.createDirectories(blob.getParent());
+
+        if (uploadRepository.claim(upload.getId()) == 0) {
+            return null;
+        }
+        CashFlowReceipt receipt;
+        try {
+            receipt = transactionTemplate.execute(tx -> store(upload, part, blob, sha256));
+        } catch (UncheckedIOException e) {
+            uploadRepository.save(upload);
+            throw e.getCause();
+        }
+        if (receipt == null) {
+            // Cash flow dihapus setelah upload dimulai; file sementara tidak lagi dibutuhkan
+            Files.deleteIfExists(part);
+        }
+        return receipt;
+    }
+
+    // Cash flow dan blob dikunci sampai bukti di-commit: delete cash flow yang bersamaan
+    // menunggu lalu ikut menghapus bukti ini, dan blob yang dipakai ulang tidak dihapus
+    private CashFlowReceipt store(CashFlowReceiptUpload upload, Path part, Path blob, String sha256) {
+        UUID userId = upload.getUserId();
+        if (cashFlowRepository.lockByUserIdAndId(userId, upload.getCashFlowId()) == 0) {
+            return null;
+        }
+        receiptRepository.lockBlob(userId, sha256);
+        try {
+            if (Files.exists(blob)) {
+                Files.delete(part);
+            } else {
+                Files.move(part, blob, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        CashFlowReceipt existing = receiptRepository.findFirstByUserIdAndCashFlowIdAndSha256(userId,
+                upload.getCashFlowId(), sha256);
+        if (existing != null) {
+            return existing;
+        }
+        return receiptRepository.save(new CashFlowReceipt(userId, upload.getCashFlowId(), sha256,
+                upload.getFileName(), upload.getContentType(), upload.getSize(), LocalDateTime.now()));
+    }
+
+    public List<CashFlowReceipt> findReceipts(UUID userId, UUID cashFlowId) {
+        return receiptRepository.findByUserIdAndCashFlowIdOrderByCreatedAt(userId, cashFlowId);
+    }
+
+    /**
+     * @return Bukti transaksi milik user, atau null jika tidak ditemukan.
+     */
+    public CashFlowReceipt findReceipt(UUID userId, UUID receiptId) {
+        return receiptRepository.findByUserIdAndId(userId, receiptId);
+    }
+
+    public Path getReceiptFile(CashFlowReceipt receipt) {
+        return blob(receipt.getUserId(), receipt.getSha256());
+    }
+
+    /**
+     * Bukti milik cash flow yang dihapus ikut dihapus dalam transaksi yang sama; blob yang
+     * tidak lagi dipakai bukti lain dihapus dari disk setelah commit.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCashFlowChanged(CashFlowChangedEvent event) {
+        if (event.after() != null) {
+            return;
+        }
+        UUID userId = event.userId();
+        List<CashFlowReceipt> receipts = receiptRepository.findByUserIdAndCashFlowIdOrderByCreatedAt(userId,
+                event.before().id());
+        if (receipts.isEmpty()) {
+            return;
+        }
+        receiptRepository.deleteAll(receipts);
+        Set<String> hashes = new HashSet<>();
+        receipts.forEach(receipt -> hashes.add(receipt.getSha256()));
+        AfterCommit.run(() -> deleteUnusedBlobs(userId, hashes));
+    }
+
+    /**
+     * Menghapus upload yang tidak disentuh selama upload-ttl-ms beserta file sementara
+     * yang tidak lagi memiliki upload (misalnya tertinggal saat complete gagal).
+     * @return Jumlah file sementara yang dihapus.
+     */
+    @Scheduled(fixedDelayString = "${cashflow.receipts.gc-interval-ms:3600000}")
+    public int collectAbandonedUploads() throws IOException {
+        uploadRepository.deleteByUpdatedAtBefore(LocalDateTime.now().minus(Duration.ofMillis(uploadTtlMs)));
+        if (!Files.isDirectory(uploadDir)) {
+            return 0;
+        }
+
+        long threshold = System.currentTimeMillis() - uploadTtlMs;
+        List<Path> files;
+        try (Stream<Path> list = Files.list(uploadDir)) {
+            files = list.toList();
+        }
+
+        int deleted = 0;
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            // Hanya file sementara upload; file lain di direktori ini bukan milik service ini
+            if (!name.endsWith(PART_SUFFIX)) {
+                continue;
+            }
+            UUID uploadId = UUID.fromString(name.substring(0, name.length() - PART_SUFFIX.length()));
+            if (Files.getLastModifiedTime(file).toMillis() < threshold && !uploadRepository.existsById(uploadId)) {
+                Files.deleteIfExists(file);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    // Dijalankan setelah commit, sehingga kegagalan hanya dicatat
+    private void deleteUnusedBlobs(UUID userId, Set<String> hashes) {
+        for (String sha256 : hashes) {
+            transactionTemplate.executeWithoutResult(tx -> {
+                receiptRepository.lockBlob(userId, sha256);
+                if (receiptRepository.existsByUserIdAndSha256(userId, sha256)) {
+                    return;
+                }
+                try {
+                    Files.deleteIfExists(blob(userId, sha256));
+                } catch (IOException e) {
+                    System.err.println("Gagal menghapus blob bukti transaksi " + sha256 + ": " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    private Path part(UUID uploadId) {
+        return uploadDir.resolve(uploadId + PART_SUFFIX);
+    }
+
+    private Path blob(UUID userId, String sha256) {
+        return blobDir.resolve(userId.toString()).resolve(sha256);
+    }
+
+    // Nama file hanya metadata (header Content-Disposition), bukan path di disk
+    private static String sanitizeFileName(String fileName) {
+        String sanitized = fileName.strip().replaceAll("[\\\\/\"\\p{Cntrl}]", "_");
+        return sanitized.length() > 255 ? sanitized.substring(0, 255) : sanitized;
+    }
+
+    // Hash dibaca bertahap lewat buffer direct, tanpa memuat file ke heap
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(DIGEST_BUFFER_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,327 @@
+package org.delcom.app.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import org.delcom.app.dto.CashFlowImportResult.RowError;
+import org.delcom.app.dto.CashFlowReconciliation;
+import org.delcom.app.dto.CashFlowReconciliation.Ambiguous;
+import org.delcom.app.dto.CashFlowReconciliation.Match;
+import org.delcom.app.dto.CashFlowReconciliation.StatementLine;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.utils.CsvUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rekonsiliasi rekening koran (CSV) terhadap cash flow user dengan hash join: cash flow
+ * dalam rentang tanggal rekening koran dimuat sekali dan dikelompokkan ke bucket
+ * (amount, tanggal), lalu setiap baris rekening koran hanya memeriksa bucket amount yang
+ * sama dalam jendela ±date-window-days. Kandidat diberi skor dari kemiripan deskripsi
+ * (trigram) dan kedekatan tanggal, sehingga biaya total O(n + m), bukan O(n * m).
+ */
+@Service
+public class CashFlowReconcileService {
+    private static final String[] FIELDS = { "date", "amount", "description", "type" };
+
+    private record Scored(Candidate candidate, double score) {
+    }
+
+    private static final class Candidate {
+        final UUID id;
+        final String type;
+        final String description;
+        long[] trigrams;
+        boolean taken;
+
+        Candidate(UUID id, String type, String description) {
+            this.id = id;
+            this.type = type;
+            this.description = description != null ? description : "";
+        }
+
+        long[] trigrams() {
+            if (trigrams == null) {
+                trigrams = CashFlowReconcileService.trigrams(description);
+            }
+            return trigrams;
+        }
+    }
+
+    private final CashFlowRepository cashFlowRepository;
+    private final int dateWindowDays;
+    private final double ambiguityMargin;
+
+    public CashFlowReconcileService(CashFlowRepository cashFlowRepository,
+            @Value("${cashflow.reconcile.date-window-days:3}") int dateWindowDays,
+            @Value("${cashflow.reconcile.ambiguity-margin:0.05}") double ambiguityMargin) {
+        this.cashFlowRepository = cashFlowRepository;
+        this.dateWindowDays = dateWindowDays;
+        this.ambiguityMargin = ambiguityMargin;
+    }
+
+    /**
+     * Mencocokkan baris rekening koran dengan cash flow user. Setiap cash flow dipakai
+     * paling banyak satu kali; baris diproses sesuai urutan file.
+     * @param input CSV dengan header date,amount,description[,type]. Amount negatif tanpa
+     *              kolom type dianggap Outflow.
+     * @return Hasil rekonsiliasi, atau null jika header CSV tidak valid.
+     */
+    public CashFlowReconciliation reconcile(UUID userId, InputStream input) throws IOException {
+        long startNanos = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<StatementLine> lines = new ArrayList<>();
+        List<RowError> errors = new ArrayList<>();
+        boolean errorsTruncated = false;
+        int[] columns = null;
+
+        long lineNumber = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            lineNumber++;
+            if (text.isBlank()) {
+                continue;
+            }
+            List<String> fields = CsvUtil.parseLine(text);
+            if (columns == null) {
+                columns = parseHeader(fields);
+                if (columns == null) {
+                    return null;
+                }
+                continue;
+            }
+
+            String error;
+            if (fields == null) {
+                error = "Malformed CSV line.";
+            } else {
+                String[] values = new String[FIELDS.length];
+                for (int f = 0; f < FIELDS.length; f++) {
+                    int column = columns[f];
+                    values[f] = column >= 0 && column < fields.size() ? fields.get(column) : null;
+                }
+                error = validate(values);
+                if (error == null) {
+                    lines.add(toStatementLine(lineNumber, values));
+                    continue;
+                }
+            }
+            if (errors.size() < CashFlowImportService.MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(lineNumber, error));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+        if (columns == null) {
+            return null;
+        }
+
+        List<Match> matched = new ArrayList<>();
+        List<Ambiguous> ambiguous = new ArrayList<>();
+        List<StatementLine> unmatched = new ArrayList<>();
+        if (!lines.isEmpty()) {
+            match(userId, lines, matched, ambiguous, unmatched);
+        }
+        return new CashFlowReconciliation(matched, ambiguous, unmatched, errors, errorsTruncated,
+                (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private void match(UUID userId, List<StatementLine> lines, List<Match> matched, List<Ambiguous> ambiguous,
+            List<StatementLine> unmatched) {
+        LocalDate minDate = lines.get(0).date();
+        LocalDate maxDate = minDate;
+        for (StatementLine line : lines) {
+            minDate = line.date().isBefore(minDate) ? line.date() : minDate;
+            maxDate = line.date().isAfter(maxDate) ? line.date() : maxDate;
+        }
+
+        // Build: satu pass atas cash flow di jendela rekening koran
+        List<Object[]> rows = cashFlowRepository.findReconcileColumns(userId,
+                minDate.minusDays(dateWindowDays).atStartOfDay(),
+                maxDate.plusDays(dateWindowDays + 1L).atStartOfDay());
+        Map<Long, List<Candidate>> buckets = HashMap.newHashMap(rows.size());
+        for (Object[] row : rows) {
+            Candidate candidate = new Candidate((UUID) row[0], (String) row[1], (String) row[4]);
+            long day = ((LocalDateTime) row[3]).toLocalDate().toEpochDay();
+            buckets.computeIfAbsent(key(((Number) row[2]).intValue(), day), k -> new ArrayList<>(1)).add(candidate);
+        }
+
+        // Probe: hanya bucket dengan amount sama dalam jendela tanggal
+        List<Scored> scored = new ArrayList<>();
+        for (StatementLine line : lines) {
+            scored.clear();
+            long day = line.date().toEpochDay();
+            long[] lineTrigrams = null;
+            for (long offset = -dateWindowDays; offset <= dateWindowDays; offset++) {
+                List<Candidate> bucket = buckets.get(key(line.amount(), day + offset));
+                if (bucket == null) {
+                    continue;
+                }
+                for (Candidate candidate : bucket) {
+                    if (candidate.taken || (line.type() != null && !line.type().equalsIgnoreCase(candidate.type))) {
+                        continue;
+                    }
+                    if (lineTrigrams == null) {
+                        lineTrigrams = trigrams(line.description());
+                    }
+                    double dateScore = 1.0 - (double) Math.abs(offset) / (dateWindowDays + 1);
+                    double score = (similarity(lineTrigrams, candidate.trigrams()) + dateScore) / 2;
+                    scored.add(new Scored(candidate, score));
+                }
+            }
+            classify(line, scored, matched, ambiguous, unmatched);
+        }
+    }
+
+    // Kandidat dengan skor dalam ambiguity-margin dari skor terbaik membuat baris ambigu
+    private void classify(StatementLine line, List<Scored> scored, List<Match> matched, List<Ambiguous> ambiguous,
+            List<StatementLine> unmatched) {
+        if (scored.isEmpty()) {
+            unmatched.add(line);
+            return;
+        }
+        Scored best = scored.get(0);
+        for (Scored candidate : scored) {
+            best = candidate.score() > best.score() ? candidate : best;
+        }
+        List<UUID> close = new ArrayList<>();
+        for (Scored candidate : scored) {
+            if (candidate.score() >= best.score() - ambiguityMargin) {
+                close.add(candidate.candidate().id);
+            }
+        }
+        if (close.size() > 1) {
+            ambiguous.add(new Ambiguous(line, close));
+            return;
+        }
+        best.candidate().taken = true;
+        matched.add(new Match(line, best.candidate().id, best.score()));
+    }
+
+    private static long key(int amount, long epochDay) {
+        return ((long) amount << 32) | (epochDay & 0xFFFFFFFFL);
+    }
+
+    // Posisi setiap field di baris CSV (-1 jika kolom tidak ada), atau null jika kolom wajib hilang
+    private static int[] parseHeader(List<String> header) {
+        if (header == null) {
+            return null;
+        }
+        int[] columns = new int[FIELDS.length];
+        for (int f = 0; f < FIELDS.length; f++) {
+            columns[f] = -1;
+            for (int c = 0; c < header.size(); c++) {
+                if (header.get(c).trim().equalsIgnoreCase(FIELDS[f])) {
+                    columns[f] = c;
+                }
+            }
+        }
+        // description dan type opsional
+        return columns[0] < 0 || columns[1] < 0 ? null : columns;
+    }
+
+    /**
+     * @return Pesan kesalahan, atau null jika baris valid.
+     */
+    static String validate(String[] values) {
+        if (values[0] == null || parseDate(values[0]) == null) {
+            return "Invalid date. Use yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss.";
+        }
+        BigDecimal amount = parseAmount(values[1]);
+        if (amount == null || amount.abs().compareTo(BigDecimal.ONE) < 0
+                || amount.abs().compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) > 0) {
+            return "Invalid amount. Must be a non-zero number.";
+        }
+        // Cash flow disimpan dalam satuan utuh; pecahan tidak boleh terpotong diam-diam
+        if (amount.stripTrailingZeros().scale() > 0) {
+            return "Invalid amount. Must be a whole number.";
+        }
+        return null;
+    }
+
+    private static StatementLine toStatementLine(long lineNumber, String[] values) {
+        BigDecimal amount = parseAmount(values[1]);
+        String type = values[3] != null && !values[3].isBlank() ? values[3].trim()
+                : amount.signum() < 0 ? "Outflow" : null;
+        String description = values[2] != null ? values[2] : "";
+        return new StatementLine(lineNumber, parseDate(values[0]), amount.abs().intValue(), type, description);
+    }
+
+    private static LocalDate parseDate(String text) {
+        String value = text.trim();
+        try {
+            return value.length() <= 10 ? LocalDate.parse(value) : LocalDateTime.parse(value).toLocalDate();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static BigDecimal parseAmount(String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(text.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Trigram karakter unik (terurut) dari teks yang dinormalisasi: huruf kecil, selain
+     * huruf/angka menjadi spasi, diapit spasi agar awal dan akhir kata ikut terwakili.
+     */
+    static long[] trigrams(String text) {
+        StringBuilder normalized = new StringBuilder(" ");
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                normalized.append(token).append(' ');
+            }
+        }
+        if (normalized.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[normalized.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) normalized.charAt(i) << 32) | ((long) normalized.charAt(i + 1) << 16)
+                    | normalized.charAt(i + 2);
+        }
+        return Arrays.stream(grams).sorted().distinct().toArray();
+    }
+
+    // Koefisien Dice dua himpunan trigram terurut (0 = tidak mirip, 1 = sama)
+    static double similarity(long[] a, long[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return 0;
+        }
+        int common = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return 2.0 * common / (a.length + b.length);
+    }
+}
@@ -0,0 +1,224 @@
+package org.delcom.app.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.delcom.app.entities.CashFlowRollup;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.repositories.CashFlowRollupRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Memelihara tabel cash_flow_rollups (total per user, bulan, tipe, dan label).
+ * Listener berjalan sinkron sehingga rollup ikut di-commit/di-rollback bersama
+ * transaksi CashFlowService. Job verifikasi membangun ulang rollup yang tidak cocok.
+ *
+ * Rollup user yang belum pernah diverifikasi (mis. cash flow yang sudah ada sebelum
+ * tabel rollup dibuat) belum tentu lengkap. Verifikasi seluruh user dijalankan saat
+ * startup; sampai selesai, pembaca memakai agregasi langsung dari cash_flows untuk
+ * user yang belum terverifikasi (lihat isVerified, findRollups, sumBalanceBefore).
+ */
+@Service
+public class CashFlowRollupService {
+    private final CashFlowRollupRepository cashFlowRollupRepository;
+    private final CashFlowRepository cashFlowRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // User yang sudah diverifikasi sejak startup; dikosongkan setelah verifikasi penuh selesai
+    private final Set<UUID> verifiedUsers = ConcurrentHashMap.newKeySet();
+    private volatile boolean allVerified;
+
+    public CashFlowRollupService(CashFlowRollupRepository cashFlowRollupRepository,
+            CashFlowRepository cashFlowRepository, PlatformTransactionManager transactionManager) {
+        this.cashFlowRollupRepository = cashFlowRollupRepository;
+        this.cashFlowRepository = cashFlowRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public static LocalDate monthOf(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().withDayOfMonth(1);
+    }
+
+    @EventListener
+    public void onCashFlowChanged(CashFlowChangedEvent event) {
+        Snapshot before = event.before();
+        Snapshot after = event.after();
+        cashFlowRollupRepository.lockUserShared(after != null ? after.userId() : before.userId());
+
+        // Bucket sama: cukup satu upsert dengan selisih amount
+        if (before != null && after != null && sameBucket(before, after)) {
+            long amountDelta = (long) after.amount() - before.amount();
+            if (amountDelta != 0) {
+                cashFlowRollupRepository.upsertDelta(after.userId(), monthOf(after.createdAt()), after.type(),
+                        labelOf(after), amountDelta, 0);
+            }
+            return;
+        }
+
+        // Bucket berbeda (tipe/label berubah): pindahkan amount dari bucket lama ke bucket baru
+        if (before != null) {
+            LocalDate month = monthOf(before.createdAt());
+            cashFlowRollupRepository.upsertDelta(before.userId(), month, before.type(), labelOf(before),
+                    -(long) before.amount(), -1);
+            cashFlowRollupRepository.deleteIfEmpty(before.userId(), month, before.type(), labelOf(before));
+        }
+        if (after != null) {
+            cashFlowRollupRepository.upsertDelta(after.userId(), monthOf(after.createdAt()), after.type(),
+                    labelOf(after), after.amount(), 1);
+        }
+    }
+
+    @EventListener
+    public void onLabelRenamed(CashFlowLabelRenamedEvent event) {
+        cashFlowRollupRepository.lockUserShared(event.userId());
+        cashFlowRollupRepository.mergeLabel(event.userId(), event.from(), event.to());
+        cashFlowRollupRepository.deleteByUserIdAndLabel(event.userId(), event.from());
+    }
+
+    /**
+     * Membandingkan rollup user dengan agregasi langsung dari cash_flows dan
+     * membangunnya ulang jika berbeda.
+     *
+     * @return true jika rollup sudah konsisten, false jika harus dibangun ulang
+     */
+    public boolean verifyAndRebuild(UUID userId) {
+        boolean consistent = transactionTemplate.execute(tx -> {
+            // Menunggu transaksi yang sedang menulis delta selesai, dan menahan yang baru
+            cashFlowRollupRepository.lockUser(userId);
+            Map<String, Long> expected = new HashMap<>();
+            for (Object[] row : cashFlowRepository.aggregateMonthly(userId)) {
+                String key = row[0] + "|" + row[1] + "|" + row[2];
+                expected.put(key + "|total", ((Number) row[3]).longValue());
+                expected.put(key + "|count", ((Number) row[4]).longValue());
+            }
+
+            Map<String, Long> actual = new HashMap<>();
+            for (CashFlowRollup rollup : cashFlowRollupRepository.findByUserId(userId)) {
+                String key = rollup.getMonth() + "|" + rollup.getType() + "|" + rollup.getLabel();
+                actual.put(key + "|total", rollup.getTotalAmount());
+                actual.put(key + "|count", rollup.getTxCount());
+            }
+
+            if (expected.equals(actual)) {
+                return true;
+            }
+
+            cashFlowRollupRepository.deleteByUserId(userId);
+            cashFlowRollupRepository.rebuildForUser(userId);
+            return false;
+        });
+        verifiedUsers.add(userId);
+        return consistent;
+    }
+
+    /**
+     * Job harian: verifikasi rollup seluruh user.
+     *
+     * @return jumlah user yang rollup-nya dibangun ulang
+     */
+    @Scheduled(cron = "${cashflow.rollup.verify-cron:0 30 3 * * *}")
+    public int verifyAll() {
+        Set<UUID> userIds = new LinkedHashSet<>(cashFlowRepository.findDistinctUserIds());
+        userIds.addAll(cashFlowRollupRepository.findDistinctUserIds());
+
+        int rebuilt = 0;
+        boolean failed = false;
+        for (UUID userId : userIds) {
+            // Kegagalan satu user tidak menghentikan verifikasi user lain
+            try {
+                if (!verifyAndRebuild(userId)) {
+                    rebuilt++;
+                }
+            } catch (RuntimeException e) {
+                failed = true;
+                System.err.println("Gagal memverifikasi rollup cash flow user " + userId + ": " + e.getMessage());
+            }
+        }
+        // User yang gagal tetap memakai agregasi langsung sampai verifikasi berikutnya berhasil
+        if (!failed) {
+            allVerified = true;
+            verifiedUsers.clear();
+        }
+        return rebuilt;
+    }
+
+    // Verifikasi awal berjalan di background agar startup tidak tertahan
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyOnStartup() {
+        Thread.ofVirtual().name("cashflow-rollup-verify").start(this::verifyAllSafely);
+    }
+
+    // Jika gagal, pembaca tetap memakai agregasi langsung sampai job harian berhasil
+    void verifyAllSafely() {
+        try {
+            verifyAll();
+        } catch (RuntimeException e) {
+            System.err.println("Gagal memverifikasi rollup cash flow: " + e.getMessage());
+        }
+    }
+
+    // true jika rollup user sudah diverifikasi/dibangun ulang sejak aplikasi berjalan
+    public boolean isVerified(UUID userId) {
+        return allVerified || verifiedUsers.contains(userId);
+    }
+
+    /**
+     * Seluruh bucket rollup user. Untuk user yang belum terverifikasi, bucket dihitung
+     * langsung dari cash_flows (tanpa disimpan).
+     */
+    public List<CashFlowRollup> findRollups(UUID userId) {
+        if (isVerified(userId)) {
+            return cashFlowRollupRepository.findByUserId(userId);
+        }
+        List<CashFlowRollup> rollups = new ArrayList<>();
+        for (Object[] row : cashFlowRepository.aggregateMonthly(userId)) {
+            rollups.add(new CashFlowRollup(userId, LocalDate.parse((String) row[0]), (String) row[1],
+                    (String) row[2], ((Number) row[3]).longValue(), ((Number) row[4]).longValue()));
+        }
+        return rollups;
+    }
+
+    // Saldo (Inflow - Outflow) seluruh bulan sebelum month
+    public long sumBalanceBefore(UUID userId, LocalDate month) {
+        if (isVerified(userId)) {
+            return cashFlowRollupRepository.sumBalanceBefore(userId, month);
+        }
+        long balance = 0;
+        for (CashFlowRollup rollup : findRollups(userId)) {
+            if (rollup.getMonth().isBefore(month)) {
+                balance += switch (rollup.getType()) {
+                    case "Inflow" -> rollup.getTotalAmount();
+                    case "Outflow" -> -rollup.getTotalAmount();
+                    default -> 0;
+                };
+            }
+        }
+        return balance;
+    }
+
+    private static boolean sameBucket(Snapshot before, Snapshot after) {
+        return monthOf(before.createdAt()).equals(monthOf(after.createdAt()))
+                && before.type().equals(after.type())
+                && labelOf(before).equals(labelOf(after));
+    }
+
+    private static String labelOf(Snapshot snapshot) {
+        return snapshot.label() != null ? snapshot.label() : "";
+    }
+}
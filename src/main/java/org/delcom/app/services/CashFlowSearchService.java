@@ -0,0 +1,294 @@
+package org.delcom.app.services;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.delcom.app.dto.CashFlowSearchResult;
+import org.delcom.app.dto.CashFlowSearchResult.Facet;
+import org.delcom.app.dto.CashFlowSearchResult.Hit;
+import org.delcom.app.entities.CashFlow;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.utils.CashFlowSearchIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pencarian full-text cash flow dengan ranking relevansi dan hitungan facet per label,
+ * type, dan bulan dalam satu panggilan, memakai indeks Lucene di disk lokal
+ * (CashFlowSearchIndex) sehingga indeks tetap ada setelah aplikasi dijalankan ulang.
+ *
+ * Seluruh penulisan indeks dilakukan satu thread indexer (antrean async): perubahan dari
+ * CashFlowService diterapkan tanpa membuat jalur write menunggu dan terlihat oleh pencarian
+ * pada refresh berkala berikutnya (near-real-time), bukan per perubahan, dan user
+ * yang belum pernah diindeks dibangun dari PostgreSQL per halaman tanpa menahan request
+ * pencarian. Job berkala mencocokkan jumlah dan total amount user yang aktif dengan
+ * database dan membangun ulang yang tidak cocok; job harian membangun ulang seluruh user.
+ */
+@Service
+public class CashFlowSearchService {
+    // UUID terkecil (urutan uuid PostgreSQL), awal keyset saat membangun indeks user
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private final CashFlowRepository cashFlowRepository;
+    private final CashFlowSearchIndex index;
+    private final int batchSize;
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+            .name("cash-flow-indexer")
+            .daemon(true)
+            .factory());
+
+    // User yang pembangunan indeksnya sudah diantrekan
+    private final Set<UUID> pendingBuilds = ConcurrentHashMap.newKeySet();
+    // User yang dicari atau diubah sejak pemeriksaan konsistensi terakhir
+    private final Set<UUID> activeUsers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicLong indexedCount = new AtomicLong();
+    private final AtomicLong builtCount = new AtomicLong();
+    private final AtomicLong inconsistentCount = new AtomicLong();
+
+    public CashFlowSearchService(CashFlowRepository cashFlowRepository,
+            @Value("${cashflow.search.dir}") String dir,
+            @Value("${cashflow.search.batch-size:10000}") int batchSize) throws IOException {
+        this.cashFlowRepository = cashFlowRepository;
+        this.index = new CashFlowSearchIndex(Path.of(dir));
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Mencari cash flow yang memuat seluruh kata pada query di type, source, label, atau
+     * deskripsi (tidak membedakan huruf besar/kecil). Jika indeks user belum dibangun,
+     * pembangunannya diantrekan dan hasil sementara ditandai indexing.
+     * @param limit Jumlah hits (0 = hanya total dan facet).
+     */
+    public CashFlowSearchResult search(UUID userId, String query, int limit) throws IOException {
+        long startNanos = System.nanoTime();
+        boolean indexing = !index.isIndexed(userId);
+        if (indexing) {
+            scheduleBuild(userId);
+        }
+        activeUsers.add(userId);
+        CashFlowSearchIndex.Result result = index.search(userId, query, limit);
+
+        // Hits yang sudah dihapus di database (belum sampai ke indexer) dilewati
+        List<Hit> hits = new ArrayList<>(result.hits().size());
+        if (!result.hits().isEmpty()) {
+            Map<UUID, CashFlow> flows = new HashMap<>();
+            for (CashFlow flow : cashFlowRepository.findAllByUserIdAndIdIn(userId,
+                    result.hits().stream().map(CashFlowSearchIndex.Hit::id).toList())) {
+                flows.put(flow.getId(), flow);
+            }
+            for (CashFlowSearchIndex.Hit hit : result.hits()) {
+                CashFlow flow = flows.get(hit.id());
+                if (flow != null) {
+                    hits.add(new Hit(flow, hit.score()));
+                }
+            }
+        }
+
+        List<Facet> byMonth = new ArrayList<>();
+        result.byMonth().entrySet().stream()
+                .sorted(Map.Entry.<YearMonth, Integer>comparingByKey().reversed())
+                .forEach(entry -> byMonth.add(new Facet(entry.getKey().toString(), entry.getValue())));
+        return new CashFlowSearchResult(query, result.total(), hits, facets(result.byLabel()),
+                facets(result.byType()), byMonth, indexing, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Membuat perubahan yang sudah diterapkan indexer terlihat oleh pencarian. Reader baru
+     * hanya dibuka jika indeks berubah sejak refresh terakhir.
+     */
+    @Scheduled(fixedDelayString = "${cashflow.search.refresh-interval-ms:1000}")
+    public void refresh() throws IOException {
+        index.refresh();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCashFlowChanged(CashFlowChangedEvent event) {
+        pendingCount.incrementAndGet();
+        indexer.execute(() -> apply(event));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLabelRenamed(CashFlowLabelRenamedEvent event) {
+        scheduleBuild(event.userId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImported(CashFlowImportedEvent event) {
+        scheduleBuild(event.userId());
+    }
+
+    /**
+     * Mencocokkan jumlah transaksi dan total amount user yang aktif sejak pemeriksaan
+     * terakhir dengan database, lalu menyimpan indeks ke disk. Dijalankan di thread
+     * indexer setelah perubahan yang sudah diantrekan.
+     * @return Jumlah user yang tidak cocok dan dibangun ulang.
+     */
+    @Scheduled(fixedDelayString = "${cashflow.search.check-interval-ms:300000}")
+    public int checkConsistency() throws IOException {
+        int inconsistent = CompletableFuture.supplyAsync(() -> {
+            int count = 0;
+            for (UUID userId : new ArrayList<>(activeUsers)) {
+                activeUsers.remove(userId);
+                // User yang belum pernah dibangun hanya menerima perubahan, tidak perlu dicocokkan
+                if (!safely(userId, () -> !index.isIndexed(userId) || verify(userId))) {
+                    build(userId);
+                    count++;
+                }
+            }
+            return count;
+        }, indexer).join();
+        index.commit();
+        inconsistentCount.addAndGet(inconsistent);
+        return inconsistent;
+    }
+
+    // Job harian: seluruh user di indeks dibangun ulang dari database
+    @Scheduled(cron = "${cashflow.search.rebuild-cron:0 0 5 * * *}")
+    public int rebuildAll() throws IOException {
+        List<UUID> userIds = index.getIndexedUsers();
+        for (UUID userId : userIds) {
+            scheduleBuild(userId);
+        }
+        return userIds.size();
+    }
+
+    // Perubahan yang masih menunggu di antrean indexer
+    public long getPendingCount() {
+        return pendingCount.get();
+    }
+
+    public long getIndexedCount() {
+        return indexedCount.get();
+    }
+
+    // Jumlah user yang indeksnya dibangun dari database
+    public long getBuiltCount() {
+        return builtCount.get();
+    }
+
+    public long getInconsistentCount() {
+        return inconsistentCount.get();
+    }
+
+    // Menunggu seluruh perubahan yang sudah diantrekan selesai diterapkan
+    void awaitIndexing() {
+        CompletableFuture.runAsync(() -> {
+        }, indexer).join();
+    }
+
+    // Antrean diselesaikan lalu indeks ditutup (commit) agar perubahan terakhir tersimpan
+    @PreDestroy
+    public void shutdown() throws IOException {
+        indexer.close();
+        index.close();
+    }
+
+    private void scheduleBuild(UUID userId) {
+        if (pendingBuilds.add(userId)) {
+            indexer.execute(() -> {
+                pendingBuilds.remove(userId);
+                build(userId);
+            });
+        }
+    }
+
+    private void apply(CashFlowChangedEvent event) {
+        pendingCount.decrementAndGet();
+        activeUsers.add(event.userId());
+        Snapshot after = event.after();
+        boolean applied = safely(event.userId(), () -> {
+            if (after == null) {
+                index.delete(event.before().id());
+            } else {
+                index.add(new CashFlowSearchIndex.Document(after.id(), after.userId(), after.type(),
+                        after.source(), after.label(), after.amount(), after.description(), after.createdAt()));
+            }
+            return true;
+        });
+        if (applied) {
+            indexedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Membangun ulang indeks user dari database per halaman batch-size. Perubahan baru
+     * terlihat oleh pencarian setelah seluruh halaman dan penanda user ditambahkan.
+     */
+    private void build(UUID userId) {
+        boolean built = safely(userId, () -> {
+            index.deleteUser(userId);
+            UUID after = FIRST_ID;
+            List<Object[]> rows;
+            while (!(rows = cashFlowRepository.findSearchColumnsAfter(userId, after,
+                    PageRequest.of(0, batchSize))).isEmpty()) {
+                for (Object[] row : rows) {
+                    index.add(new CashFlowSearchIndex.Document((UUID) row[0], userId, (String) row[1],
+                            (String) row[2], (String) row[3], ((Number) row[4]).intValue(), (String) row[5],
+                            (LocalDateTime) row[6]));
+                }
+                after = (UUID) rows.get(rows.size() - 1)[0];
+            }
+            index.markIndexed(userId);
+            index.refresh();
+            return true;
+        });
+        if (built) {
+            builtCount.incrementAndGet();
+        }
+    }
+
+    private boolean verify(UUID userId) throws IOException {
+        // Perubahan yang sudah diterapkan tetapi belum di-refresh ikut dicocokkan
+        index.refresh();
+        CashFlowSearchIndex.Stats stats = index.getStats(userId);
+        Object[] row = cashFlowRepository.countAndSumByUserId(userId).get(0);
+        return ((Number) row[0]).longValue() == stats.count() && ((Number) row[1]).longValue() == stats.amountSum();
+    }
+
+    private interface IndexTask {
+        boolean run() throws IOException;
+    }
+
+    // Kegagalan di thread indexer dicatat agar antrean tetap berjalan; user diperiksa ulang nanti
+    private boolean safely(UUID userId, IndexTask task) {
+        try {
+            return task.run();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Gagal memperbarui indeks pencarian cash flow user " + userId + ": " + e.getMessage());
+            activeUsers.add(userId);
+            return false;
+        }
+    }
+
+    private static List<Facet> facets(Map<String, Integer> counts) {
+        List<Facet> facets = new ArrayList<>();
+        counts.forEach((value, count) -> facets.add(new Facet(value, count)));
+        facets.sort(Comparator.comparingLong(Facet::count).reversed().thenComparing(Facet::value));
+        return facets;
+    }
+}
@@ -1,8 +1,22 @@
 package org.delcom.app.services;
 
+import org.delcom.app.dto.CashFlowPage;
+import org.delcom.app.dto.CashFlowSummary;
 import org.delcom.app.entities.CashFlow;
+import org.delcom.app.entities.CashFlowTerm;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
 import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.repositories.CashFlowRollupRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
 import java.util.Optional;
@@ -10,11 +24,27 @@ import java.util.Optional;
 @Service
 public class CashFlowService {
 
+    // Batas rentang default jika from/to tidak diisi
+    private static final LocalDateTime MIN_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATE = LocalDateTime.of(9999, 1, 1, 0, 0);
+    // Posisi awal keyset: lebih besar dari semua baris dalam rentang tanggal
+    private static final UUID LAST_ID = new UUID(-1L, -1L);
+
     private final CashFlowRepository cashFlowRepository;
+    private final CashFlowRollupRepository cashFlowRollupRepository;
+    private final CashFlowRollupService cashFlowRollupService;
+    private final CashFlowTermService cashFlowTermService;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Constructor Injection
-    public CashFlowService(CashFlowRepository cashFlowRepository) {
+    public CashFlowService(CashFlowRepository cashFlowRepository, CashFlowRollupRepository cashFlowRollupRepository,
+            CashFlowRollupService cashFlowRollupService, CashFlowTermService cashFlowTermService,
+            ApplicationEventPublisher eventPublisher) {
         this.cashFlowRepository = cashFlowRepository;
+        this.cashFlowRollupRepository = cashFlowRollupRepository;
+        this.cashFlowRollupService = cashFlowRollupService;
+        this.cashFlowTermService = cashFlowTermService;
+        this.eventPublisher = eventPublisher;
     }
 
     // 1. CREATE
@@ -23,12 +53,18 @@ public class CashFlowService {
      * @param userId ID pengguna yang membuat transaksi.
      * @return CashFlow yang baru disimpan.
      */
+    @Transactional
     public CashFlow createCashFlow(UUID userId, String type, String source, String label, Integer amount, String description) {
         // Gunakan konstruktor baru yang menerima userId
         CashFlow newFlow = new CashFlow(userId, type, source, label, amount, description);
+        applyTerms(newFlow, userId, type, source, label);
         
         // Simpan objek baru ke database
-        return cashFlowRepository.save(newFlow);
+        CashFlow savedFlow = cashFlowRepository.save(newFlow);
+
+        // Listener sinkron (mis. rollup) berjalan di transaksi yang sama
+        eventPublisher.publishEvent(new CashFlowChangedEvent(null, CashFlowChangedEvent.Snapshot.of(savedFlow)));
+        return savedFlow;
     }
 
     // 2. READ ALL / SEARCH
@@ -38,16 +74,91 @@ public class CashFlowService {
      * @param keyword Kata kunci untuk pencarian (dapat berupa null).
      * @return Daftar CashFlow.
      */
+    @Transactional(readOnly = true)
     public List<CashFlow> getAllCashFlows(UUID userId, String keyword) {
         // Jika keyword valid, gunakan pencarian dengan filter userId
         if (keyword != null && !keyword.trim().isEmpty()) {
             return cashFlowRepository.findByKeyword(userId, keyword.trim()); 
         }
         
-        // Jika keyword kosong, ambil semua CashFlow yang dimiliki oleh user tersebut.
-        // Asumsi: findByKeyword dapat menangani string kosong, atau Anda harus menambahkan
-        // method 'findByUserId(UUID userId)' di CashFlowRepository.
-        return cashFlowRepository.findByKeyword(userId, "");
+        // Jika keyword kosong, ambil semua CashFlow milik user tanpa predikat LIKE
+        return cashFlowRepository.findAllByUserId(userId);
+    }
+
+    /**
+     * Mengambil satu halaman CashFlow milik user (terbaru dulu) dengan keyset pagination.
+     * @param from Tanggal awal (inklusif, opsional).
+     * @param to Tanggal akhir (inklusif, opsional).
+     * @param type Filter tipe (opsional).
+     * @param label Filter label (opsional).
+     * @param cursor nextCursor dari halaman sebelumnya (null untuk halaman pertama).
+     * @param limit Jumlah maksimum item per halaman.
+     * @return Halaman CashFlow, atau null jika cursor tidak valid.
+     */
+    @Transactional(readOnly = true)
+    public CashFlowPage getCashFlowPage(UUID userId, LocalDate from, LocalDate to, String type, String label,
+            String cursor, int limit) {
+        LocalDateTime afterCreatedAt = MAX_DATE;
+        UUID afterId = LAST_ID;
+        if (cursor != null) {
+            String[] position = decodeCursor(cursor);
+            if (position == null) {
+                return null;
+            }
+            try {
+                afterCreatedAt = LocalDateTime.parse(position[0]);
+                afterId = UUID.fromString(position[1]);
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        // Nama yang tidak ada di kamus pasti tidak cocok dengan transaksi mana pun
+        Integer typeId = null;
+        if (type != null) {
+            CashFlowTerm term = cashFlowTermService.find(userId, CashFlowTerm.Kind.TYPE, type);
+            if (term == null) {
+                return new CashFlowPage(List.of(), null);
+            }
+            typeId = term.getId();
+        }
+        Integer labelId = null;
+        if (label != null) {
+            CashFlowTerm term = cashFlowTermService.find(userId, CashFlowTerm.Kind.LABEL, label);
+            if (term == null) {
+                return new CashFlowPage(List.of(), null);
+            }
+            labelId = term.getId();
+        }
+
+        LocalDateTime start = from != null ? from.atStartOfDay() : MIN_DATE;
+        LocalDateTime end = to != null ? to.plusDays(1).atStartOfDay() : MAX_DATE;
+
+        // Ambil satu baris lebih untuk mengetahui apakah masih ada halaman berikutnya
+        List<CashFlow> rows = cashFlowRepository.findPage(userId, start, end, afterCreatedAt, afterId, typeId,
+                labelId, PageRequest.of(0, limit + 1));
+        if (rows.size() <= limit) {
+            return new CashFlowPage(rows, null);
+        }
+        List<CashFlow> items = rows.subList(0, limit);
+        CashFlow last = items.get(limit - 1);
+        return new CashFlowPage(items, encodeCursor(last.getCreatedAt(), last.getId()));
+    }
+
+    // Cursor berupa base64url dari "createdAt|id" baris terakhir pada halaman
+    static String encodeCursor(LocalDateTime createdAt, UUID id) {
+        String position = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|");
+            return parts.length == 2 ? parts : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
     // 3. READ BY ID
@@ -57,6 +168,7 @@ public class CashFlowService {
      * @param userId ID pengguna untuk otorisasi.
      * @return CashFlow jika ditemukan dan dimiliki user, atau null.
      */
+    @Transactional(readOnly = true)
     public CashFlow getCashFlowById(UUID id, UUID userId) {
         // Menggunakan method yang memfilter berdasarkan userId DAN id transaksi
         return cashFlowRepository.findByUserIdAndId(userId, id); 
@@ -68,11 +180,68 @@ public class CashFlowService {
      * @param userId ID pengguna.
      * @return Daftar String label unik.
      */
+    @Transactional(readOnly = true)
     public List<String> getCashFlowLabels(UUID userId) {
         // Menggunakan method untuk menemukan label unik milik user
         return cashFlowRepository.findDistinctLabels(userId); 
     }
 
+    // 4b. SUMMARY
+    /**
+     * Menghitung total CashFlow per grup dengan GROUP BY di database, sehingga
+     * klien tidak perlu mengunduh seluruh transaksi untuk menjumlahkannya.
+     * @param userId ID pengguna.
+     * @param groupBy type, label, source, day, week, atau month.
+     * @param from Tanggal awal (inklusif), null berarti tanpa batas bawah.
+     * @param to Tanggal akhir (inklusif), null berarti tanpa batas atas.
+     * @return Daftar ringkasan per grup dan tipe, atau null jika groupBy tidak dikenal.
+     */
+    @Transactional(readOnly = true)
+    public List<CashFlowSummary> getCashFlowSummary(UUID userId, String groupBy, LocalDate from, LocalDate to) {
+        LocalDateTime start = from != null ? from.atStartOfDay() : MIN_DATE;
+        LocalDateTime end = to != null ? to.plusDays(1).atStartOfDay() : MAX_DATE;
+
+        // Rentang yang tepat per bulan cukup dibaca dari tabel rollup bulanan, selama rollup
+        // user sudah diverifikasi (cash flow lama mungkin belum masuk ke rollup)
+        boolean monthAligned = start.getDayOfMonth() == 1 && end.getDayOfMonth() == 1
+                && cashFlowRollupService.isVerified(userId);
+        LocalDate fromMonth = start.toLocalDate();
+        LocalDate toMonth = end.toLocalDate().minusMonths(1);
+
+        switch (groupBy) {
+            case "type":
+                return monthAligned
+                        ? cashFlowRollupRepository.sumByType(userId, fromMonth, toMonth)
+                        : cashFlowRepository.sumByType(userId, start, end);
+            case "label":
+                return monthAligned
+                        ? cashFlowRollupRepository.sumByLabel(userId, fromMonth, toMonth)
+                        : cashFlowRepository.sumByLabel(userId, start, end);
+            case "source":
+                return cashFlowRepository.sumBySource(userId, start, end);
+            case "month":
+                if (monthAligned) {
+                    return cashFlowRollupRepository.sumByMonth(userId, fromMonth, toMonth);
+                }
+                return sumByPeriod(userId, groupBy, start, end);
+            case "day":
+            case "week":
+                return sumByPeriod(userId, groupBy, start, end);
+            default:
+                return null;
+        }
+    }
+
+    private List<CashFlowSummary> sumByPeriod(UUID userId, String unit, LocalDateTime start, LocalDateTime end) {
+        return cashFlowRepository.sumByPeriod(userId, unit, start, end).stream()
+                .map(row -> new CashFlowSummary(
+                        (String) row[0],
+                        (String) row[1],
+                        ((Number) row[2]).longValue(),
+                        ((Number) row[3]).longValue()))
+                .toList();
+    }
+
     // 5. UPDATE
     /**
      * Memperbarui CashFlow yang ada, memastikan transaksi milik user.
@@ -80,20 +249,33 @@ public class CashFlowService {
      * @param userId ID pengguna untuk otorisasi.
      * @return CashFlow yang telah diperbarui, atau null jika tidak ditemukan/bukan milik user.
      */
+    @Transactional
     public CashFlow updateCashFlow(UUID id, UUID userId, String type, String source, String label, Integer amount, String description) {
         // 1. Cari data lama dan verifikasi kepemilikan
         CashFlow existingFlow = cashFlowRepository.findByUserIdAndId(userId, id);
 
         if (existingFlow != null) {
-            // 2. Perbarui field-field
-            existingFlow.setType(type);
-            existingFlow.setSource(source);
-            existingFlow.setLabel(label);
+            // Salin nilai lama sebelum diubah (dibutuhkan listener untuk memindahkan bucket rollup)
+            CashFlowChangedEvent.Snapshot before = CashFlowChangedEvent.Snapshot.of(existingFlow);
+
+            CashFlowTerm oldSource = existingFlow.getSourceTerm();
+            CashFlowTerm oldLabel = existingFlow.getLabelTerm();
+
+            // 2. Perbarui field-field (type/source/label melalui kamus)
+            applyTerms(existingFlow, userId, type, source, label);
             existingFlow.setAmount(amount);
             existingFlow.setDescription(description);
             
             // 3. Simpan perubahan (onUpdate() ditangani oleh @PreUpdate di Entity)
-            return cashFlowRepository.save(existingFlow);
+            CashFlow savedFlow = cashFlowRepository.save(existingFlow);
+            if (oldSource != existingFlow.getSourceTerm()) {
+                cashFlowTermService.pruneIfUnused(oldSource);
+            }
+            if (oldLabel != existingFlow.getLabelTerm()) {
+                cashFlowTermService.pruneIfUnused(oldLabel);
+            }
+            eventPublisher.publishEvent(new CashFlowChangedEvent(before, CashFlowChangedEvent.Snapshot.of(savedFlow)));
+            return savedFlow;
         }
         return null;
     }
@@ -105,15 +287,63 @@ public class CashFlowService {
      * @param userId ID pengguna untuk otorisasi.
      * @return true jika berhasil dihapus, false jika transaksi tidak ditemukan/bukan milik user.
      */
+    @Transactional
     public boolean deleteCashFlow(UUID id, UUID userId) {
-        // Cek apakah data ada dan milik user
-        if (cashFlowRepository.existsByUserIdAndId(userId, id)) {
+        // Cek apakah data ada dan milik user (nilai lama dibutuhkan oleh listener)
+        CashFlow existingFlow = cashFlowRepository.findByUserIdAndId(userId, id);
+        if (existingFlow != null) {
+            CashFlowChangedEvent.Snapshot before = CashFlowChangedEvent.Snapshot.of(existingFlow);
+            cashFlowTermService.lock(userId);
             cashFlowRepository.deleteById(id);
+            cashFlowTermService.pruneIfUnused(existingFlow.getSourceTerm());
+            cashFlowTermService.pruneIfUnused(existingFlow.getLabelTerm());
+            eventPublisher.publishEvent(new CashFlowChangedEvent(before, null));
             return true;
         }
         return false;
     }
 
+    // 7. RENAME LABEL
+    /**
+     * Mengganti nama label milik user. Jika label tujuan belum ada, cukup entri kamus
+     * yang diubah; jika sudah ada, transaksi dipindahkan ke label tujuan.
+     * @param userId ID pengguna.
+     * @param from Nama label lama.
+     * @param to Nama label baru.
+     * @return true jika berhasil, false jika label lama tidak ditemukan.
+     */
+    @Transactional
+    public boolean renameLabel(UUID userId, String from, String to) {
+        cashFlowTermService.lock(userId);
+        CashFlowTerm source = cashFlowTermService.find(userId, CashFlowTerm.Kind.LABEL, from);
+        if (source == null) {
+            return false;
+        }
+        if (from.equals(to)) {
+            return true;
+        }
+
+        CashFlowTerm target = cashFlowTermService.find(userId, CashFlowTerm.Kind.LABEL, to);
+        if (target == null) {
+            source.setName(to);
+        } else {
+            cashFlowRepository.relabel(userId, source, target);
+            cashFlowTermService.delete(source);
+        }
+
+        // Listener sinkron (rollup) memindahkan bucket label di transaksi yang sama
+        eventPublisher.publishEvent(new CashFlowLabelRenamedEvent(userId, from, to));
+        return true;
+    }
+
+    // Kamus dikunci sampai commit; pruneIfUnused setelah update memakai kunci yang sama
+    private void applyTerms(CashFlow flow, UUID userId, String type, String source, String label) {
+        cashFlowTermService.lock(userId);
+        flow.setTypeTerm(cashFlowTermService.resolve(userId, CashFlowTerm.Kind.TYPE, type));
+        flow.setSourceTerm(cashFlowTermService.resolve(userId, CashFlowTerm.Kind.SOURCE, source));
+        flow.setLabelTerm(cashFlowTermService.resolve(userId, CashFlowTerm.Kind.LABEL, label));
+    }
+
     // --- METODE STUB DIHAPUS ---
     // Metode 'createFlow', 'updateFlow', dan 'getFlowsByUserId' telah dihapus
     // karena sudah diwakili oleh implementasi di atas.
@@ -0,0 +1,297 @@
+package org.delcom.app.services;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.delcom.app.configs.ReplicaRoutingDataSource;
+import org.delcom.app.dto.CashFlowMonthlyStatement;
+import org.delcom.app.dto.CashFlowSummary;
+import org.delcom.app.dto.CashFlowTopItem;
+import org.delcom.app.entities.CashFlowStatement;
+import org.delcom.app.entities.CashFlowStatementRun;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.repositories.CashFlowStatementRepository;
+import org.delcom.app.repositories.CashFlowStatementRunRepository;
+import org.delcom.app.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Batch laporan bulanan untuk seluruh user. User diambil berurutan menurut id dalam
+ * gelombang berisi threads chunk; setiap chunk diproses di pool berukuran tetap, satu
+ * query rentang per user (dibaca lewat transaksi read-only sehingga dapat diarahkan ke
+ * replica), lalu laporan satu chunk disimpan dalam satu transaksi. Checkpoint disimpan
+ * setelah setiap gelombang selesai, jadi run yang terputus dilanjutkan tanpa mengulang
+ * gelombang sebelumnya. User yang gagal dicatat di run dan dicoba ulang sebelum run
+ * ditandai selesai; selama masih ada yang gagal, run tetap RUNNING dan dilanjutkan oleh
+ * resumeIncomplete. Laju dibatasi max-users-per-second agar tidak membebani traffic OLTP.
+ */
+@Service
+public class CashFlowStatementService {
+    private static final ObjectMapper JSON = new ObjectMapper();
+    // UUID terkecil (urutan uuid PostgreSQL), awal keyset sebelum checkpoint pertama
+    private static final UUID FIRST_USER = new UUID(0, 0);
+
+    private final CashFlowStatementRepository statementRepository;
+    private final CashFlowStatementRunRepository runRepository;
+    private final UserRepository userRepository;
+    private final CashFlowRepository cashFlowRepository;
+    private final CashFlowRollupService rollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTemplate;
+    private final int chunkSize;
+    private final int threads;
+    private final int maxUsersPerSecond;
+    private final int topExpenses;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong nextSlotNanos = new AtomicLong(System.nanoTime());
+    private final AtomicLong generatedUserCount = new AtomicLong();
+    private final AtomicLong failedUserCount = new AtomicLong();
+    private volatile long lastRunElapsedMs;
+    private volatile long lastRunUsersPerMinute;
+
+    public CashFlowStatementService(CashFlowStatementRepository statementRepository,
+            CashFlowStatementRunRepository runRepository, UserRepository userRepository,
+            CashFlowRepository cashFlowRepository, CashFlowRollupService rollupService,
+            PlatformTransactionManager transactionManager,
+            @Value("${cashflow.statements.chunk-size:100}") int chunkSize,
+            @Value("${cashflow.statements.threads:4}") int threads,
+            @Value("${cashflow.statements.max-users-per-second:50}") int maxUsersPerSecond,
+            @Value("${cashflow.statements.top-expenses:5}") int topExpenses) {
+        this.statementRepository = statementRepository;
+        this.runRepository = runRepository;
+        this.userRepository = userRepository;
+        this.cashFlowRepository = cashFlowRepository;
+        this.rollupService = rollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+        this.maxUsersPerSecond = maxUsersPerSecond;
+        this.topExpenses = topExpenses;
+    }
+
+    /**
+     * Mengambil laporan bulanan user yang sudah dibuat batch.
+     * @param month Tanggal mana pun di bulan laporan.
+     * @return Laporan, atau null jika belum dibuat.
+     */
+    public CashFlowMonthlyStatement getStatement(UUID userId, LocalDate month) {
+        return statementRepository.findById(new CashFlowStatement.Key(userId, month.withDayOfMonth(1)))
+                .map(statement -> JSON.readValue(statement.getContent(), CashFlowMonthlyStatement.class))
+                .orElse(null);
+    }
+
+    // Awal bulan: laporan bulan sebelumnya
+    @Scheduled(cron = "${cashflow.statements.cron:0 0 1 1 * *}")
+    public void generatePreviousMonth() {
+        generate(LocalDate.now().minusMonths(1).withDayOfMonth(1));
+    }
+
+    // Melanjutkan run yang terputus, mis. karena aplikasi dimatikan di tengah batch
+    @Scheduled(fixedDelayString = "${cashflow.statements.resume-interval-ms:600000}")
+    public void resumeIncomplete() {
+        for (CashFlowStatementRun run : runRepository.findByStatus(CashFlowStatementRun.RUNNING)) {
+            generate(run.getMonth());
+        }
+    }
+
+    /**
+     * Membuat laporan seluruh user untuk satu bulan, dilanjutkan dari checkpoint jika run
+     * bulan tersebut pernah terputus. Run yang sudah selesai tidak diulang.
+     * @param month Tanggal 1 bulan laporan.
+     * @return Status run, atau null jika batch lain sedang berjalan.
+     */
+    public CashFlowStatementRun generate(LocalDate month) {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            return run(month, pool);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private CashFlowStatementRun run(LocalDate month, ExecutorService pool) {
+        CashFlowStatementRun run = runRepository.findById(month)
+                .orElseGet(() -> new CashFlowStatementRun(month, LocalDateTime.now()));
+        if (CashFlowStatementRun.COMPLETED.equals(run.getStatus())) {
+            return run;
+        }
+
+        long startNanos = System.nanoTime();
+        long users = 0;
+        UUID after = run.getCheckpointUserId() != null ? run.getCheckpointUserId() : FIRST_USER;
+        List<UUID> userIds;
+        while (!(userIds = userRepository.findIdsAfter(after, PageRequest.of(0, chunkSize * threads))).isEmpty()) {
+            List<CompletableFuture<List<UUID>>> chunks = new ArrayList<>();
+            for (int from = 0; from < userIds.size(); from += chunkSize) {
+                List<UUID> chunk = userIds.subList(from, Math.min(from + chunkSize, userIds.size()));
+                chunks.add(CompletableFuture.supplyAsync(() -> processChunk(chunk, month), pool));
+            }
+            // Chunk yang gagal disimpan menghentikan run di checkpoint terakhir
+            List<UUID> failed = new ArrayList<>();
+            for (CompletableFuture<List<UUID>> chunk : chunks) {
+                failed.addAll(chunk.join());
+            }
+
+            after = userIds.get(userIds.size() - 1);
+            users += userIds.size();
+            run.checkpoint(after, userIds.size() - failed.size(), failed, LocalDateTime.now());
+            runRepository.save(run);
+        }
+
+        retryFailed(run, month);
+        if (run.getFailedUserIds().isEmpty()) {
+            run.complete(LocalDateTime.now());
+        }
+        runRepository.save(run);
+        lastRunElapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+        lastRunUsersPerMinute = users * 60_000 / Math.max(lastRunElapsedMs, 1);
+        return run;
+    }
+
+    // User gagal dari seluruh gelombang (termasuk run sebelumnya) dicoba ulang sekali
+    private void retryFailed(CashFlowStatementRun run, LocalDate month) {
+        List<UUID> failed = List.copyOf(run.getFailedUserIds());
+        List<UUID> recovered = new ArrayList<>();
+        for (int from = 0; from < failed.size(); from += chunkSize) {
+            List<UUID> chunk = failed.subList(from, Math.min(from + chunkSize, failed.size()));
+            List<UUID> stillFailed = processChunk(chunk, month);
+            for (UUID userId : chunk) {
+                if (!stillFailed.contains(userId)) {
+                    recovered.add(userId);
+                }
+            }
+        }
+        run.recover(recovered, LocalDateTime.now());
+    }
+
+    /**
+     * User yang gagal dibaca dilewati; laporan chunk disimpan dalam satu transaksi.
+     * @return Id user yang laporannya gagal dibuat.
+     */
+    private List<UUID> processChunk(List<UUID> userIds, LocalDate month) {
+        List<CashFlowStatement> statements = new ArrayList<>(userIds.size());
+        List<UUID> failed = new ArrayList<>();
+        for (UUID userId : userIds) {
+            throttle();
+            try {
+                CashFlowMonthlyStatement statement = build(userId, month);
+                statements.add(new CashFlowStatement(userId, month, statement.closingBalance(), statement.txCount(),
+                        JSON.writeValueAsString(statement), statement.generatedAt()));
+            } catch (RuntimeException e) {
+                failed.add(userId);
+                System.err.println("Gagal membuat laporan " + month + " untuk user " + userId + ": " + e.getMessage());
+            }
+        }
+        transactionTemplate.executeWithoutResult(tx -> statementRepository.saveAll(statements));
+        generatedUserCount.addAndGet(statements.size());
+        failedUserCount.addAndGet(failed.size());
+        return failed;
+    }
+
+    private record MonthRows(List<Object[]> rows, long openingBalance) {
+    }
+
+    private CashFlowMonthlyStatement build(UUID userId, LocalDate month) {
+        MonthRows data;
+        // User diset agar transaksi read-only dapat diarahkan ke replica
+        ReplicaRoutingDataSource.setCurrentUser(userId);
+        try {
+            data = readOnlyTemplate.execute(tx -> new MonthRows(
+                    cashFlowRepository.findColumnsInRange(userId, month.atStartOfDay(),
+                            month.plusMonths(1).atStartOfDay()),
+                    rollupService.sumBalanceBefore(userId, month)));
+        } finally {
+            ReplicaRoutingDataSource.clearCurrentUser();
+        }
+
+        long totalInflow = 0;
+        long totalOutflow = 0;
+        Map<String, long[]> byType = new TreeMap<>();
+        Map<String, Map<String, long[]>> byLabel = new TreeMap<>();
+        List<CashFlowTopItem> expenses = new ArrayList<>();
+        for (Object[] row : data.rows()) {
+            String type = (String) row[1];
+            String label = row[3] != null ? (String) row[3] : "";
+            long amount = ((Number) row[4]).longValue();
+            if ("Inflow".equals(type)) {
+                totalInflow += amount;
+            } else if ("Outflow".equals(type)) {
+                totalOutflow += amount;
+                expenses.add(new CashFlowTopItem((UUID) row[0], type, (String) row[2], (String) row[3], amount,
+                        (LocalDateTime) row[5]));
+            }
+            accumulate(byType, type, amount);
+            accumulate(byLabel.computeIfAbsent(label, k -> new TreeMap<>()), type, amount);
+        }
+        expenses.sort(Comparator.comparingLong(CashFlowTopItem::amount).reversed()
+                .thenComparing(CashFlowTopItem::createdAt));
+
+        List<CashFlowSummary> typeSummaries = new ArrayList<>();
+        byType.forEach((type, total) -> typeSummaries.add(new CashFlowSummary(type, type, total[0], total[1])));
+        List<CashFlowSummary> labelSummaries = new ArrayList<>();
+        byLabel.forEach((label, types) -> types.forEach(
+                (type, total) -> labelSummaries.add(new CashFlowSummary(label, type, total[0], total[1]))));
+
+        long openingBalance = data.openingBalance();
+        return new CashFlowMonthlyStatement(month, openingBalance, totalInflow, totalOutflow,
+                openingBalance + totalInflow - totalOutflow, data.rows().size(), typeSummaries, labelSummaries,
+                List.copyOf(expenses.subList(0, Math.min(topExpenses, expenses.size()))), LocalDateTime.now());
+    }
+
+    private static void accumulate(Map<String, long[]> totals, String key, long amount) {
+        long[] total = totals.computeIfAbsent(key, k -> new long[2]);
+        total[0] += amount;
+        total[1]++;
+    }
+
+    // Jadwal global untuk semua worker: setiap user mendapat slot 1/max-users-per-second detik
+    private void throttle() {
+        if (maxUsersPerSecond <= 0) {
+            return;
+        }
+        long interval = 1_000_000_000L / maxUsersPerSecond;
+        long now = System.nanoTime();
+        long slot = nextSlotNanos.getAndAccumulate(now, (next, current) -> Math.max(next, current) + interval);
+        LockSupport.parkNanos(Math.max(slot - now, 0));
+    }
+
+    public long getGeneratedUserCount() {
+        return generatedUserCount.get();
+    }
+
+    public long getFailedUserCount() {
+        return failedUserCount.get();
+    }
+
+    public long getLastRunElapsedMs() {
+        return lastRunElapsedMs;
+    }
+
+    public long getLastRunUsersPerMinute() {
+        return lastRunUsersPerMinute;
+    }
+}
@@ -0,0 +1,76 @@
+package org.delcom.app.services;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.entities.CashFlowTerm;
+import org.delcom.app.entities.CashFlowTerm.Kind;
+import org.delcom.app.repositories.CashFlowTermRepository;
+import org.springframework.stereotype.Service;
+
+/**
+ * Mengelola kamus type/source/label per user yang dirujuk oleh cash_flows.
+ * Dipanggil dari dalam transaksi CashFlowService, yang mengunci kamus user (lock) sebelum
+ * resolve, pruneIfUnused, atau mengganti nama entri.
+ */
+@Service
+public class CashFlowTermService {
+    private final CashFlowTermRepository cashFlowTermRepository;
+
+    public CashFlowTermService(CashFlowTermRepository cashFlowTermRepository) {
+        this.cashFlowTermRepository = cashFlowTermRepository;
+    }
+
+    /**
+     * Mengunci kamus user sampai akhir transaksi. Tanpa kunci, pruneIfUnused transaksi lain
+     * tidak melihat cash flow yang belum di-commit dan dapat menghapus entri yang baru saja
+     * di-resolve, dan rename dapat bentrok dengan insertIfAbsent nama yang sama.
+     */
+    public void lock(UUID userId) {
+        cashFlowTermRepository.lockUser(userId);
+    }
+
+    /**
+     * Mengambil entri kamus untuk nilai tertentu, membuatnya jika belum ada.
+     * @return Entri kamus, atau null jika name bernilai null.
+     */
+    public CashFlowTerm resolve(UUID userId, Kind kind, String name) {
+        if (name == null) {
+            return null;
+        }
+        CashFlowTerm term = cashFlowTermRepository.findByUserIdAndKindAndName(userId, kind, name);
+        if (term == null) {
+            cashFlowTermRepository.insertIfAbsent(userId, kind.ordinal(), name);
+            term = cashFlowTermRepository.findByUserIdAndKindAndName(userId, kind, name);
+        }
+        return term;
+    }
+
+    public CashFlowTerm find(UUID userId, Kind kind, String name) {
+        return cashFlowTermRepository.findByUserIdAndKindAndName(userId, kind, name);
+    }
+
+    public List<String> getNames(UUID userId, Kind kind) {
+        return cashFlowTermRepository.findNames(userId, kind);
+    }
+
+    /**
+     * Menghapus entri label/source yang tidak lagi dipakai setelah update atau delete.
+     * Entri type tidak dihapus karena jumlahnya hanya sedikit per user.
+     */
+    public void pruneIfUnused(CashFlowTerm term) {
+        if (term == null || term.getId() == null) {
+            return;
+        }
+        switch (term.getKind()) {
+            case LABEL -> cashFlowTermRepository.deleteLabelIfUnused(term.getId());
+            case SOURCE -> cashFlowTermRepository.deleteSourceIfUnused(term.getId());
+            default -> {
+            }
+        }
+    }
+
+    public void delete(CashFlowTerm term) {
+        cashFlowTermRepository.delete(term);
+    }
+}
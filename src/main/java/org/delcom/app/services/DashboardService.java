@@ -0,0 +1,102 @@
+package org.delcom.app.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.delcom.app.dto.CashFlowSummary;
+import org.delcom.app.dto.DashboardSummary;
+import org.delcom.app.dto.TodoProgress;
+import org.delcom.app.entities.Todo;
+import org.delcom.app.entities.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Menyusun payload dashboard. Setiap bagian dijalankan bersamaan di virtual thread
+ * dengan tenggatnya sendiri (dihitung dari awal request), sehingga latensi total
+ * mendekati bagian yang paling lambat, bukan jumlah seluruh bagian. Bagian yang belum
+ * selesai saat tenggatnya dibatalkan dan dilaporkan di incompleteSections.
+ */
+@Service
+public class DashboardService {
+    public static final String SECTION_TODO_COUNTS = "todoCounts";
+    public static final String SECTION_RECENT_TODOS = "recentTodos";
+    public static final String SECTION_CASH_FLOW_TOTALS = "cashFlowTotals";
+    public static final String SECTION_LABELS = "labels";
+
+    private final TodoService todoService;
+    private final CashFlowService cashFlowService;
+    private final long todosTimeoutMs;
+    private final long cashFlowsTimeoutMs;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+            .name("dashboard-", 0)
+            .factory());
+
+    private final AtomicLong incompleteCount = new AtomicLong();
+
+    public DashboardService(TodoService todoService, CashFlowService cashFlowService,
+            @Value("${dashboard.todos-timeout-ms:300}") long todosTimeoutMs,
+            @Value("${dashboard.cashflows-timeout-ms:500}") long cashFlowsTimeoutMs) {
+        this.todoService = todoService;
+        this.cashFlowService = cashFlowService;
+        this.todosTimeoutMs = todosTimeoutMs;
+        this.cashFlowsTimeoutMs = cashFlowsTimeoutMs;
+    }
+
+    /**
+     * @param user User yang sudah dimuat oleh AuthInterceptor, dikembalikan apa adanya.
+     */
+    public DashboardSummary getDashboard(User user) {
+        long startNanos = System.nanoTime();
+        Future<TodoProgress> todoCounts = executor.submit(() -> todoService.getTodoCounts(user.getId()));
+        Future<List<Todo>> recentTodos = executor.submit(() -> todoService.getRecentTodos(user.getId()));
+        Future<List<CashFlowSummary>> cashFlowTotals = executor.submit(
+                () -> cashFlowService.getCashFlowSummary(user.getId(), "type", null, null));
+        Future<List<String>> labels = executor.submit(() -> cashFlowService.getCashFlowLabels(user.getId()));
+
+        List<String> incomplete = new ArrayList<>();
+        long todosDeadline = startNanos + todosTimeoutMs * 1_000_000;
+        long cashFlowsDeadline = startNanos + cashFlowsTimeoutMs * 1_000_000;
+        DashboardSummary summary = new DashboardSummary(user,
+                await(todoCounts, todosDeadline, SECTION_TODO_COUNTS, incomplete),
+                await(recentTodos, todosDeadline, SECTION_RECENT_TODOS, incomplete),
+                await(cashFlowTotals, cashFlowsDeadline, SECTION_CASH_FLOW_TOTALS, incomplete),
+                await(labels, cashFlowsDeadline, SECTION_LABELS, incomplete),
+                incomplete, (System.nanoTime() - startNanos) / 1_000_000);
+        incompleteCount.addAndGet(incomplete.size());
+        return summary;
+    }
+
+    // Jumlah bagian yang gagal atau melewati tenggat sejak aplikasi berjalan
+    public long getIncompleteCount() {
+        return incompleteCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // null (dan section dicatat di incomplete) jika bagian gagal atau belum selesai saat tenggat
+    private static <T> T await(Future<T> future, long deadlineNanos, String section, List<String> incomplete) {
+        try {
+            return future.get(Math.max(deadlineNanos - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            future.cancel(true);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        incomplete.add(section);
+        return null;
+    }
+}
@@ -0,0 +1,275 @@
+package org.delcom.app.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.delcom.app.entities.IdempotencyRecord;
+import org.delcom.app.repositories.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Penanganan header Idempotency-Key untuk endpoint POST. Request pertama dengan suatu key
+ * diproses dan response-nya disimpan (tabel idempotency_keys + cache in-memory terbatas);
+ * request ulang dengan key dan isi yang sama mendapat response tersebut tanpa menulis data lagi.
+ *
+ * Klaim key, pemrosesan request, dan penyimpanan response berjalan dalam satu transaksi,
+ * sehingga key hanya tersimpan jika data yang ditulis request ikut commit.
+ *
+ * Duplikat yang datang bersamaan menunggu hasil request pertama: di instance yang sama lewat
+ * future, di instance lain lewat klaim yang tertahan oleh baris yang belum commit.
+ */
+@Service
+public class IdempotencyService {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private static final long POLL_INTERVAL_MS = 50;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private record CacheKey(UUID userId, String key) {
+    }
+
+    private record StoredResponse(byte[] requestHash, Integer status, String body, long expiresAt) {
+    }
+
+    // stored null jika response tidak disimpan (5xx)
+    private record Outcome(ResponseEntity<?> response, StoredResponse stored) {
+    }
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlMillis;
+    private final long waitMillis;
+    private final int purgeBatchSize;
+    private final LongSupplier clock;
+
+    private final Map<CacheKey, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<CacheKey, StoredResponse> completed;
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${idempotency.ttl-ms:86400000}") long ttlMillis,
+            @Value("${idempotency.wait-ms:10000}") long waitMillis,
+            @Value("${idempotency.cache-size:10000}") int cacheSize,
+            @Value("${idempotency.purge-batch-size:1000}") int purgeBatchSize) {
+        this(idempotencyRecordRepository, transactionManager, ttlMillis, waitMillis, cacheSize, purgeBatchSize,
+                System::currentTimeMillis);
+    }
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+            PlatformTransactionManager transactionManager, long ttlMillis, long waitMillis, int cacheSize,
+            int purgeBatchSize, LongSupplier clock) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttlMillis = ttlMillis;
+        this.waitMillis = waitMillis;
+        this.purgeBatchSize = purgeBatchSize;
+        this.clock = clock;
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public static boolean isValidKey(String key) {
+        return !key.isBlank() && key.length() <= MAX_KEY_LENGTH;
+    }
+
+    // SHA-256 dari bagian-bagian request (null dibedakan dari string kosong)
+    public static byte[] hashRequest(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                if (part == null) {
+                    digest.update((byte) 0);
+                } else {
+                    digest.update((byte) 1);
+                    digest.update(part.getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                }
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Menjalankan action sekali untuk setiap (user, key).
+     * @param requestHash Hash isi request (lihat hashRequest).
+     * @param action Pemrosesan request, dijalankan di transaksi yang sama dengan klaim key;
+     *               response 5xx atau exception me-rollback transaksi (termasuk klaim) sehingga
+     *               request ulang diproses kembali.
+     * @return Response action, response tersimpan (dengan header Idempotent-Replayed), atau
+     *         null jika key dipakai untuk isi request lain atau request pertama belum selesai.
+     */
+    public ResponseEntity<?> execute(UUID userId, String key, byte[] requestHash,
+            Supplier<ResponseEntity<?>> action) {
+        CacheKey cacheKey = new CacheKey(userId, key);
+        StoredResponse cached = getCached(cacheKey);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        CompletableFuture<StoredResponse> pending = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> existing = inFlight.putIfAbsent(cacheKey, pending);
+        if (existing != null) {
+            return replay(await(existing), requestHash);
+        }
+
+        StoredResponse stored = null;
+        try {
+            long now = clock.getAsLong();
+            long expiresAt = now + ttlMillis;
+            Outcome outcome = transactionTemplate.execute(tx -> {
+                if (idempotencyRecordRepository.claim(userId, key, requestHash, toDateTime(expiresAt),
+                        toDateTime(now)) == 0) {
+                    return null;
+                }
+                ResponseEntity<?> response = action.get();
+                if (response.getStatusCode().is5xxServerError()) {
+                    tx.setRollbackOnly();
+                    return new Outcome(response, null);
+                }
+                StoredResponse result = new StoredResponse(requestHash, response.getStatusCode().value(),
+                        JSON.writeValueAsString(response.getBody()), expiresAt);
+                idempotencyRecordRepository.complete(userId, key, result.status(), result.body());
+                return new Outcome(response, result);
+            });
+
+            if (outcome == null) {
+                // Key sudah diklaim dan di-commit request lain (mungkin di instance lain)
+                stored = awaitRecord(userId, key, requestHash, now + waitMillis);
+                putCached(cacheKey, stored);
+                return replay(stored, requestHash);
+            }
+            stored = outcome.stored();
+            putCached(cacheKey, stored);
+            return outcome.response();
+        } finally {
+            inFlight.remove(cacheKey, pending);
+            pending.complete(stored);
+        }
+    }
+
+    /**
+     * Menghapus key kedaluwarsa dari cache dan dari tabel per batch (agar tidak ada
+     * transaksi DELETE besar yang mengunci banyak baris sekaligus).
+     * @return Jumlah baris tabel yang dihapus.
+     */
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:600000}")
+    public int purgeExpired() {
+        long now = clock.getAsLong();
+        synchronized (completed) {
+            completed.values().removeIf(stored -> stored.expiresAt() <= now);
+        }
+
+        int total = 0;
+        int deleted;
+        do {
+            deleted = idempotencyRecordRepository.deleteExpiredBatch(toDateTime(now), purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        return total;
+    }
+
+    private StoredResponse getCached(CacheKey cacheKey) {
+        synchronized (completed) {
+            StoredResponse stored = completed.get(cacheKey);
+            if (stored != null && stored.expiresAt() <= clock.getAsLong()) {
+                completed.remove(cacheKey);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    // Hanya response yang sudah selesai yang disimpan di cache
+    private void putCached(CacheKey cacheKey, StoredResponse stored) {
+        if (stored != null && stored.status() != null) {
+            synchronized (completed) {
+                completed.put(cacheKey, stored);
+            }
+        }
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> future) {
+        try {
+            return future.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    // Menunggu baris selesai diproses; berhenti lebih awal jika baris hilang atau isi request berbeda
+    private StoredResponse awaitRecord(UUID userId, String key, byte[] requestHash, long deadline) {
+        while (true) {
+            IdempotencyRecord record = idempotencyRecordRepository
+                    .findById(new IdempotencyRecord.Key(userId, key)).orElse(null);
+            if (record == null) {
+                return null;
+            }
+            StoredResponse stored = new StoredResponse(record.getRequestHash(), record.getStatusCode(),
+                    record.getResponseBody(), toMillis(record.getExpiresAt()));
+            if (stored.status() != null || !Arrays.equals(stored.requestHash(), requestHash)
+                    || clock.getAsLong() >= deadline) {
+                return stored;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    private static ResponseEntity<?> replay(StoredResponse stored, byte[] requestHash) {
+        if (stored == null || stored.status() == null || !Arrays.equals(stored.requestHash(), requestHash)) {
+            return null;
+        }
+        return ResponseEntity.status(stored.status())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.body());
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -3,34 +3,114 @@ package org.delcom.app.services;
 import java.util.List;
 import java.util.UUID;
 
+import org.delcom.app.dto.TodoProgress;
 import org.delcom.app.entities.Todo;
+import org.delcom.app.repositories.TodoClosureRepository;
 import org.delcom.app.repositories.TodoRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class TodoService {
     private final TodoRepository todoRepository;
+    private final TodoClosureRepository todoClosureRepository;
+    private final TodoStatusCoalescer todoStatusCoalescer;
 
-    public TodoService(TodoRepository todoRepository) {
+    public TodoService(TodoRepository todoRepository, TodoClosureRepository todoClosureRepository,
+            TodoStatusCoalescer todoStatusCoalescer) {
         this.todoRepository = todoRepository;
+        this.todoClosureRepository = todoClosureRepository;
+        this.todoStatusCoalescer = todoStatusCoalescer;
     }
 
     @Transactional
     public Todo createTodo(UUID userId, String title, String description) {
+        return createTodo(userId, title, description, null);
+    }
+
+    /**
+     * Membuat todo baru, opsional sebagai subtask dari parentId.
+     * Closure table diperbarui di transaksi yang sama.
+     *
+     * @return todo baru, atau null jika parent tidak ditemukan/bukan milik user
+     */
+    @Transactional
+    public Todo createTodo(UUID userId, String title, String description, UUID parentId) {
+        if (parentId != null && todoRepository.findByUserIdAndId(userId, parentId).isEmpty()) {
+            return null;
+        }
+
         Todo todo = new Todo(userId, title, description, false);
-        return todoRepository.save(todo);
+        todo.setParentId(parentId);
+        Todo savedTodo = todoRepository.save(todo);
+
+        todoClosureRepository.insertSelf(savedTodo.getId());
+        if (parentId != null) {
+            todoClosureRepository.insertSelf(parentId);
+            todoClosureRepository.insertUnderParent(savedTodo.getId(), parentId);
+            // Subtask baru belum selesai, maka parent yang sudah selesai dibuka kembali
+            todoRepository.reopenAncestors(savedTodo.getId());
+        }
+        return savedTodo;
     }
 
+    @Transactional(readOnly = true)
     public List<Todo> getAllTodos(UUID userId, String search) {
         if (search != null && !search.trim().isEmpty()) {
-            return todoRepository.findByKeyword(userId, search);
+            return todoStatusCoalescer.applyPending(todoRepository.findByKeyword(userId, search));
         }
-        return todoRepository.findAll();
+        return todoStatusCoalescer.applyPending(todoRepository.findAll());
     }
 
+    /**
+     * Todo yang memuat seluruh kata (huruf kecil, tanpa spasi) di judul atau deskripsi;
+     * hanya limit todo dengan skor tertinggi yang dimuat, total dihitung di database.
+     */
+    @Transactional(readOnly = true)
+    public Page<Todo> searchTodos(UUID userId, List<String> terms, int limit) {
+        Page<Todo> todos = todoRepository.searchByTerms(userId, String.join(" ", terms), PageRequest.of(0, limit));
+        todoStatusCoalescer.applyPending(todos.getContent());
+        return todos;
+    }
+
+    @Transactional(readOnly = true)
     public Todo getTodoById(UUID userId, UUID id) {
-        return todoRepository.findByUserIdAndId(userId, id).orElse(null);
+        return todoStatusCoalescer.applyPending(todoRepository.findByUserIdAndId(userId, id).orElse(null));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Todo> getSubtasks(UUID userId, UUID id) {
+        if (todoRepository.findByUserIdAndId(userId, id).isEmpty()) {
+            return null;
+        }
+        return todoStatusCoalescer.applyPending(todoRepository.findSubtree(userId, id));
+    }
+
+    @Transactional(readOnly = true)
+    public TodoProgress getProgress(UUID userId, UUID id) {
+        if (todoRepository.findByUserIdAndId(userId, id).isEmpty()) {
+            return null;
+        }
+        return todoRepository.countSubtreeProgress(userId, id);
+    }
+
+    // Jumlah todo user dan yang sudah selesai (tanpa status yang masih di-coalesce)
+    @Transactional(readOnly = true)
+    public TodoProgress getTodoCounts(UUID userId) {
+        return todoRepository.countProgressByUserId(userId);
+    }
+
+    // Lima todo yang terakhir diubah
+    @Transactional(readOnly = true)
+    public List<Todo> getRecentTodos(UUID userId) {
+        return todoStatusCoalescer.applyPending(todoRepository.findFirst5ByUserIdOrderByUpdatedAtDesc(userId));
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isInSubtree(UUID id, UUID candidateId) {
+        return id.equals(candidateId) || todoClosureRepository.existsByAncestorIdAndDescendantId(id, candidateId);
     }
 
     @Transactional
@@ -40,11 +120,82 @@ public class TodoService {
             todo.setTitle(title);
             todo.setDescription(description);
             todo.setFinished(isFinished);
-            return todoRepository.save(todo);
+            todoStatusCoalescer.discard(id);
+            Todo savedTodo = todoRepository.save(todo);
+            if (todo.getParentId() != null) {
+                rollupAncestors(id, isFinished);
+            }
+            return savedTodo;
         }
         return null;
     }
 
+    /**
+     * Mengubah status isFinished saja. Jika write coalescing aktif, status ditampung di
+     * TodoStatusCoalescer dan ditulis bersama toggle lain pada flush berikutnya.
+     *
+     * @return false jika todo tidak ditemukan/bukan milik user
+     */
+    @Transactional
+    public boolean updateTodoStatus(UUID userId, UUID id, boolean isFinished) {
+        if (todoStatusCoalescer.isEnabled() && todoStatusCoalescer.tryEnqueue(userId, id, isFinished)) {
+            return true;
+        }
+
+        Todo todo = todoRepository.findByUserIdAndId(userId, id).orElse(null);
+        if (todo == null) {
+            return false;
+        }
+
+        if (todoStatusCoalescer.isEnabled()) {
+            todoStatusCoalescer.enqueue(todo, isFinished);
+            return true;
+        }
+
+        todo.setFinished(isFinished);
+        todoRepository.save(todo);
+        if (todo.getParentId() != null) {
+            rollupAncestors(id, isFinished);
+        }
+        return true;
+    }
+
+    /**
+     * Memindahkan todo beserta seluruh subtask-nya ke parent baru (null = level teratas).
+     * Pemanggil wajib memastikan newParentId bukan bagian dari subtree todo (lihat isInSubtree).
+     */
+    @Transactional
+    public Todo moveTodo(UUID userId, UUID id, UUID newParentId) {
+        Todo todo = todoRepository.findByUserIdAndId(userId, id).orElse(null);
+        if (todo == null) {
+            return null;
+        }
+        if (newParentId != null && todoRepository.findByUserIdAndId(userId, newParentId).isEmpty()) {
+            return null;
+        }
+
+        UUID oldParentId = todo.getParentId();
+        todoClosureRepository.insertSelf(id);
+        todoClosureRepository.detachSubtree(id);
+        if (newParentId != null) {
+            todoClosureRepository.insertSelf(newParentId);
+            todoClosureRepository.attachSubtree(id, newParentId);
+        }
+
+        todo.setParentId(newParentId);
+        Todo savedTodo = todoRepository.save(todo);
+
+        if (oldParentId != null) {
+            todoRepository.finishCompletedAncestors(oldParentId);
+        }
+        if (newParentId != null) {
+            TodoProgress progress = todoRepository.countSubtreeProgress(userId, id);
+            boolean subtreeFinished = savedTodo.isFinished() && progress.finished() == progress.total();
+            rollupAncestors(id, subtreeFinished);
+        }
+        return savedTodo;
+    }
+
     @Transactional
     public boolean deleteTodo(UUID userId, UUID id) {
         Todo todo = todoRepository.findByUserIdAndId(userId, id).orElse(null);
@@ -52,7 +203,22 @@ public class TodoService {
             return false;
         }
 
+        // Subtask ikut terhapus bersama parent-nya
+        todoStatusCoalescer.discard(id);
+        todoRepository.deleteDescendants(id);
+        todoClosureRepository.deleteSubtree(id);
         todoRepository.deleteById(id);
+        if (todo.getParentId() != null) {
+            todoRepository.finishCompletedAncestors(todo.getParentId());
+        }
         return true;
     }
-}
\ No newline at end of file
+
+    private void rollupAncestors(UUID id, boolean finished) {
+        if (finished) {
+            todoRepository.finishCompletedAncestors(id);
+        } else {
+            todoRepository.reopenAncestors(id);
+        }
+    }
+}
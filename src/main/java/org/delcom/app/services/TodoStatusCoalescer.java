@@ -0,0 +1,186 @@
+package org.delcom.app.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.delcom.app.entities.Todo;
+import org.delcom.app.repositories.TodoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Menampung perubahan status isFinished yang sering bolak-balik dan menuliskannya
+ * ke database secara berkala. Hanya status terakhir per todo yang disimpan, lalu
+ * setiap jendela waktu di-flush sebagai UPDATE massal dalam satu transaksi.
+ */
+@Service
+public class TodoStatusCoalescer {
+
+    record PendingStatus(UUID userId, UUID parentId, boolean finished) {
+    }
+
+    private final TodoRepository todoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Map<UUID, PendingStatus> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong toggleCount = new AtomicLong();
+    private final AtomicLong flushedRowCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+
+    public TodoStatusCoalescer(TodoRepository todoRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${todo.status-coalescing.enabled:false}") boolean enabled,
+            @Value("${todo.status-coalescing.window-ms:200}") long windowMs) {
+        this.todoRepository = todoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+
+        if (enabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                    .name("todo-status-coalescer")
+                    .daemon(true)
+                    .factory());
+            scheduler.scheduleWithFixedDelay(this::scheduledFlush, windowMs, windowMs, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Menyimpan status terbaru todo ke buffer. Todo harus sudah diverifikasi milik user.
+     */
+    public void enqueue(Todo todo, boolean finished) {
+        toggleCount.incrementAndGet();
+        pending.put(todo.getId(), new PendingStatus(todo.getUserId(), todo.getParentId(), finished));
+    }
+
+    /**
+     * Jalur cepat: jika todo sudah ada di buffer milik user yang sama, status baru langsung
+     * ditimpa tanpa membaca database. Mengembalikan false jika todo harus dimuat terlebih dahulu.
+     */
+    public boolean tryEnqueue(UUID userId, UUID id, boolean finished) {
+        PendingStatus status = pending.get(id);
+        if (status == null || !status.userId().equals(userId)) {
+            return false;
+        }
+        toggleCount.incrementAndGet();
+        pending.put(id, new PendingStatus(userId, status.parentId(), finished));
+        return true;
+    }
+
+    // Timpa nilai isFinished dengan status yang belum di-flush (jika ada)
+    public Todo applyPending(Todo todo) {
+        if (todo != null && !pending.isEmpty()) {
+            PendingStatus status = pending.get(todo.getId());
+            if (status != null) {
+                todo.setFinished(status.finished());
+            }
+        }
+        return todo;
+    }
+
+    public List<Todo> applyPending(List<Todo> todos) {
+        if (!pending.isEmpty()) {
+            todos.forEach(this::applyPending);
+        }
+        return todos;
+    }
+
+    // Dipanggil saat updateTodo penuh agar nilai eksplisit tidak tertimpa buffer lama.
+    // synchronized: menunggu flush yang sedang berjalan (yang mungkin sudah mengambil id ini
+    // ke batch-nya) commit lebih dulu, sehingga UPDATE eksplisit selalu ditulis setelahnya.
+    public synchronized void discard(UUID id) {
+        pending.remove(id);
+    }
+
+    /**
+     * Menulis seluruh status di buffer sebagai dua UPDATE massal (selesai / belum selesai)
+     * dalam satu transaksi. Entri baru dihapus dari buffer setelah commit, dan hanya jika
+     * belum diganti toggle yang lebih baru, sehingga pembacaan tidak pernah melihat nilai basi.
+     */
+    public synchronized int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        Map<UUID, PendingStatus> batch = new HashMap<>(pending);
+        List<UUID> finishedIds = new ArrayList<>();
+        List<UUID> unfinishedIds = new ArrayList<>();
+        batch.forEach((id, status) -> (status.finished() ? finishedIds : unfinishedIds).add(id));
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (!finishedIds.isEmpty()) {
+                todoRepository.updateFinishedByIds(finishedIds, true, now);
+            }
+            if (!unfinishedIds.isEmpty()) {
+                todoRepository.updateFinishedByIds(unfinishedIds, false, now);
+            }
+
+            // Rollup subtask hanya untuk todo yang memiliki parent
+            batch.forEach((id, status) -> {
+                if (status.parentId() != null) {
+                    if (status.finished()) {
+                        todoRepository.finishCompletedAncestors(id);
+                    } else {
+                        todoRepository.reopenAncestors(id);
+                    }
+                }
+            });
+        });
+
+        batch.forEach(pending::remove);
+        flushCount.incrementAndGet();
+        flushedRowCount.addAndGet(batch.size());
+        return batch.size();
+    }
+
+    // Exception tidak boleh lolos agar jadwal flush berikutnya tetap berjalan;
+    // entri yang gagal tetap di buffer dan dicoba lagi pada jendela berikutnya.
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Gagal melakukan flush status todo: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        flush();
+    }
+
+    public long getToggleCount() {
+        return toggleCount.get();
+    }
+
+    public long getFlushedRowCount() {
+        return flushedRowCount.get();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+}
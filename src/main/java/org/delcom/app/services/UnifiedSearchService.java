@@ -0,0 +1,172 @@
+package org.delcom.app.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.delcom.app.dto.CashFlowSearchResult;
+import org.delcom.app.dto.UnifiedSearchResult;
+import org.delcom.app.dto.UnifiedSearchResult.Hit;
+import org.delcom.app.entities.Todo;
+import org.delcom.app.utils.CashFlowSearchIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pencarian gabungan todo dan cash flow untuk kotak pencarian global. Kedua sumber
+ * dijalankan bersamaan di virtual thread; setiap sumber hanya mengembalikan top-k
+ * miliknya, lalu hasilnya digabung dengan heap berukuran k. Sumber yang belum selesai
+ * saat tenggat dibatalkan dan dilaporkan sebagai incompleteSources (hasil parsial).
+ */
+@Service
+public class UnifiedSearchService {
+    public static final String SOURCE_TODOS = "todos";
+    public static final String SOURCE_CASH_FLOWS = "cashflows";
+
+    private static final Comparator<Hit> BY_SCORE = Comparator.comparingDouble(Hit::score);
+
+    private record SourceResult(long total, List<Hit> hits) {
+    }
+
+    private final TodoService todoService;
+    private final CashFlowSearchService cashFlowSearchService;
+    private final long deadlineMs;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+            .name("unified-search-", 0)
+            .factory());
+
+    private final AtomicLong incompleteCount = new AtomicLong();
+
+    public UnifiedSearchService(TodoService todoService, CashFlowSearchService cashFlowSearchService,
+            @Value("${search.deadline-ms:500}") long deadlineMs) {
+        this.todoService = todoService;
+        this.cashFlowSearchService = cashFlowSearchService;
+        this.deadlineMs = deadlineMs;
+    }
+
+    /**
+     * @param limit Jumlah hits gabungan maksimal (k), minimal 1.
+     */
+    public UnifiedSearchResult search(UUID userId, String query, int limit) {
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + deadlineMs * 1_000_000;
+        Future<SourceResult> todos = executor.submit(() -> searchTodos(userId, query, limit));
+        Future<SourceResult> cashFlows = executor.submit(() -> searchCashFlows(userId, query, limit));
+
+        List<String> incomplete = new ArrayList<>();
+        PriorityQueue<Hit> top = new PriorityQueue<>(BY_SCORE);
+        SourceResult todoResult = await(todos, deadlineNanos);
+        SourceResult cashFlowResult = await(cashFlows, deadlineNanos);
+        if (todoResult == null) {
+            incomplete.add(SOURCE_TODOS);
+        } else {
+            todoResult.hits().forEach(hit -> offer(top, hit, limit));
+        }
+        if (cashFlowResult == null) {
+            incomplete.add(SOURCE_CASH_FLOWS);
+        } else {
+            cashFlowResult.hits().forEach(hit -> offer(top, hit, limit));
+        }
+        incompleteCount.addAndGet(incomplete.size());
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(BY_SCORE.reversed());
+        return new UnifiedSearchResult(query, todoResult != null ? todoResult.total() : 0,
+                cashFlowResult != null ? cashFlowResult.total() : 0, hits, incomplete,
+                (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    // Jumlah sumber yang gagal atau melewati tenggat sejak aplikasi berjalan
+    public long getIncompleteCount() {
+        return incompleteCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Todo harus memuat setiap kata query (aturan token yang sama dengan cash flow); top-k
+     * diurutkan dan dibatasi di database, lalu diberi skor per kata: 2 jika ada di judul dan
+     * 1 jika ada di deskripsi.
+     */
+    private SourceResult searchTodos(UUID userId, String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(CashFlowSearchIndex.tokenize(query)));
+        if (terms.isEmpty()) {
+            return new SourceResult(0, List.of());
+        }
+        Page<Todo> todos = todoService.searchTodos(userId, terms, limit);
+        List<Hit> hits = new ArrayList<>(todos.getNumberOfElements());
+        for (Todo todo : todos) {
+            String title = todo.getTitle().toLowerCase(Locale.ROOT);
+            String description = todo.getDescription().toLowerCase(Locale.ROOT);
+            double score = 1;
+            for (String term : terms) {
+                score += (title.contains(term) ? 2 : 0) + (description.contains(term) ? 1 : 0);
+            }
+            hits.add(new Hit(SOURCE_TODOS, todo.getId(), score, todo));
+        }
+        return new SourceResult(todos.getTotalElements(), normalize(hits));
+    }
+
+    private SourceResult searchCashFlows(UUID userId, String query, int limit) throws IOException {
+        CashFlowSearchResult result = cashFlowSearchService.search(userId, query, limit);
+        List<Hit> hits = new ArrayList<>(result.hits().size());
+        for (CashFlowSearchResult.Hit hit : result.hits()) {
+            hits.add(new Hit(SOURCE_CASH_FLOWS, hit.cashFlow().getId(), hit.score(), hit.cashFlow()));
+        }
+        return new SourceResult(result.total(), normalize(hits));
+    }
+
+    // Skor dibagi skor tertinggi sumber agar skala BM25 dan skor todo dapat dibandingkan
+    private static List<Hit> normalize(Iterable<Hit> hits) {
+        double max = 0;
+        for (Hit hit : hits) {
+            max = Math.max(max, hit.score());
+        }
+        List<Hit> normalized = new ArrayList<>();
+        for (Hit hit : hits) {
+            normalized.add(new Hit(hit.source(), hit.id(), hit.score() / max, hit.item()));
+        }
+        return normalized;
+    }
+
+    private static void offer(PriorityQueue<Hit> top, Hit hit, int limit) {
+        if (top.size() < limit) {
+            top.add(hit);
+        } else if (hit.score() > top.peek().score()) {
+            top.poll();
+            top.add(hit);
+        }
+    }
+
+    // null jika sumber gagal atau belum selesai saat tenggat (dibatalkan)
+    private static SourceResult await(Future<SourceResult> future, long deadlineNanos) {
+        try {
+            return future.get(Math.max(deadlineNanos - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            future.cancel(true);
+            return null;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
@@ -21,10 +21,12 @@ public class UserService {
         return userRepository.save(user);
     }
 
+    @Transactional(readOnly = true)
     public User getUserByEmail(String email) {
         return userRepository.findFirstByEmail(email).orElse(null);
     }
 
+    @Transactional(readOnly = true)
     public User getUserById(UUID id) {
         return userRepository.findById(id).orElse(null);
     }
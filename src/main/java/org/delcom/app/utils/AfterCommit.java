@@ -0,0 +1,28 @@
+package org.delcom.app.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Menjalankan aksi setelah transaksi aktif di-commit, atau langsung jika tidak ada
+ * transaksi. Dipakai listener BEFORE_COMMIT yang perlu mencatat sesuatu sebelum
+ * commit lalu memperbarui cache sesudahnya.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
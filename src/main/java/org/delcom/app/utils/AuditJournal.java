@@ -0,0 +1,311 @@
+package org.delcom.app.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Jurnal audit append-only untuk perubahan cash flow, ditulis lewat file segmen yang
+ * di-memory-map sehingga append hanya berupa salinan memori (tanpa system call).
+ *
+ * Setiap segmen (audit-NNNNNNNNNN.journal) berukuran tetap, diawali magic "CFJ1", lalu
+ * record berurutan. Layout record (big-endian):
+ * int panjang record, int CRC32 dari byte setelahnya, byte operasi, long waktu (epoch ms),
+ * 16 byte id, 16 byte userId, int amount, long createdAt (epoch mikrodetik UTC), lalu
+ * type, source, label, description sebagai int panjang UTF-8 (-1 = null) + isinya.
+ * Panjang 0 menandai akhir segmen; record dengan CRC tidak cocok (tulisan terpotong saat
+ * crash) dianggap akhir jurnal.
+ */
+public class AuditJournal {
+    public static final byte[] MAGIC = { 'C', 'F', 'J', '1' };
+    private static final int FIXED_SIZE = 4 + 4 + 1 + 8 + 16 + 16 + 4 + 8 + 4 * 4;
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    public enum Operation {
+        CREATE, UPDATE, DELETE
+    }
+
+    /**
+     * Kapan isi segmen dipaksa ke disk: NEVER (diserahkan ke OS, serta saat rotasi/tutup),
+     * INTERVAL (oleh pemanggil force() secara berkala), atau ALWAYS (setiap append).
+     */
+    public enum FsyncPolicy {
+        NEVER, INTERVAL, ALWAYS
+    }
+
+    // State cash flow setelah create/update, atau sebelum delete; timestamp diisi Writer saat append
+    public record Entry(Operation operation, long timestamp, UUID id, UUID userId, String type, String source,
+            String label, int amount, String description, LocalDateTime createdAt) {
+    }
+
+    /**
+     * Riwayat satu user: seluruh entri terurut waktu tulis dan state terakhir per cash flow
+     * (cash flow yang sudah dihapus tidak termasuk).
+     */
+    public record UserHistory(List<Entry> entries, Map<UUID, Entry> current) {
+    }
+
+    /**
+     * Penulis jurnal. Aman dipakai dari banyak thread; setiap append disalin ke segmen
+     * aktif dan segmen baru dibuat jika sisa ruang tidak cukup. Waktu record dicap di
+     * dalam lock sehingga urutan waktu di jurnal sama dengan urutan tulis.
+     */
+    public static class Writer implements AutoCloseable {
+        private final Path dir;
+        private final int segmentSize;
+        private final FsyncPolicy fsyncPolicy;
+        private final LongSupplier clock;
+        private final CRC32 crc = new CRC32();
+        private ByteBuffer record = ByteBuffer.allocate(1024);
+        private MappedByteBuffer segment;
+        private long segmentIndex;
+        private long appendCount;
+        private long lastTimestamp;
+
+        /**
+         * Membuka jurnal di dir; penulisan dilanjutkan setelah record valid terakhir pada
+         * segmen terakhir.
+         */
+        public Writer(Path dir, int segmentSize, FsyncPolicy fsyncPolicy) throws IOException {
+            this(dir, segmentSize, fsyncPolicy, System::currentTimeMillis);
+        }
+
+        public Writer(Path dir, int segmentSize, FsyncPolicy fsyncPolicy, LongSupplier clock) throws IOException {
+            this.dir = dir;
+            this.segmentSize = segmentSize;
+            this.fsyncPolicy = fsyncPolicy;
+            this.clock = clock;
+            Files.createDirectories(dir);
+
+            List<Path> segments = listSegments(dir);
+            if (segments.isEmpty()) {
+                openSegment(0);
+                return;
+            }
+            Path last = segments.get(segments.size() - 1);
+            segmentIndex = segmentIndexOf(last);
+            segment = map(last, segmentSize);
+            int end = scan(segment, null);
+            // Bersihkan sisa record terpotong agar pembaca berhenti di posisi yang sama
+            for (int i = end; i < segment.limit(); i++) {
+                segment.put(i, (byte) 0);
+            }
+            segment.position(end);
+        }
+
+        // entry.timestamp() diabaikan; jam yang mundur tidak membuat waktu record menurun
+        public synchronized void append(Entry entry) throws IOException {
+            lastTimestamp = Math.max(lastTimestamp, clock.getAsLong());
+            encode(entry, lastTimestamp);
+            int length = record.position();
+            if (length > segmentSize - MAGIC.length) {
+                throw new IllegalArgumentException("Audit record of " + length + " bytes exceeds segment size");
+            }
+            if (segment.remaining() < length) {
+                force();
+                openSegment(segmentIndex + 1);
+            }
+            segment.put(record.array(), 0, length);
+            appendCount++;
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                segment.force();
+            }
+        }
+
+        public synchronized void force() {
+            segment.force();
+        }
+
+        public synchronized long getAppendCount() {
+            return appendCount;
+        }
+
+        public synchronized long getSegmentIndex() {
+            return segmentIndex;
+        }
+
+        @Override
+        public synchronized void close() {
+            force();
+        }
+
+        private void openSegment(long index) throws IOException {
+            segmentIndex = index;
+            segment = map(dir.resolve(segmentName(index)), segmentSize);
+            segment.put(MAGIC);
+        }
+
+        private void encode(Entry entry, long timestamp) {
+            byte[][] strings = {
+                    bytesOf(entry.type()), bytesOf(entry.source()), bytesOf(entry.label()),
+                    bytesOf(entry.description()) };
+            int length = FIXED_SIZE;
+            for (byte[] value : strings) {
+                length += value != null ? value.length : 0;
+            }
+            if (record.capacity() < length) {
+                record = ByteBuffer.allocate(Math.max(length, record.capacity() * 2));
+            }
+
+            record.clear();
+            record.putInt(length);
+            record.putInt(0);
+            record.put((byte) entry.operation().ordinal());
+            record.putLong(timestamp);
+            putUuid(record, entry.id());
+            putUuid(record, entry.userId());
+            record.putInt(entry.amount());
+            record.putLong(CashFlowColumnarFile.toMicros(entry.createdAt()));
+            for (byte[] value : strings) {
+                if (value == null) {
+                    record.putInt(-1);
+                } else {
+                    record.putInt(value.length);
+                    record.put(value);
+                }
+            }
+
+            crc.reset();
+            crc.update(record.array(), 8, length - 8);
+            record.putInt(4, (int) crc.getValue());
+        }
+
+        private static MappedByteBuffer map(Path path, int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                // Pemetaan tetap berlaku setelah channel ditutup
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+    }
+
+    /**
+     * Membaca seluruh entri jurnal secara berurutan (segmen demi segmen).
+     */
+    public static void read(Path dir, Consumer<Entry> consumer) throws IOException {
+        for (Path path : listSegments(dir)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), consumer);
+            }
+        }
+    }
+
+    /**
+     * Membangun ulang riwayat satu user dari jurnal.
+     */
+    public static UserHistory rebuildUser(Path dir, UUID userId) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        Map<UUID, Entry> current = new LinkedHashMap<>();
+        read(dir, entry -> {
+            if (!entry.userId().equals(userId)) {
+                return;
+            }
+            entries.add(entry);
+            if (entry.operation() == Operation.DELETE) {
+                current.remove(entry.id());
+            } else {
+                current.put(entry.id(), entry);
+            }
+        });
+        return new UserHistory(entries, current);
+    }
+
+    static String segmentName(long index) {
+        return String.format("%s%010d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    private static long segmentIndexOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static List<Path> listSegments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            // Nomor segmen berformat tetap, jadi urutan nama sama dengan urutan tulis
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    // Membaca record valid dari awal segmen; mengembalikan posisi setelah record valid terakhir
+    private static int scan(ByteBuffer segment, Consumer<Entry> consumer) {
+        int position = MAGIC.length;
+        CRC32 crc = new CRC32();
+        while (position + FIXED_SIZE <= segment.limit()) {
+            int length = segment.getInt(position);
+            if (length < FIXED_SIZE || position + length > segment.limit()) {
+                break;
+            }
+            ByteBuffer record = segment.slice(position, length);
+            crc.reset();
+            crc.update(record.slice(8, length - 8));
+            if ((int) crc.getValue() != record.getInt(4)) {
+                break;
+            }
+            if (consumer != null) {
+                consumer.accept(decode(record));
+            }
+            position += length;
+        }
+        return position;
+    }
+
+    private static Entry decode(ByteBuffer record) {
+        record.position(8);
+        Operation operation = Operation.values()[record.get()];
+        long timestamp = record.getLong();
+        UUID id = getUuid(record);
+        UUID userId = getUuid(record);
+        int amount = record.getInt();
+        LocalDateTime createdAt = CashFlowColumnarFile.fromMicros(record.getLong());
+        String type = getString(record);
+        String source = getString(record);
+        String label = getString(record);
+        String description = getString(record);
+        return new Entry(operation, timestamp, id, userId, type, source, label, amount, description, createdAt);
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID uuid) {
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
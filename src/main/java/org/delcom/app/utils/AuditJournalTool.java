@@ -0,0 +1,54 @@
+package org.delcom.app.utils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.delcom.app.utils.AuditJournal.Entry;
+import org.delcom.app.utils.AuditJournal.UserHistory;
+
+/**
+ * Alat baca jurnal audit secara offline (tanpa aplikasi dan database):
+ *
+ * java -cp app.jar org.delcom.app.utils.AuditJournalTool &lt;dir-jurnal&gt; &lt;userId&gt;
+ *
+ * Mencetak seluruh perubahan cash flow user secara berurutan, lalu state terakhir setiap
+ * cash flow yang belum dihapus.
+ */
+public class AuditJournalTool {
+
+    public static void main(String[] args) throws IOException {
+        run(args, System.out, System.err);
+    }
+
+    static void run(String[] args, PrintStream out, PrintStream err) throws IOException {
+        if (args.length != 2) {
+            err.println("Usage: AuditJournalTool <journal-dir> <userId>");
+            return;
+        }
+        UUID userId;
+        try {
+            userId = UUID.fromString(args[1]);
+        } catch (IllegalArgumentException e) {
+            err.println("Invalid userId: " + args[1]);
+            return;
+        }
+
+        UserHistory history = AuditJournal.rebuildUser(Path.of(args[0]), userId);
+        out.println("# History (" + history.entries().size() + " entries)");
+        for (Entry entry : history.entries()) {
+            out.println(Instant.ofEpochMilli(entry.timestamp()) + " " + entry.operation() + " " + format(entry));
+        }
+        out.println("# Current (" + history.current().size() + " cash flows)");
+        for (Entry entry : history.current().values()) {
+            out.println(format(entry));
+        }
+    }
+
+    private static String format(Entry entry) {
+        return entry.id() + " " + entry.type() + " " + entry.source() + " " + entry.label() + " "
+                + entry.amount() + " " + entry.createdAt() + " \"" + entry.description() + "\"";
+    }
+}
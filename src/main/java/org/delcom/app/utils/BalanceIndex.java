@@ -0,0 +1,108 @@
+package org.delcom.app.utils;
+
+import java.time.LocalDate;
+
+/**
+ * Indeks prefix-sum (Fenwick tree) atas jumlah bertanda per hari untuk satu user.
+ * Setiap slot mewakili satu tanggal (epoch day) mulai dari originDay; update dan
+ * query saldo pada suatu tanggal sama-sama O(log n) terhadap jumlah hari yang dicakup.
+ * Jika sebuah tanggal berada di luar rentang, kapasitas diperbesar (pangkat dua)
+ * dan pohon dibangun ulang dalam O(n).
+ */
+public class BalanceIndex {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long originDay;
+    private long[] tree;
+
+    /**
+     * Menambahkan amount bertanda (positif = masuk, negatif = keluar) ke tanggal date.
+     */
+    public void add(LocalDate date, long amount) {
+        add(date.toEpochDay(), amount);
+    }
+
+    public synchronized void add(long epochDay, long amount) {
+        if (amount == 0) {
+            return;
+        }
+        ensureRange(epochDay);
+        int capacity = tree.length - 1;
+        for (int i = (int) (epochDay - originDay) + 1; i <= capacity; i += i & -i) {
+            tree[i] += amount;
+        }
+    }
+
+    /**
+     * Saldo kumulatif sampai akhir tanggal date (inklusif).
+     */
+    public long balanceAt(LocalDate date) {
+        return prefix(date.toEpochDay());
+    }
+
+    /**
+     * Total amount bertanda dari tanggal from s/d to (inklusif).
+     */
+    public long netFlow(LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        synchronized (this) {
+            return prefix(toDay) - prefix(fromDay - 1);
+        }
+    }
+
+    public synchronized long estimatedBytes() {
+        return 32 + (tree != null ? 8L * tree.length : 0);
+    }
+
+    private synchronized long prefix(long epochDay) {
+        if (tree == null || epochDay < originDay) {
+            return 0;
+        }
+        int capacity = tree.length - 1;
+        int i = (int) Math.min(epochDay - originDay + 1, capacity);
+        long sum = 0;
+        for (; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void ensureRange(long epochDay) {
+        if (tree == null) {
+            originDay = epochDay;
+            tree = new long[INITIAL_CAPACITY + 1];
+            return;
+        }
+        int capacity = tree.length - 1;
+        long endDay = originDay + capacity;
+        if (epochDay >= originDay && epochDay < endDay) {
+            return;
+        }
+
+        long newOrigin = Math.min(originDay, epochDay);
+        long span = Math.max(endDay, epochDay + 1) - newOrigin;
+        int newCapacity = capacity * 2;
+        while (newCapacity < span) {
+            newCapacity *= 2;
+        }
+
+        // Kembalikan pohon ke nilai harian (kebalikan build O(n)), geser, lalu bangun ulang
+        for (int i = capacity; i > 0; i--) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                tree[parent] -= tree[i];
+            }
+        }
+        long[] rebuilt = new long[newCapacity + 1];
+        System.arraycopy(tree, 1, rebuilt, (int) (originDay - newOrigin) + 1, capacity);
+        for (int i = 1; i <= newCapacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= newCapacity) {
+                rebuilt[parent] += rebuilt[i];
+            }
+        }
+        originDay = newOrigin;
+        tree = rebuilt;
+    }
+}
@@ -0,0 +1,178 @@
+package org.delcom.app.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache per user untuk struktur in-memory (snapshot, indeks, model) dengan batas total
+ * ukuran (LRU) dan batas waktu idle.
+ *
+ * Nilai dimuat secara lazy di luar lock. Setiap perubahan data user harus memanggil
+ * markChanged agar pemuatan yang bersamaan dengan perubahan tersebut diulang,
+ * sehingga nilai yang masuk ke cache tidak pernah ketinggalan satu update pun.
+ */
+public class BoundedUserCache<V> {
+    private static final int VERSION_STRIPES = 256;
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private static final class Entry<V> {
+        final V value;
+        final long loadedVersion;
+        long lastAccess;
+
+        Entry(V value, long loadedVersion, long lastAccess) {
+            this.value = value;
+            this.loadedVersion = loadedVersion;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private final long maxWeight;
+    private final long maxIdleMillis;
+    private final ToLongFunction<V> weigher;
+    private final LongSupplier clock;
+    private final LinkedHashMap<UUID, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    public BoundedUserCache(long maxWeight, long maxIdleMillis, ToLongFunction<V> weigher) {
+        this(maxWeight, maxIdleMillis, weigher, System::currentTimeMillis);
+    }
+
+    public BoundedUserCache(long maxWeight, long maxIdleMillis, ToLongFunction<V> weigher, LongSupplier clock) {
+        this.maxWeight = maxWeight;
+        this.maxIdleMillis = maxIdleMillis;
+        this.weigher = weigher;
+        this.clock = clock;
+    }
+
+    public synchronized V getIfPresent(UUID userId) {
+        Entry<V> entry = entries.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccess = clock.getAsLong();
+        return entry.value;
+    }
+
+    /**
+     * Mengambil nilai dari cache atau memuatnya dengan loader. Jika data user berubah
+     * selama pemuatan, pemuatan diulang; setelah beberapa percobaan nilai tetap
+     * dikembalikan tetapi tidak disimpan ke cache.
+     */
+    public V get(UUID userId, Function<UUID, V> loader) {
+        V cached = getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            long version = versionOf(userId);
+            V loaded = loader.apply(userId);
+            synchronized (this) {
+                if (versionOf(userId) != version) {
+                    continue;
+                }
+                Entry<V> existing = entries.get(userId);
+                if (existing != null) {
+                    existing.lastAccess = clock.getAsLong();
+                    return existing.value;
+                }
+                entries.put(userId, new Entry<>(loaded, version, clock.getAsLong()));
+                evictOverweight(userId);
+                return loaded;
+            }
+        }
+        return loader.apply(userId);
+    }
+
+    /**
+     * Dipanggil pada setiap perubahan data user, sebelum/tanpa memperbarui nilai di cache.
+     *
+     * @return versi baru, untuk getIfLoadedBefore setelah perubahan di-commit
+     */
+    public long markChanged(UUID userId) {
+        return versions.incrementAndGet(stripe(userId));
+    }
+
+    /**
+     * Mengambil nilai yang dimuat sebelum markChanged yang mengembalikan version.
+     * Nilai yang dimuat sesudahnya mungkin sudah berisi perubahan tersebut, sehingga
+     * dibuang dari cache dan null dikembalikan agar pemanggil tidak menerapkan
+     * perubahan yang sama dua kali.
+     */
+    public synchronized V getIfLoadedBefore(UUID userId, long version) {
+        Entry<V> entry = entries.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.loadedVersion >= version) {
+            entries.remove(userId);
+            return null;
+        }
+        entry.lastAccess = clock.getAsLong();
+        return entry.value;
+    }
+
+    public synchronized void invalidate(UUID userId) {
+        entries.remove(userId);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        long total = 0;
+        for (Entry<V> entry : entries.values()) {
+            total += weigher.applyAsLong(entry.value);
+        }
+        return total;
+    }
+
+    /**
+     * Menghapus entri yang tidak diakses lebih lama dari batas idle.
+     *
+     * @return jumlah entri yang dihapus
+     */
+    public synchronized int evictIdle() {
+        long threshold = clock.getAsLong() - maxIdleMillis;
+        int evicted = 0;
+        Iterator<Map.Entry<UUID, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().lastAccess < threshold) {
+                iterator.remove();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    // Hapus entri paling lama tidak dipakai sampai total ukuran di bawah batas.
+    // Entri yang baru dimuat tidak ikut dihapus agar pemanggil tetap mendapat nilainya.
+    private void evictOverweight(UUID keep) {
+        long total = weight();
+        Iterator<Map.Entry<UUID, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (total > maxWeight && iterator.hasNext()) {
+            Map.Entry<UUID, Entry<V>> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            total -= weigher.applyAsLong(eldest.getValue().value);
+            iterator.remove();
+        }
+    }
+
+    private long versionOf(UUID userId) {
+        return versions.get(stripe(userId));
+    }
+
+    private static int stripe(UUID userId) {
+        return userId.hashCode() & (VERSION_STRIPES - 1);
+    }
+}
@@ -0,0 +1,298 @@
+package org.delcom.app.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Format file kolumnar untuk export cash flow (mirip Parquet, tanpa dependensi tambahan).
+ *
+ * Struktur file: magic "CFC1", lalu row group berurutan, lalu penutup (int 0 dan long
+ * jumlah total baris). Setiap row group diawali int jumlah baris, diikuti tujuh kolom
+ * (id, type, source, label, amount, description, createdAt). Setiap kolom ditulis sebagai
+ * int panjang terkompresi + byte hasil Deflate, sehingga pembaca dapat melewati kolom
+ * yang tidak dibutuhkan.
+ *
+ * Encoding kolom: id 16 byte; type/source/label memakai kamus per row group lalu kode
+ * varint (0 = null); amount varint zigzag; description string dengan panjang varint
+ * (0 = null); createdAt epoch mikrodetik UTC yang disimpan sebagai selisih varint zigzag
+ * dari baris sebelumnya.
+ */
+public class CashFlowColumnarFile {
+    public static final byte[] MAGIC = { 'C', 'F', 'C', '1' };
+    private static final int COLUMN_COUNT = 7;
+
+    public record Row(UUID id, String type, String source, String label, long amount, String description,
+            LocalDateTime createdAt) {
+    }
+
+    /**
+     * Penulis streaming: hanya satu row group yang ditahan di memori.
+     */
+    public static class Writer implements AutoCloseable {
+        private final DataOutputStream out;
+        private final int rowGroupSize;
+        private final Row[] rows;
+        private int pending;
+        private long totalRows;
+        private boolean closed;
+
+        public Writer(OutputStream out, int rowGroupSize) throws IOException {
+            this.out = new DataOutputStream(out);
+            this.rowGroupSize = rowGroupSize;
+            this.rows = new Row[rowGroupSize];
+            this.out.write(MAGIC);
+        }
+
+        public void write(Row row) throws IOException {
+            rows[pending++] = row;
+            if (pending == rowGroupSize) {
+                flushRowGroup();
+            }
+        }
+
+        public long getTotalRows() {
+            return totalRows;
+        }
+
+        // Menulis row group terakhir dan penutup file, lalu menutup stream
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushRowGroup();
+            out.writeInt(0);
+            out.writeLong(totalRows);
+            out.close();
+        }
+
+        private void flushRowGroup() throws IOException {
+            if (pending == 0) {
+                return;
+            }
+            out.writeInt(pending);
+
+            ByteArrayOutputStream raw = new ByteArrayOutputStream();
+            DataOutputStream column = new DataOutputStream(raw);
+            for (int c = 0; c < COLUMN_COUNT; c++) {
+                raw.reset();
+                long previousMicros = 0;
+                Map<String, Integer> dictionary = new HashMap<>();
+                List<String> values = new ArrayList<>();
+                ByteArrayOutputStream codes = new ByteArrayOutputStream();
+                for (int i = 0; i < pending; i++) {
+                    Row row = rows[i];
+                    switch (c) {
+                        case 0 -> {
+                            column.writeLong(row.id().getMostSignificantBits());
+                            column.writeLong(row.id().getLeastSignificantBits());
+                        }
+                        case 1, 2, 3 -> {
+                            String value = c == 1 ? row.type() : c == 2 ? row.source() : row.label();
+                            int code = 0;
+                            if (value != null) {
+                                code = dictionary.computeIfAbsent(value, v -> {
+                                    values.add(v);
+                                    return values.size();
+                                });
+                            }
+                            writeVarLong(codes, code);
+                        }
+                        case 4 -> writeVarLong(raw, zigzag(row.amount()));
+                        case 5 -> writeString(raw, row.description());
+                        default -> {
+                            long micros = toMicros(row.createdAt());
+                            writeVarLong(raw, zigzag(micros - previousMicros));
+                            previousMicros = micros;
+                        }
+                    }
+                }
+                if (c >= 1 && c <= 3) {
+                    writeVarLong(raw, values.size());
+                    for (String value : values) {
+                        writeString(raw, value);
+                    }
+                    codes.writeTo(raw);
+                }
+                writeCompressed(raw.toByteArray());
+            }
+
+            totalRows += pending;
+            Arrays.fill(rows, 0, pending, null);
+            pending = 0;
+        }
+
+        private void writeCompressed(byte[] data) throws IOException {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DeflaterOutputStream stream = new DeflaterOutputStream(compressed, deflater)) {
+                stream.write(data);
+            } finally {
+                deflater.end();
+            }
+            out.writeInt(compressed.size());
+            compressed.writeTo(out);
+        }
+    }
+
+    /**
+     * Pembaca file kolumnar, satu row group per pemanggilan nextRowGroup.
+     */
+    public static class Reader {
+        private final DataInputStream in;
+        private long totalRows = -1;
+
+        public Reader(InputStream in) throws IOException {
+            this.in = new DataInputStream(in);
+            byte[] magic = new byte[MAGIC.length];
+            this.in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a cash flow columnar file.");
+            }
+        }
+
+        /**
+         * @return Baris pada row group berikutnya, atau null jika sudah mencapai penutup file.
+         */
+        public List<Row> nextRowGroup() throws IOException {
+            if (totalRows >= 0) {
+                return null;
+            }
+            int count = in.readInt();
+            if (count == 0) {
+                totalRows = in.readLong();
+                return null;
+            }
+
+            UUID[] ids = new UUID[count];
+            String[][] texts = new String[3][count];
+            long[] amounts = new long[count];
+            String[] descriptions = new String[count];
+            LocalDateTime[] createdAt = new LocalDateTime[count];
+            for (int c = 0; c < COLUMN_COUNT; c++) {
+                DataInputStream column = readColumn();
+                long previousMicros = 0;
+                String[] dictionary = null;
+                if (c >= 1 && c <= 3) {
+                    dictionary = new String[(int) readVarLong(column) + 1];
+                    for (int d = 1; d < dictionary.length; d++) {
+                        dictionary[d] = readString(column);
+                    }
+                }
+                for (int i = 0; i < count; i++) {
+                    switch (c) {
+                        case 0 -> ids[i] = new UUID(column.readLong(), column.readLong());
+                        case 1, 2, 3 -> texts[c - 1][i] = dictionary[(int) readVarLong(column)];
+                        case 4 -> amounts[i] = unzigzag(readVarLong(column));
+                        case 5 -> descriptions[i] = readString(column);
+                        default -> {
+                            previousMicros += unzigzag(readVarLong(column));
+                            createdAt[i] = fromMicros(previousMicros);
+                        }
+                    }
+                }
+            }
+
+            List<Row> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(new Row(ids[i], texts[0][i], texts[1][i], texts[2][i], amounts[i], descriptions[i],
+                        createdAt[i]));
+            }
+            return rows;
+        }
+
+        // Jumlah baris dari penutup file; -1 sebelum semua row group dibaca
+        public long getTotalRows() {
+            return totalRows;
+        }
+
+        private DataInputStream readColumn() throws IOException {
+            byte[] compressed = new byte[in.readInt()];
+            in.readFully(compressed);
+            return new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)));
+        }
+    }
+
+    // ======= Encoding =======
+
+    static long toMicros(LocalDateTime dateTime) {
+        return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), dateTime);
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated cash flow columnar file.");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in cash flow columnar file.");
+    }
+
+    // Panjang + 1 agar null (0) dibedakan dari string kosong (1)
+    private static void writeString(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = (int) readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,418 @@
+package org.delcom.app.utils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.delcom.app.dto.CashFlowSummary;
+import org.delcom.app.dto.CashFlowTopItem;
+
+/**
+ * Snapshot kolumnar CashFlow milik satu user. Setiap atribut disimpan dalam array
+ * primitif terpisah (amount dan waktu sebagai long, type/label/source sebagai kode
+ * kamus int) sehingga agregasi cukup berupa loop sederhana tanpa objek entity
+ * maupun boxing.
+ *
+ * Waktu disimpan sebagai epoch detik dengan offset UTC dari LocalDateTime,
+ * sama seperti nilai yang tersimpan di database.
+ */
+public class CashFlowColumns {
+    // Tipe yang menambah dan mengurangi saldo; tipe lain tidak memengaruhi saldo
+    public static final String INFLOW = "Inflow";
+    public static final String OUTFLOW = "Outflow";
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NONE = -1;
+
+    // Perkiraan overhead per baris untuk HashMap<UUID, Integer> dan objek UUID
+    private static final long ROW_INDEX_BYTES = 96;
+    private static final long BYTES_PER_ROW = 8 + 8 + 4 + 4 + 4 + 8;
+
+    private UUID[] ids = new UUID[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private int[] types = new int[INITIAL_CAPACITY];
+    private int[] labels = new int[INITIAL_CAPACITY];
+    private int[] sources = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private final Map<UUID, Integer> rowById = new HashMap<>();
+    private final Dictionary typeDictionary = new Dictionary();
+    private final Dictionary labelDictionary = new Dictionary();
+    private final Dictionary sourceDictionary = new Dictionary();
+
+    public static long toEpoch(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime fromEpoch(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    // ======= Penulisan =======
+
+    public synchronized void upsert(UUID id, String type, String source, String label, long amount,
+            LocalDateTime createdAt) {
+        Integer existing = rowById.get(id);
+        int row;
+        if (existing != null) {
+            row = existing;
+        } else {
+            ensureCapacity(size + 1);
+            row = size++;
+            ids[row] = id;
+            rowById.put(id, row);
+        }
+        amounts[row] = amount;
+        timestamps[row] = toEpoch(createdAt);
+        types[row] = typeDictionary.encode(type);
+        labels[row] = labelDictionary.encode(label);
+        sources[row] = sourceDictionary.encode(source);
+    }
+
+    // Hapus dengan memindahkan baris terakhir ke posisi yang kosong (urutan baris tidak penting)
+    public synchronized boolean remove(UUID id) {
+        Integer removed = rowById.remove(id);
+        if (removed == null) {
+            return false;
+        }
+        int row = removed;
+        int last = --size;
+        if (row != last) {
+            ids[row] = ids[last];
+            amounts[row] = amounts[last];
+            timestamps[row] = timestamps[last];
+            types[row] = types[last];
+            labels[row] = labels[last];
+            sources[row] = sources[last];
+            rowById.put(ids[row], row);
+        }
+        ids[last] = null;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long estimatedBytes() {
+        return ids.length * BYTES_PER_ROW + size * ROW_INDEX_BYTES
+                + typeDictionary.estimatedBytes() + labelDictionary.estimatedBytes()
+                + sourceDictionary.estimatedBytes();
+    }
+
+    // ======= Query (rentang waktu [from, to) dalam epoch detik) =======
+
+    /**
+     * Total amount untuk satu tipe. Mengembalikan 0 jika tipe tidak pernah muncul.
+     */
+    public synchronized long sum(String type, long from, long to) {
+        int code = typeDictionary.lookup(type);
+        if (code == NONE) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            long ts = timestamps[i];
+            if (types[i] == code && ts >= from && ts < to) {
+                total += amounts[i];
+            }
+        }
+        return total;
+    }
+
+    public synchronized List<CashFlowSummary> sumByType(long from, long to) {
+        int typeCount = typeDictionary.size();
+        long[] totals = new long[typeCount];
+        long[] counts = new long[typeCount];
+        for (int i = 0; i < size; i++) {
+            long ts = timestamps[i];
+            if (ts >= from && ts < to) {
+                totals[types[i]] += amounts[i];
+                counts[types[i]]++;
+            }
+        }
+
+        List<CashFlowSummary> result = new ArrayList<>();
+        for (int t = 0; t < typeCount; t++) {
+            if (counts[t] > 0) {
+                String type = typeDictionary.decode(t);
+                result.add(new CashFlowSummary(type, type, totals[t], counts[t]));
+            }
+        }
+        result.sort((a, b) -> compareNullable(a.key(), b.key()));
+        return result;
+    }
+
+    public synchronized List<CashFlowSummary> sumByLabel(long from, long to) {
+        return sumByGroup(labels, labelDictionary, from, to);
+    }
+
+    public synchronized List<CashFlowSummary> sumBySource(long from, long to) {
+        return sumByGroup(sources, sourceDictionary, from, to);
+    }
+
+    /**
+     * N transaksi dengan amount terbesar untuk satu tipe (atau semua tipe jika null),
+     * memakai min-heap indeks baris berukuran N.
+     */
+    public synchronized List<CashFlowTopItem> topN(int n, String type, long from, long to) {
+        int code = NONE;
+        if (type != null) {
+            code = typeDictionary.lookup(type);
+            if (code == NONE) {
+                return new ArrayList<>();
+            }
+        }
+        if (n <= 0) {
+            return new ArrayList<>();
+        }
+
+        int[] heap = new int[n];
+        int heapSize = 0;
+        for (int i = 0; i < size; i++) {
+            long ts = timestamps[i];
+            if ((code == NONE || types[i] == code) && ts >= from && ts < to) {
+                if (heapSize < n) {
+                    heap[heapSize] = i;
+                    siftUp(heap, heapSize++);
+                } else if (amounts[i] > amounts[heap[0]]) {
+                    heap[0] = i;
+                    siftDown(heap, heapSize);
+                }
+            }
+        }
+
+        // Keluarkan dari heap (terkecil dulu) lalu isi hasil dari belakang
+        CashFlowTopItem[] items = new CashFlowTopItem[heapSize];
+        for (int k = heapSize - 1; k >= 0; k--) {
+            int row = heap[0];
+            items[k] = new CashFlowTopItem(ids[row], typeDictionary.decode(types[row]),
+                    sourceDictionary.decode(sources[row]), labelDictionary.decode(labels[row]),
+                    amounts[row], fromEpoch(timestamps[row]));
+            heap[0] = heap[k];
+            siftDown(heap, k);
+        }
+        return new ArrayList<>(Arrays.asList(items));
+    }
+
+    /**
+     * Saldo berjalan (Inflow dikurangi Outflow) dalam rentang [from, to), dikelompokkan ke
+     * paling banyak maxBuckets bucket selebar sama. Setiap bucket yang berisi transaksi menjadi
+     * satu titik: waktu transaksi terakhir di bucket dan saldo setelah bucket tersebut.
+     * Tanpa pengurutan, sehingga biayanya O(jumlah baris + maxBuckets).
+     */
+    public synchronized BalanceSeries balanceSeries(long from, long to, int maxBuckets) {
+        int inflow = typeDictionary.lookup(INFLOW);
+        int outflow = typeDictionary.lookup(OUTFLOW);
+
+        // Saldo awal dan rentang waktu transaksi yang benar-benar ada
+        long opening = 0;
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            int sign = sign(types[i], inflow, outflow);
+            long ts = timestamps[i];
+            if (sign == 0 || ts >= to) {
+                continue;
+            }
+            if (ts < from) {
+                opening += sign * amounts[i];
+            } else {
+                first = Math.min(first, ts);
+                last = Math.max(last, ts);
+            }
+        }
+        if (first > last) {
+            return new BalanceSeries(opening, new long[0], new long[0]);
+        }
+
+        long width = (last - first) / maxBuckets + 1;
+        int bucketCount = (int) ((last - first) / width) + 1;
+        long[] net = new long[bucketCount];
+        long[] lastTime = new long[bucketCount];
+        Arrays.fill(lastTime, Long.MIN_VALUE);
+        int points = 0;
+        for (int i = 0; i < size; i++) {
+            int sign = sign(types[i], inflow, outflow);
+            long ts = timestamps[i];
+            if (sign != 0 && ts >= from && ts < to) {
+                int bucket = (int) ((ts - first) / width);
+                if (lastTime[bucket] == Long.MIN_VALUE) {
+                    points++;
+                }
+                net[bucket] += sign * amounts[i];
+                lastTime[bucket] = Math.max(lastTime[bucket], ts);
+            }
+        }
+
+        long[] times = new long[points];
+        long[] balances = new long[points];
+        long balance = opening;
+        int point = 0;
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            if (lastTime[bucket] != Long.MIN_VALUE) {
+                balance += net[bucket];
+                times[point] = lastTime[bucket];
+                balances[point++] = balance;
+            }
+        }
+        return new BalanceSeries(opening, times, balances);
+    }
+
+    // Saldo sebelum from, lalu waktu (epoch detik) dan saldo setiap titik
+    public record BalanceSeries(long openingBalance, long[] times, long[] balances) {
+    }
+
+    // ======= Internal =======
+
+    private static int sign(int type, int inflow, int outflow) {
+        if (type == inflow) {
+            return 1;
+        }
+        return type == outflow ? -1 : 0;
+    }
+
+    private List<CashFlowSummary> sumByGroup(int[] groups, Dictionary dictionary, long from, long to) {
+        int typeCount = typeDictionary.size();
+        int groupCount = dictionary.size();
+        long[] totals = new long[groupCount * typeCount];
+        long[] counts = new long[groupCount * typeCount];
+        for (int i = 0; i < size; i++) {
+            long ts = timestamps[i];
+            if (ts >= from && ts < to) {
+                int cell = groups[i] * typeCount + types[i];
+                totals[cell] += amounts[i];
+                counts[cell]++;
+            }
+        }
+
+        List<CashFlowSummary> result = new ArrayList<>();
+        for (int g = 0; g < groupCount; g++) {
+            for (int t = 0; t < typeCount; t++) {
+                int cell = g * typeCount + t;
+                if (counts[cell] > 0) {
+                    result.add(new CashFlowSummary(dictionary.decode(g), typeDictionary.decode(t),
+                            totals[cell], counts[cell]));
+                }
+            }
+        }
+        result.sort((a, b) -> {
+            int byKey = compareNullable(a.key(), b.key());
+            return byKey != 0 ? byKey : compareNullable(a.type(), b.type());
+        });
+        return result;
+    }
+
+    private void siftUp(int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (amounts[heap[index]] >= amounts[heap[parent]]) {
+                return;
+            }
+            swap(heap, index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int heapSize) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= heapSize) {
+                return;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < heapSize && amounts[heap[right]] < amounts[heap[left]]) {
+                smallest = right;
+            }
+            if (amounts[heap[index]] <= amounts[heap[smallest]]) {
+                return;
+            }
+            swap(heap, index, smallest);
+            index = smallest;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+
+    // null (label/source kosong) diurutkan paling akhir
+    private static int compareNullable(String a, String b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : 1) : -1;
+        }
+        return a.compareTo(b);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        types = Arrays.copyOf(types, capacity);
+        labels = Arrays.copyOf(labels, capacity);
+        sources = Arrays.copyOf(sources, capacity);
+    }
+
+    /**
+     * Kamus string ke kode int. Kode tidak pernah dihapus agar baris lama tetap valid;
+     * null juga mendapat kodenya sendiri.
+     */
+    static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private int nullCode = NONE;
+        private long bytes;
+
+        int encode(String value) {
+            if (value == null) {
+                if (nullCode == NONE) {
+                    nullCode = values.size();
+                    values.add(null);
+                }
+                return nullCode;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+                bytes += 64 + 2L * value.length();
+            }
+            return code;
+        }
+
+        int lookup(String value) {
+            if (value == null) {
+                return nullCode;
+            }
+            Integer code = codes.get(value);
+            return code != null ? code : NONE;
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        long estimatedBytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package org.delcom.app.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.facet.FacetsCollector.MatchingDocs;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.FSDirectory;
+
+/**
+ * Indeks Lucene cash flow seluruh user di disk lokal untuk pencarian full-text dengan
+ * ranking BM25 dan hitungan facet (label, type, bulan) dalam satu pass.
+ *
+ * Setiap cash flow adalah satu dokumen berisi id, user, teks gabungan type, source,
+ * label, dan deskripsi, amount, serta facet. Setelah seluruh cash flow seorang user
+ * dimuat, dokumen penanda user ditambahkan sehingga user yang belum pernah dibangun dapat
+ * dibedakan dari user tanpa cash flow. Perubahan terlihat oleh pencarian setelah refresh
+ * (near-real-time) dan tersimpan permanen setelah commit.
+ *
+ * Facet dihitung per segmen dari doc values segmen itu sendiri, tanpa state ordinal global
+ * untuk seluruh reader; segmen yang tidak berubah dipakai ulang apa adanya setelah refresh.
+ */
+public class CashFlowSearchIndex implements Closeable {
+    private static final String ID = "id";
+    private static final String USER = "user";
+    private static final String KIND = "kind";
+    private static final String TEXT = "text";
+    private static final String AMOUNT = "amount";
+    private static final String LABEL = "label";
+    private static final String TYPE = "type";
+    private static final String MONTH = "month";
+    private static final String KIND_FLOW = "flow";
+    private static final String KIND_INDEXED_USER = "indexed-user";
+
+    private static final Result EMPTY = new Result(0, List.of(), Map.of(), Map.of(), Map.of());
+
+    public record Document(UUID id, UUID userId, String type, String source, String label, int amount,
+            String description, LocalDateTime createdAt) {
+    }
+
+    public record Hit(UUID id, double score) {
+    }
+
+    /**
+     * @param total Jumlah seluruh dokumen yang cocok (bukan hanya hits).
+     * @param hits Dokumen dengan skor tertinggi (maksimal limit), skor menurun.
+     */
+    public record Result(int total, List<Hit> hits, Map<String, Integer> byLabel, Map<String, Integer> byType,
+            Map<YearMonth, Integer> byMonth) {
+    }
+
+    // Jumlah dan total amount cash flow user di indeks, untuk pemeriksaan konsistensi
+    public record Stats(long count, long amountSum) {
+    }
+
+    // Token yang sudah dipecah oleh tokenize(), agar indeks dan query memakai aturan yang sama
+    private static final class TokenList extends TokenStream {
+        private final CharTermAttribute term = addAttribute(CharTermAttribute.class);
+        private final Iterator<String> tokens;
+
+        TokenList(List<String> tokens) {
+            this.tokens = tokens.iterator();
+        }
+
+        @Override
+        public final boolean incrementToken() {
+            clearAttributes();
+            if (!tokens.hasNext()) {
+                return false;
+            }
+            term.append(tokens.next());
+            return true;
+        }
+    }
+
+    private static final class AmountSum extends SimpleCollector {
+        private NumericDocValues amounts;
+        long count;
+        long sum;
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            amounts = DocValues.getNumeric(context.reader(), AMOUNT);
+        }
+
+        // Setiap dokumen cash flow memiliki amount
+        @Override
+        public void collect(int doc) throws IOException {
+            amounts.advanceExact(doc);
+            count++;
+            sum += amounts.longValue();
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+    }
+
+    private static final CollectorManager<AmountSum, Stats> STATS = new CollectorManager<>() {
+        @Override
+        public AmountSum newCollector() {
+            return new AmountSum();
+        }
+
+        @Override
+        public Stats reduce(Collection<AmountSum> collectors) {
+            long count = 0;
+            long sum = 0;
+            for (AmountSum collector : collectors) {
+                count += collector.count;
+                sum += collector.sum;
+            }
+            return new Stats(count, sum);
+        }
+    };
+
+    private final FSDirectory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searchers;
+    private final FacetsConfig facetsConfig = new FacetsConfig();
+
+    /**
+     * Membuka indeks di dir, atau membuatnya jika belum ada.
+     */
+    public CashFlowSearchIndex(Path dir) throws IOException {
+        this.directory = FSDirectory.open(dir);
+        this.writer = new IndexWriter(directory, new IndexWriterConfig().setOpenMode(OpenMode.CREATE_OR_APPEND));
+        this.searchers = new SearcherManager(writer, null);
+    }
+
+    /**
+     * Menambah dokumen; dokumen dengan id yang sama diganti (upsert), sehingga perubahan
+     * yang diterapkan dua kali tetap menghasilkan indeks yang sama.
+     */
+    public void add(Document document) throws IOException {
+        writer.updateDocument(new Term(ID, document.id().toString()), toLucene(document));
+    }
+
+    public void delete(UUID id) throws IOException {
+        writer.deleteDocuments(new Term(ID, id.toString()));
+    }
+
+    // Menghapus seluruh dokumen user beserta penandanya, sebelum user dibangun ulang
+    public void deleteUser(UUID userId) throws IOException {
+        writer.deleteDocuments(new Term(USER, userId.toString()));
+    }
+
+    // Dipanggil setelah seluruh cash flow user ditambahkan
+    public void markIndexed(UUID userId) throws IOException {
+        org.apache.lucene.document.Document marker = new org.apache.lucene.document.Document();
+        marker.add(new StringField(USER, userId.toString(), Store.YES));
+        marker.add(new StringField(KIND, KIND_INDEXED_USER, Store.NO));
+        writer.addDocument(marker);
+    }
+
+    // Membuat perubahan sejak refresh terakhir terlihat oleh pencarian
+    public void refresh() throws IOException {
+        searchers.maybeRefreshBlocking();
+    }
+
+    // Menyimpan perubahan ke disk agar tidak hilang saat aplikasi berhenti mendadak
+    public void commit() throws IOException {
+        writer.commit();
+    }
+
+    public boolean isIndexed(UUID userId) throws IOException {
+        IndexSearcher searcher = searchers.acquire();
+        try {
+            return searcher.count(byUser(userId, KIND_INDEXED_USER)) > 0;
+        } finally {
+            searchers.release(searcher);
+        }
+    }
+
+    public List<UUID> getIndexedUsers() throws IOException {
+        IndexSearcher searcher = searchers.acquire();
+        try {
+            Query markers = new TermQuery(new Term(KIND, KIND_INDEXED_USER));
+            StoredFields stored = searcher.storedFields();
+            List<UUID> userIds = new ArrayList<>();
+            for (ScoreDoc doc : searcher.search(markers, Math.max(searcher.count(markers), 1)).scoreDocs) {
+                userIds.add(UUID.fromString(stored.document(doc.doc).get(USER)));
+            }
+            return userIds;
+        } finally {
+            searchers.release(searcher);
+        }
+    }
+
+    public Stats getStats(UUID userId) throws IOException {
+        IndexSearcher searcher = searchers.acquire();
+        try {
+            return searcher.search(byUser(userId, KIND_FLOW), STATS);
+        } finally {
+            searchers.release(searcher);
+        }
+    }
+
+    /**
+     * Mencari cash flow user yang memuat seluruh token query (AND).
+     * @param limit Jumlah hits maksimal; facet dan total tetap dihitung dari seluruh dokumen yang cocok.
+     */
+    public Result search(UUID userId, String query, int limit) throws IOException {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty()) {
+            return EMPTY;
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(USER, userId.toString())), Occur.FILTER);
+        for (String term : terms) {
+            builder.add(new TermQuery(new Term(TEXT, term)), Occur.MUST);
+        }
+
+        IndexSearcher searcher = searchers.acquire();
+        try {
+            FacetsCollectorManager.FacetsResult found = FacetsCollectorManager.search(searcher, builder.build(),
+                    Math.max(limit, 1), new FacetsCollectorManager());
+            int total = 0;
+            for (MatchingDocs docs : found.facetsCollector().getMatchingDocs()) {
+                total += docs.totalHits();
+            }
+            if (total == 0) {
+                return EMPTY;
+            }
+
+            StoredFields stored = searcher.storedFields();
+            ScoreDoc[] top = found.topDocs().scoreDocs;
+            List<Hit> hits = new ArrayList<>();
+            for (int i = 0; i < Math.min(limit, top.length); i++) {
+                hits.add(new Hit(UUID.fromString(stored.document(top[i].doc).get(ID)), top[i].score));
+            }
+
+            Map<String, Map<String, Integer>> facets = countFacets(found.facetsCollector().getMatchingDocs());
+            Map<YearMonth, Integer> byMonth = new LinkedHashMap<>();
+            counts(facets, MONTH, total).forEach((month, count) -> byMonth.put(YearMonth.parse(month), count));
+            return new Result(total, hits, counts(facets, LABEL, total), counts(facets, TYPE, total), byMonth);
+        } finally {
+            searchers.release(searcher);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        searchers.close();
+        writer.close();
+        directory.close();
+    }
+
+    /**
+     * Token teks: huruf kecil, dipisah oleh karakter selain huruf/angka.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private org.apache.lucene.document.Document toLucene(Document document) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        for (String text : new String[] { document.type(), document.source(), document.label(),
+                document.description() }) {
+            tokens.addAll(tokenize(text));
+        }
+
+        org.apache.lucene.document.Document doc = new org.apache.lucene.document.Document();
+        doc.add(new StringField(ID, document.id().toString(), Store.YES));
+        doc.add(new StringField(USER, document.userId().toString(), Store.NO));
+        doc.add(new StringField(KIND, KIND_FLOW, Store.NO));
+        doc.add(new TextField(TEXT, new TokenList(tokens)));
+        doc.add(new NumericDocValuesField(AMOUNT, document.amount()));
+        // Nilai facet tidak boleh kosong; label/type kosong dihitung sebagai sisa dari total
+        if (document.label() != null && !document.label().isEmpty()) {
+            doc.add(new SortedSetDocValuesFacetField(LABEL, document.label()));
+        }
+        if (document.type() != null && !document.type().isEmpty()) {
+            doc.add(new SortedSetDocValuesFacetField(TYPE, document.type()));
+        }
+        doc.add(new SortedSetDocValuesFacetField(MONTH, YearMonth.from(document.createdAt()).toString()));
+        return facetsConfig.build(doc);
+    }
+
+    /**
+     * Hitungan facet per dimensi dari dokumen yang cocok. Ordinal hanya berlaku di dalam
+     * segmennya, sehingga dihitung per segmen lalu digabung berdasarkan nilai facet.
+     */
+    private static Map<String, Map<String, Integer>> countFacets(List<MatchingDocs> matchingDocs)
+            throws IOException {
+        Map<String, Map<String, Integer>> counts = new HashMap<>();
+        for (MatchingDocs docs : matchingDocs) {
+            if (docs.totalHits() == 0) {
+                continue;
+            }
+            SortedSetDocValues values = DocValues.getSortedSet(docs.context().reader(),
+                    FacetsConfig.DEFAULT_INDEX_FIELD_NAME);
+            Map<Long, Integer> ordCounts = new HashMap<>();
+            DocIdSetIterator matches = docs.bits().iterator();
+            for (int doc = matches.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = matches.nextDoc()) {
+                // Setiap dokumen cash flow memiliki facet bulan
+                values.advanceExact(doc);
+                for (int i = 0; i < values.docValueCount(); i++) {
+                    ordCounts.merge(values.nextOrd(), 1, Integer::sum);
+                }
+            }
+            // Nilai facet disimpan sebagai path [dimensi, nilai]
+            for (Map.Entry<Long, Integer> entry : ordCounts.entrySet()) {
+                String[] path = FacetsConfig.stringToPath(values.lookupOrd(entry.getKey()).utf8ToString());
+                counts.computeIfAbsent(path[0], dim -> new HashMap<>()).merge(path[1], entry.getValue(),
+                        Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    private static Query byUser(UUID userId, String kind) {
+        return new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(USER, userId.toString())), Occur.FILTER)
+                .add(new TermQuery(new Term(KIND, kind)), Occur.FILTER)
+                .build();
+    }
+
+    private static Map<String, Integer> counts(Map<String, Map<String, Integer>> facets, String dim, int total) {
+        Map<String, Integer> counts = new LinkedHashMap<>(facets.getOrDefault(dim, Map.of()));
+        int counted = 0;
+        for (int count : counts.values()) {
+            counted += count;
+        }
+        if (total > counted) {
+            counts.put("", total - counted);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,63 @@
+package org.delcom.app.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utilitas CSV sederhana (RFC 4180) untuk satu baris: field dipisah koma,
+ * field boleh diapit tanda kutip ganda, dan kutip di dalam field ditulis "".
+ */
+public class CsvUtil {
+
+    /**
+     * Memecah satu baris CSV menjadi field.
+     * @return Daftar field, atau null jika tanda kutip tidak ditutup.
+     */
+    public static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+            i++;
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Selalu diapit kutip agar string kosong tidak dibaca sebagai NULL oleh COPY
+    public static void appendQuoted(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,323 @@
+package org.delcom.app.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Sketsa kuantil KLL (Karnin, Lang, Liberty, 2016) untuk nilai long. Sketsa menyimpan
+ * O(k) nilai pada beberapa level; nilai di level h mewakili 2^h nilai asli. Saat
+ * kapasitas terlampaui, satu level diurutkan lalu separuh nilainya (ganjil/genap secara
+ * acak) dipromosikan ke level berikutnya. Dua sketsa dapat digabung (merge).
+ *
+ * Galat rank ternormalisasi kira-kira normalizedRankError() dengan peluang 99%
+ * (untuk k = 200 sekitar 1,33%); min dan max selalu eksak.
+ */
+public class KllSketch {
+    public static final int DEFAULT_K = 200;
+
+    // Lebar minimum level dan rasio kapasitas antar level
+    private static final int MIN_WIDTH = 8;
+    private static final double CAPACITY_RATIO = 2.0 / 3.0;
+
+    private final int k;
+    private final Random random = new Random();
+    private long[][] levels = new long[1][MIN_WIDTH];
+    private int[] sizes = new int[1];
+    private int retained;
+    private long n;
+    private long min;
+    private long max;
+
+    // Nilai terurut dan bobot kumulatif, dibangun ulang setelah sketsa berubah
+    private long[] viewValues;
+    private long[] viewWeights;
+
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    public KllSketch(int k) {
+        if (k < MIN_WIDTH) {
+            throw new IllegalArgumentException("k must be at least " + MIN_WIDTH);
+        }
+        this.k = k;
+    }
+
+    /**
+     * Perkiraan galat rank ternormalisasi untuk satu query kuantil/rank (rumus empiris
+     * dari Apache DataSketches untuk tingkat kepercayaan 99%).
+     */
+    public static double normalizedRankError(int k) {
+        return 2.296 / Math.pow(k, 0.9723);
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public synchronized long getN() {
+        return n;
+    }
+
+    public synchronized long getMin() {
+        return min;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized void update(long value) {
+        if (n == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        n++;
+        append(0, value);
+        if (retained > totalCapacity()) {
+            compress();
+        }
+        viewValues = null;
+    }
+
+    /**
+     * Menggabungkan other ke sketsa ini; other tidak diubah.
+     */
+    public void merge(KllSketch other) {
+        long[][] otherLevels;
+        int[] otherSizes;
+        long otherN;
+        long otherMin;
+        long otherMax;
+        synchronized (other) {
+            otherLevels = new long[other.sizes.length][];
+            for (int h = 0; h < other.sizes.length; h++) {
+                otherLevels[h] = Arrays.copyOf(other.levels[h], other.sizes[h]);
+            }
+            otherSizes = other.sizes.clone();
+            otherN = other.n;
+            otherMin = other.min;
+            otherMax = other.max;
+        }
+        if (otherN == 0) {
+            return;
+        }
+
+        synchronized (this) {
+            if (n == 0) {
+                min = otherMin;
+                max = otherMax;
+            } else {
+                min = Math.min(min, otherMin);
+                max = Math.max(max, otherMax);
+            }
+            n += otherN;
+            for (int h = 0; h < otherSizes.length; h++) {
+                for (int i = 0; i < otherSizes[h]; i++) {
+                    append(h, otherLevels[h][i]);
+                }
+            }
+            while (retained > totalCapacity()) {
+                compress();
+            }
+            viewValues = null;
+        }
+    }
+
+    /**
+     * Nilai pada kuantil q (0 = min, 1 = max). Sketsa tidak boleh kosong.
+     */
+    public synchronized long quantile(double q) {
+        if (q <= 0) {
+            return min;
+        }
+        if (q >= 1) {
+            return max;
+        }
+        ensureView();
+        long target = (long) Math.ceil(q * n);
+        int index = Arrays.binarySearch(viewWeights, target);
+        return viewValues[index >= 0 ? index : -index - 1];
+    }
+
+    /**
+     * Perkiraan fraksi nilai yang lebih kecil dari value (0 s/d 1). Sketsa tidak boleh kosong.
+     */
+    public synchronized double rank(long value) {
+        ensureView();
+        // Indeks pertama dengan nilai >= value
+        int low = 0;
+        int high = viewValues.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (viewValues[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low == 0 ? 0 : (double) viewWeights[low - 1] / n;
+    }
+
+    public synchronized long estimatedBytes() {
+        long bytes = 96;
+        for (long[] level : levels) {
+            bytes += 16 + 8L * level.length;
+        }
+        if (viewValues != null) {
+            bytes += 16L * viewValues.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Serialisasi ringkas: varint untuk header, nilai tiap level diurutkan lalu
+     * disimpan sebagai selisih (delta) varint.
+     */
+    public synchronized byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + 3 * retained);
+        writeVarint(out, k);
+        writeVarint(out, n);
+        writeVarint(out, zigzag(min));
+        writeVarint(out, zigzag(max));
+        writeVarint(out, sizes.length);
+        for (int h = 0; h < sizes.length; h++) {
+            Arrays.sort(levels[h], 0, sizes[h]);
+            writeVarint(out, sizes[h]);
+            long previous = 0;
+            for (int i = 0; i < sizes[h]; i++) {
+                writeVarint(out, zigzag(levels[h][i] - previous));
+                previous = levels[h][i];
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static KllSketch fromBytes(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        KllSketch sketch = new KllSketch((int) readVarint(in));
+        sketch.n = readVarint(in);
+        sketch.min = unzigzag(readVarint(in));
+        sketch.max = unzigzag(readVarint(in));
+        int levelCount = (int) readVarint(in);
+        sketch.levels = new long[levelCount][];
+        sketch.sizes = new int[levelCount];
+        for (int h = 0; h < levelCount; h++) {
+            int size = (int) readVarint(in);
+            long[] level = new long[Math.max(size, MIN_WIDTH)];
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                previous += unzigzag(readVarint(in));
+                level[i] = previous;
+            }
+            sketch.levels[h] = level;
+            sketch.sizes[h] = size;
+            sketch.retained += size;
+        }
+        return sketch;
+    }
+
+    private void append(int level, long value) {
+        // Level sketsa lain bisa lebih dalam dan sebagian kosong
+        while (level >= sizes.length) {
+            levels = Arrays.copyOf(levels, sizes.length + 1);
+            levels[sizes.length] = new long[MIN_WIDTH];
+            sizes = Arrays.copyOf(sizes, sizes.length + 1);
+        }
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        }
+        levels[level][sizes[level]++] = value;
+        retained++;
+    }
+
+    private int capacity(int level) {
+        int depth = sizes.length - 1 - level;
+        return Math.max(MIN_WIDTH, (int) Math.ceil(k * Math.pow(CAPACITY_RATIO, depth)));
+    }
+
+    private int totalCapacity() {
+        int total = 0;
+        for (int h = 0; h < sizes.length; h++) {
+            total += capacity(h);
+        }
+        return total;
+    }
+
+    // Padatkan level terendah yang penuh; selalu ada karena total isi melebihi total kapasitas
+    private void compress() {
+        int h = 0;
+        while (sizes[h] < capacity(h)) {
+            h++;
+        }
+
+        long[] level = levels[h];
+        int size = sizes[h];
+        Arrays.sort(level, 0, size);
+        // Jika ganjil, nilai terkecil tetap di level ini agar total bobot tidak berubah
+        int odd = size & 1;
+        sizes[h] = odd;
+        retained -= size - odd;
+        for (int i = odd + random.nextInt(2); i < size; i += 2) {
+            append(h + 1, level[i]);
+        }
+    }
+
+    private void ensureView() {
+        if (viewValues != null) {
+            return;
+        }
+        long[][] pairs = new long[retained][];
+        int count = 0;
+        for (int h = 0; h < sizes.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                pairs[count++] = new long[] { levels[h][i], 1L << h };
+            }
+        }
+        Arrays.sort(pairs, (a, b) -> Long.compare(a[0], b[0]));
+
+        long[] values = new long[count];
+        long[] weights = new long[count];
+        long cumulative = 0;
+        for (int i = 0; i < count; i++) {
+            cumulative += pairs[i][1];
+            values[i] = pairs[i][0];
+            weights[i] = cumulative;
+        }
+        viewValues = values;
+        viewWeights = weights;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,65 @@
+package org.delcom.app.utils;
+
+/**
+ * Downsampling deret waktu dengan Largest-Triangle-Three-Buckets (Steinarsson, 2013).
+ * Titik pertama dan terakhir selalu dipertahankan; dari setiap bucket di antaranya
+ * dipilih satu titik yang membentuk segitiga terbesar dengan titik terpilih sebelumnya
+ * dan rata-rata bucket berikutnya, sehingga puncak dan lembah grafik tetap terlihat.
+ * Biayanya O(n) terhadap jumlah titik masukan.
+ */
+public class Lttb {
+
+    /**
+     * @param x Koordinat x (terurut naik).
+     * @param y Koordinat y, panjangnya sama dengan x.
+     * @param threshold Jumlah titik hasil (minimal 3 jika lebih kecil dari jumlah titik masukan).
+     * @return Indeks titik terpilih, terurut naik.
+     */
+    public static int[] downsample(long[] x, long[] y, int threshold) {
+        int n = x.length;
+        if (threshold >= n) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        if (threshold < 3) {
+            throw new IllegalArgumentException("threshold must be at least 3");
+        }
+
+        int[] sampled = new int[threshold];
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Rata-rata bucket berikutnya sebagai titik ketiga segitiga
+            int avgStart = (int) ((bucket + 1) * every) + 1;
+            int avgEnd = Math.min((int) ((bucket + 2) * every) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += x[j];
+                avgY += y[j];
+            }
+            avgX /= avgEnd - avgStart;
+            avgY /= avgEnd - avgStart;
+
+            int rangeStart = (int) (bucket * every) + 1;
+            int rangeEnd = (int) ((bucket + 1) * every) + 1;
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((double) (x[a] - x[j]) * (avgY - y[a])
+                        - (x[a] - avgX) * (double) (y[j] - y[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            sampled[bucket + 1] = next;
+            a = next;
+        }
+        sampled[threshold - 1] = n - 1;
+        return sampled;
+    }
+}
@@ -0,0 +1,120 @@
+package org.delcom.app.utils;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Simulasi Monte Carlo saldo ke depan dengan bootstrap: pada setiap bulan simulasi,
+ * amount setiap label diambil acak dari riwayat bulanan label tersebut. Path dibagi
+ * rekursif ke task fork-join; setiap task memakai SplittableRandom hasil split sehingga
+ * tidak ada state acak bersama, dan hasil ditulis ke array primitif tanpa boxing.
+ *
+ * Simulasi berhenti saat deadline terlewati; persentil dihitung dari path yang selesai
+ * (minimal satu path selalu disimulasikan).
+ */
+public class MonteCarloForecast {
+    // Persentil pita keyakinan yang dilaporkan, urutan sama dengan kolom bands
+    public static final double[] PERCENTILES = { 0.05, 0.25, 0.5, 0.75, 0.95 };
+    private static final int LEAF_PATHS = 256;
+
+    /**
+     * @param paths Jumlah path yang selesai disimulasikan.
+     * @param bands Saldo per bulan ke depan: bands[bulan][i] untuk PERCENTILES[i].
+     */
+    public record Result(int paths, long[][] bands) {
+    }
+
+    private final long[][] history;
+    private final long startingBalance;
+    private final int months;
+    private final long deadlineNanos;
+    // Saldo akhir bulan setiap path: balances[path * months + bulan]
+    private final long[] balances;
+    private final boolean[] done;
+
+    private MonteCarloForecast(long[][] history, long startingBalance, int months, int paths, long deadlineNanos) {
+        this.history = history;
+        this.startingBalance = startingBalance;
+        this.months = months;
+        this.deadlineNanos = deadlineNanos;
+        this.balances = new long[paths * months];
+        this.done = new boolean[paths];
+    }
+
+    /**
+     * @param history Amount bertanda per label per bulan historis: history[label][bulan].
+     *                Setiap label minimal berisi satu bulan.
+     * @param deadlineNanos Batas waktu (System.nanoTime()) untuk memulai path baru.
+     */
+    public static Result simulate(long[][] history, long startingBalance, int months, int paths, long seed,
+            long deadlineNanos, ForkJoinPool pool) {
+        MonteCarloForecast forecast = new MonteCarloForecast(history, startingBalance, months, paths, deadlineNanos);
+        pool.invoke(forecast.new Task(0, paths, new SplittableRandom(seed)));
+        return forecast.summarize();
+    }
+
+    private final class Task extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        Task(int from, int to, SplittableRandom random) {
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_PATHS) {
+                simulateRange(from, to, random);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Task(from, mid, random.split()), new Task(mid, to, random));
+        }
+    }
+
+    private void simulateRange(int from, int to, SplittableRandom random) {
+        for (int path = from; path < to; path++) {
+            if (path > 0 && System.nanoTime() - deadlineNanos > 0) {
+                return;
+            }
+            long balance = startingBalance;
+            int offset = path * months;
+            for (int month = 0; month < months; month++) {
+                for (long[] label : history) {
+                    balance += label[random.nextInt(label.length)];
+                }
+                balances[offset + month] = balance;
+            }
+            done[path] = true;
+        }
+    }
+
+    private Result summarize() {
+        int completed = 0;
+        for (boolean pathDone : done) {
+            completed += pathDone ? 1 : 0;
+        }
+
+        long[][] bands = new long[months][PERCENTILES.length];
+        long[] column = new long[completed];
+        for (int month = 0; month < months; month++) {
+            int n = 0;
+            for (int path = 0; path < done.length; path++) {
+                if (done[path]) {
+                    column[n++] = balances[path * months + month];
+                }
+            }
+            Arrays.sort(column);
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                // Nearest-rank
+                bands[month][i] = column[(int) Math.ceil(PERCENTILES[i] * completed) - 1];
+            }
+        }
+        return new Result(completed, bands);
+    }
+}
@@ -0,0 +1,65 @@
+package org.delcom.app.utils;
+
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark throughput MonteCarloForecast (path per detik) untuk 1 sampai N core:
+ *
+ * java -cp app.jar org.delcom.app.utils.MonteCarloForecastBenchmark [paths] [label] [bulan] [maks-core]
+ *
+ * Default: 100000 path, 20 label dengan riwayat 12 bulan, 12 bulan ke depan, dan seluruh
+ * core yang tersedia. Setiap jumlah core dijalankan sekali untuk pemanasan lalu diukur
+ * rata-rata beberapa iterasi.
+ */
+public class MonteCarloForecastBenchmark {
+    private static final int HISTORY_MONTHS = 12;
+    private static final int ITERATIONS = 3;
+
+    public static void main(String[] args) {
+        run(args, System.out);
+    }
+
+    static void run(String[] args, PrintStream out) {
+        int paths = intArg(args, 0, 100_000);
+        int labels = intArg(args, 1, 20);
+        int months = intArg(args, 2, 12);
+        int maxCores = intArg(args, 3, Runtime.getRuntime().availableProcessors());
+
+        SplittableRandom random = new SplittableRandom(42);
+        long[][] history = new long[labels][HISTORY_MONTHS];
+        for (long[] label : history) {
+            for (int month = 0; month < HISTORY_MONTHS; month++) {
+                label[month] = random.nextLong(-1_000_000, 1_000_000);
+            }
+        }
+
+        // Benchmark mengukur seluruh path, tanpa batas waktu efektif
+        long deadline = System.nanoTime() + TimeUnit.DAYS.toNanos(1);
+        out.printf("paths=%d labels=%d months=%d%n", paths, labels, months);
+        double singleCore = 0;
+        for (int cores = 1; cores <= maxCores; cores++) {
+            ForkJoinPool pool = new ForkJoinPool(cores);
+            try {
+                MonteCarloForecast.simulate(history, 0, months, paths, 1, deadline, pool);
+                long start = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    MonteCarloForecast.simulate(history, 0, months, paths, i, deadline, pool);
+                }
+                double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+                double pathsPerSecond = (double) paths * ITERATIONS / seconds;
+                singleCore = cores == 1 ? pathsPerSecond : singleCore;
+                out.printf("cores=%d paths/s=%.0f paths/s/core=%.0f speedup=%.2f%n", cores, pathsPerSecond,
+                        pathsPerSecond / cores, pathsPerSecond / singleCore);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -0,0 +1,322 @@
+package org.delcom.app.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Klasifikasi naive Bayes multinomial (smoothing Laplace) dari deskripsi ke label untuk
+ * satu user. Model hanya berisi tabel hitungan token per label sehingga dapat diperbarui
+ * secara inkremental: add dengan delta +1/-1 untuk setiap insert/delete, O(jumlah token).
+ *
+ * Token disimpan sebagai hash 64-bit (FNV-1a) di tabel open addressing berbasis array
+ * primitif; 16 bit terbawah kunci pasangan berisi indeks label. Klasifikasi sebanding
+ * jumlah token x jumlah label tanpa alokasi per token.
+ */
+public class NaiveBayesLabeler {
+    private static final int LABEL_BITS = 16;
+    private static final long LABEL_MASK = (1L << LABEL_BITS) - 1;
+    private static final int INITIAL_LABELS = 4;
+
+    /**
+     * @param probability Peluang posterior label terhadap label lain (0-1).
+     */
+    public record Prediction(String label, double probability) {
+    }
+
+    private final Map<String, Integer> labelIndexes = new HashMap<>();
+    private String[] labels = new String[INITIAL_LABELS];
+    private long[] documents = new long[INITIAL_LABELS];
+    private long[] tokenTotals = new long[INITIAL_LABELS];
+    private int labelCount;
+    private long totalDocuments;
+    private long labelBytes;
+
+    // (token, label) -> jumlah kemunculan, dan token -> jumlah kemunculan di seluruh label
+    private final Counts pairs = new Counts();
+    private final Counts vocabulary = new Counts();
+
+    /**
+     * Menambah (delta positif) atau mengurangi (delta negatif) satu contoh deskripsi-label.
+     * Label atau deskripsi kosong diabaikan.
+     */
+    public synchronized void add(String label, String description, int delta) {
+        if (label == null || label.isEmpty() || description == null || delta == 0) {
+            return;
+        }
+        long[] tokens = tokenize(description);
+        if (tokens.length == 0) {
+            return;
+        }
+        Integer existing = labelIndexes.get(label);
+        if (existing == null && delta < 0) {
+            return;
+        }
+        int index = existing != null ? existing : addLabel(label);
+
+        documents[index] += delta;
+        totalDocuments += delta;
+        tokenTotals[index] += (long) delta * tokens.length;
+        for (long token : tokens) {
+            pairs.add(token | index, delta);
+            vocabulary.add(token, delta);
+        }
+    }
+
+    /**
+     * Label dengan peluang posterior tertinggi untuk deskripsi.
+     * @return Prediksi, atau null jika model kosong atau tidak ada token deskripsi yang dikenal.
+     */
+    public synchronized Prediction classify(String description) {
+        if (totalDocuments <= 0 || description == null) {
+            return null;
+        }
+        long[] known = Arrays.stream(tokenize(description)).filter(token -> vocabulary.get(token) > 0).toArray();
+        if (known.length == 0) {
+            return null;
+        }
+
+        double vocabularySize = vocabulary.size();
+        double[] scores = new double[labelCount];
+        int best = -1;
+        for (int l = 0; l < labelCount; l++) {
+            if (documents[l] <= 0) {
+                scores[l] = Double.NEGATIVE_INFINITY;
+                continue;
+            }
+            double denominator = Math.log(tokenTotals[l] + vocabularySize);
+            double score = Math.log((double) documents[l] / totalDocuments);
+            for (long token : known) {
+                score += Math.log(pairs.get(token | l) + 1.0) - denominator;
+            }
+            scores[l] = score;
+            best = best < 0 || score > scores[best] ? l : best;
+        }
+
+        // Normalisasi log-sum-exp relatif terhadap skor terbaik
+        double sum = 0;
+        for (double score : scores) {
+            sum += Math.exp(score - scores[best]);
+        }
+        return new Prediction(labels[best], 1.0 / sum);
+    }
+
+    public synchronized long getDocuments() {
+        return totalDocuments;
+    }
+
+    public synchronized long estimatedBytes() {
+        return 128 + 24L * labels.length + labelBytes + pairs.estimatedBytes() + vocabulary.estimatedBytes();
+    }
+
+    /**
+     * Serialisasi ringkas: label beserta hitungannya, lalu pasangan (token, label) terurut
+     * dengan kunci delta-encoded varint. Tabel kosakata dibangun ulang saat dibaca.
+     */
+    public synchronized byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + (int) labelBytes + 6 * pairs.size());
+        writeVarint(out, labelCount);
+        for (int l = 0; l < labelCount; l++) {
+            byte[] name = labels[l].getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, name.length);
+            out.write(name, 0, name.length);
+            writeVarint(out, documents[l]);
+            writeVarint(out, tokenTotals[l]);
+        }
+        long[] keys = pairs.keys();
+        Arrays.sort(keys);
+        writeVarint(out, keys.length);
+        long previous = 0;
+        for (long key : keys) {
+            writeVarint(out, key - previous);
+            writeVarint(out, pairs.get(key));
+            previous = key;
+        }
+        return out.toByteArray();
+    }
+
+    public static NaiveBayesLabeler fromBytes(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        NaiveBayesLabeler labeler = new NaiveBayesLabeler();
+        int count = (int) readVarint(in);
+        for (int l = 0; l < count; l++) {
+            byte[] name = new byte[(int) readVarint(in)];
+            in.get(name);
+            int index = labeler.addLabel(new String(name, StandardCharsets.UTF_8));
+            labeler.documents[index] = readVarint(in);
+            labeler.tokenTotals[index] = readVarint(in);
+            labeler.totalDocuments += labeler.documents[index];
+        }
+        long pairCount = readVarint(in);
+        long key = 0;
+        for (long i = 0; i < pairCount; i++) {
+            key += readVarint(in);
+            int value = (int) readVarint(in);
+            labeler.pairs.add(key, value);
+            labeler.vocabulary.add(key & ~LABEL_MASK, value);
+        }
+        return labeler;
+    }
+
+    /**
+     * Token deskripsi: huruf kecil, dipisah oleh karakter selain huruf/angka, minimal dua
+     * karakter. Hasilnya hash dengan 16 bit terbawah nol (tempat indeks label).
+     */
+    static long[] tokenize(String text) {
+        String[] words = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+        long[] tokens = new long[words.length];
+        int n = 0;
+        for (String word : words) {
+            if (word.length() < 2) {
+                continue;
+            }
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < word.length(); i++) {
+                hash = (hash ^ word.charAt(i)) * 0x100000001b3L;
+            }
+            // Bit tertinggi selalu 1 agar kunci tidak pernah 0 (penanda slot kosong)
+            tokens[n++] = (hash & ~LABEL_MASK) | Long.MIN_VALUE;
+        }
+        return Arrays.copyOf(tokens, n);
+    }
+
+    private int addLabel(String label) {
+        if (labelCount > LABEL_MASK) {
+            throw new IllegalStateException("Too many labels");
+        }
+        if (labelCount == labels.length) {
+            labels = Arrays.copyOf(labels, labelCount * 2);
+            documents = Arrays.copyOf(documents, labelCount * 2);
+            tokenTotals = Arrays.copyOf(tokenTotals, labelCount * 2);
+        }
+        labels[labelCount] = label;
+        labelIndexes.put(label, labelCount);
+        labelBytes += 96 + 2L * label.length();
+        return labelCount++;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Tabel hash long -> int dengan linear probing. Entri yang hitungannya menjadi 0 atau
+     * kurang dihapus dengan backward shift agar rantai probing tetap utuh.
+     */
+    static final class Counts {
+        private long[] keys = new long[16];
+        private int[] values = new int[16];
+        private int size;
+
+        int get(long key) {
+            int slot = find(key);
+            return keys[slot] == key ? values[slot] : 0;
+        }
+
+        void add(long key, int delta) {
+            int slot = find(key);
+            if (keys[slot] != key) {
+                if (delta <= 0) {
+                    return;
+                }
+                keys[slot] = key;
+                values[slot] = delta;
+                if (++size * 3 > keys.length * 2) {
+                    resize();
+                }
+                return;
+            }
+            values[slot] += delta;
+            if (values[slot] <= 0) {
+                remove(slot);
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        long[] keys() {
+            long[] result = new long[size];
+            int n = 0;
+            for (long key : keys) {
+                if (key != 0) {
+                    result[n++] = key;
+                }
+            }
+            return result;
+        }
+
+        long estimatedBytes() {
+            return 12L * keys.length;
+        }
+
+        // Slot berisi key, atau slot kosong tempat key seharusnya disisipkan
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void remove(int slot) {
+            int mask = keys.length - 1;
+            int hole = slot;
+            int next = (slot + 1) & mask;
+            while (keys[next] != 0) {
+                int home = mix(keys[next]) & mask;
+                // Geser entri ke hole jika hole berada di antara home dan posisinya sekarang
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[hole] = 0;
+            values[hole] = 0;
+            size--;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = find(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.delcom.app.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Indeks prefix berbentuk array terurut (kunci huruf kecil) dengan frekuensi pemakaian.
+ * Pencarian memakai binary search ke awal rentang prefix lalu memilih entri dengan
+ * frekuensi tertinggi di rentang tersebut. Cocok untuk kamus kecil-menengah seperti
+ * label dan source milik satu user.
+ */
+public class PrefixIndex {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private long[] counts = new long[INITIAL_CAPACITY];
+    private int size;
+    private long nameBytes;
+
+    /**
+     * Menambah (delta positif) atau mengurangi frekuensi sebuah nilai. Nilai dengan
+     * frekuensi 0 atau kurang dihapus dari indeks.
+     */
+    public synchronized void add(String name, long delta) {
+        if (name == null || delta == 0) {
+            return;
+        }
+        String key = name.toLowerCase(Locale.ROOT);
+        int index = find(key, name);
+        if (index >= 0) {
+            counts[index] += delta;
+            if (counts[index] <= 0) {
+                removeAt(index);
+            }
+            return;
+        }
+        if (delta < 0) {
+            return;
+        }
+
+        int insertAt = -index - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(keys, insertAt, keys, insertAt + 1, size - insertAt);
+        System.arraycopy(names, insertAt, names, insertAt + 1, size - insertAt);
+        System.arraycopy(counts, insertAt, counts, insertAt + 1, size - insertAt);
+        keys[insertAt] = key;
+        names[insertAt] = name;
+        counts[insertAt] = delta;
+        size++;
+        nameBytes += 2L * (key.length() + name.length());
+    }
+
+    /**
+     * Mengambil paling banyak limit nilai yang diawali prefix (tanpa membedakan huruf
+     * besar/kecil), diurutkan dari frekuensi tertinggi lalu alfabetis.
+     */
+    public synchronized List<String> suggest(String prefix, int limit) {
+        String key = prefix == null ? "" : prefix.toLowerCase(Locale.ROOT);
+        int start = lowerBound(key);
+        int end = start;
+        while (end < size && keys[end].startsWith(key)) {
+            end++;
+        }
+
+        // Seleksi top-k dengan insertion sort; rentang prefix umumnya kecil.
+        // Perbandingan ketat menjaga urutan alfabetis untuk frekuensi yang sama.
+        int k = Math.min(limit, end - start);
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        int[] best = new int[k];
+        int filled = 0;
+        for (int i = start; i < end; i++) {
+            int pos;
+            if (filled < k) {
+                pos = filled++;
+            } else if (counts[i] > counts[best[k - 1]]) {
+                pos = k - 1;
+            } else {
+                continue;
+            }
+            while (pos > 0 && counts[best[pos - 1]] < counts[i]) {
+                best[pos] = best[pos - 1];
+                pos--;
+            }
+            best[pos] = i;
+        }
+
+        List<String> result = new ArrayList<>(filled);
+        for (int i = 0; i < filled; i++) {
+            result.add(names[best[i]]);
+        }
+        return result;
+    }
+
+    public synchronized long countOf(String name) {
+        int index = find(name.toLowerCase(Locale.ROOT), name);
+        return index >= 0 ? counts[index] : 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long estimatedBytes() {
+        return keys.length * (4L + 4L + 8L) + size * 96L + nameBytes;
+    }
+
+    // Posisi pertama dengan kunci >= key
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Urutan: kunci huruf kecil, lalu nama asli. Mengembalikan -(posisi sisip) - 1 jika tidak ada.
+    private int find(String key, String name) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = keys[mid].compareTo(key);
+            if (cmp == 0) {
+                cmp = names[mid].compareTo(name);
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void removeAt(int index) {
+        nameBytes -= 2L * (keys[index].length() + names[index].length());
+        int moved = size - index - 1;
+        System.arraycopy(keys, index + 1, keys, index, moved);
+        System.arraycopy(names, index + 1, names, index, moved);
+        System.arraycopy(counts, index + 1, counts, index, moved);
+        size--;
+        keys[size] = null;
+        names[size] = null;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= keys.length) {
+            return;
+        }
+        int capacity = Math.max(required, keys.length * 2);
+        keys = Arrays.copyOf(keys, capacity);
+        names = Arrays.copyOf(names, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+    }
+}
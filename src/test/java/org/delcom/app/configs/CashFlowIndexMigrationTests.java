@@ -0,0 +1,51 @@
+package org.delcom.app.configs;
+
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+
+public class CashFlowIndexMigrationTests {
+
+    private static final String ROW_ESTIMATE = "FROM pg_class";
+    private static final String CREATE_BRIN = "CREATE INDEX IF NOT EXISTS idx_cash_flows_created_brin " +
+            "ON cash_flows USING brin (created_at)";
+
+    @Test
+    @DisplayName("Migrasi indeks memasang BRIN pada tabel besar")
+    void testMigrateLargeTable() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(contains(ROW_ESTIMATE), eq(Long.class))).thenReturn(2_000_000L);
+
+        new CashFlowIndexMigration(jdbcTemplate, mock(EntityManagerFactory.class), 1_000_000).migrate();
+
+        // Menguji indeks lama dihapus dan BRIN dipasang
+        verify(jdbcTemplate).execute("DROP INDEX IF EXISTS idx_cash_flows_user_created");
+        verify(jdbcTemplate).execute(CREATE_BRIN);
+    }
+
+    @Test
+    @DisplayName("Migrasi indeks tidak memasang BRIN pada tabel kecil")
+    void testMigrateSmallTable() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(contains(ROW_ESTIMATE), eq(Long.class))).thenReturn(10L);
+
+        CashFlowIndexMigration migration = new CashFlowIndexMigration(jdbcTemplate,
+                mock(EntityManagerFactory.class), 1_000_000);
+        migration.migrate();
+
+        // Menguji hasil query null juga dianggap tabel kecil
+        when(jdbcTemplate.queryForObject(contains(ROW_ESTIMATE), eq(Long.class))).thenReturn(null);
+        migration.migrate();
+
+        verify(jdbcTemplate, never()).execute(CREATE_BRIN);
+    }
+}
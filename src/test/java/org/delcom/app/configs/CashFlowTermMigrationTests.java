@@ -0,0 +1,82 @@
+package org.delcom.app.configs;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import jakarta.persistence.EntityManagerFactory;
+
+public class CashFlowTermMigrationTests {
+
+    private static final String EXISTS = "WHERE table_name = 'cash_flows' AND column_name = ?";
+
+    @Test
+    @DisplayName("Migrasi kolom lama ke kamus CashFlowTerm")
+    void testMigrateLegacyColumns() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(contains(EXISTS), eq(Integer.class), anyString())).thenReturn(1);
+
+        CashFlowTermMigration migration = new CashFlowTermMigration(jdbcTemplate,
+                mock(PlatformTransactionManager.class), mock(EntityManagerFactory.class));
+        migration.migrate();
+
+        // Menguji isi kamus, pengisian id, dan penggantian nama kolom lama untuk ketiga kolom
+        verify(jdbcTemplate).queryForObject(contains("pg_advisory_xact_lock"), eq(Integer.class));
+        verify(jdbcTemplate).update(contains("INSERT INTO cash_flow_terms"), eq(0));
+        verify(jdbcTemplate).update(contains("INSERT INTO cash_flow_terms"), eq(1));
+        verify(jdbcTemplate).update(contains("SET label_id = t.id"), eq(2));
+        verify(jdbcTemplate).execute("ALTER TABLE cash_flows ALTER COLUMN type DROP NOT NULL");
+        verify(jdbcTemplate).execute("ALTER TABLE cash_flows RENAME COLUMN type TO type_legacy");
+        verify(jdbcTemplate).execute("ALTER TABLE cash_flows RENAME COLUMN source TO source_legacy");
+        verify(jdbcTemplate).execute("ALTER TABLE cash_flows RENAME COLUMN label TO label_legacy");
+        verify(jdbcTemplate).execute("ALTER TABLE cash_flows ALTER COLUMN type_id SET NOT NULL");
+        verify(jdbcTemplate, never()).execute(contains("DROP COLUMN"));
+    }
+
+    @Test
+    @DisplayName("Migrasi dibatalkan jika pengisian id belum lengkap")
+    void testMigratePartialBackfill() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(contains(EXISTS), eq(Integer.class), anyString())).thenReturn(1);
+        when(jdbcTemplate.queryForObject(contains("label_id IS NULL"), eq(Long.class))).thenReturn(3L);
+
+        CashFlowTermMigration migration = new CashFlowTermMigration(jdbcTemplate,
+                mock(PlatformTransactionManager.class), mock(EntityManagerFactory.class));
+        IllegalStateException e = assertThrows(IllegalStateException.class, migration::migrate);
+        assertTrue(e.getMessage().contains("3 baris"));
+
+        // Kolom yang sudah terverifikasi diganti nama, kolom label tidak disentuh
+        verify(jdbcTemplate).execute("ALTER TABLE cash_flows RENAME COLUMN source TO source_legacy");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE cash_flows RENAME COLUMN label TO label_legacy");
+    }
+
+    @Test
+    @DisplayName("Migrasi tidak mengubah skema yang sudah dimigrasi")
+    void testMigrateAlreadyMigrated() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(contains(EXISTS), eq(Integer.class), anyString())).thenReturn(0);
+
+        CashFlowTermMigration migration = new CashFlowTermMigration(jdbcTemplate,
+                mock(PlatformTransactionManager.class), mock(EntityManagerFactory.class));
+        migration.migrate();
+
+        // Menguji hasil query null juga dianggap kolom tidak ada
+        when(jdbcTemplate.queryForObject(contains(EXISTS), eq(Integer.class), anyString())).thenReturn(null);
+        migration.migrate();
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
@@ -0,0 +1,72 @@
+package org.delcom.app.configs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+public class ReplicaDataSourceConfigTests {
+
+    @Test
+    @DisplayName("Membuat routing DataSource dengan primary dan replica")
+    void testReplicaDataSources() {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl("jdbc:postgresql://localhost:5432/db_pbo_app");
+        properties.setUsername("postgres");
+        properties.setPassword("secret");
+
+        ReplicaDataSourceConfig config = new ReplicaDataSourceConfig();
+        ReplicaRoutingDataSource routing = config.replicaRoutingDataSource(properties,
+                new String[] { "jdbc:postgresql://localhost:5433/db_pbo_app",
+                        " jdbc:postgresql://localhost:5434/db_pbo_app" }, 2000, 1024, false);
+
+        // Menguji setiap replica terdaftar dan awalnya dianggap sehat
+        {
+            assertEquals(Map.of("primary", 0L, "replica-0", 0L, "replica-1", 0L), routing.getRoutedCounts());
+            assertTrue(routing.isReplicaHealthy(0));
+            assertTrue(routing.isReplicaHealthy(1));
+        }
+
+        // Menguji replica memakai kredensial primary dan koneksi read-only
+        {
+            HikariDataSource replica = (HikariDataSource) routing.getResolvedDataSources().get("replica-1");
+            assertEquals("jdbc:postgresql://localhost:5434/db_pbo_app", replica.getJdbcUrl());
+            assertEquals("postgres", replica.getUsername());
+            assertEquals("secret", replica.getPassword());
+            assertEquals("replica-1", replica.getPoolName());
+            assertTrue(replica.isReadOnly());
+
+            HikariDataSource primary = (HikariDataSource) routing.getResolvedDefaultDataSource();
+            assertEquals("jdbc:postgresql://localhost:5432/db_pbo_app", primary.getJdbcUrl());
+        }
+
+        // Menguji DataSource utama membungkus routing secara lazy
+        {
+            DataSource dataSource = config.dataSource(routing);
+            LazyConnectionDataSourceProxy proxy = assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+            assertSame(routing, proxy.getTargetDataSource());
+        }
+    }
+
+    @Test
+    @DisplayName("Menolak start jika open-in-view masih aktif")
+    void testOpenInViewRejected() {
+        ReplicaDataSourceConfig config = new ReplicaDataSourceConfig();
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> config.replicaRoutingDataSource(new DataSourceProperties(),
+                        new String[] { "jdbc:postgresql://localhost:5433/db_pbo_app" }, 2000, 1024, true));
+        assertTrue(e.getMessage().contains("spring.jpa.open-in-view=false"));
+    }
+}
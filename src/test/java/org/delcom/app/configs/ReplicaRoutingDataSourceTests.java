@@ -0,0 +1,255 @@
+package org.delcom.app.configs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class ReplicaRoutingDataSourceTests {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final UUID userId = UUID.randomUUID();
+
+    private DataSource primary;
+    private DataSource firstReplica;
+    private DataSource secondReplica;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        primary = mock(DataSource.class);
+        firstReplica = mock(DataSource.class);
+        secondReplica = mock(DataSource.class);
+        routing = new ReplicaRoutingDataSource(primary, List.of(firstReplica, secondReplica), 2000, 1024,
+                now::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.clearCurrentUser();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    @DisplayName("Routing transaksi read-only ke replica dengan read-your-writes")
+    void testRouting() throws Exception {
+        // Menguji request tanpa user selalu ke primary, termasuk read-only
+        {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+            assertEquals("primary", routing.determineCurrentLookupKey());
+        }
+
+        // Menguji read-only user bergantian ke replica
+        {
+            ReplicaRoutingDataSource.setCurrentUser(userId);
+            assertEquals(userId, ReplicaRoutingDataSource.getCurrentUser());
+            assertEquals("replica-0", routing.determineCurrentLookupKey());
+            assertEquals("replica-1", routing.determineCurrentLookupKey());
+
+            Connection connection = mock(Connection.class);
+            when(firstReplica.getConnection()).thenReturn(connection);
+            assertSame(connection, routing.getConnection());
+        }
+
+        // Menguji setelah menulis, bacaan user tetap ke primary selama jendela sticky
+        {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            assertEquals("primary", routing.determineCurrentLookupKey());
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+            now.addAndGet(1999);
+            assertEquals("primary", routing.determineCurrentLookupKey());
+            now.addAndGet(1);
+            assertEquals("replica-1", routing.determineCurrentLookupKey());
+        }
+
+        // Menguji jumlah transaksi per tujuan
+        {
+            assertEquals(Map.of("primary", 3L, "replica-0", 2L, "replica-1", 2L), routing.getRoutedCounts());
+        }
+    }
+
+    @Test
+    @DisplayName("Request yang membaca lalu menulis: tulisan tetap ke primary")
+    void testReadThenWriteInOneRequest() throws Exception {
+        Connection replicaConnection = mock(Connection.class);
+        Connection primaryConnection = mock(Connection.class);
+        when(firstReplica.getConnection()).thenReturn(replicaConnection);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replicaConnection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        when(primaryConnection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+
+        // Tanpa open-in-view setiap transaksi mengambil koneksinya sendiri dari routing
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        ReplicaRoutingDataSource.setCurrentUser(userId);
+        readOnly.executeWithoutResult(tx -> execute(dataSource, "SELECT 1"));
+        readWrite.executeWithoutResult(tx -> execute(dataSource, "INSERT 1"));
+
+        verify(replicaConnection).prepareStatement("SELECT 1");
+        verify(primaryConnection).prepareStatement("INSERT 1");
+        verify(replicaConnection, never()).prepareStatement("INSERT 1");
+    }
+
+    @Test
+    @DisplayName("Jendela sticky dihitung sejak commit transaksi tulis")
+    void testStickyAfterCommit() throws Exception {
+        Connection replicaConnection = mock(Connection.class);
+        Connection primaryConnection = mock(Connection.class);
+        when(firstReplica.getConnection()).thenReturn(replicaConnection);
+        when(secondReplica.getConnection()).thenReturn(replicaConnection);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replicaConnection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        when(primaryConnection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        ReplicaRoutingDataSource.setCurrentUser(userId);
+
+        // Menguji transaksi tulis yang di-rollback tidak membuat bacaan sticky ke primary
+        {
+            readWrite.executeWithoutResult(tx -> {
+                execute(dataSource, "INSERT 1");
+                tx.setRollbackOnly();
+            });
+            readOnly.executeWithoutResult(tx -> execute(dataSource, "SELECT 1"));
+            verify(replicaConnection).prepareStatement("SELECT 1");
+        }
+
+        // Menguji transaksi tulis yang lebih lama dari jendela sticky: bacaan sesudahnya tetap ke primary
+        {
+            readWrite.executeWithoutResult(tx -> {
+                execute(dataSource, "INSERT 2");
+                now.addAndGet(5000);
+            });
+            readOnly.executeWithoutResult(tx -> execute(dataSource, "SELECT 2"));
+            verify(primaryConnection).prepareStatement("SELECT 2");
+
+            now.addAndGet(2000);
+            readOnly.executeWithoutResult(tx -> execute(dataSource, "SELECT 3"));
+            verify(replicaConnection).prepareStatement("SELECT 3");
+        }
+    }
+
+    private static void execute(DataSource dataSource, String sql) {
+        try {
+            DataSourceUtils.getConnection(dataSource).prepareStatement(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("Tanpa replica semua transaksi ke primary")
+    void testNoReplicas() {
+        ReplicaRoutingDataSource primaryOnly = new ReplicaRoutingDataSource(primary, List.of(), 2000, 1024);
+        ReplicaRoutingDataSource.setCurrentUser(userId);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals("primary", primaryOnly.determineCurrentLookupKey());
+        assertEquals(Map.of("primary", 1L), primaryOnly.getRoutedCounts());
+    }
+
+    @Test
+    @DisplayName("Replica yang tertinggal atau gagal dihubungi tidak dipakai")
+    void testReplicaHealth() throws Exception {
+        mockLsnQuery(primary, "0/3000000");
+        ResultSet firstLag = mockLsnQuery(firstReplica, null);
+        when(firstLag.getLong(1)).thenReturn(4096L, 0L);
+        when(secondReplica.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        // Menguji replica pertama tertinggal dan replica kedua tidak dapat dihubungi
+        {
+            routing.refreshReplicaHealth();
+            assertFalse(routing.isReplicaHealthy(0));
+            assertFalse(routing.isReplicaHealthy(1));
+
+            ReplicaRoutingDataSource.setCurrentUser(userId);
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+            assertEquals("primary", routing.determineCurrentLookupKey());
+        }
+
+        // Menguji replica pertama kembali dipakai setelah menyusul
+        {
+            routing.refreshReplicaHealth();
+            assertTrue(routing.isReplicaHealthy(0));
+            assertFalse(routing.isReplicaHealthy(1));
+            assertEquals("replica-0", routing.determineCurrentLookupKey());
+            assertEquals("replica-0", routing.determineCurrentLookupKey());
+        }
+    }
+
+    @Test
+    @DisplayName("Pemeriksaan lag membersihkan sticky lama dan bertahan saat primary gagal")
+    void testRefreshWithPrimaryFailure() throws Exception {
+        UUID otherUserId = UUID.randomUUID();
+        ReplicaRoutingDataSource.setCurrentUser(userId);
+        routing.determineCurrentLookupKey();
+        now.addAndGet(1000);
+        ReplicaRoutingDataSource.setCurrentUser(otherUserId);
+        routing.determineCurrentLookupKey();
+        when(primary.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        // Menguji sticky user pertama sudah kedaluwarsa, user kedua masih berlaku
+        now.addAndGet(1000);
+        routing.refreshReplicaHealth();
+        now.addAndGet(-1000);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals("primary", routing.determineCurrentLookupKey());
+        ReplicaRoutingDataSource.setCurrentUser(userId);
+        assertEquals("replica-0", routing.determineCurrentLookupKey());
+
+        // Menguji status replica tidak berubah tanpa posisi WAL primary
+        assertTrue(routing.isReplicaHealthy(0));
+        assertTrue(routing.isReplicaHealthy(1));
+        verify(firstReplica, never()).getConnection();
+    }
+
+    // Query LSN yang mengembalikan satu baris; primaryLsn null untuk replica
+    private static ResultSet mockLsnQuery(DataSource dataSource, String primaryLsn) throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.getString(1)).thenReturn(primaryLsn);
+        return resultSet;
+    }
+}
@@ -1,21 +1,63 @@
 package org.delcom.app.controllers;
 
 import org.delcom.app.configs.AuthContext;
+import org.delcom.app.dto.CashFlowAnalytics;
+import org.delcom.app.dto.CashFlowBalanceAt;
+import org.delcom.app.dto.CashFlowBalanceSeries;
+import org.delcom.app.dto.CashFlowExportResult;
+import org.delcom.app.dto.CashFlowForecast;
+import org.delcom.app.dto.CashFlowImportResult;
+import org.delcom.app.dto.CashFlowLabelQuantiles;
+import org.delcom.app.dto.CashFlowMonthlyStatement;
+import org.delcom.app.dto.CashFlowNetFlow;
+import org.delcom.app.dto.CashFlowPage;
+import org.delcom.app.dto.CashFlowReceiptUploadStatus;
+import org.delcom.app.dto.CashFlowReconciliation;
+import org.delcom.app.dto.CashFlowSearchResult;
+import org.delcom.app.dto.CashFlowSummary;
 import org.delcom.app.entities.CashFlow;
+import org.delcom.app.entities.CashFlowReceipt;
+import org.delcom.app.entities.CashFlowReceiptUpload;
 import org.delcom.app.entities.User;
+import org.delcom.app.services.CashFlowAnalyticsService;
+import org.delcom.app.services.CashFlowAutocompleteService;
+import org.delcom.app.services.CashFlowBalanceService;
+import org.delcom.app.services.CashFlowExportService;
+import org.delcom.app.services.CashFlowForecastService;
+import org.delcom.app.services.CashFlowGroupCommitter;
+import org.delcom.app.services.CashFlowImportService;
+import org.delcom.app.services.CashFlowLabelSuggestionService;
+import org.delcom.app.services.CashFlowQuantileService;
+import org.delcom.app.services.CashFlowReceiptService;
+import org.delcom.app.services.CashFlowReconcileService;
+import org.delcom.app.services.CashFlowSearchService;
 import org.delcom.app.services.CashFlowService;
+import org.delcom.app.services.CashFlowStatementService;
+import org.delcom.app.services.IdempotencyService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -29,6 +71,34 @@ public class CashFlowControllerTests {
     @Mock
     private CashFlowService cashFlowService;
     @Mock
+    private CashFlowAnalyticsService cashFlowAnalyticsService;
+    @Mock
+    private CashFlowAutocompleteService cashFlowAutocompleteService;
+    @Mock
+    private CashFlowBalanceService cashFlowBalanceService;
+    @Mock
+    private CashFlowImportService cashFlowImportService;
+    @Mock
+    private CashFlowExportService cashFlowExportService;
+    @Mock
+    private CashFlowQuantileService cashFlowQuantileService;
+    @Mock
+    private CashFlowGroupCommitter cashFlowGroupCommitter;
+    @Mock
+    private CashFlowReconcileService cashFlowReconcileService;
+    @Mock
+    private CashFlowStatementService cashFlowStatementService;
+    @Mock
+    private CashFlowForecastService cashFlowForecastService;
+    @Mock
+    private CashFlowLabelSuggestionService cashFlowLabelSuggestionService;
+    @Mock
+    private CashFlowSearchService cashFlowSearchService;
+    @Mock
+    private CashFlowReceiptService cashFlowReceiptService;
+    @Mock
+    private IdempotencyService idempotencyService;
+    @Mock
     private AuthContext authContext;
 
     // Inject mocks into the controller instance
@@ -72,12 +142,69 @@ public class CashFlowControllerTests {
         List<CashFlow> flows = Arrays.asList(testFlow, new CashFlow(null, null, null, 0, null));
         when(cashFlowService.getAllCashFlows(eq(USER_ID), eq(null))).thenReturn(flows);
 
-        ResponseEntity<?> response = cashFlowController.getFlows();
+        ResponseEntity<?> response = cashFlowController.getFlows(null, null, null, null, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(flows, response.getBody());
         // Verifikasi service dipanggil dengan keyword null
         verify(cashFlowService).getAllCashFlows(eq(USER_ID), eq(null));
+        verify(cashFlowService, never()).getCashFlowPage(any(), any(), any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows: Sukses, Mengambil satu halaman aliran dana pengguna (200 OK)")
+    void getFlows_page() {
+        // Setup: Service mengembalikan halaman pertama beserta cursor halaman berikutnya
+        List<CashFlow> flows = Arrays.asList(testFlow, new CashFlow(null, null, null, 0, null));
+        CashFlowPage page = new CashFlowPage(flows, "cursor-2");
+        when(cashFlowService.getCashFlowPage(USER_ID, null, null, null, null, null, 50)).thenReturn(page);
+        when(cashFlowService.getCashFlowPage(USER_ID, null, null, "Outflow", null, null, 50)).thenReturn(page);
+
+        ResponseEntity<?> response = cashFlowController.getFlows(null, null, null, null, null, 50);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(page, response.getBody());
+        verify(cashFlowService).getCashFlowPage(USER_ID, null, null, null, null, null, 50);
+
+        // Filter tanpa limit memakai ukuran halaman default
+        response = cashFlowController.getFlows(null, null, "Outflow", null, null, null);
+        assertEquals(page, response.getBody());
+
+        // Parameter filter mana pun mengaktifkan mode halaman
+        LocalDate to = LocalDate.of(2025, 1, 31);
+        when(cashFlowService.getCashFlowPage(USER_ID, null, to, null, null, null, 50)).thenReturn(page);
+        when(cashFlowService.getCashFlowPage(USER_ID, null, null, null, "gaji", null, 50)).thenReturn(page);
+        assertEquals(page, cashFlowController.getFlows(null, to, null, null, null, null).getBody());
+        assertEquals(page, cashFlowController.getFlows(null, null, null, "gaji", null, null).getBody());
+        verify(cashFlowService, never()).getAllCashFlows(any(), any());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows: Filter dan cursor diteruskan ke service (200, 400)")
+    void getFlows_filtersAndValidation() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 1, 31);
+        CashFlowPage page = new CashFlowPage(List.of(testFlow), null);
+        when(cashFlowService.getCashFlowPage(USER_ID, from, to, "INCOME", "gaji", "cursor-2", 10)).thenReturn(page);
+
+        ResponseEntity<?> response = cashFlowController.getFlows(from, to, "INCOME", "gaji", "cursor-2", 10);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(page, response.getBody());
+
+        // Cursor yang tidak valid
+        when(cashFlowService.getCashFlowPage(USER_ID, null, null, null, null, "rusak", 10)).thenReturn(null);
+        response = cashFlowController.getFlows(null, null, null, null, "rusak", 10);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid cursor.", response.getBody());
+
+        // Rentang tanggal dan limit yang tidak valid tidak memanggil service
+        response = cashFlowController.getFlows(to, from, null, null, null, 10);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        response = cashFlowController.getFlows(null, null, null, null, null, 0);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        response = cashFlowController.getFlows(null, null, null, null, null, 201);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(cashFlowService, times(2)).getCashFlowPage(any(), any(), any(), any(), any(), any(), anyInt());
     }
 
     @Test
@@ -86,12 +213,13 @@ public class CashFlowControllerTests {
         // Setup: User tidak terautentikasi
         when(authContext.isAuthenticated()).thenReturn(false);
 
-        ResponseEntity<?> response = cashFlowController.getFlows();
+        ResponseEntity<?> response = cashFlowController.getFlows(null, null, null, null, null, null);
 
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("Unauthorized"));
         // Verifikasi service tidak dipanggil
         verify(cashFlowService, never()).getAllCashFlows(any(), any());
+        verify(cashFlowService, never()).getCashFlowPage(any(), any(), any(), any(), any(), any(), anyInt());
     }
 
     // =========================================================================
@@ -118,7 +246,7 @@ public class CashFlowControllerTests {
             eq("Beli Kopi")
         )).thenReturn(testFlow);
 
-        ResponseEntity<?> response = cashFlowController.createFlow(newFlowData);
+        ResponseEntity<?> response = cashFlowController.createFlow(newFlowData, null);
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertEquals(testFlow, response.getBody());
@@ -134,11 +262,62 @@ public class CashFlowControllerTests {
         );
     }
     
+    @Test
+    @DisplayName("POST /api/cashflows: Sukses melalui group commit (201 Created)")
+    void createFlow_groupCommit() {
+        CashFlow newFlowData = new CashFlow(null, null, null, 0, null);
+        newFlowData.setType("EXPENSE");
+        newFlowData.setAmount(50000.0);
+        newFlowData.setDescription("Beli Kopi");
+        when(cashFlowGroupCommitter.isEnabled()).thenReturn(true);
+        when(cashFlowGroupCommitter.createCashFlow(eq(USER_ID), eq("EXPENSE"), any(), any(), eq(50000),
+                eq("Beli Kopi"))).thenReturn(testFlow);
+
+        ResponseEntity<?> response = cashFlowController.createFlow(newFlowData, null);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(testFlow, response.getBody());
+        verify(cashFlowService, never()).createCashFlow(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("POST /api/cashflows: Label kosong diisi saran dari model label user")
+    void createFlow_suggestedLabel() {
+        CashFlow newFlowData = new CashFlow(null, null, null, 0, null);
+        newFlowData.setType("Outflow");
+        newFlowData.setAmount(25000.0);
+        newFlowData.setDescription("Nasi goreng");
+        when(cashFlowService.createCashFlow(any(), any(), any(), any(), any(), any())).thenReturn(testFlow);
+        when(cashFlowGroupCommitter.createCashFlow(any(), any(), any(), any(), anyInt(), any())).thenReturn(testFlow);
+
+        // Menguji label tanpa nilai memakai saran
+        when(cashFlowLabelSuggestionService.suggestLabel(USER_ID, "Nasi goreng")).thenReturn("makan");
+        assertEquals(HttpStatus.CREATED, cashFlowController.createFlow(newFlowData, null).getStatusCode());
+        verify(cashFlowService).createCashFlow(USER_ID, "Outflow", null, "makan", 25000, "Nasi goreng");
+
+        when(cashFlowGroupCommitter.isEnabled()).thenReturn(true);
+        cashFlowController.createFlow(newFlowData, null);
+        verify(cashFlowGroupCommitter).createCashFlow(USER_ID, "Outflow", null, "makan", 25000, "Nasi goreng");
+        when(cashFlowGroupCommitter.isEnabled()).thenReturn(false);
+
+        // Menguji label kosong dipertahankan jika tidak ada saran
+        when(cashFlowLabelSuggestionService.suggestLabel(USER_ID, "Nasi goreng")).thenReturn(null);
+        newFlowData.setLabel(" ");
+        cashFlowController.createFlow(newFlowData, null);
+        verify(cashFlowService).createCashFlow(USER_ID, "Outflow", null, " ", 25000, "Nasi goreng");
+
+        // Menguji label dari client tidak diganti
+        newFlowData.setLabel("jajan");
+        cashFlowController.createFlow(newFlowData, null);
+        verify(cashFlowService).createCashFlow(USER_ID, "Outflow", null, "jajan", 25000, "Nasi goreng");
+        verify(cashFlowLabelSuggestionService, times(3)).suggestLabel(any(), any());
+    }
+
     @Test
     @DisplayName("POST /api/cashflows: Gagal - Tidak Terautentikasi (401 Unauthorized)")
     void createFlow_unauthorized() {
         when(authContext.isAuthenticated()).thenReturn(false);
-        ResponseEntity<?> response = cashFlowController.createFlow(testFlow);
+        ResponseEntity<?> response = cashFlowController.createFlow(testFlow, null);
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
         // Verifikasi service tidak dipanggil
         verify(cashFlowService, never()).createCashFlow(any(), any(), any(), any(), any(), any());
@@ -152,7 +331,7 @@ public class CashFlowControllerTests {
         invalidFlow.setAmount(0.0); // Invalid amount: amount <= 0
         invalidFlow.setDescription("Gaji");
 
-        ResponseEntity<?> response = cashFlowController.createFlow(invalidFlow);
+        ResponseEntity<?> response = cashFlowController.createFlow(invalidFlow, null);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         // Verifikasi service tidak dipanggil
         verify(cashFlowService, never()).createCashFlow(any(), any(), any(), any(), any(), any());
@@ -166,7 +345,7 @@ public class CashFlowControllerTests {
         invalidFlow.setAmount(100.0);
         invalidFlow.setDescription("Gaji");
 
-        ResponseEntity<?> response = cashFlowController.createFlow(invalidFlow);
+        ResponseEntity<?> response = cashFlowController.createFlow(invalidFlow, null);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         // Verifikasi service tidak dipanggil
         verify(cashFlowService, never()).createCashFlow(any(), any(), any(), any(), any(), any());
@@ -180,7 +359,7 @@ public class CashFlowControllerTests {
         invalidFlow.setAmount(100.0);
         invalidFlow.setDescription(null); // Invalid description: null
 
-        ResponseEntity<?> response = cashFlowController.createFlow(invalidFlow);
+        ResponseEntity<?> response = cashFlowController.createFlow(invalidFlow, null);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         // Verifikasi service tidak dipanggil
         verify(cashFlowService, never()).createCashFlow(any(), any(), any(), any(), any(), any());
@@ -194,7 +373,7 @@ public class CashFlowControllerTests {
         invalidFlow.setAmount(100.0);
         invalidFlow.setDescription(""); // Invalid description: empty string
 
-        ResponseEntity<?> response = cashFlowController.createFlow(invalidFlow);
+        ResponseEntity<?> response = cashFlowController.createFlow(invalidFlow, null);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         // Verifikasi service tidak dipanggil
         verify(cashFlowService, never()).createCashFlow(any(), any(), any(), any(), any(), any());
@@ -211,10 +390,40 @@ public class CashFlowControllerTests {
         // Setup mock agar service mengembalikan null
         when(cashFlowService.createCashFlow(any(), any(), any(), any(), any(), any())).thenReturn(null);
 
-        ResponseEntity<?> response = cashFlowController.createFlow(newFlowData);
+        ResponseEntity<?> response = cashFlowController.createFlow(newFlowData, null);
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
+    @Test
+    @DisplayName("POST /api/cashflows: Idempotency-Key tidak valid, dipakai ulang, dan diproses")
+    void createFlow_idempotencyKey() {
+        CashFlow newFlowData = new CashFlow(null, null, null, 0, null);
+        newFlowData.setType("EXPENSE");
+        newFlowData.setAmount(50000.0);
+        newFlowData.setDescription("Beli Kopi");
+
+        // Menguji key kosong atau terlalu panjang ditolak
+        assertEquals(HttpStatus.BAD_REQUEST, cashFlowController.createFlow(newFlowData, "").getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, cashFlowController.createFlow(newFlowData,
+                "k".repeat(IdempotencyService.MAX_KEY_LENGTH + 1)).getStatusCode());
+
+        // Menguji key yang dipakai request lain (service mengembalikan null)
+        ResponseEntity<?> conflict = cashFlowController.createFlow(newFlowData, "key-1");
+        assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+        assertEquals("Idempotency-Key is already used by a different or unfinished request.", conflict.getBody());
+
+        // Menguji request pertama dijalankan lewat IdempotencyService dengan hash isi request
+        byte[] requestHash = IdempotencyService.hashRequest("cashflows", "EXPENSE", null, null, "50000",
+                "Beli Kopi");
+        when(idempotencyService.execute(eq(USER_ID), eq("key-2"), argThat(hash -> Arrays.equals(hash, requestHash)),
+                any())).thenAnswer(invocation -> invocation.<Supplier<ResponseEntity<?>>>getArgument(3).get());
+        when(cashFlowService.createCashFlow(any(), any(), any(), any(), any(), any())).thenReturn(testFlow);
+
+        ResponseEntity<?> response = cashFlowController.createFlow(newFlowData, "key-2");
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(testFlow, response.getBody());
+    }
+
     // =========================================================================
     //                            C. UPDATE (PUT) TESTS
     // =========================================================================
@@ -379,4 +588,608 @@ public class CashFlowControllerTests {
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("not found or access denied"));
     }
-}
\ No newline at end of file
+
+    // =========================================================================
+    //                            E. SUMMARY TESTS
+    // =========================================================================
+
+    @Test
+    @DisplayName("GET /api/cashflows/summary: Sukses, Mengambil ringkasan per grup (200 OK)")
+    void getSummary_success() {
+        List<CashFlowSummary> summary = List.of(new CashFlowSummary("2025-11-01", "INCOME", 100000, 1));
+        LocalDate from = LocalDate.of(2025, 11, 1);
+        LocalDate to = LocalDate.of(2025, 11, 30);
+        when(cashFlowService.getCashFlowSummary(USER_ID, "month", from, to)).thenReturn(summary);
+
+        ResponseEntity<?> response = cashFlowController.getSummary("month", from, to);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(summary, response.getBody());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows/summary: Gagal - Tidak Terautentikasi (401 Unauthorized)")
+    void getSummary_unauthorized() {
+        when(authContext.isAuthenticated()).thenReturn(false);
+
+        ResponseEntity<?> response = cashFlowController.getSummary("type", null, null);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(cashFlowService, never()).getCashFlowSummary(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows/summary: Gagal - Rentang tanggal atau groupBy tidak valid (400 Bad Request)")
+    void getSummary_invalidRequest() {
+        ResponseEntity<?> response = cashFlowController.getSummary("type", LocalDate.of(2025, 12, 1),
+                LocalDate.of(2025, 11, 1));
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+
+        // Hanya salah satu batas tanggal yang diisi tetap valid
+        cashFlowController.getSummary("type", LocalDate.of(2025, 12, 1), null);
+        cashFlowController.getSummary("type", null, LocalDate.of(2025, 12, 1));
+
+        when(cashFlowService.getCashFlowSummary(USER_ID, "year", null, null)).thenReturn(null);
+        response = cashFlowController.getSummary("year", null, null);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().toString().contains("Invalid groupBy"));
+    }
+
+    // =========================================================================
+    //                            F. ANALYTICS TESTS
+    // =========================================================================
+
+    @Test
+    @DisplayName("GET /api/cashflows/analytics: Sukses, Mengambil analitik in-memory (200 OK)")
+    void getAnalytics_success() {
+        CashFlowAnalytics analytics = new CashFlowAnalytics(List.of(), List.of(), List.of(), List.of());
+        LocalDate from = LocalDate.of(2025, 11, 1);
+        LocalDate to = LocalDate.of(2025, 11, 30);
+        when(cashFlowAnalyticsService.getAnalytics(USER_ID, from, to, "INCOME", 5)).thenReturn(analytics);
+
+        ResponseEntity<?> response = cashFlowController.getAnalytics(from, to, "INCOME", 5);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(analytics, response.getBody());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows/analytics: Gagal - Tidak Terautentikasi (401 Unauthorized)")
+    void getAnalytics_unauthorized() {
+        when(authContext.isAuthenticated()).thenReturn(false);
+
+        ResponseEntity<?> response = cashFlowController.getAnalytics(null, null, null, 10);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(cashFlowAnalyticsService, never()).getAnalytics(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows/analytics: Gagal - Rentang tanggal atau top tidak valid (400 Bad Request)")
+    void getAnalytics_invalidRequest() {
+        ResponseEntity<?> response = cashFlowController.getAnalytics(LocalDate.of(2025, 12, 1),
+                LocalDate.of(2025, 11, 1), null, 10);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+
+        // Hanya salah satu batas tanggal yang diisi tetap valid
+        cashFlowController.getAnalytics(LocalDate.of(2025, 12, 1), null, null, 10);
+        cashFlowController.getAnalytics(null, LocalDate.of(2025, 12, 1), null, 10);
+
+        response = cashFlowController.getAnalytics(null, null, null, 0);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        response = cashFlowController.getAnalytics(null, null, null, 101);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().toString().contains("Invalid top"));
+        verify(cashFlowAnalyticsService, times(2)).getAnalytics(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows/balance: Sukses, Mengambil deret saldo (200 OK)")
+    void getBalanceSeries_success() {
+        CashFlowBalanceSeries series = new CashFlowBalanceSeries(0, 0, List.of());
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 12, 31);
+        when(cashFlowAnalyticsService.getBalanceSeries(USER_ID, from, to, 300)).thenReturn(series);
+
+        ResponseEntity<?> response = cashFlowController.getBalanceSeries(from, to, 300);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(series, response.getBody());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows/balance: Gagal - Tidak terautentikasi atau parameter tidak valid")
+    void getBalanceSeries_invalidRequest() {
+        ResponseEntity<?> response = cashFlowController.getBalanceSeries(LocalDate.of(2025, 12, 1),
+                LocalDate.of(2025, 11, 1), 200);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+
+        // Hanya salah satu batas tanggal yang diisi tetap valid
+        cashFlowController.getBalanceSeries(LocalDate.of(2025, 12, 1), null, 200);
+        cashFlowController.getBalanceSeries(null, LocalDate.of(2025, 12, 1), 200);
+
+        response = cashFlowController.getBalanceSeries(null, null, 2);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        response = cashFlowController.getBalanceSeries(null, null, 2001);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().toString().contains("Invalid points"));
+        verify(cashFlowAnalyticsService, times(2)).getBalanceSeries(any(), any(), any(), anyInt());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = cashFlowController.getBalanceSeries(null, null, 200);
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows/balance/at: Sukses dan tidak terautentikasi")
+    void getBalanceAt() {
+        LocalDate date = LocalDate.of(2025, 6, 30);
+        CashFlowBalanceAt balance = new CashFlowBalanceAt(date, 150000);
+        when(cashFlowBalanceService.getBalanceAt(USER_ID, date)).thenReturn(balance);
+
+        ResponseEntity<?> response = cashFlowController.getBalanceAt(date);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(balance, response.getBody());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = cashFlowController.getBalanceAt(date);
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows/net-flow: Sukses, rentang tidak valid, dan tidak terautentikasi")
+    void getNetFlow() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 6, 30);
+        CashFlowNetFlow netFlow = new CashFlowNetFlow(from, to, -25000);
+        when(cashFlowBalanceService.getNetFlow(USER_ID, from, to)).thenReturn(netFlow);
+
+        ResponseEntity<?> response = cashFlowController.getNetFlow(from, to);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(netFlow, response.getBody());
+
+        response = cashFlowController.getNetFlow(to, from);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(cashFlowBalanceService, times(1)).getNetFlow(any(), any(), any());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = cashFlowController.getNetFlow(from, to);
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    // =========================================================================
+    //                            G. LABEL TESTS
+    // =========================================================================
+
+    @Test
+    @DisplayName("GET /api/cashflows/labels: Sukses, Mengambil daftar label (200 OK)")
+    void getLabels_success() {
+        when(cashFlowService.getCashFlowLabels(USER_ID)).thenReturn(List.of("gaji", "makan"));
+
+        ResponseEntity<?> response = cashFlowController.getLabels();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of("gaji", "makan"), response.getBody());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = cashFlowController.getLabels();
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows/quantiles: Sukses, label tidak ditemukan, dan tidak terautentikasi")
+    void getLabelQuantiles() {
+        CashFlowLabelQuantiles quantiles = new CashFlowLabelQuantiles("makan", 120, 5000, 25000, 60000,
+                150000, 300000, 0.0133, 0.97, true);
+        when(cashFlowQuantileService.getQuantiles(USER_ID, "makan", 200000L)).thenReturn(quantiles);
+
+        ResponseEntity<?> response = cashFlowController.getLabelQuantiles("makan", 200000L);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(quantiles, response.getBody());
+
+        response = cashFlowController.getLabelQuantiles("tidak-ada", null);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = cashFlowController.getLabelQuantiles("makan", null);
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("PUT /api/cashflows/labels: Rename label (204, 400, 401, 404)")
+    void renameLabel() {
+        when(cashFlowService.renameLabel(USER_ID, "makan", "konsumsi")).thenReturn(true);
+        ResponseEntity<?> response = cashFlowController.renameLabel("makan", "konsumsi");
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+
+        response = cashFlowController.renameLabel("tidak-ada", "konsumsi");
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+
+        response = cashFlowController.renameLabel("makan", "  ");
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = cashFlowController.renameLabel("makan", "konsumsi");
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(cashFlowService, times(2)).renameLabel(any(), any(), any());
+    }
+
+    // =========================================================================
+    //                            H. SUGGESTION TESTS
+    // =========================================================================
+
+    @Test
+    @DisplayName("GET /api/cashflows/search: Pencarian dengan facet (200, 400, 401)")
+    void searchFlows() throws IOException {
+        CashFlowSearchResult result = new CashFlowSearchResult("nasi", 1,
+                List.of(new CashFlowSearchResult.Hit(testFlow, 1.5)),
+                List.of(new CashFlowSearchResult.Facet("makan", 1)), List.of(), List.of(), false, 0);
+        when(cashFlowSearchService.search(USER_ID, "nasi", 20)).thenReturn(result);
+        ResponseEntity<?> response = cashFlowController.searchFlows(" nasi ", 20);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(result, response.getBody());
+
+        // Menguji validasi query dan limit
+        response = cashFlowController.searchFlows(" ", 20);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Query is required.", response.getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, cashFlowController.searchFlows("nasi", -1).getStatusCode());
+        response = cashFlowController.searchFlows("nasi", 101);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().toString().contains("Invalid limit"));
+        verify(cashFlowSearchService, times(1)).search(any(), any(), anyInt());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = cashFlowController.searchFlows("nasi", 20);
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows/suggestions: Autocomplete label/source (200, 400, 401)")
+    void getSuggestions() {
+        when(cashFlowAutocompleteService.suggest(USER_ID, "label", "ma", 5)).thenReturn(List.of("makan"));
+        ResponseEntity<?> response = cashFlowController.getSuggestions("label", "ma", 5);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of("makan"), response.getBody());
+
+        when(cashFlowAutocompleteService.suggest(USER_ID, "type", "", 5)).thenReturn(null);
+        response = cashFlowController.getSuggestions("type", "", 5);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().toString().contains("Invalid field"));
+
+        response = cashFlowController.getSuggestions("label", "", 0);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        response = cashFlowController.getSuggestions("label", "", 51);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = cashFlowController.getSuggestions("label", "ma", 5);
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(cashFlowAutocompleteService, times(2)).suggest(any(), any(), any(), anyInt());
+    }
+
+    // =========================================================================
+    //                            I. IMPORT TESTS
+    // =========================================================================
+
+    @Test
+    @DisplayName("POST /api/cashflows/import: Import massal CSV/JSON-lines (200, 400, 401)")
+    void importFlows() throws IOException {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        CashFlowImportResult result = new CashFlowImportResult(2, 1,
+                List.of(new CashFlowImportResult.RowError(3, "Malformed CSV line.")), false, 5, 400);
+        when(cashFlowImportService.importCashFlows(USER_ID, "csv", body)).thenReturn(result);
+        ResponseEntity<?> response = cashFlowController.importFlows("csv", body);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(result, response.getBody());
+
+        when(cashFlowImportService.importCashFlows(USER_ID, "xml", body)).thenReturn(null);
+        response = cashFlowController.importFlows("xml", body);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().toString().contains("Invalid import format"));
+
+        when(cashFlowImportService.importCashFlows(USER_ID, "jsonl", body)).thenThrow(new IOException("reset"));
+        response = cashFlowController.importFlows("jsonl", body);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Failed to read import data.", response.getBody());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = cashFlowController.importFlows("csv", body);
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(cashFlowImportService, times(3)).importCashFlows(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("POST /api/cashflows/reconcile: Rekonsiliasi rekening koran (200, 400, 401)")
+    void reconcileStatement() throws IOException {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        CashFlowReconciliation result = new CashFlowReconciliation(List.of(), List.of(), List.of(), List.of(),
+                false, 3);
+        when(cashFlowReconcileService.reconcile(USER_ID, body)).thenReturn(result);
+        ResponseEntity<?> response = cashFlowController.reconcileStatement(body);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(result, response.getBody());
+
+        when(cashFlowReconcileService.reconcile(USER_ID, body)).thenReturn(null);
+        response = cashFlowController.reconcileStatement(body);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().toString().contains("Invalid statement"));
+
+        when(cashFlowReconcileService.reconcile(USER_ID, body)).thenThrow(new IOException("reset"));
+        response = cashFlowController.reconcileStatement(body);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Failed to read statement data.", response.getBody());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = cashFlowController.reconcileStatement(body);
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(cashFlowReconcileService, times(3)).reconcile(any(), any());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows/statements/{month}: Laporan bulanan (200, 404, 401)")
+    void getMonthlyStatement() {
+        LocalDate november = LocalDate.of(2025, 11, 1);
+        CashFlowMonthlyStatement statement = new CashFlowMonthlyStatement(november, 100, 50, 20, 130, 2,
+                List.of(), List.of(), List.of(), LocalDateTime.of(2025, 12, 1, 1, 0));
+        when(cashFlowStatementService.getStatement(USER_ID, november)).thenReturn(statement);
+        ResponseEntity<?> response = cashFlowController.getMonthlyStatement(YearMonth.of(2025, 11));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(statement, response.getBody());
+
+        response = cashFlowController.getMonthlyStatement(YearMonth.of(2025, 10));
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("Statement not found.", response.getBody());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = cashFlowController.getMonthlyStatement(YearMonth.of(2025, 11));
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows/forecast: Proyeksi saldo (200, 400, 401)")
+    void getForecast() {
+        CashFlowForecast forecast = new CashFlowForecast(1000, 12, 10000, false,
+                List.of(new CashFlowForecast.Month(LocalDate.of(2025, 12, 1), 500, 800, 1000, 1200, 1500)));
+        when(cashFlowForecastService.getMaxMonths()).thenReturn(24);
+        when(cashFlowForecastService.getForecast(USER_ID, 1)).thenReturn(forecast);
+        ResponseEntity<?> response = cashFlowController.getForecast(1);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(forecast, response.getBody());
+
+        // Menguji batas jumlah bulan
+        response = cashFlowController.getForecast(0);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid months. Must be between 1 and 24.", response.getBody());
+        response = cashFlowController.getForecast(25);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(cashFlowForecastService, times(1)).getForecast(any(), anyInt());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = cashFlowController.getForecast(1);
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    // =========================================================================
+    //                            J. EXPORT TESTS
+    // =========================================================================
+
+    @Test
+    @DisplayName("GET /api/cashflows/export: Export streaming ke response (200, 400, 401)")
+    void exportFlows_response() throws IOException {
+        LocalDate from = LocalDate.of(2025, 11, 1);
+        LocalDate to = LocalDate.of(2025, 11, 30);
+        when(cashFlowExportService.isSupportedFormat("csv")).thenReturn(true);
+        when(cashFlowExportService.isSupportedFormat("columnar")).thenReturn(true);
+
+        // Menguji body streaming memanggil service dengan filter yang sama
+        ResponseEntity<?> response = cashFlowController.exportFlows("csv", from, to, "makan", true, "response");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("attachment; filename=\"cashflows.csv.gz\"",
+                response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        assertEquals("application/gzip", response.getHeaders().getContentType().toString());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+        verify(cashFlowExportService).export(USER_ID, "csv", from, to, "makan", true, out);
+
+        response = cashFlowController.exportFlows("csv", null, null, null, false, "response");
+        assertEquals("text/csv", response.getHeaders().getContentType().toString());
+        response = cashFlowController.exportFlows("columnar", null, null, null, false, "response");
+        assertEquals("application/octet-stream", response.getHeaders().getContentType().toString());
+
+        // Menguji validasi parameter
+        response = cashFlowController.exportFlows("xlsx", null, null, null, false, "response");
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().toString().contains("Invalid export format"));
+        response = cashFlowController.exportFlows("csv", to, from, null, false, "response");
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        response = cashFlowController.exportFlows("csv", from, null, null, false, "s3");
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().toString().contains("Invalid destination"));
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = cashFlowController.exportFlows("csv", null, null, null, false, "response");
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows/export?destination=file: Export ke file (201, 500)")
+    void exportFlows_file() throws IOException {
+        CashFlowExportResult result = new CashFlowExportResult(UUID.randomUUID().toString(), "csv", 2, 100, 1, 2000);
+        when(cashFlowExportService.isSupportedFormat("csv")).thenReturn(true);
+        when(cashFlowExportService.exportToFile(USER_ID, "csv", null, null, null, false)).thenReturn(result);
+
+        ResponseEntity<?> response = cashFlowController.exportFlows("csv", null, null, null, false, "file");
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(result, response.getBody());
+
+        when(cashFlowExportService.exportToFile(USER_ID, "csv", null, null, null, true))
+                .thenThrow(new IOException("disk full"));
+        response = cashFlowController.exportFlows("csv", null, null, null, true, "file");
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals("Failed to export cash flows.", response.getBody());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows/exports/{id}: Mengunduh file export (200, 404, 401)")
+    void downloadExport() throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path file = Path.of("exports", id + ".cfc.gz");
+        when(cashFlowExportService.findExportFile(USER_ID, id)).thenReturn(file);
+
+        ResponseEntity<?> response = cashFlowController.downloadExport(id);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("attachment; filename=\"cashflows.cfc.gz\"",
+                response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        assertEquals(file, ((FileSystemResource) response.getBody()).getFile().toPath());
+
+        response = cashFlowController.downloadExport("tidak-ada");
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = cashFlowController.downloadExport(id);
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    // =========================================================================
+    //                            K. RECEIPT TESTS
+    // =========================================================================
+
+    @Test
+    @DisplayName("POST /api/cashflows/{id}/receipts/uploads: Memulai upload bukti (201, 400, 404, 500, 401)")
+    void initiateReceiptUpload() throws IOException {
+        CashFlowReceiptUploadStatus status = new CashFlowReceiptUploadStatus(UUID.randomUUID(), FLOW_ID, "struk.jpg",
+                10, 4, 3, List.of(0, 1, 2));
+        when(cashFlowReceiptService.isSupportedContentType("image/jpeg")).thenReturn(true);
+        when(cashFlowReceiptService.getMaxBytes()).thenReturn(100L);
+        when(cashFlowReceiptService.initiateUpload(USER_ID, FLOW_ID, "struk.jpg", "image/jpeg", 10)).thenReturn(status);
+        ResponseEntity<?> response = cashFlowController.initiateReceiptUpload(FLOW_ID, "struk.jpg", "image/jpeg", 10);
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(status, response.getBody());
+
+        // Menguji validasi nama file, content type, dan ukuran
+        response = cashFlowController.initiateReceiptUpload(FLOW_ID, " ", "image/jpeg", 10);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("File name is required.", response.getBody());
+        response = cashFlowController.initiateReceiptUpload(FLOW_ID, "a.exe", "application/x-msdownload", 10);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().toString().contains("Invalid content type"));
+        assertEquals(HttpStatus.BAD_REQUEST,
+                cashFlowController.initiateReceiptUpload(FLOW_ID, "a.jpg", "image/jpeg", 0).getStatusCode());
+        response = cashFlowController.initiateReceiptUpload(FLOW_ID, "a.jpg", "image/jpeg", 101);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid size. Must be between 1 and 100 bytes.", response.getBody());
+
+        // Menguji cash flow tidak ditemukan dan kegagalan membuat file
+        response = cashFlowController.initiateReceiptUpload(FLOW_ID, "a.jpg", "image/jpeg", 20);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        when(cashFlowReceiptService.initiateUpload(USER_ID, FLOW_ID, "a.jpg", "image/jpeg", 30))
+                .thenThrow(new IOException("disk full"));
+        response = cashFlowController.initiateReceiptUpload(FLOW_ID, "a.jpg", "image/jpeg", 30);
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = cashFlowController.initiateReceiptUpload(FLOW_ID, "struk.jpg", "image/jpeg", 10);
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("GET/PUT /api/cashflows/receipts/uploads/{uploadId}: Status dan chunk upload (200, 400, 404, 500, 401)")
+    void uploadReceiptChunk() throws IOException {
+        UUID uploadId = UUID.randomUUID();
+        CashFlowReceiptUpload upload = new CashFlowReceiptUpload(uploadId, USER_ID, FLOW_ID, "struk.jpg", "image/jpeg",
+                10, 4, LocalDateTime.now());
+        CashFlowReceiptUploadStatus status = new CashFlowReceiptUploadStatus(uploadId, FLOW_ID, "struk.jpg", 10, 4, 3,
+                List.of(1, 2));
+        InputStream body = new ByteArrayInputStream(new byte[4]);
+        when(cashFlowReceiptService.findUpload(USER_ID, uploadId)).thenReturn(upload);
+        when(cashFlowReceiptService.getStatus(upload)).thenReturn(status);
+        when(cashFlowReceiptService.writeChunk(upload, 0, body)).thenReturn(status);
+
+        ResponseEntity<?> response = cashFlowController.getReceiptUpload(uploadId);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(status, response.getBody());
+        response = cashFlowController.uploadReceiptChunk(uploadId, 0, body);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(status, response.getBody());
+
+        // Menguji nomor dan panjang chunk yang tidak valid
+        response = cashFlowController.uploadReceiptChunk(uploadId, 3, body);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid chunk index. Must be between 0 and 2.", response.getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, cashFlowController.uploadReceiptChunk(uploadId, -1, body).getStatusCode());
+        response = cashFlowController.uploadReceiptChunk(uploadId, 2, body);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid chunk size. Chunk 2 must be 2 bytes.", response.getBody());
+        when(cashFlowReceiptService.writeChunk(upload, 1, body)).thenThrow(new IOException("reset"));
+        response = cashFlowController.uploadReceiptChunk(uploadId, 1, body);
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+
+        // Menguji upload yang tidak ditemukan
+        UUID unknownId = UUID.randomUUID();
+        assertEquals(HttpStatus.NOT_FOUND, cashFlowController.getReceiptUpload(unknownId).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, cashFlowController.uploadReceiptChunk(unknownId, 0, body).getStatusCode());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        assertEquals(HttpStatus.UNAUTHORIZED, cashFlowController.getReceiptUpload(uploadId).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, cashFlowController.uploadReceiptChunk(uploadId, 0, body).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("POST /api/cashflows/receipts/uploads/{uploadId}/complete: Menyelesaikan upload (201, 404, 409, 500, 401)")
+    void completeReceiptUpload() throws IOException {
+        UUID uploadId = UUID.randomUUID();
+        CashFlowReceiptUpload upload = new CashFlowReceiptUpload(uploadId, USER_ID, FLOW_ID, "struk.jpg", "image/jpeg",
+                10, 4, LocalDateTime.now());
+        CashFlowReceipt receipt = new CashFlowReceipt(USER_ID, FLOW_ID, "ab".repeat(32), "struk.jpg", "image/jpeg", 10,
+                LocalDateTime.now());
+        when(cashFlowReceiptService.findUpload(USER_ID, uploadId)).thenReturn(upload);
+
+        // Menguji upload yang belum lengkap
+        upload.markReceived(0, LocalDateTime.now());
+        ResponseEntity<?> response = cashFlowController.completeReceiptUpload(uploadId);
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("Upload is incomplete. 2 chunk(s) missing.", response.getBody());
+
+        upload.markReceived(1, LocalDateTime.now());
+        upload.markReceived(2, LocalDateTime.now());
+        when(cashFlowReceiptService.completeUpload(upload)).thenReturn(receipt, (CashFlowReceipt) null)
+                .thenThrow(new IOException("disk full"));
+        response = cashFlowController.completeReceiptUpload(uploadId);
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(receipt, response.getBody());
+        assertEquals(HttpStatus.NOT_FOUND, cashFlowController.completeReceiptUpload(uploadId).getStatusCode());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, cashFlowController.completeReceiptUpload(uploadId).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, cashFlowController.completeReceiptUpload(UUID.randomUUID()).getStatusCode());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        assertEquals(HttpStatus.UNAUTHORIZED, cashFlowController.completeReceiptUpload(uploadId).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("GET /api/cashflows/{id}/receipts dan /receipts/{receiptId}: Daftar dan unduh bukti (200, 404, 401)")
+    void getAndDownloadReceipts() {
+        CashFlowReceipt receipt = new CashFlowReceipt(USER_ID, FLOW_ID, "ab".repeat(32), "struk.pdf", "application/pdf",
+                10, LocalDateTime.now());
+        receipt.setId(UUID.randomUUID());
+        Path file = Path.of("receipts", receipt.getSha256());
+        when(cashFlowReceiptService.findReceipts(USER_ID, FLOW_ID)).thenReturn(List.of(receipt));
+        when(cashFlowReceiptService.findReceipt(USER_ID, receipt.getId())).thenReturn(receipt);
+        when(cashFlowReceiptService.getReceiptFile(receipt)).thenReturn(file);
+
+        ResponseEntity<?> response = cashFlowController.getReceipts(FLOW_ID);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(receipt), response.getBody());
+
+        response = cashFlowController.downloadReceipt(receipt.getId());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("inline; filename=\"struk.pdf\"", response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        assertEquals("application/pdf", response.getHeaders().getContentType().toString());
+        assertEquals(file, ((FileSystemResource) response.getBody()).getFile().toPath());
+        assertEquals(HttpStatus.NOT_FOUND, cashFlowController.downloadReceipt(UUID.randomUUID()).getStatusCode());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        assertEquals(HttpStatus.UNAUTHORIZED, cashFlowController.getReceipts(FLOW_ID).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, cashFlowController.downloadReceipt(receipt.getId()).getStatusCode());
+    }
+}
@@ -0,0 +1,62 @@
+package org.delcom.app.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.configs.ApiResponse;
+import org.delcom.app.configs.AuthContext;
+import org.delcom.app.dto.DashboardSummary;
+import org.delcom.app.dto.TodoProgress;
+import org.delcom.app.entities.User;
+import org.delcom.app.services.DashboardService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+public class DashboardControllerTests {
+    @Mock
+    private DashboardService dashboardService;
+    @Mock
+    private AuthContext authContext;
+
+    @InjectMocks
+    private DashboardController dashboardController;
+
+    private final User testUser = new User("Test User", "test@example.com", "hashedpassword");
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        testUser.setId(UUID.randomUUID());
+        when(authContext.isAuthenticated()).thenReturn(true);
+        when(authContext.getAuthUser()).thenReturn(testUser);
+    }
+
+    @Test
+    @DisplayName("GET /api/dashboard: Ringkasan halaman utama dalam satu request (200, 401)")
+    void getDashboard() {
+        DashboardSummary summary = new DashboardSummary(testUser, new TodoProgress(2, 1), List.of(), List.of(),
+                List.of("makan"), List.of(), 12);
+        when(dashboardService.getDashboard(testUser)).thenReturn(summary);
+        ResponseEntity<ApiResponse<DashboardSummary>> response = dashboardController.getDashboard();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("success", response.getBody().getStatus());
+        assertEquals(summary, response.getBody().getData());
+        // Password tidak ikut dikirim
+        assertNull(testUser.getPassword());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = dashboardController.getDashboard();
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        assertEquals("fail", response.getBody().getStatus());
+    }
+}
@@ -0,0 +1,72 @@
+package org.delcom.app.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.configs.AuthContext;
+import org.delcom.app.dto.UnifiedSearchResult;
+import org.delcom.app.entities.User;
+import org.delcom.app.services.UnifiedSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+public class SearchControllerTests {
+    @Mock
+    private UnifiedSearchService unifiedSearchService;
+    @Mock
+    private AuthContext authContext;
+
+    @InjectMocks
+    private SearchController searchController;
+
+    private final UUID USER_ID = UUID.randomUUID();
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        User testUser = new User("Test User", "test@example.com", "hashedpassword");
+        testUser.setId(USER_ID);
+        when(authContext.isAuthenticated()).thenReturn(true);
+        when(authContext.getAuthUser()).thenReturn(testUser);
+    }
+
+    @Test
+    @DisplayName("GET /api/search: Pencarian gabungan todo dan cash flow (200, 400, 401)")
+    void search() {
+        UnifiedSearchResult result = new UnifiedSearchResult("nasi", 1, 0,
+                List.of(new UnifiedSearchResult.Hit(UnifiedSearchService.SOURCE_TODOS, UUID.randomUUID(), 1.0, null)),
+                List.of(UnifiedSearchService.SOURCE_CASH_FLOWS), 500);
+        when(unifiedSearchService.search(USER_ID, "nasi", 20)).thenReturn(result);
+        ResponseEntity<?> response = searchController.search(" nasi ", 20);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(result, response.getBody());
+
+        // Menguji validasi query dan limit
+        response = searchController.search(" ", 20);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Query is required.", response.getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, searchController.search("nasi", 0).getStatusCode());
+        response = searchController.search("nasi", 51);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().toString().contains("Invalid limit"));
+        verify(unifiedSearchService, times(1)).search(any(), any(), anyInt());
+
+        when(authContext.isAuthenticated()).thenReturn(false);
+        response = searchController.search("nasi", 20);
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+    }
+}
@@ -6,11 +6,14 @@ import static org.mockito.Mockito.when;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import org.delcom.app.configs.ApiResponse;
 import org.delcom.app.configs.AuthContext;
+import org.delcom.app.dto.TodoProgress;
 import org.delcom.app.entities.Todo;
 import org.delcom.app.entities.User;
+import org.delcom.app.services.IdempotencyService;
 import org.delcom.app.services.TodoService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -35,10 +38,12 @@ public class TodoControllerTests {
         TodoService todoService = Mockito.mock(TodoService.class);
 
         // Atur perilaku mock
-        when(todoService.createTodo(any(UUID.class), any(String.class), any(String.class))).thenReturn(todo);
+        when(todoService.createTodo(any(UUID.class), any(String.class), any(String.class), any())).thenReturn(todo);
+
+        IdempotencyService idempotencyService = Mockito.mock(IdempotencyService.class);
 
         // Membuat instance controller
-        TodoController todoController = new TodoController(todoService);
+        TodoController todoController = new TodoController(todoService, idempotencyService);
         assert (todoController != null);
 
         todoController.authContext = new AuthContext();
@@ -59,12 +64,12 @@ public class TodoControllerTests {
                         // Description Kosong
                         new Todo(userId, "Judul valid", "", false));
 
-                ResponseEntity<ApiResponse<Map<String, UUID>>> result;
+                ResponseEntity<?> result;
                 for (Todo itemTodo : invalidTodos) {
-                    result = todoController.createTodo(itemTodo);
+                    result = todoController.createTodo(itemTodo, null);
                     assert (result != null);
                     assert (result.getStatusCode().is4xxClientError());
-                    assert (result.getBody().getStatus().equals("fail"));
+                    assert (((ApiResponse<?>) result.getBody()).getStatus().equals("fail"));
                 }
             }
 
@@ -72,18 +77,51 @@ public class TodoControllerTests {
             {
                 todoController.authContext.setAuthUser(null);
 
-                var result = todoController.createTodo(todo);
+                var result = todoController.createTodo(todo, null);
                 assert (result != null);
                 assert (result.getStatusCode().is4xxClientError());
-                assert (result.getBody().getStatus().equals("fail"));
+                assert (((ApiResponse<?>) result.getBody()).getStatus().equals("fail"));
             }
 
             // Berhasil menambahkan todo
             {
                 todoController.authContext.setAuthUser(authUser);
-                var result = todoController.createTodo(todo);
+                var result = todoController.createTodo(todo, null);
                 assert (result != null);
-                assert (result.getBody().getStatus().equals("success"));
+                assert (((ApiResponse<?>) result.getBody()).getStatus().equals("success"));
+            }
+
+            // Parent todo tidak ditemukan
+            {
+                Todo subtask = new Todo(userId, "Subtask", "Deskripsi subtask", false);
+                subtask.setParentId(nonexistentTodoId);
+                when(todoService.createTodo(any(UUID.class), any(String.class), any(String.class),
+                        Mockito.eq(nonexistentTodoId))).thenReturn(null);
+
+                var result = todoController.createTodo(subtask, null);
+                assert (result != null);
+                assert (result.getStatusCode().value() == 404);
+                assert (((ApiResponse<?>) result.getBody()).getStatus().equals("fail"));
+            }
+
+            // Menambahkan todo dengan Idempotency-Key
+            {
+                String longKey = "k".repeat(IdempotencyService.MAX_KEY_LENGTH + 1);
+                assert (todoController.createTodo(todo, " ").getStatusCode().value() == 400);
+                assert (todoController.createTodo(todo, longKey).getStatusCode().value() == 400);
+
+                // Request pertama diproses lewat IdempotencyService
+                when(idempotencyService.execute(Mockito.eq(userId), Mockito.eq("key-1"), any(),
+                        any())).thenAnswer(invocation -> invocation.<Supplier<ResponseEntity<?>>>getArgument(3).get());
+                var result = todoController.createTodo(todo, "key-1");
+                assert (((ApiResponse<?>) result.getBody()).getStatus().equals("success"));
+
+                // Key yang dipakai request lain
+                Todo subtask = new Todo(userId, "Subtask", "Deskripsi subtask", false);
+                subtask.setParentId(todoId);
+                var conflict = todoController.createTodo(subtask, "key-2");
+                assert (conflict.getStatusCode().value() == 409);
+                assert (((ApiResponse<?>) conflict.getBody()).getStatus().equals("fail"));
             }
         }
 
@@ -238,4 +276,96 @@ public class TodoControllerTests {
             }
         }
     }
+
+    @Test
+    @DisplayName("Pengujian subtask pada controller Todo")
+    void testTodoControllerSubtasks() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID todoId = UUID.randomUUID();
+        UUID childId = UUID.randomUUID();
+        UUID nonexistentTodoId = UUID.randomUUID();
+
+        Todo child = new Todo(userId, "Subtask", "Deskripsi subtask", false);
+        child.setId(childId);
+        child.setParentId(todoId);
+
+        TodoService todoService = Mockito.mock(TodoService.class);
+        when(todoService.getSubtasks(userId, todoId)).thenReturn(List.of(child));
+        when(todoService.getSubtasks(userId, nonexistentTodoId)).thenReturn(null);
+        when(todoService.getProgress(userId, todoId)).thenReturn(new TodoProgress(1, 0));
+        when(todoService.getProgress(userId, nonexistentTodoId)).thenReturn(null);
+        when(todoService.isInSubtree(todoId, childId)).thenReturn(true);
+        when(todoService.moveTodo(userId, childId, null)).thenReturn(child);
+        when(todoService.moveTodo(userId, nonexistentTodoId, todoId)).thenReturn(null);
+
+        TodoController todoController = new TodoController(todoService, Mockito.mock(IdempotencyService.class));
+        todoController.authContext = new AuthContext();
+        User authUser = new User("Test User", "testuser@example.com");
+        authUser.setId(userId);
+
+        // Tidak terautentikasi
+        {
+            assert (todoController.getSubtasks(todoId).getStatusCode().value() == 403);
+            assert (todoController.getProgress(todoId).getStatusCode().value() == 403);
+            assert (todoController.moveTodo(childId, new Todo()).getStatusCode().value() == 403);
+        }
+
+        todoController.authContext.setAuthUser(authUser);
+
+        // Menguji getSubtasks
+        {
+            var result = todoController.getSubtasks(todoId);
+            assert (result.getBody().getStatus().equals("success"));
+            assert (result.getBody().getData().get("todos").size() == 1);
+
+            result = todoController.getSubtasks(nonexistentTodoId);
+            assert (result.getStatusCode().value() == 404);
+        }
+
+        // Menguji getProgress
+        {
+            var result = todoController.getProgress(todoId);
+            assert (result.getBody().getStatus().equals("success"));
+            assert (result.getBody().getData().get("progress").total() == 1);
+
+            result = todoController.getProgress(nonexistentTodoId);
+            assert (result.getStatusCode().value() == 404);
+        }
+
+        // Menguji updateTodoStatus
+        {
+            var result = todoController.updateTodoStatus(todoId, new Todo(userId, null, null, null));
+            assert (result.getStatusCode().value() == 400);
+
+            when(todoService.updateTodoStatus(userId, todoId, true)).thenReturn(true);
+            result = todoController.updateTodoStatus(todoId, new Todo(userId, null, null, true));
+            assert (result.getBody().getStatus().equals("success"));
+
+            result = todoController.updateTodoStatus(nonexistentTodoId, new Todo(userId, null, null, true));
+            assert (result.getStatusCode().value() == 404);
+
+            todoController.authContext.setAuthUser(null);
+            result = todoController.updateTodoStatus(todoId, new Todo(userId, null, null, true));
+            assert (result.getStatusCode().value() == 403);
+            todoController.authContext.setAuthUser(authUser);
+        }
+
+        // Menguji moveTodo
+        {
+            // Memindahkan ke subtask sendiri tidak diizinkan
+            Todo reqTodo = new Todo();
+            reqTodo.setParentId(childId);
+            var result = todoController.moveTodo(todoId, reqTodo);
+            assert (result.getStatusCode().value() == 400);
+
+            // Memindahkan ke level teratas
+            result = todoController.moveTodo(childId, new Todo());
+            assert (result.getBody().getStatus().equals("success"));
+
+            // Todo tidak ditemukan
+            reqTodo.setParentId(todoId);
+            result = todoController.moveTodo(nonexistentTodoId, reqTodo);
+            assert (result.getStatusCode().value() == 404);
+        }
+    }
 }
\ No newline at end of file
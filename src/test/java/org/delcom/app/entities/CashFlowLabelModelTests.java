@@ -0,0 +1,35 @@
+package org.delcom.app.entities;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CashFlowLabelModelTests {
+    @Test
+    @DisplayName("Membuat instance dari kelas CashFlowLabelModel")
+    void testMembuatInstanceCashFlowLabelModel() throws Exception {
+        UUID userId = UUID.randomUUID();
+        byte[] model = { 1, 2, 3 };
+        LocalDateTime updatedAt = LocalDateTime.of(2025, 11, 2, 8, 0);
+
+        // CashFlowLabelModel dengan nilai
+        {
+            CashFlowLabelModel labelModel = new CashFlowLabelModel(userId, model, updatedAt);
+
+            assert (labelModel.getUserId().equals(userId));
+            assert (labelModel.getModel() == model);
+            assert (labelModel.getUpdatedAt().equals(updatedAt));
+        }
+
+        // CashFlowLabelModel dengan nilai default
+        {
+            CashFlowLabelModel labelModel = new CashFlowLabelModel();
+
+            assert (labelModel.getUserId() == null);
+            assert (labelModel.getModel() == null);
+            assert (labelModel.getUpdatedAt() == null);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.delcom.app.entities;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CashFlowLabelSketchTests {
+    @Test
+    @DisplayName("Membuat instance dari kelas CashFlowLabelSketch")
+    void testMembuatInstanceCashFlowLabelSketch() throws Exception {
+        UUID userId = UUID.randomUUID();
+        byte[] sketch = { 1, 2, 3 };
+        LocalDateTime updatedAt = LocalDateTime.of(2025, 11, 2, 8, 0);
+
+        // CashFlowLabelSketch dengan nilai
+        {
+            CashFlowLabelSketch labelSketch = new CashFlowLabelSketch(userId, "makan", sketch, updatedAt);
+
+            assert (labelSketch.getUserId().equals(userId));
+            assert (labelSketch.getLabel().equals("makan"));
+            assert (labelSketch.getSketch() == sketch);
+            assert (labelSketch.getUpdatedAt().equals(updatedAt));
+        }
+
+        // CashFlowLabelSketch dengan nilai default
+        {
+            CashFlowLabelSketch labelSketch = new CashFlowLabelSketch();
+
+            assert (labelSketch.getUserId() == null);
+            assert (labelSketch.getLabel() == null);
+            assert (labelSketch.getSketch() == null);
+        }
+
+        // Composite key
+        {
+            CashFlowLabelSketch.Key key = new CashFlowLabelSketch.Key(userId, "makan");
+
+            assert (key.equals(key));
+            assert (key.equals(new CashFlowLabelSketch.Key(userId, "makan")));
+            assert (key.hashCode() == new CashFlowLabelSketch.Key(userId, "makan").hashCode());
+            assert (!key.equals(new CashFlowLabelSketch.Key(UUID.randomUUID(), "makan")));
+            assert (!key.equals(new CashFlowLabelSketch.Key(userId, "minum")));
+            assert (!key.equals(new CashFlowLabelSketch.Key()));
+            assert (!key.equals("bukan key"));
+        }
+    }
+}
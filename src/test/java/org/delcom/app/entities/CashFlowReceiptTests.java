@@ -0,0 +1,44 @@
+package org.delcom.app.entities;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CashFlowReceiptTests {
+    @Test
+    @DisplayName("Membuat instance dari kelas CashFlowReceipt")
+    void testMembuatInstanceCashFlowReceipt() throws Exception {
+        UUID id = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        UUID cashFlowId = UUID.randomUUID();
+        String sha256 = "ab".repeat(32);
+        LocalDateTime createdAt = LocalDateTime.of(2025, 11, 2, 8, 0);
+
+        // CashFlowReceipt dengan nilai
+        {
+            CashFlowReceipt receipt = new CashFlowReceipt(userId, cashFlowId, sha256, "struk.jpg", "image/jpeg",
+                    2048, createdAt);
+            receipt.setId(id);
+
+            assert (receipt.getId().equals(id));
+            assert (receipt.getUserId().equals(userId));
+            assert (receipt.getCashFlowId().equals(cashFlowId));
+            assert (receipt.getSha256().equals(sha256));
+            assert (receipt.getFileName().equals("struk.jpg"));
+            assert (receipt.getContentType().equals("image/jpeg"));
+            assert (receipt.getSize() == 2048);
+            assert (receipt.getCreatedAt().equals(createdAt));
+        }
+
+        // CashFlowReceipt dengan nilai default
+        {
+            CashFlowReceipt receipt = new CashFlowReceipt();
+
+            assert (receipt.getId() == null);
+            assert (receipt.getSha256() == null);
+            assert (receipt.getSize() == 0);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.delcom.app.entities;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CashFlowReceiptUploadTests {
+    @Test
+    @DisplayName("Membuat instance dari kelas CashFlowReceiptUpload")
+    void testMembuatInstanceCashFlowReceiptUpload() throws Exception {
+        UUID id = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        UUID cashFlowId = UUID.randomUUID();
+        LocalDateTime createdAt = LocalDateTime.of(2025, 11, 2, 8, 0);
+
+        // Upload 10 chunk (chunk terakhir lebih pendek), lalu sebagian chunk diterima
+        {
+            CashFlowReceiptUpload upload = new CashFlowReceiptUpload(id, userId, cashFlowId, "struk.pdf",
+                    "application/pdf", 9 * 1024 + 100, 1024, createdAt);
+
+            assert (upload.getId().equals(id));
+            assert (upload.getUserId().equals(userId));
+            assert (upload.getCashFlowId().equals(cashFlowId));
+            assert (upload.getFileName().equals("struk.pdf"));
+            assert (upload.getContentType().equals("application/pdf"));
+            assert (upload.getSize() == 9 * 1024 + 100);
+            assert (upload.getChunkSize() == 1024);
+            assert (upload.getChunkCount() == 10);
+            assert (upload.getChunkLength(0) == 1024);
+            assert (upload.getChunkLength(9) == 100);
+            assert (upload.getCreatedAt().equals(createdAt));
+            assert (upload.getUpdatedAt().equals(createdAt));
+
+            upload.markReceived(0, createdAt.plusMinutes(1));
+            upload.markReceived(8, createdAt.plusMinutes(2));
+            upload.markReceived(9, createdAt.plusMinutes(3));
+            assert (upload.isReceived(8));
+            assert (!upload.isReceived(7));
+            assert (upload.getMissingChunks().equals(List.of(1, 2, 3, 4, 5, 6, 7)));
+            assert (upload.getUpdatedAt().equals(createdAt.plusMinutes(3)));
+        }
+
+        // Ukuran tepat kelipatan chunk
+        {
+            CashFlowReceiptUpload upload = new CashFlowReceiptUpload(id, userId, cashFlowId, "a.png", "image/png",
+                    2048, 1024, createdAt);
+
+            assert (upload.getChunkCount() == 2);
+            assert (upload.getChunkLength(1) == 1024);
+        }
+
+        // CashFlowReceiptUpload dengan nilai default
+        {
+            CashFlowReceiptUpload upload = new CashFlowReceiptUpload();
+
+            assert (upload.getId() == null);
+            assert (upload.getFileName() == null);
+            assert (upload.getUpdatedAt() == null);
+        }
+    }
+}
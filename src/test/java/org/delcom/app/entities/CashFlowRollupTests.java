@@ -0,0 +1,52 @@
+package org.delcom.app.entities;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CashFlowRollupTests {
+    @Test
+    @DisplayName("Membuat instance dari kelas CashFlowRollup")
+    void testMembuatInstanceCashFlowRollup() throws Exception {
+        UUID userId = UUID.randomUUID();
+        LocalDate month = LocalDate.of(2025, 11, 1);
+
+        // CashFlowRollup dengan nilai
+        {
+            CashFlowRollup rollup = new CashFlowRollup(userId, month, "Inflow", "gaji", 400000, 2);
+
+            assert (rollup.getUserId().equals(userId));
+            assert (rollup.getMonth().equals(month));
+            assert (rollup.getType().equals("Inflow"));
+            assert (rollup.getLabel().equals("gaji"));
+            assert (rollup.getTotalAmount() == 400000);
+            assert (rollup.getTxCount() == 2);
+        }
+
+        // CashFlowRollup dengan nilai default
+        {
+            CashFlowRollup rollup = new CashFlowRollup();
+
+            assert (rollup.getUserId() == null);
+            assert (rollup.getMonth() == null);
+            assert (rollup.getTotalAmount() == 0);
+        }
+
+        // Composite key
+        {
+            CashFlowRollup.Key key = new CashFlowRollup.Key(userId, month, "Inflow", "gaji");
+
+            assert (key.equals(key));
+            assert (key.equals(new CashFlowRollup.Key(userId, month, "Inflow", "gaji")));
+            assert (key.hashCode() == new CashFlowRollup.Key(userId, month, "Inflow", "gaji").hashCode());
+            assert (!key.equals(new CashFlowRollup.Key(UUID.randomUUID(), month, "Inflow", "gaji")));
+            assert (!key.equals(new CashFlowRollup.Key(userId, month.plusMonths(1), "Inflow", "gaji")));
+            assert (!key.equals(new CashFlowRollup.Key(userId, month, "Outflow", "gaji")));
+            assert (!key.equals(new CashFlowRollup.Key(userId, month, "Inflow", "bonus")));
+            assert (!key.equals(new CashFlowRollup.Key()));
+            assert (!key.equals("bukan key"));
+        }
+    }
+}
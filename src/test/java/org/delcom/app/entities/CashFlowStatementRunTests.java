@@ -0,0 +1,60 @@
+package org.delcom.app.entities;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CashFlowStatementRunTests {
+    @Test
+    @DisplayName("Membuat instance dari kelas CashFlowStatementRun")
+    void testMembuatInstanceCashFlowStatementRun() throws Exception {
+        LocalDate month = LocalDate.of(2025, 11, 1);
+        LocalDateTime startedAt = LocalDateTime.of(2025, 12, 1, 1, 0);
+
+        // Run baru, checkpoint, lalu selesai
+        {
+            CashFlowStatementRun run = new CashFlowStatementRun(month, startedAt);
+
+            assert (run.getMonth().equals(month));
+            assert (run.getStatus().equals(CashFlowStatementRun.RUNNING));
+            assert (run.getCheckpointUserId() == null);
+            assert (run.getStartedAt().equals(startedAt));
+            assert (run.getUpdatedAt().equals(startedAt));
+            assert (run.getCompletedAt() == null);
+
+            UUID userId = UUID.randomUUID();
+            UUID firstFailed = UUID.randomUUID();
+            UUID secondFailed = UUID.randomUUID();
+            run.checkpoint(userId, 8, List.of(firstFailed, secondFailed), startedAt.plusMinutes(1));
+            run.checkpoint(userId, 5, List.of(), startedAt.plusMinutes(2));
+            assert (run.getCheckpointUserId().equals(userId));
+            assert (run.getProcessedUsers() == 13);
+            assert (run.getFailedUsers() == 2);
+            assert (run.getFailedUserIds().equals(Set.of(firstFailed, secondFailed)));
+            assert (run.getUpdatedAt().equals(startedAt.plusMinutes(2)));
+
+            run.recover(List.of(firstFailed), startedAt.plusMinutes(3));
+            assert (run.getProcessedUsers() == 14);
+            assert (run.getFailedUsers() == 1);
+            assert (run.getFailedUserIds().equals(Set.of(secondFailed)));
+            assert (run.getUpdatedAt().equals(startedAt.plusMinutes(3)));
+
+            run.complete(startedAt.plusMinutes(4));
+            assert (run.getStatus().equals(CashFlowStatementRun.COMPLETED));
+            assert (run.getCompletedAt().equals(startedAt.plusMinutes(4)));
+        }
+
+        // CashFlowStatementRun dengan nilai default
+        {
+            CashFlowStatementRun run = new CashFlowStatementRun();
+
+            assert (run.getMonth() == null);
+            assert (run.getStatus() == null);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.delcom.app.entities;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CashFlowStatementTests {
+    @Test
+    @DisplayName("Membuat instance dari kelas CashFlowStatement")
+    void testMembuatInstanceCashFlowStatement() throws Exception {
+        UUID userId = UUID.randomUUID();
+        LocalDate month = LocalDate.of(2025, 11, 1);
+        LocalDateTime generatedAt = LocalDateTime.of(2025, 12, 1, 1, 0);
+
+        // CashFlowStatement dengan nilai
+        {
+            CashFlowStatement statement = new CashFlowStatement(userId, month, 130000, 4, "{}", generatedAt);
+
+            assert (statement.getUserId().equals(userId));
+            assert (statement.getMonth().equals(month));
+            assert (statement.getClosingBalance() == 130000);
+            assert (statement.getTxCount() == 4);
+            assert (statement.getContent().equals("{}"));
+            assert (statement.getGeneratedAt().equals(generatedAt));
+        }
+
+        // CashFlowStatement dengan nilai default
+        {
+            CashFlowStatement statement = new CashFlowStatement();
+
+            assert (statement.getUserId() == null);
+            assert (statement.getMonth() == null);
+            assert (statement.getContent() == null);
+        }
+
+        // Composite key
+        {
+            CashFlowStatement.Key key = new CashFlowStatement.Key(userId, month);
+
+            assert (key.equals(key));
+            assert (key.equals(new CashFlowStatement.Key(userId, month)));
+            assert (key.hashCode() == new CashFlowStatement.Key(userId, month).hashCode());
+            assert (!key.equals(new CashFlowStatement.Key(UUID.randomUUID(), month)));
+            assert (!key.equals(new CashFlowStatement.Key(userId, month.plusMonths(1))));
+            assert (!key.equals(new CashFlowStatement.Key()));
+            assert (!key.equals("bukan key"));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.delcom.app.entities;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CashFlowTermTests {
+    @Test
+    @DisplayName("Membuat instance dari kelas CashFlowTerm")
+    void testMembuatInstanceCashFlowTerm() throws Exception {
+        UUID userId = UUID.randomUUID();
+
+        // CashFlowTerm dengan nilai
+        {
+            CashFlowTerm term = new CashFlowTerm(userId, CashFlowTerm.Kind.LABEL, "gaji");
+            term.setId(7);
+
+            assert (term.getId() == 7);
+            assert (term.getUserId().equals(userId));
+            assert (term.getKind() == CashFlowTerm.Kind.LABEL);
+            assert (term.getName().equals("gaji"));
+
+            term.setName("penghasilan");
+            assert (term.getName().equals("penghasilan"));
+        }
+
+        // CashFlowTerm dengan nilai default
+        {
+            CashFlowTerm term = new CashFlowTerm();
+
+            assert (term.getId() == null);
+            assert (term.getUserId() == null);
+            assert (term.getKind() == null);
+            assert (term.getName() == null);
+        }
+
+        // Ordinal kind dipakai sebagai nilai kolom smallint
+        {
+            assert (CashFlowTerm.Kind.TYPE.ordinal() == 0);
+            assert (CashFlowTerm.Kind.SOURCE.ordinal() == 1);
+            assert (CashFlowTerm.Kind.LABEL.ordinal() == 2);
+        }
+    }
+}
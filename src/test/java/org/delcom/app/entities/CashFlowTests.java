@@ -68,5 +68,37 @@ public class CashFlowTests {
             assert (cashFlow.getCreatedAt() != null);
             assert (cashFlow.getUpdatedAt() != null);
         }
+
+        // CashFlow dengan referensi kamus (CashFlowTerm)
+        {
+            UUID userId = UUID.randomUUID();
+            CashFlow cashFlow = new CashFlow("Pemasukan", "Gaji", "Deskripsi updated", 5000, "2023-01-01");
+            CashFlowTerm type = new CashFlowTerm(userId, CashFlowTerm.Kind.TYPE, "Inflow");
+            CashFlowTerm source = new CashFlowTerm(userId, CashFlowTerm.Kind.SOURCE, "Bank");
+            CashFlowTerm label = new CashFlowTerm(userId, CashFlowTerm.Kind.LABEL, "gaji");
+
+            cashFlow.setTypeTerm(type);
+            cashFlow.setSourceTerm(source);
+            cashFlow.setLabelTerm(label);
+
+            assert (cashFlow.getTypeTerm() == type);
+            assert (cashFlow.getSourceTerm() == source);
+            assert (cashFlow.getLabelTerm() == label);
+            assert (cashFlow.getType().equals("Inflow"));
+            assert (cashFlow.getSource().equals("Bank"));
+            assert (cashFlow.getLabel().equals("gaji"));
+
+            // Entity yang dimuat dari database hanya memiliki referensi kamus
+            cashFlow.setType(null);
+            cashFlow.setSource(null);
+            cashFlow.setLabel(null);
+            label.setName("penghasilan");
+            assert (cashFlow.getType().equals("Inflow"));
+            assert (cashFlow.getSource().equals("Bank"));
+            assert (cashFlow.getLabel().equals("penghasilan"));
+
+            cashFlow.setLabelTerm(null);
+            assert (cashFlow.getLabel() == null);
+        }
     }
 }
\ No newline at end of file
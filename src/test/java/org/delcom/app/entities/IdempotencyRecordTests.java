@@ -0,0 +1,51 @@
+package org.delcom.app.entities;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class IdempotencyRecordTests {
+    @Test
+    @DisplayName("Membuat instance dari kelas IdempotencyRecord")
+    void testMembuatInstanceIdempotencyRecord() throws Exception {
+        UUID userId = UUID.randomUUID();
+        byte[] requestHash = { 1, 2, 3 };
+        LocalDateTime expiresAt = LocalDateTime.of(2025, 11, 2, 8, 0);
+
+        // IdempotencyRecord dengan nilai
+        {
+            IdempotencyRecord record = new IdempotencyRecord(userId, "key-1", requestHash, 201, "{}", expiresAt);
+
+            assert (record.getUserId().equals(userId));
+            assert (record.getIdemKey().equals("key-1"));
+            assert (record.getRequestHash() == requestHash);
+            assert (record.getStatusCode() == 201);
+            assert (record.getResponseBody().equals("{}"));
+            assert (record.getExpiresAt().equals(expiresAt));
+        }
+
+        // IdempotencyRecord dengan nilai default
+        {
+            IdempotencyRecord record = new IdempotencyRecord();
+
+            assert (record.getUserId() == null);
+            assert (record.getIdemKey() == null);
+            assert (record.getStatusCode() == null);
+        }
+
+        // Composite key
+        {
+            IdempotencyRecord.Key key = new IdempotencyRecord.Key(userId, "key-1");
+
+            assert (key.equals(key));
+            assert (key.equals(new IdempotencyRecord.Key(userId, "key-1")));
+            assert (key.hashCode() == new IdempotencyRecord.Key(userId, "key-1").hashCode());
+            assert (!key.equals(new IdempotencyRecord.Key(UUID.randomUUID(), "key-1")));
+            assert (!key.equals(new IdempotencyRecord.Key(userId, "key-2")));
+            assert (!key.equals(new IdempotencyRecord.Key()));
+            assert (!key.equals("bukan key"));
+        }
+    }
+}
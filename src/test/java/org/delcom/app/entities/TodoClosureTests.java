@@ -0,0 +1,46 @@
+package org.delcom.app.entities;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TodoClosureTests {
+    @Test
+    @DisplayName("Membuat instance dari kelas TodoClosure")
+    void testMembuatInstanceTodoClosure() throws Exception {
+        UUID ancestorId = UUID.randomUUID();
+        UUID descendantId = UUID.randomUUID();
+
+        // TodoClosure dengan nilai
+        {
+            TodoClosure closure = new TodoClosure(ancestorId, descendantId, 2);
+
+            assert (closure.getAncestorId().equals(ancestorId));
+            assert (closure.getDescendantId().equals(descendantId));
+            assert (closure.getDepth() == 2);
+        }
+
+        // TodoClosure dengan nilai default
+        {
+            TodoClosure closure = new TodoClosure();
+
+            assert (closure.getAncestorId() == null);
+            assert (closure.getDescendantId() == null);
+            assert (closure.getDepth() == 0);
+        }
+
+        // Composite key
+        {
+            TodoClosure.Key key = new TodoClosure.Key(ancestorId, descendantId);
+
+            assert (key.equals(key));
+            assert (key.equals(new TodoClosure.Key(ancestorId, descendantId)));
+            assert (key.hashCode() == new TodoClosure.Key(ancestorId, descendantId).hashCode());
+            assert (!key.equals(new TodoClosure.Key(ancestorId, ancestorId)));
+            assert (!key.equals(new TodoClosure.Key(descendantId, descendantId)));
+            assert (!key.equals(new TodoClosure.Key()));
+            assert (!key.equals("bukan key"));
+        }
+    }
+}
@@ -37,6 +37,7 @@ public class TodoTests {
 
             assert (todo.getId() == null);
             assert (todo.getUserId() == null);
+            assert (todo.getParentId() == null);
             assert (todo.getTitle() == null);
             assert (todo.getDescription() == null);
             assert (todo.isFinished() == false);
@@ -48,6 +49,8 @@ public class TodoTests {
             UUID generatedId = UUID.randomUUID();
             todo.setId(generatedId);
             todo.setUserId(userId);
+            UUID parentId = UUID.randomUUID();
+            todo.setParentId(parentId);
             todo.setTitle("Set Title");
             todo.setDescription("Set Description");
             todo.setFinished(true);
@@ -57,6 +60,7 @@ public class TodoTests {
 
             assert (todo.getId().equals(generatedId));
             assert (todo.getUserId().equals(userId));
+            assert (todo.getParentId().equals(parentId));
             assert (todo.getTitle().equals("Set Title"));
             assert (todo.getDescription().equals("Set Description"));
             assert (todo.isFinished() == true);
@@ -0,0 +1,41 @@
+package org.delcom.app.events;
+
+import java.util.UUID;
+
+import org.delcom.app.entities.CashFlow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CashFlowChangedEventTests {
+    @Test
+    @DisplayName("Membuat snapshot dan event perubahan CashFlow")
+    void testCashFlowChangedEvent() throws Exception {
+        UUID userId = UUID.randomUUID();
+
+        // Snapshot dari entity lengkap
+        CashFlow flow = new CashFlow(userId, "Inflow", "Bank", "gaji", 1000, "Gaji bulanan");
+        flow.setId(UUID.randomUUID());
+        flow.onCreate();
+        CashFlowChangedEvent.Snapshot snapshot = CashFlowChangedEvent.Snapshot.of(flow);
+        {
+            assert (snapshot.id().equals(flow.getId()));
+            assert (snapshot.userId().equals(userId));
+            assert (snapshot.amount() == 1000);
+            assert (snapshot.createdAt().equals(flow.getCreatedAt()));
+        }
+
+        // Snapshot dari entity tanpa amount dan createdAt
+        {
+            CashFlowChangedEvent.Snapshot empty = CashFlowChangedEvent.Snapshot.of(
+                    new CashFlow("Pemasukan", "Gaji", "Deskripsi", 0, "2023-01-01"));
+            assert (empty.amount() == 0);
+            assert (empty.createdAt() != null);
+        }
+
+        // userId diambil dari after, atau before saat delete
+        {
+            assert (new CashFlowChangedEvent(null, snapshot).userId().equals(userId));
+            assert (new CashFlowChangedEvent(snapshot, null).userId().equals(userId));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.delcom.app.events;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CashFlowImportedEventTests {
+    @Test
+    @DisplayName("Membuat event import massal CashFlow")
+    void testCashFlowImportedEvent() throws Exception {
+        UUID userId = UUID.randomUUID();
+        CashFlowImportedEvent event = new CashFlowImportedEvent(userId, 42);
+
+        assert (event.userId().equals(userId));
+        assert (event.count() == 42);
+        assert (event.equals(new CashFlowImportedEvent(userId, 42)));
+    }
+}
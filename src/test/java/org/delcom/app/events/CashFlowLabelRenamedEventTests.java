@@ -0,0 +1,20 @@
+package org.delcom.app.events;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CashFlowLabelRenamedEventTests {
+    @Test
+    @DisplayName("Membuat event rename label CashFlow")
+    void testCashFlowLabelRenamedEvent() throws Exception {
+        UUID userId = UUID.randomUUID();
+        CashFlowLabelRenamedEvent event = new CashFlowLabelRenamedEvent(userId, "makan", "konsumsi");
+
+        assert (event.userId().equals(userId));
+        assert (event.from().equals("makan"));
+        assert (event.to().equals("konsumsi"));
+        assert (event.equals(new CashFlowLabelRenamedEvent(userId, "makan", "konsumsi")));
+    }
+}
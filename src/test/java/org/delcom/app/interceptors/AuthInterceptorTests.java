@@ -1,6 +1,7 @@
 package org.delcom.app.interceptors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
@@ -10,6 +11,7 @@ import java.util.Date;
 import java.util.UUID;
 
 import org.delcom.app.configs.AuthContext;
+import org.delcom.app.configs.ReplicaRoutingDataSource;
 import org.delcom.app.entities.AuthToken;
 import org.delcom.app.entities.User;
 import org.delcom.app.services.AuthTokenService;
@@ -70,6 +72,11 @@ public class AuthInterceptorTests {
 
             boolean isPublic = authInterceptor.preHandle(request, response, null);
             assertTrue(isPublic);
+
+            // User dipasang untuk routing replica dan dilepas setelah request selesai
+            assertEquals(userId, ReplicaRoutingDataSource.getCurrentUser());
+            authInterceptor.afterCompletion(request, response, null, null);
+            assertNull(ReplicaRoutingDataSource.getCurrentUser());
         }
 
         // Menguji method preHandle yang berhasil dengan path public
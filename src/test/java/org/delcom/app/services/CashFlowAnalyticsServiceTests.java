@@ -0,0 +1,160 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.dto.CashFlowAnalytics;
+import org.delcom.app.dto.CashFlowBalancePoint;
+import org.delcom.app.dto.CashFlowBalanceSeries;
+import org.delcom.app.dto.CashFlowSummary;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.utils.CashFlowColumns;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class CashFlowAnalyticsServiceTests {
+    @Test
+    @DisplayName("Pengujian analitik cash flow dari snapshot in-memory")
+    void testCashFlowAnalytics() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        UUID gajiId = UUID.randomUUID();
+        UUID makanId = UUID.randomUUID();
+        LocalDateTime november = LocalDateTime.of(2025, 11, 10, 8, 0);
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { gajiId, "Inflow", "Bank", "gaji", 5000, november });
+        rows.add(new Object[] { makanId, "Outflow", "Cash", "makan", null, null });
+
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        when(cashFlowRepository.findColumnsByUserId(userId)).thenReturn(rows);
+        when(cashFlowRepository.findColumnsByUserId(otherUserId)).thenReturn(new ArrayList<>());
+        CashFlowAnalyticsService analyticsService = new CashFlowAnalyticsService(cashFlowRepository, 1 << 20, 1000);
+
+        // Menguji snapshot dimuat lazy satu kali
+        {
+            CashFlowColumns columns = analyticsService.getSnapshot(userId);
+            assertSame(columns, analyticsService.getSnapshot(userId));
+            assertEquals(2, columns.size());
+            assertEquals(0, columns.sum("Outflow", Long.MIN_VALUE, Long.MAX_VALUE));
+            verify(cashFlowRepository, times(1)).findColumnsByUserId(userId);
+            assertEquals(1, analyticsService.getSnapshotCount());
+            assertEquals(columns.estimatedBytes(), analyticsService.getSnapshotBytes());
+        }
+
+        // Menguji analitik dengan dan tanpa rentang tanggal
+        {
+            CashFlowAnalytics analytics = analyticsService.getAnalytics(userId, null, null, null, 10);
+            assertEquals(2, analytics.byType().size());
+            assertEquals(2, analytics.byLabel().size());
+            assertEquals(2, analytics.bySource().size());
+            assertEquals(gajiId, analytics.top().get(0).id());
+
+            analytics = analyticsService.getAnalytics(userId, LocalDate.of(2025, 11, 1), LocalDate.of(2025, 11, 30),
+                    "Inflow", 1);
+            assertEquals(List.of(new CashFlowSummary("Inflow", "Inflow", 5000, 1)), analytics.byType());
+            assertEquals(1, analytics.top().size());
+        }
+
+        // Menguji update incremental dari event CashFlowService
+        {
+            Snapshot created = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 700, "Makan",
+                    november);
+            Snapshot updated = new Snapshot(created.id(), userId, "Outflow", "Cash", "makan", 900, "Makan",
+                    november);
+            CashFlowColumns columns = analyticsService.getSnapshot(userId);
+
+            analyticsService.onCashFlowChanged(new CashFlowChangedEvent(null, created));
+            assertEquals(3, columns.size());
+            assertEquals(700, columns.sum("Outflow", Long.MIN_VALUE, Long.MAX_VALUE));
+
+            analyticsService.onCashFlowChanged(new CashFlowChangedEvent(created, updated));
+            assertEquals(900, columns.sum("Outflow", Long.MIN_VALUE, Long.MAX_VALUE));
+
+            analyticsService.onCashFlowChanged(new CashFlowChangedEvent(updated, null));
+            assertEquals(2, columns.size());
+
+            // User tanpa snapshot tidak dimuat oleh event
+            Snapshot other = new Snapshot(UUID.randomUUID(), otherUserId, "Inflow", "Bank", null, 1, "x", november);
+            analyticsService.onCashFlowChanged(new CashFlowChangedEvent(null, other));
+            verify(cashFlowRepository, times(0)).findColumnsByUserId(otherUserId);
+        }
+
+        // Menguji rename label membuang snapshot agar dimuat ulang
+        {
+            analyticsService.onLabelRenamed(new CashFlowLabelRenamedEvent(userId, "gaji", "penghasilan"));
+            assertEquals(0, analyticsService.getSnapshotCount());
+            analyticsService.getSnapshot(userId);
+            verify(cashFlowRepository, times(2)).findColumnsByUserId(userId);
+        }
+
+        // Menguji import massal membuang snapshot agar dimuat ulang
+        {
+            analyticsService.onImported(new CashFlowImportedEvent(userId, 100));
+            assertEquals(0, analyticsService.getSnapshotCount());
+            analyticsService.getSnapshot(userId);
+            verify(cashFlowRepository, times(3)).findColumnsByUserId(userId);
+        }
+
+        // Menguji eviksi snapshot idle
+        {
+            assertEquals(0, analyticsService.evictIdleSnapshots());
+            Thread.sleep(1100);
+            assertEquals(1, analyticsService.evictIdleSnapshots());
+            assertEquals(0, analyticsService.getSnapshotCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Pengujian deret saldo yang di-downsample dari snapshot in-memory")
+    void testBalanceSeries() {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+        // Satu transaksi per hari selama 100 hari dengan lonjakan pada hari ke-50
+        List<Object[]> rows = new ArrayList<>();
+        for (int day = 0; day < 100; day++) {
+            rows.add(new Object[] { UUID.randomUUID(), day == 50 ? "Inflow" : "Outflow", "Bank", null,
+                    day == 50 ? 100_000 : 10, start.plusDays(day) });
+        }
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        when(cashFlowRepository.findColumnsByUserId(userId)).thenReturn(rows);
+        CashFlowAnalyticsService analyticsService = new CashFlowAnalyticsService(cashFlowRepository, 1 << 20, 60_000);
+
+        // Menguji jumlah titik dibatasi dan lonjakan tetap terlihat
+        {
+            CashFlowBalanceSeries series = analyticsService.getBalanceSeries(userId, null, null, 10);
+            assertEquals(0, series.openingBalance());
+            assertEquals(100, series.totalPoints());
+            assertEquals(10, series.points().size());
+            assertEquals(new CashFlowBalancePoint(start, -10), series.points().get(0));
+            assertEquals(new CashFlowBalancePoint(start.plusDays(99), 100_000 - 990),
+                    series.points().get(9));
+            assertTrue(series.points().contains(new CashFlowBalancePoint(start.plusDays(50), 100_000 - 500)));
+        }
+
+        // Menguji rentang tanggal dengan saldo awal
+        {
+            CashFlowBalanceSeries series = analyticsService.getBalanceSeries(userId, LocalDate.of(2025, 1, 3),
+                    LocalDate.of(2025, 1, 4), 10);
+            assertEquals(-20, series.openingBalance());
+            assertEquals(List.of(new CashFlowBalancePoint(start.plusDays(2), -30),
+                    new CashFlowBalancePoint(start.plusDays(3), -40)), series.points());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.utils.AuditJournal;
+import org.delcom.app.utils.AuditJournal.FsyncPolicy;
+import org.delcom.app.utils.AuditJournal.Operation;
+import org.delcom.app.utils.AuditJournal.UserHistory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CashFlowAuditServiceTests {
+    @TempDir
+    Path journalDir;
+
+    @Test
+    @DisplayName("Pengujian pencatatan perubahan cash flow ke jurnal audit")
+    void testCashFlowAudit() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID flowId = UUID.randomUUID();
+        LocalDateTime createdAt = LocalDateTime.of(2025, 11, 10, 8, 0);
+        Snapshot created = new Snapshot(flowId, userId, "Outflow", "Cash", "makan", 25000, "Nasi", createdAt);
+        Snapshot updated = new Snapshot(flowId, userId, "Outflow", "Cash", "makan", 30000, "Nasi", createdAt);
+
+        // Menguji create, update, dan delete tercatat berurutan
+        {
+            CashFlowAuditService auditService = new CashFlowAuditService(journalDir.toString(), 1 << 16,
+                    FsyncPolicy.INTERVAL);
+            auditService.onCashFlowChanged(new CashFlowChangedEvent(null, created));
+            auditService.onCashFlowChanged(new CashFlowChangedEvent(created, updated));
+            auditService.onCashFlowChanged(new CashFlowChangedEvent(updated, null));
+            auditService.forceInterval();
+            auditService.shutdown();
+            assertEquals(3, auditService.getAppendCount());
+
+            UserHistory history = AuditJournal.rebuildUser(journalDir, userId);
+            assertEquals(Operation.CREATE, history.entries().get(0).operation());
+            assertEquals(Operation.UPDATE, history.entries().get(1).operation());
+            assertEquals(30000, history.entries().get(1).amount());
+            assertEquals(Operation.DELETE, history.entries().get(2).operation());
+            assertEquals(0, history.current().size());
+        }
+
+        // Menguji kegagalan jurnal tidak dilempar ke pemanggil
+        {
+            Path brokenDir = journalDir.resolve("rusak");
+            CashFlowAuditService auditService = new CashFlowAuditService(brokenDir.toString(), 150,
+                    FsyncPolicy.NEVER);
+            auditService.forceInterval();
+            auditService.onCashFlowChanged(new CashFlowChangedEvent(null, created));
+
+            // Direktori diganti file biasa sehingga segmen berikutnya tidak dapat dibuat
+            Files.delete(brokenDir.resolve("audit-0000000000.journal"));
+            Files.delete(brokenDir);
+            Files.writeString(brokenDir, "bukan direktori");
+            auditService.onCashFlowChanged(new CashFlowChangedEvent(created, updated));
+            assertEquals(1, auditService.getAppendCount());
+        }
+    }
+}
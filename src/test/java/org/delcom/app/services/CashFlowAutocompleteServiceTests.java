@@ -0,0 +1,135 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class CashFlowAutocompleteServiceTests {
+    @Test
+    @DisplayName("Pengujian autocomplete label dan source cash flow")
+    void testCashFlowAutocomplete() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.of(2025, 11, 10, 8, 0);
+
+        List<Object[]> labelCounts = new ArrayList<>();
+        labelCounts.add(new Object[] { "makan", 3L });
+        labelCounts.add(new Object[] { "martabak", 1L });
+        List<Object[]> sourceCounts = new ArrayList<>();
+        sourceCounts.add(new Object[] { "Bank", 4L });
+
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        when(cashFlowRepository.countByLabel(userId)).thenReturn(labelCounts);
+        when(cashFlowRepository.countBySource(userId)).thenReturn(sourceCounts);
+        CashFlowAutocompleteService autocompleteService = new CashFlowAutocompleteService(cashFlowRepository,
+                1 << 20, 1000);
+
+        // Menguji indeks dimuat lazy satu kali
+        {
+            assertEquals(List.of("makan", "martabak"), autocompleteService.suggest(userId, "label", "ma", 10));
+            assertEquals(List.of("Bank"), autocompleteService.suggest(userId, "source", "b", 10));
+            assertNull(autocompleteService.suggest(userId, "type", "", 10));
+            verify(cashFlowRepository, times(1)).countByLabel(userId);
+            assertEquals(1, autocompleteService.getIndexCount());
+        }
+
+        // Menguji update incremental dari event CashFlowService
+        {
+            Snapshot martabak = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "martabak", 10, "x", now);
+            Snapshot martabak2 = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "martabak", 10, "x", now);
+            Snapshot martabak3 = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "martabak", 10, "x", now);
+            autocompleteService.onCashFlowChanged(new CashFlowChangedEvent(null, martabak));
+            autocompleteService.onCashFlowChanged(new CashFlowChangedEvent(null, martabak2));
+            autocompleteService.onCashFlowChanged(new CashFlowChangedEvent(null, martabak3));
+            assertEquals(List.of("martabak", "makan"), autocompleteService.suggest(userId, "label", "ma", 10));
+            assertEquals(List.of("Bank", "Cash"), autocompleteService.suggest(userId, "source", "", 10));
+
+            Snapshot moved = new Snapshot(martabak.id(), userId, "Outflow", "Bank", "minum", 10, "x", now);
+            autocompleteService.onCashFlowChanged(new CashFlowChangedEvent(martabak, moved));
+            autocompleteService.onCashFlowChanged(new CashFlowChangedEvent(martabak2, null));
+            assertEquals(List.of("makan", "martabak"), autocompleteService.suggest(userId, "label", "ma", 10));
+            assertEquals(List.of("minum"), autocompleteService.suggest(userId, "label", "mi", 10));
+
+            // User tanpa indeks tidak dimuat oleh event
+            Snapshot other = new Snapshot(UUID.randomUUID(), otherUserId, "Inflow", "Bank", "gaji", 1, "x", now);
+            autocompleteService.onCashFlowChanged(new CashFlowChangedEvent(null, other));
+            verify(cashFlowRepository, times(0)).countByLabel(otherUserId);
+        }
+
+        // Menguji rename label membuang indeks agar dimuat ulang
+        {
+            autocompleteService.onLabelRenamed(new CashFlowLabelRenamedEvent(userId, "makan", "konsumsi"));
+            assertEquals(0, autocompleteService.getIndexCount());
+            autocompleteService.suggest(userId, "label", "", 10);
+            verify(cashFlowRepository, times(2)).countByLabel(userId);
+        }
+
+        // Menguji import massal membuang indeks agar dimuat ulang
+        {
+            autocompleteService.onImported(new CashFlowImportedEvent(userId, 100));
+            assertEquals(0, autocompleteService.getIndexCount());
+            autocompleteService.suggest(userId, "label", "", 10);
+            verify(cashFlowRepository, times(3)).countByLabel(userId);
+        }
+
+        // Menguji eviksi indeks idle
+        {
+            assertEquals(0, autocompleteService.evictIdleIndexes());
+            Thread.sleep(1100);
+            assertEquals(1, autocompleteService.evictIdleIndexes());
+        }
+    }
+
+    @Test
+    @DisplayName("Pengujian indeks yang dimuat antara commit dan update tidak ditambah dua kali")
+    void testLoadBetweenCommitAndUpdate() {
+        UUID userId = UUID.randomUUID();
+        List<Object[]> committed = new ArrayList<>();
+        committed.add(new Object[] { "makan", 2L });
+        committed.add(new Object[] { "martabak", 1L });
+
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        when(cashFlowRepository.countByLabel(userId)).thenReturn(committed);
+        when(cashFlowRepository.countBySource(userId)).thenReturn(new ArrayList<>());
+        CashFlowAutocompleteService autocompleteService = new CashFlowAutocompleteService(cashFlowRepository,
+                1 << 20, 1000);
+        Snapshot makan = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 10, "x",
+                LocalDateTime.of(2025, 11, 10, 8, 0));
+
+        // Menguji indeks yang sudah berisi baris baru dibuang, bukan ditambah lagi
+        {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                autocompleteService.onCashFlowChanged(new CashFlowChangedEvent(null, makan));
+                autocompleteService.suggest(userId, "label", "ma", 10);
+                for (TransactionSynchronization synchronization : TransactionSynchronizationManager
+                        .getSynchronizations()) {
+                    synchronization.afterCommit();
+                }
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+            assertEquals(0, autocompleteService.getIndexCount());
+            assertEquals(List.of("makan", "martabak"), autocompleteService.suggest(userId, "label", "ma", 10));
+            verify(cashFlowRepository, times(2)).countByLabel(userId);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.dto.CashFlowNetFlow;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class CashFlowBalanceServiceTests {
+    @Test
+    @DisplayName("Pengujian saldo per tanggal dan net flow dari indeks Fenwick")
+    void testCashFlowBalance() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        LocalDate jan1 = LocalDate.of(2025, 1, 1);
+        LocalDate jan10 = LocalDate.of(2025, 1, 10);
+
+        List<Object[]> dailySums = new ArrayList<>();
+        dailySums.add(new Object[] { "2025-01-01", 1000000L });
+        dailySums.add(new Object[] { "2025-01-10", -250000L });
+
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        when(cashFlowRepository.sumSignedByDay(userId)).thenReturn(dailySums);
+        CashFlowBalanceService balanceService = new CashFlowBalanceService(cashFlowRepository, 1 << 20, 1000);
+
+        // Menguji indeks dimuat lazy satu kali
+        {
+            assertEquals(0, balanceService.getBalanceAt(userId, jan1.minusDays(1)).balance());
+            assertEquals(1000000, balanceService.getBalanceAt(userId, jan1).balance());
+            assertEquals(750000, balanceService.getBalanceAt(userId, jan10).balance());
+            CashFlowNetFlow netFlow = balanceService.getNetFlow(userId, jan1.plusDays(1), jan10);
+            assertEquals(-250000, netFlow.netFlow());
+            assertEquals(jan10, netFlow.to());
+            verify(cashFlowRepository, times(1)).sumSignedByDay(userId);
+            assertEquals(1, balanceService.getIndexCount());
+        }
+
+        // Menguji update incremental dari event CashFlowService
+        {
+            LocalDateTime jan5 = LocalDateTime.of(2025, 1, 5, 12, 0);
+            Snapshot bonus = new Snapshot(UUID.randomUUID(), userId, "Inflow", "Bank", "bonus", 50000, "x", jan5);
+            Snapshot makan = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 20000, "x", jan5);
+            Snapshot transfer = new Snapshot(UUID.randomUUID(), userId, "Transfer", "Bank", "tabungan", 9, "x", jan5);
+            balanceService.onCashFlowChanged(new CashFlowChangedEvent(null, bonus));
+            balanceService.onCashFlowChanged(new CashFlowChangedEvent(null, makan));
+            balanceService.onCashFlowChanged(new CashFlowChangedEvent(null, transfer));
+            assertEquals(1030000, balanceService.getBalanceAt(userId, jan5.toLocalDate()).balance());
+
+            // Pindah tanggal dan ubah amount, lalu hapus
+            Snapshot moved = new Snapshot(makan.id(), userId, "Outflow", "Cash", "makan", 30000,
+                    "x", LocalDateTime.of(2025, 1, 12, 8, 0));
+            balanceService.onCashFlowChanged(new CashFlowChangedEvent(makan, moved));
+            assertEquals(800000, balanceService.getBalanceAt(userId, jan10).balance());
+            assertEquals(770000, balanceService.getBalanceAt(userId, moved.createdAt().toLocalDate()).balance());
+            balanceService.onCashFlowChanged(new CashFlowChangedEvent(bonus, null));
+            assertEquals(1000000, balanceService.getBalanceAt(userId, jan5.toLocalDate()).balance());
+
+            // User tanpa indeks tidak dimuat oleh event
+            Snapshot other = new Snapshot(UUID.randomUUID(), otherUserId, "Inflow", "Bank", "gaji", 1, "x", jan5);
+            balanceService.onCashFlowChanged(new CashFlowChangedEvent(null, other));
+            verify(cashFlowRepository, times(0)).sumSignedByDay(otherUserId);
+        }
+
+        // Menguji import massal membuang indeks agar dimuat ulang
+        {
+            balanceService.onImported(new CashFlowImportedEvent(userId, 100));
+            assertEquals(0, balanceService.getIndexCount());
+            assertEquals(750000, balanceService.getBalanceAt(userId, jan10).balance());
+            verify(cashFlowRepository, times(2)).sumSignedByDay(userId);
+        }
+
+        // Menguji eviksi indeks idle
+        {
+            assertEquals(0, balanceService.evictIdleIndexes());
+            Thread.sleep(1100);
+            assertEquals(1, balanceService.evictIdleIndexes());
+        }
+    }
+
+    @Test
+    @DisplayName("Pengujian indeks yang dimuat antara commit dan update tidak ditambah dua kali")
+    void testLoadBetweenCommitAndUpdate() {
+        UUID userId = UUID.randomUUID();
+        LocalDate jan5 = LocalDate.of(2025, 1, 5);
+        List<Object[]> before = new ArrayList<>();
+        before.add(new Object[] { "2025-01-01", 1000000L });
+        List<Object[]> committed = new ArrayList<>(before);
+        committed.add(new Object[] { "2025-01-05", 50000L });
+
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        when(cashFlowRepository.sumSignedByDay(userId)).thenReturn(before, committed);
+        CashFlowBalanceService balanceService = new CashFlowBalanceService(cashFlowRepository, 1 << 20, 1000);
+        Snapshot bonus = new Snapshot(UUID.randomUUID(), userId, "Inflow", "Bank", "bonus", 50000, "x",
+                jan5.atTime(12, 0));
+
+        // Menguji indeks yang dimuat sebelum commit diperbarui secara incremental
+        {
+            assertEquals(1000000, balanceService.getBalanceAt(userId, jan5).balance());
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                balanceService.onCashFlowChanged(new CashFlowChangedEvent(null, bonus));
+                commit();
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+            assertEquals(1050000, balanceService.getBalanceAt(userId, jan5).balance());
+            verify(cashFlowRepository, times(1)).sumSignedByDay(userId);
+        }
+
+        // Menguji indeks yang sudah berisi baris baru dibuang, bukan ditambah lagi
+        {
+            balanceService.onImported(new CashFlowImportedEvent(userId, 0));
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                balanceService.onCashFlowChanged(new CashFlowChangedEvent(null, bonus));
+                assertEquals(1050000, balanceService.getBalanceAt(userId, jan5).balance());
+                commit();
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+            assertEquals(0, balanceService.getIndexCount());
+            assertEquals(1050000, balanceService.getBalanceAt(userId, jan5).balance());
+        }
+    }
+
+    private static void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+    }
+}
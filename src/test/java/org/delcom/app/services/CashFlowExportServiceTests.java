@@ -0,0 +1,219 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import javax.sql.DataSource;
+
+import org.delcom.app.dto.CashFlowExportResult;
+import org.delcom.app.utils.CashFlowColumnarFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CashFlowExportServiceTests {
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID firstId = UUID.randomUUID();
+    private final UUID secondId = UUID.randomUUID();
+    private final LocalDateTime firstAt = LocalDateTime.of(2025, 11, 1, 8, 0);
+    private final LocalDateTime secondAt = LocalDateTime.of(2025, 11, 2, 12, 30, 15);
+
+    @TempDir
+    Path exportDir;
+
+    private DataSource dataSource;
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private CashFlowExportService exportService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        resultSet = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+
+        // Dua baris: baris kedua tanpa label
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getObject(1, UUID.class)).thenReturn(firstId, secondId);
+        when(resultSet.getString(2)).thenReturn("Inflow", "Outflow");
+        when(resultSet.getString(3)).thenReturn("Gaji", "Dompet");
+        when(resultSet.getString(4)).thenReturn("gaji", (String) null);
+        when(resultSet.getLong(5)).thenReturn(5000000L, 25000L);
+        when(resultSet.getString(6)).thenReturn("Gaji November", "Makan siang, \"warteg\"");
+        when(resultSet.getObject(7, LocalDateTime.class)).thenReturn(firstAt, secondAt);
+
+        exportService = new CashFlowExportService(dataSource, 500, 1, exportDir.toString(), 60_000);
+    }
+
+    @Test
+    @DisplayName("Export CSV ke output dengan cursor sisi server")
+    void testExportCsv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CashFlowExportResult result = exportService.export(userId, "csv", null, null, null, false, out);
+
+        // Menguji isi CSV dapat dibaca kembali oleh import
+        {
+            assertEquals("id,type,source,label,amount,description,createdAt\n"
+                    + firstId + ",\"Inflow\",\"Gaji\",\"gaji\",5000000,\"Gaji November\",2025-11-01T08:00\n"
+                    + secondId + ",\"Outflow\",\"Dompet\",,25000,\"Makan siang, \"\"warteg\"\"\",2025-11-02T12:30:15\n",
+                    out.toString(StandardCharsets.UTF_8));
+        }
+
+        // Menguji statistik dan pemakaian cursor
+        {
+            assertNull(result.id());
+            assertEquals("csv", result.format());
+            assertEquals(2, result.rows());
+            assertEquals(out.size(), result.bytes());
+            assertTrue(result.elapsedMs() >= 0);
+            assertTrue(result.rowsPerSecond() >= 0);
+            verify(connection).setAutoCommit(false);
+            verify(connection).setReadOnly(true);
+            verify(statement).setFetchSize(500);
+            verify(statement).setObject(1, userId);
+            verify(connection).commit();
+        }
+    }
+
+    @Test
+    @DisplayName("Export kolumnar ter-gzip dengan filter tanggal dan label")
+    void testExportColumnarWithFilters() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CashFlowExportResult result = exportService.export(userId, "columnar", LocalDate.of(2025, 11, 1),
+                LocalDate.of(2025, 11, 30), "gaji", true, out);
+
+        // Menguji parameter filter dipasang berurutan
+        {
+            verify(connection).prepareStatement(argThat(sql ->
+                    sql.contains("c.created_at >= ?") && sql.contains("c.created_at < ?")
+                            && sql.contains("l.name = ?") && sql.endsWith("ORDER BY c.created_at, c.id")));
+            verify(statement).setObject(2, LocalDateTime.of(2025, 11, 1, 0, 0));
+            verify(statement).setObject(3, LocalDateTime.of(2025, 12, 1, 0, 0));
+            verify(statement).setString(4, "gaji");
+        }
+
+        // Menguji file kolumnar dapat dibaca kembali (satu baris per row group)
+        {
+            assertEquals(2, result.rows());
+            assertEquals(out.size(), result.bytes());
+            CashFlowColumnarFile.Reader reader = new CashFlowColumnarFile.Reader(
+                    new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())));
+            List<CashFlowColumnarFile.Row> first = reader.nextRowGroup();
+            List<CashFlowColumnarFile.Row> second = reader.nextRowGroup();
+            assertNull(reader.nextRowGroup());
+            assertEquals(new CashFlowColumnarFile.Row(firstId, "Inflow", "Gaji", "gaji", 5000000, "Gaji November",
+                    firstAt), first.get(0));
+            assertNull(second.get(0).label());
+            assertEquals(2, reader.getTotalRows());
+        }
+    }
+
+    @Test
+    @DisplayName("Export ke file lalu diunduh berdasarkan id")
+    void testExportToFile() throws Exception {
+        CashFlowExportResult result = exportService.exportToFile(userId, "csv", null, null, null, true);
+
+        // Menguji file tersimpan dengan id dan ekstensi yang sesuai
+        {
+            assertEquals(2, result.rows());
+            Path file = exportService.findExportFile(userId, result.id());
+            assertEquals(result.id() + ".csv.gz", file.getFileName().toString());
+            assertEquals(result.bytes(), Files.size(file));
+        }
+
+        // Menguji file tidak dapat diakses user lain atau dengan id yang tidak valid
+        {
+            assertNull(exportService.findExportFile(UUID.randomUUID(), result.id()));
+            assertNull(exportService.findExportFile(userId, UUID.randomUUID().toString()));
+            assertNull(exportService.findExportFile(userId, "../" + userId));
+        }
+
+        // Menguji file .part tidak pernah dikembalikan
+        {
+            String partId = UUID.randomUUID().toString();
+            Files.createFile(exportDir.resolve(userId.toString()).resolve(partId + ".part"));
+            assertNull(exportService.findExportFile(userId, partId));
+        }
+    }
+
+    @Test
+    @DisplayName("Export gagal tidak meninggalkan file")
+    void testExportFailure() throws Exception {
+        when(statement.executeQuery()).thenThrow(new SQLException("connection lost"));
+
+        IOException e = assertThrows(IOException.class,
+                () -> exportService.exportToFile(userId, "columnar", null, null, null, false));
+        assertEquals("Failed to read cash flows for export.", e.getMessage());
+        try (var files = Files.list(exportDir.resolve(userId.toString()))) {
+            assertEquals(0, files.count());
+        }
+        verify(connection, never()).commit();
+    }
+
+    @Test
+    @DisplayName("Format export yang tidak dikenal")
+    void testUnsupportedFormat() throws Exception {
+        assertTrue(exportService.isSupportedFormat("csv"));
+        assertTrue(exportService.isSupportedFormat("columnar"));
+        assertFalse(exportService.isSupportedFormat("xlsx"));
+        assertNull(exportService.export(userId, "xlsx", null, null, null, false, new ByteArrayOutputStream()));
+        assertNull(exportService.exportToFile(userId, "xlsx", null, null, null, false));
+        verify(dataSource, never()).getConnection();
+
+        assertEquals("cashflows.csv", CashFlowExportService.fileName("csv", false));
+        assertEquals("cashflows.cfc.gz", CashFlowExportService.fileName("columnar", true));
+    }
+
+    @Test
+    @DisplayName("Menghapus file export yang melewati masa simpan")
+    void testDeleteExpiredExports() throws Exception {
+        // Menguji direktori export yang belum ada
+        {
+            CashFlowExportService missing = new CashFlowExportService(dataSource, 500, 1,
+                    exportDir.resolve("missing").toString(), 60_000);
+            assertEquals(0, missing.deleteExpiredExports());
+        }
+
+        CashFlowExportResult fresh = exportService.exportToFile(userId, "csv", null, null, null, false);
+        Path userDir = exportDir.resolve(userId.toString());
+        Path old = Files.createFile(userDir.resolve(UUID.randomUUID() + ".csv"));
+        Files.setLastModifiedTime(old, FileTime.fromMillis(System.currentTimeMillis() - 120_000));
+
+        assertEquals(1, exportService.deleteExpiredExports());
+        assertFalse(Files.exists(old));
+        assertEquals(fresh.id() + ".csv", exportService.findExportFile(userId, fresh.id()).getFileName().toString());
+    }
+}
@@ -0,0 +1,141 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.dto.CashFlowForecast;
+import org.delcom.app.entities.CashFlowRollup;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class CashFlowForecastServiceTests {
+    private final CashFlowRollupService rollupService = Mockito.mock(CashFlowRollupService.class);
+    private final Clock clock = Mockito.mock(Clock.class);
+
+    private void setToday(LocalDate today) {
+        when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        when(clock.instant()).thenReturn(today.atStartOfDay().toInstant(ZoneOffset.UTC));
+    }
+
+    @Test
+    @DisplayName("Proyeksi saldo dari riwayat bulanan per label dan cache per user")
+    void testGetForecast() {
+        UUID userId = UUID.randomUUID();
+        setToday(LocalDate.of(2025, 11, 15));
+        when(rollupService.findRollups(userId)).thenReturn(List.of(
+                new CashFlowRollup(userId, LocalDate.of(2025, 9, 1), "Inflow", "gaji", 1000, 1),
+                new CashFlowRollup(userId, LocalDate.of(2025, 10, 1), "Inflow", "gaji", 1000, 1),
+                new CashFlowRollup(userId, LocalDate.of(2025, 10, 1), "Outflow", "makan", 300, 3),
+                new CashFlowRollup(userId, LocalDate.of(2025, 10, 1), "Transfer", "tabungan", 5000, 1),
+                new CashFlowRollup(userId, LocalDate.of(2025, 6, 1), "Inflow", "lama", 500, 1),
+                new CashFlowRollup(userId, LocalDate.of(2025, 11, 1), "Outflow", "makan", 100, 1)));
+        CashFlowForecastService forecastService = new CashFlowForecastService(rollupService, 200, 3, 3, 60000,
+                2, 1 << 20, 60000, clock);
+
+        // Menguji saldo awal mencakup seluruh rollup, riwayat hanya bulan lengkap dalam jendela
+        {
+            CashFlowForecast forecast = forecastService.getForecast(userId, 2);
+            assertEquals(2100, forecast.startingBalance());
+            assertEquals(2, forecast.historyMonths());
+            assertEquals(200, forecast.paths());
+            assertFalse(forecast.truncated());
+            assertEquals(2, forecast.months().size());
+            CashFlowForecast.Month first = forecast.months().get(0);
+            assertEquals(LocalDate.of(2025, 12, 1), first.month());
+            // Setiap bulan: gaji +1000 dan makan 0 atau -300
+            assertEquals(2800, first.p5());
+            assertEquals(3100, first.p95());
+            assertTrue(first.p25() <= first.p50() && first.p50() <= first.p75());
+            assertEquals(LocalDate.of(2026, 1, 1), forecast.months().get(1).month());
+            assertEquals(3500, forecast.months().get(1).p5());
+            assertEquals(4100, forecast.months().get(1).p95());
+            assertTrue(forecastService.getLastPathsPerSecond() > 0);
+        }
+
+        // Menguji hasil cache dipakai untuk jumlah bulan berbeda
+        {
+            CashFlowForecast forecast = forecastService.getForecast(userId, 3);
+            assertEquals(3, forecast.months().size());
+            assertEquals(1, forecastService.getForecastCount());
+            verify(rollupService, times(1)).findRollups(userId);
+        }
+
+        // Menguji cache dihitung ulang saat bulan berganti
+        {
+            setToday(LocalDate.of(2025, 12, 2));
+            CashFlowForecast forecast = forecastService.getForecast(userId, 1);
+            assertEquals(LocalDate.of(2026, 1, 1), forecast.months().get(0).month());
+            assertEquals(3, forecast.historyMonths());
+            verify(rollupService, times(2)).findRollups(userId);
+        }
+
+        // Menguji setiap perubahan data user menghapus cache
+        {
+            LocalDateTime now = LocalDateTime.now();
+            forecastService.onCashFlowChanged(new CashFlowChangedEvent(null,
+                    new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 100, "x", now)));
+            assertEquals(0, forecastService.getForecastCount());
+            forecastService.getForecast(userId, 1);
+            forecastService.onLabelRenamed(new CashFlowLabelRenamedEvent(userId, "makan", "jajan"));
+            assertEquals(0, forecastService.getForecastCount());
+            forecastService.getForecast(userId, 1);
+            forecastService.onImported(new CashFlowImportedEvent(userId, 10));
+            assertEquals(0, forecastService.getForecastCount());
+            forecastService.getForecast(userId, 1);
+            verify(rollupService, times(5)).findRollups(userId);
+            assertEquals(0, forecastService.evictIdleForecasts());
+        }
+        forecastService.shutdown();
+    }
+
+    @Test
+    @DisplayName("User tanpa riwayat dan simulasi yang melewati batas waktu")
+    void testEmptyHistoryAndBudget() {
+        UUID userId = UUID.randomUUID();
+        setToday(LocalDate.of(2025, 11, 15));
+        when(rollupService.findRollups(userId)).thenReturn(List.of(
+                new CashFlowRollup(userId, LocalDate.of(2025, 11, 1), "Inflow", "gaji", 700, 1)));
+        CashFlowForecastService forecastService = new CashFlowForecastService(rollupService, 100_000, 2, 12, 0,
+                0, 1 << 20, -1000, clock);
+
+        CashFlowForecast forecast = forecastService.getForecast(userId, 2);
+        assertEquals(700, forecast.startingBalance());
+        assertEquals(0, forecast.historyMonths());
+        assertTrue(forecast.truncated());
+        assertTrue(forecast.paths() >= 1 && forecast.paths() < 100_000);
+        assertEquals(700, forecast.months().get(1).p5());
+        assertEquals(700, forecast.months().get(1).p95());
+
+        // Menguji entri idle dihapus
+        assertEquals(1, forecastService.evictIdleForecasts());
+        assertEquals(0, forecastService.getForecastCount());
+        forecastService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Konstruktor Spring memakai jam sistem")
+    void testDefaultClock() {
+        CashFlowForecastService forecastService = new CashFlowForecastService(rollupService, 10, 24, 12, 2000, 1,
+                1 << 20, 60000);
+        assertEquals(24, forecastService.getMaxMonths());
+        CashFlowForecast forecast = forecastService.getForecast(UUID.randomUUID(), 1);
+        assertEquals(LocalDate.now().withDayOfMonth(1).plusMonths(1), forecast.months().get(0).month());
+        forecastService.shutdown();
+    }
+}
@@ -0,0 +1,194 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.delcom.app.entities.CashFlow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class CashFlowGroupCommitterTests {
+    // Transaction manager tanpa database yang mencatat commit dan rollback
+    private static class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        protected Object doGetTransaction() {
+            return TransactionSynchronizationManager.isActualTransactionActive();
+        }
+
+        @Override
+        protected boolean isExistingTransaction(Object transaction) {
+            return (Boolean) transaction;
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected Object doSuspend(Object transaction) {
+            return transaction;
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            events.add("commit");
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            events.add("rollback");
+        }
+    }
+
+    @Test
+    @DisplayName("Pengujian group commit insert cash flow")
+    void testCashFlowGroupCommitter() throws Exception {
+        UUID userId = UUID.randomUUID();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch holdStarted = new CountDownLatch(1);
+        CountDownLatch releaseHold = new CountDownLatch(1);
+
+        // Insert "blok"/"tahan" ditahan agar request lain menumpuk di antrean shard
+        CashFlowService cashFlowService = Mockito.mock(CashFlowService.class);
+        when(cashFlowService.createCashFlow(any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            String description = invocation.getArgument(5);
+            if (description.equals("blok")) {
+                firstStarted.countDown();
+                releaseFirst.await(5, TimeUnit.SECONDS);
+            }
+            if (description.equals("tahan")) {
+                holdStarted.countDown();
+                releaseHold.await(5, TimeUnit.SECONDS);
+            }
+            if (description.equals("gagal")) {
+                throw new IllegalStateException("insert gagal");
+            }
+            return new CashFlow(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2),
+                    invocation.getArgument(3), (Integer) invocation.getArgument(4), description);
+        });
+
+        CashFlowGroupCommitter committer = new CashFlowGroupCommitter(cashFlowService,
+                Mockito.mock(PlatformTransactionManager.class), true, 1, 3);
+        assertTrue(committer.isEnabled());
+        assertFalse(new CashFlowGroupCommitter(cashFlowService, Mockito.mock(PlatformTransactionManager.class),
+                false, 1, 3).isEnabled());
+
+        // Menguji satu request tanpa pesaing langsung di-commit sendiri
+        {
+            CashFlow flow = committer.createCashFlow(userId, "Outflow", "Cash", "makan", 1000, "sendiri");
+            assertEquals("sendiri", flow.getDescription());
+            assertEquals(1, committer.getBatchCount());
+            assertEquals(1, committer.getCommittedRowCount());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            // Menguji request bersamaan digabung per batch (maksimum 3 baris)
+            {
+                Future<CashFlow> first = executor.submit(() -> committer.createCashFlow(userId, "Outflow", "Cash",
+                        "makan", 1, "blok"));
+                assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+                List<Future<CashFlow>> others = new ArrayList<>();
+                for (int i = 0; i < 5; i++) {
+                    String description = "antre-" + i;
+                    others.add(executor.submit(() -> committer.createCashFlow(userId, "Outflow", "Cash", "makan",
+                            2, description)));
+                }
+                Thread.sleep(300);
+                releaseFirst.countDown();
+
+                assertEquals("blok", first.get(5, TimeUnit.SECONDS).getDescription());
+                for (int i = 0; i < 5; i++) {
+                    assertEquals("antre-" + i, others.get(i).get(5, TimeUnit.SECONDS).getDescription());
+                }
+                assertEquals(4, committer.getBatchCount());
+                assertEquals(7, committer.getCommittedRowCount());
+            }
+
+            // Menguji request yang gagal hanya menggagalkan pemanggilnya sendiri
+            {
+                Future<CashFlow> hold = executor.submit(() -> committer.createCashFlow(userId, "Outflow", "Cash",
+                        "makan", 1, "tahan"));
+                assertTrue(holdStarted.await(5, TimeUnit.SECONDS));
+                Future<CashFlow> ok = executor.submit(() -> committer.createCashFlow(userId, "Outflow", "Cash",
+                        "makan", 1, "berhasil"));
+                Future<CashFlow> failed = executor.submit(() -> committer.createCashFlow(userId, "Outflow", "Cash",
+                        "makan", 1, "gagal"));
+                Thread.sleep(300);
+                releaseHold.countDown();
+
+                hold.get(5, TimeUnit.SECONDS);
+                assertEquals("berhasil", ok.get(5, TimeUnit.SECONDS).getDescription());
+                ExecutionException error = assertThrows(ExecutionException.class,
+                        () -> failed.get(5, TimeUnit.SECONDS));
+                assertEquals(IllegalStateException.class, error.getCause().getClass());
+                // Batch [berhasil, gagal] dibatalkan lalu diulang satu per satu
+                assertEquals(2, committer.getFailedBatchCount());
+                assertEquals(9, committer.getCommittedRowCount());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Insert di dalam transaksi pemanggil tidak ikut group commit")
+    void testOuterTransaction() {
+        UUID userId = UUID.randomUUID();
+        List<Boolean> insertInTransaction = new ArrayList<>();
+        CashFlowService cashFlowService = Mockito.mock(CashFlowService.class);
+        when(cashFlowService.createCashFlow(any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            insertInTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return new CashFlow(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2),
+                    invocation.getArgument(3), (Integer) invocation.getArgument(4), invocation.getArgument(5));
+        });
+        RecordingTransactionManager transactionManager = new RecordingTransactionManager();
+        CashFlowGroupCommitter committer = new CashFlowGroupCommitter(cashFlowService, transactionManager, true, 1,
+                3);
+
+        // Menguji transaksi luar yang di-rollback tidak menyisakan commit batch terpisah
+        {
+            CashFlow flow = new TransactionTemplate(transactionManager).execute(tx -> {
+                CashFlow created = committer.createCashFlow(userId, "Outflow", "Cash", "makan", 1000, "luar");
+                tx.setRollbackOnly();
+                return created;
+            });
+            assertEquals("luar", flow.getDescription());
+            assertEquals(List.of("rollback"), transactionManager.events);
+            assertEquals(0, committer.getBatchCount());
+            assertEquals(0, committer.getCommittedRowCount());
+        }
+
+        // Menguji tanpa transaksi luar batch di-commit di transaksinya sendiri
+        {
+            committer.createCashFlow(userId, "Outflow", "Cash", "makan", 1000, "batch");
+            assertEquals(List.of("rollback", "commit"), transactionManager.events);
+            assertEquals(List.of(true, true), insertInTransaction);
+            assertEquals(1, committer.getBatchCount());
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.delcom.app.dto.CashFlowImportResult;
+import org.delcom.app.entities.CashFlowTerm.Kind;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+public class CashFlowImportServiceTests {
+
+    private static final String HEADER = "type,source,label,amount,description,createdAt\n";
+
+    private final UUID userId = UUID.randomUUID();
+    private DataSource dataSource;
+    private Connection connection;
+    private PreparedStatement statement;
+    private PreparedStatement flowsStatement;
+    // SQL setiap statement yang dijalankan, berurutan
+    private List<String> executed;
+    private CopyManager copyManager;
+    private ApplicationEventPublisher eventPublisher;
+    // Isi setiap chunk yang dikirim lewat COPY
+    private List<String> copied;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        flowsStatement = mock(PreparedStatement.class);
+        executed = new ArrayList<>();
+        copyManager = mock(CopyManager.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        copied = new ArrayList<>();
+
+        PGConnection pgConnection = mock(PGConnection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            executed.add(sql);
+            return sql.startsWith("INSERT INTO cash_flows ") ? flowsStatement : statement;
+        });
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString(), any(Reader.class))).thenAnswer(invocation -> {
+            StringWriter content = new StringWriter();
+            ((Reader) invocation.getArgument(1)).transferTo(content);
+            copied.add(content.toString());
+            return 0L;
+        });
+    }
+
+    private static InputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Import CSV valid dikirim per chunk melalui COPY")
+    void testImportCsvInChunks() throws Exception {
+        CashFlowImportService importService = new CashFlowImportService(dataSource, eventPublisher, 2);
+
+        String csv = HEADER
+                + "Inflow,Gaji,gaji,5000000,Gaji November,2025-11-01\n"
+                + "\n"
+                + "Outflow,Dompet,makan,25000.00,\"Makan siang, \"\"warteg\"\"\",2025-11-02T12:30:00\n"
+                + "Outflow,Dompet,transport,15000,Ojek,\n";
+        CashFlowImportResult result = importService.importCashFlows(userId, "csv", input(csv));
+
+        // Menguji jumlah baris, chunk, dan transaksi
+        {
+            assertEquals(3, result.accepted());
+            assertEquals(0, result.rejected());
+            assertTrue(result.errors().isEmpty());
+            assertFalse(result.errorsTruncated());
+            assertTrue(result.elapsedMs() >= 0);
+            assertTrue(result.rowsPerSecond() >= 0);
+            assertEquals(2, copied.size());
+            verify(connection, times(2)).commit();
+            verify(connection, never()).rollback();
+            assertEquals(16, executed.size());
+            assertTrue(executed.get(0).startsWith("CREATE TEMP TABLE IF NOT EXISTS cash_flow_import"));
+            assertTrue(executed.get(6).startsWith("INSERT INTO cash_flows "));
+            assertTrue(executed.get(7).startsWith("INSERT INTO cash_flow_rollups"));
+            verify(flowsStatement, times(2)).execute();
+            verify(eventPublisher).publishEvent(new CashFlowImportedEvent(userId, 3));
+        }
+
+        // Menguji kamus lalu rollup user dikunci sebelum digabung dan kind diikat dari CashFlowTerm.Kind
+        {
+            assertTrue(executed.get(1).contains("pg_advisory_xact_lock(") && executed.get(1).contains("'/terms'"));
+            assertTrue(executed.get(2).contains("pg_advisory_xact_lock_shared"));
+            assertTrue(executed.get(3).contains("DISTINCT user_id, ?, type"));
+            assertTrue(executed.get(4).contains("DISTINCT user_id, ?, source"));
+            assertTrue(executed.get(5).contains("DISTINCT user_id, ?, label"));
+            verify(statement, times(2)).setInt(1, Kind.TYPE.ordinal());
+            verify(statement, times(2)).setInt(1, Kind.SOURCE.ordinal());
+            verify(statement, times(2)).setInt(1, Kind.LABEL.ordinal());
+            verify(flowsStatement, times(2)).setInt(1, Kind.TYPE.ordinal());
+            verify(flowsStatement, times(2)).setInt(2, Kind.SOURCE.ordinal());
+            verify(flowsStatement, times(2)).setInt(3, Kind.LABEL.ordinal());
+        }
+
+        // Menguji isi baris COPY (kutip, amount tanpa desimal, createdAt)
+        {
+            assertEquals(userId + ",\"Inflow\",\"Gaji\",\"gaji\",5000000,\"Gaji November\",2025-11-01T00:00\n"
+                    + userId + ",\"Outflow\",\"Dompet\",\"makan\",25000,\"Makan siang, \"\"warteg\"\"\","
+                    + "2025-11-02T12:30\n", copied.get(0));
+            assertTrue(copied.get(1).startsWith(userId + ",\"Outflow\",\"Dompet\",\"transport\",15000,\"Ojek\","));
+        }
+    }
+
+    @Test
+    @DisplayName("Import JSON-lines dengan baris yang tidak valid")
+    void testImportJsonLines() throws Exception {
+        CashFlowImportService importService = new CashFlowImportService(dataSource, eventPublisher, 100);
+
+        String jsonl = "{\"type\":\"Outflow\",\"source\":\"Dompet\",\"label\":\"makan\",\"amount\":20000,"
+                + "\"description\":\"Nasi\",\"createdAt\":\"2025-11-03T07:00:00\"}\n"
+                + "{bukan json\n"
+                + "[1, 2]\n"
+                + "{\"type\":null,\"source\":\"Dompet\",\"label\":\"makan\",\"amount\":1,\"description\":\"x\"}\n";
+        CashFlowImportResult result = importService.importCashFlows(userId, "jsonl", input(jsonl));
+
+        assertEquals(1, result.accepted());
+        assertEquals(3, result.rejected());
+        assertEquals(2, result.errors().get(0).line());
+        assertEquals("Malformed JSON line.", result.errors().get(0).message());
+        assertEquals(3, result.errors().get(1).line());
+        assertEquals(4, result.errors().get(2).line());
+        assertTrue(copied.get(0).contains(",20000,\"Nasi\",2025-11-03T07:00\n"));
+    }
+
+    @Test
+    @DisplayName("Validasi setiap baris import")
+    void testImportValidation() throws Exception {
+        CashFlowImportService importService = new CashFlowImportService(dataSource, eventPublisher, 100);
+        String longText = "x".repeat(256);
+
+        String csv = "Description,AMOUNT,label,source,type\n"
+                + "\"tidak ditutup,1,a,b,c\n"
+                + "Nasi,1,makan,Dompet\n"
+                + "Nasi,1,makan,Dompet,\n"
+                + ",1,makan,Dompet,Outflow\n"
+                + longText + ",1,makan,Dompet,Outflow\n"
+                + "Nasi,0,makan,Dompet,Outflow\n"
+                + "Nasi,abc,makan,Dompet,Outflow\n"
+                + "Nasi,3000000000,makan,Dompet,Outflow\n"
+                + "Nasi,25000.75,makan,Dompet,Outflow\n";
+        CashFlowImportResult result = importService.importCashFlows(userId, "csv", input(csv));
+
+        // Menguji setiap baris ditolak dengan pesan yang sesuai, tanpa transaksi database
+        {
+            assertEquals(0, result.accepted());
+            assertEquals(9, result.rejected());
+            assertEquals("Malformed CSV line.", result.errors().get(0).message());
+            assertTrue(result.errors().get(1).message().contains("Type, amount, and description are required"));
+            assertTrue(result.errors().get(2).message().contains("Type, amount, and description are required"));
+            assertTrue(result.errors().get(3).message().contains("Type, amount, and description are required"));
+            assertEquals("Invalid cash flow data. Source and label are required.",
+                    importService.importCashFlows(userId, "jsonl",
+                            input("{\"type\":\"Outflow\",\"amount\":1,\"description\":\"x\"}")).errors().get(0).message());
+            assertTrue(result.errors().get(4).message().contains("'description' exceeds 255 characters"));
+            assertTrue(result.errors().get(5).message().contains("Amount must be a positive number"));
+            assertTrue(result.errors().get(6).message().contains("Amount must be a positive number"));
+            assertTrue(result.errors().get(7).message().contains("Amount must be a positive number"));
+            assertEquals("Invalid cash flow data. Amount must be a whole number.", result.errors().get(8).message());
+            verify(dataSource, never()).getConnection();
+            verify(eventPublisher, never()).publishEvent(any());
+        }
+
+        // Menguji createdAt dan amount yang tidak valid dari JSON
+        {
+            CashFlowImportResult jsonResult = importService.importCashFlows(userId, "jsonl", input(
+                    "{\"type\":\"Outflow\",\"source\":\"a\",\"label\":\"b\",\"amount\":1,\"description\":\"x\",\"createdAt\":\"kemarin\"}\n"
+                            + "{\"type\":\"Outflow\",\"source\":\"a\",\"label\":\"b\",\"description\":\"x\"}\n"));
+            assertEquals(2, jsonResult.rejected());
+            assertTrue(jsonResult.errors().get(0).message().startsWith("Invalid createdAt"));
+            assertTrue(jsonResult.errors().get(1).message().contains("Amount must be a positive number"));
+        }
+    }
+
+    @Test
+    @DisplayName("Format dan header import yang tidak valid")
+    void testImportInvalidFormat() throws Exception {
+        CashFlowImportService importService = new CashFlowImportService(dataSource, eventPublisher, 100);
+
+        assertNull(importService.importCashFlows(userId, "xml", input(HEADER)));
+        assertNull(importService.importCashFlows(userId, "csv", input("type,source,label,amount\n")));
+        assertNull(importService.importCashFlows(userId, "csv", input("\"type,source\n")));
+
+        // Menguji input kosong tidak membuka koneksi
+        CashFlowImportResult empty = importService.importCashFlows(userId, "csv", input(""));
+        assertEquals(0, empty.accepted());
+        verify(dataSource, never()).getConnection();
+    }
+
+    @Test
+    @DisplayName("Chunk yang gagal disimpan di-rollback dan ditolak seluruhnya")
+    void testImportChunkFailure() throws Exception {
+        CashFlowImportService importService = new CashFlowImportService(dataSource, eventPublisher, 2);
+        when(flowsStatement.execute())
+                .thenThrow(new SQLException("duplicate key"))
+                .thenReturn(false);
+
+        String csv = HEADER
+                + "Outflow,Dompet,makan,1,a\n"
+                + "Outflow,Dompet,makan,2,b\n"
+                + "Outflow,Dompet,makan,3,c\n";
+        CashFlowImportResult result = importService.importCashFlows(userId, "csv", input(csv));
+
+        assertEquals(1, result.accepted());
+        assertEquals(2, result.rejected());
+        assertEquals(2, result.errors().get(0).line());
+        assertEquals("Lines 2-3 could not be saved: duplicate key", result.errors().get(0).message());
+        verify(connection).rollback();
+        verify(connection, times(1)).commit();
+        verify(eventPublisher).publishEvent(new CashFlowImportedEvent(userId, 1));
+    }
+
+    @Test
+    @DisplayName("Daftar kesalahan import dibatasi")
+    void testImportErrorsTruncated() throws Exception {
+        CashFlowImportService importService = new CashFlowImportService(dataSource, eventPublisher, 100);
+        when(copyManager.copyIn(anyString(), any(Reader.class))).thenThrow(new IOException("stream closed"));
+
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < CashFlowImportService.MAX_REPORTED_ERRORS + 1; i++) {
+            csv.append("Outflow,Dompet,makan,0,x\n");
+        }
+        csv.append("Outflow,Dompet,makan,1,x\n");
+        CashFlowImportResult result = importService.importCashFlows(userId, "csv", input(csv.toString()));
+
+        // Menguji chunk gagal setelah daftar kesalahan penuh tetap dihitung sebagai ditolak
+        assertEquals(0, result.accepted());
+        assertEquals(CashFlowImportService.MAX_REPORTED_ERRORS + 2, result.rejected());
+        assertEquals(CashFlowImportService.MAX_REPORTED_ERRORS, result.errors().size());
+        assertTrue(result.errorsTruncated());
+        verify(connection).rollback();
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Kesalahan membaca input tetap memublikasikan baris yang sudah tersimpan")
+    void testImportReadFailure() throws Exception {
+        CashFlowImportService importService = new CashFlowImportService(dataSource, eventPublisher, 1);
+        byte[] firstRow = (HEADER + "Outflow,Dompet,makan,1,a\n").getBytes(StandardCharsets.UTF_8);
+        InputStream failing = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position < firstRow.length) {
+                    return firstRow[position++];
+                }
+                throw new IOException("connection reset");
+            }
+        };
+
+        try {
+            importService.importCashFlows(userId, "csv", failing);
+            assert (false);
+        } catch (IOException e) {
+            assertEquals("connection reset", e.getMessage());
+        }
+        verify(eventPublisher).publishEvent(new CashFlowImportedEvent(userId, 1));
+    }
+}
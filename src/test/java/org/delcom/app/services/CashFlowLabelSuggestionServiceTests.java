@@ -0,0 +1,278 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.delcom.app.entities.CashFlowLabelModel;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
+import org.delcom.app.repositories.CashFlowLabelModelRepository;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.utils.NaiveBayesLabeler;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class CashFlowLabelSuggestionServiceTests {
+    @Test
+    @DisplayName("Pengujian saran label naive Bayes per user")
+    void testSuggestLabel() {
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.of(2025, 11, 10, 8, 0);
+
+        List<Object[]> examples = new ArrayList<>();
+        examples.add(new Object[] { "makan", "Nasi goreng" });
+        examples.add(new Object[] { "makan", "Nasi padang" });
+        examples.add(new Object[] { "makan", "Bakso malang" });
+        examples.add(new Object[] { "transport", "Bensin motor" });
+        examples.add(new Object[] { "transport", "Parkir motor" });
+
+        // Repository model in-memory
+        Map<UUID, CashFlowLabelModel> stored = new ConcurrentHashMap<>();
+        CashFlowLabelModelRepository modelRepository = Mockito.mock(CashFlowLabelModelRepository.class);
+        when(modelRepository.save(any())).thenAnswer(invocation -> {
+            CashFlowLabelModel model = invocation.getArgument(0);
+            stored.put(model.getUserId(), model);
+            return model;
+        });
+        when(modelRepository.findById(any()))
+                .thenAnswer(invocation -> Optional.ofNullable(stored.get(invocation.getArgument(0))));
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        when(cashFlowRepository.findLabelDescriptions(userId)).thenReturn(examples);
+        CashFlowLabelSuggestionService suggestionService = new CashFlowLabelSuggestionService(modelRepository,
+                cashFlowRepository, 1 << 20, 60000, 0.6, 3);
+
+        // Menguji model dilatih dari cash_flows jika belum pernah disimpan
+        {
+            assertNull(suggestionService.suggestLabel(userId, "Nasi uduk"));
+            suggestionService.awaitTraining();
+            assertEquals("makan", suggestionService.suggestLabel(userId, "Nasi uduk"));
+            assertEquals("transport", suggestionService.suggestLabel(userId, "servis motor"));
+            assertNull(suggestionService.suggestLabel(userId, "Pulsa"));
+            assertEquals(1, suggestionService.getModelCount());
+            verify(cashFlowRepository, times(1)).findLabelDescriptions(userId);
+
+            assertEquals(1, suggestionService.flush());
+            assertEquals(0, suggestionService.getModelCount());
+            verify(cashFlowRepository, times(2)).findLabelDescriptions(userId);
+        }
+
+        // Menguji model dimuat dari tabel tanpa melatih ulang
+        {
+            assertNull(suggestionService.suggestLabel(userId, "Nasi uduk"));
+            suggestionService.awaitTraining();
+            assertEquals("makan", suggestionService.suggestLabel(userId, "Nasi uduk"));
+            verify(cashFlowRepository, times(2)).findLabelDescriptions(userId);
+            assertEquals(0, suggestionService.flush());
+        }
+
+        // Menguji insert, update, dan delete diterapkan langsung dan disimpan pada flush berikutnya
+        {
+            Snapshot created = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "transport", 20000,
+                    "Ojek online", now);
+            suggestionService.onCashFlowChanged(new CashFlowChangedEvent(null, created));
+            assertEquals("transport", suggestionService.suggestLabel(userId, "ojek kantor"));
+
+            Snapshot updated = new Snapshot(created.id(), userId, "Outflow", "Cash", "jajan", 20000, "Es teh", now);
+            suggestionService.onCashFlowChanged(new CashFlowChangedEvent(created, updated));
+            assertNull(suggestionService.suggestLabel(userId, "ojek kantor"));
+            suggestionService.onCashFlowChanged(new CashFlowChangedEvent(updated, null));
+            assertNull(suggestionService.suggestLabel(userId, "es teh"));
+
+            assertEquals(1, suggestionService.flush());
+            verify(modelRepository, times(2)).save(any());
+            verify(cashFlowRepository, times(2)).findLabelDescriptions(userId);
+        }
+
+        // Menguji perubahan untuk user tanpa model di memori menandai user stale
+        {
+            Snapshot other = new Snapshot(UUID.randomUUID(), otherUserId, "Inflow", "Bank", "gaji", 1, "Gaji", now);
+            suggestionService.onCashFlowChanged(new CashFlowChangedEvent(null, other));
+            assertEquals(1, suggestionService.flush());
+            verify(cashFlowRepository).findLabelDescriptions(otherUserId);
+
+            // Model dengan contoh kurang dari min-samples tidak memberi saran
+            suggestionService.suggestLabel(otherUserId, "Gaji");
+            suggestionService.awaitTraining();
+            assertEquals(2, suggestionService.getModelCount());
+            assertNull(suggestionService.suggestLabel(otherUserId, "Gaji"));
+        }
+
+        // Menguji rename label dan import menandai user stale dan membuang model
+        {
+            suggestionService.onLabelRenamed(new CashFlowLabelRenamedEvent(userId, "makan", "konsumsi"));
+            assertEquals(1, suggestionService.getModelCount());
+            suggestionService.suggestLabel(userId, "nasi");
+            suggestionService.awaitTraining();
+            verify(cashFlowRepository, times(3)).findLabelDescriptions(userId);
+
+            suggestionService.onImported(new CashFlowImportedEvent(userId, 100));
+            assertEquals(1, suggestionService.getModelCount());
+            assertEquals(1, suggestionService.flush());
+            assertEquals(0, suggestionService.evictIdleModels());
+        }
+
+        // Menguji rebuild harian seluruh user
+        {
+            UUID orphanUserId = UUID.randomUUID();
+            when(cashFlowRepository.findDistinctUserIds()).thenReturn(List.of(userId, otherUserId));
+            when(modelRepository.findAllUserIds()).thenReturn(List.of(userId, orphanUserId));
+            assertEquals(3, suggestionService.rebuildAll());
+            assertEquals(0, stored.get(orphanUserId).getModel()[0]);
+        }
+
+        // Menguji perubahan yang dibuang dari cache sebelum disimpan diserap training berikutnya
+        {
+            CashFlowLabelSuggestionService idleService = new CashFlowLabelSuggestionService(modelRepository,
+                    cashFlowRepository, 1 << 20, -1000, 1.01, 3);
+            assertNull(idleService.suggestLabel(userId, "Nasi uduk"));
+            idleService.awaitTraining();
+            assertNull(idleService.suggestLabel(userId, "Nasi uduk"));
+            Snapshot created = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 1, "Soto", now);
+            idleService.onCashFlowChanged(new CashFlowChangedEvent(null, created));
+            assertEquals(1, idleService.evictIdleModels());
+            assertEquals(0, idleService.flush());
+            assertEquals(1, idleService.flush());
+        }
+    }
+
+    @Test
+    @DisplayName("Pengujian perubahan model di memori disimpan saat aplikasi berhenti")
+    void testShutdownFlush() {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.of(2025, 11, 10, 8, 0);
+        NaiveBayesLabeler model = new NaiveBayesLabeler();
+        model.add("makan", "Nasi goreng", 1);
+
+        CashFlowLabelModelRepository modelRepository = Mockito.mock(CashFlowLabelModelRepository.class);
+        when(modelRepository.findById(userId))
+                .thenReturn(Optional.of(new CashFlowLabelModel(userId, model.toBytes(), now)));
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        CashFlowLabelSuggestionService suggestionService = new CashFlowLabelSuggestionService(modelRepository,
+                cashFlowRepository, 1 << 20, 60000, 0.6, 3);
+
+        // Menguji perubahan yang belum di-flush ikut disimpan oleh shutdown
+        {
+            suggestionService.suggestLabel(userId, "Nasi uduk");
+            suggestionService.awaitTraining();
+            Snapshot makan = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 15000,
+                    "Nasi uduk", now);
+            suggestionService.onCashFlowChanged(new CashFlowChangedEvent(null, makan));
+
+            suggestionService.shutdown();
+            verify(modelRepository, times(1)).save(any());
+            verify(cashFlowRepository, times(0)).findLabelDescriptions(userId);
+            assertEquals(0, suggestionService.flush());
+        }
+    }
+
+    @Test
+    @DisplayName("Pengujian model yang dimuat di thread trainer, bersamaan dengan perubahan, atau setelah dibuang")
+    void testConcurrentLoad() {
+        UUID userId = UUID.randomUUID();
+        UUID dirtyUserId = UUID.randomUUID();
+        UUID failingUserId = UUID.randomUUID();
+        UUID blockingUserId = UUID.randomUUID();
+        CountDownLatch releaseTrainer = new CountDownLatch(1);
+        LocalDateTime now = LocalDateTime.of(2025, 11, 10, 8, 0);
+        List<Object[]> examples = new ArrayList<>();
+        examples.add(new Object[] { "makan", "Nasi goreng" });
+        examples.add(new Object[] { "makan", "Nasi padang" });
+        NaiveBayesLabeler storedModel = new NaiveBayesLabeler();
+        storedModel.add("makan", "Nasi goreng", 1);
+
+        List<String> trainingThreads = new ArrayList<>();
+        CashFlowLabelModelRepository modelRepository = Mockito.mock(CashFlowLabelModelRepository.class);
+        when(modelRepository.findById(any())).thenReturn(Optional.empty());
+        when(modelRepository.findById(dirtyUserId))
+                .thenReturn(Optional.of(new CashFlowLabelModel(dirtyUserId, storedModel.toBytes(), now)));
+        when(modelRepository.findById(failingUserId)).thenThrow(new IllegalStateException("down"));
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        when(cashFlowRepository.findLabelDescriptions(any())).thenAnswer(invocation -> {
+            trainingThreads.add(Thread.currentThread().getName());
+            if (blockingUserId.equals(invocation.getArgument(0))) {
+                releaseTrainer.await();
+            }
+            return examples;
+        });
+        CashFlowLabelSuggestionService suggestionService = new CashFlowLabelSuggestionService(modelRepository,
+                cashFlowRepository, 1 << 20, -1000, 0.6, 1);
+
+        // Menguji model dilatih di thread trainer, bukan di thread request, dan hanya sekali diantrekan
+        {
+            suggestionService.suggestLabel(blockingUserId, "Nasi uduk");
+            assertNull(suggestionService.suggestLabel(userId, "Nasi uduk"));
+            assertNull(suggestionService.suggestLabel(userId, "Nasi kuning"));
+            releaseTrainer.countDown();
+            suggestionService.awaitTraining();
+            assertEquals(List.of("cash-flow-label-trainer", "cash-flow-label-trainer"), trainingThreads);
+            assertEquals("makan", suggestionService.suggestLabel(userId, "Nasi uduk"));
+
+            // Kegagalan memuat model tidak menghentikan trainer
+            assertNull(suggestionService.suggestLabel(failingUserId, "Nasi uduk"));
+            suggestionService.awaitTraining();
+            assertEquals(2, suggestionService.getModelCount());
+            suggestionService.onImported(new CashFlowImportedEvent(blockingUserId, 0));
+        }
+
+        // Menguji model yang dimuat sebelum commit (sudah berisi baris baru) dibuang, bukan ditambah lagi
+        {
+            suggestionService.onImported(new CashFlowImportedEvent(userId, 0));
+            Snapshot created = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 1, "Nasi padang",
+                    now);
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                suggestionService.onCashFlowChanged(new CashFlowChangedEvent(null, created));
+                suggestionService.suggestLabel(userId, "Nasi uduk");
+                suggestionService.awaitTraining();
+                assertEquals(1, suggestionService.getModelCount());
+                commit();
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+            assertEquals(0, suggestionService.getModelCount());
+        }
+
+        // Menguji model dirty yang dibuang dari cache dilatih dari cash_flows, bukan dimuat dari tabel
+        {
+            suggestionService.suggestLabel(dirtyUserId, "Nasi uduk");
+            suggestionService.awaitTraining();
+            Snapshot created = new Snapshot(UUID.randomUUID(), dirtyUserId, "Outflow", "Cash", "makan", 1,
+                    "Nasi padang", now);
+            suggestionService.onCashFlowChanged(new CashFlowChangedEvent(null, created));
+            assertEquals(1, suggestionService.evictIdleModels());
+
+            suggestionService.suggestLabel(dirtyUserId, "Nasi uduk");
+            suggestionService.awaitTraining();
+            verify(modelRepository, times(1)).findById(dirtyUserId);
+            verify(cashFlowRepository, times(1)).findLabelDescriptions(dirtyUserId);
+            // userId dan blockingUserId yang stale, ditambah dirtyUserId
+            assertEquals(3, suggestionService.flush());
+            verify(modelRepository, times(3)).save(any());
+        }
+    }
+
+    private static void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+    }
+}
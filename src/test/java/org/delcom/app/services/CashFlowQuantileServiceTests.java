@@ -0,0 +1,238 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.dto.CashFlowLabelQuantiles;
+import org.delcom.app.entities.CashFlowLabelSketch;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
+import org.delcom.app.repositories.CashFlowLabelSketchRepository;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.utils.KllSketch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class CashFlowQuantileServiceTests {
+    @Test
+    @DisplayName("Pengujian sketsa kuantil amount per label")
+    void testCashFlowQuantiles() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.of(2025, 11, 10, 8, 0);
+
+        List<Object[]> labelAmounts = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            labelAmounts.add(new Object[] { "makan", i * 1000 });
+        }
+        labelAmounts.add(new Object[] { null, 7000 });
+
+        CashFlowLabelSketchRepository sketchRepository = Mockito.mock(CashFlowLabelSketchRepository.class);
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        when(cashFlowRepository.findLabelAmounts(userId)).thenReturn(labelAmounts);
+        CashFlowQuantileService quantileService = new CashFlowQuantileService(sketchRepository, cashFlowRepository,
+                Mockito.mock(PlatformTransactionManager.class), 1 << 20, 1000, 0.95);
+
+        // Menguji sketsa dibangun dari cash_flows jika belum pernah disimpan
+        {
+            CashFlowLabelQuantiles quantiles = quantileService.getQuantiles(userId, "makan", null);
+            assertEquals(100, quantiles.count());
+            assertEquals(1000, quantiles.min());
+            assertEquals(50000, quantiles.median());
+            assertEquals(90000, quantiles.p90());
+            assertEquals(99000, quantiles.p99());
+            assertEquals(100000, quantiles.max());
+            assertEquals(KllSketch.normalizedRankError(KllSketch.DEFAULT_K), quantiles.rankError());
+            assertNull(quantiles.amountRank());
+            assertNull(quantiles.unusual());
+
+            assertEquals(true, quantileService.getQuantiles(userId, "makan", 97000L).unusual());
+            assertEquals(0.5, quantileService.getQuantiles(userId, "makan", 51000L).amountRank());
+            assertEquals(false, quantileService.getQuantiles(userId, "makan", 51000L).unusual());
+            assertEquals(1, quantileService.getQuantiles(userId, "", null).count());
+            assertNull(quantileService.getQuantiles(userId, "tidak-ada", null));
+            verify(cashFlowRepository, times(1)).findLabelAmounts(userId);
+        }
+
+        // Menguji flush menyimpan sketsa user stale lalu sketsa dimuat dari tabel
+        {
+            assertEquals(1, quantileService.flush());
+            verify(sketchRepository).deleteByUserId(userId);
+            verify(sketchRepository).saveAll(anyList());
+            assertEquals(0, quantileService.getSketchCount());
+            assertEquals(0, quantileService.flush());
+
+            KllSketch stored = new KllSketch();
+            stored.update(10000);
+            when(sketchRepository.findByUserId(userId)).thenReturn(List.of(
+                    new CashFlowLabelSketch(userId, "makan", stored.toBytes(), now)));
+            assertEquals(10000, quantileService.getQuantiles(userId, "makan", null).median());
+            verify(cashFlowRepository, times(2)).findLabelAmounts(userId);
+        }
+
+        // Menguji insert diterapkan langsung dan disimpan pada flush berikutnya
+        {
+            Snapshot created = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 30000, "x", now);
+            Snapshot noLabel = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", null, 5000, "x", now);
+            quantileService.onCashFlowChanged(new CashFlowChangedEvent(null, created));
+            quantileService.onCashFlowChanged(new CashFlowChangedEvent(null, noLabel));
+            assertEquals(2, quantileService.getQuantiles(userId, "makan", null).count());
+            assertEquals(5000, quantileService.getQuantiles(userId, "", null).min());
+            assertEquals(1, quantileService.flush());
+            verify(sketchRepository, times(2)).saveAll(anyList());
+            assertEquals(1, quantileService.getSketchCount());
+
+            // Update menandai user stale dan dibangun ulang dari cash_flows
+            Snapshot updated = new Snapshot(created.id(), userId, "Outflow", "Cash", "makan", 31000, "x", now);
+            quantileService.onCashFlowChanged(new CashFlowChangedEvent(created, updated));
+            assertEquals(1, quantileService.flush());
+            verify(cashFlowRepository, times(3)).findLabelAmounts(userId);
+        }
+
+        // Menguji insert untuk user tanpa sketsa di memori menandai user stale
+        {
+            Snapshot other = new Snapshot(UUID.randomUUID(), otherUserId, "Inflow", "Bank", "gaji", 1, "x", now);
+            quantileService.onCashFlowChanged(new CashFlowChangedEvent(null, other));
+            assertEquals(1, quantileService.flush());
+            verify(sketchRepository).deleteByUserId(otherUserId);
+        }
+
+        // Menguji insert yang dibuang dari cache sebelum disimpan diserap rebuild berikutnya
+        {
+            quantileService.getQuantiles(userId, "makan", null);
+            Snapshot created = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 1, "x", now);
+            quantileService.onCashFlowChanged(new CashFlowChangedEvent(null, created));
+            assertEquals(0, quantileService.evictIdleSketches());
+            Thread.sleep(1100);
+            assertEquals(1, quantileService.evictIdleSketches());
+            assertEquals(0, quantileService.flush());
+            assertEquals(1, quantileService.flush());
+            verify(cashFlowRepository, times(4)).findLabelAmounts(userId);
+        }
+
+        // Menguji rename label dan import menandai user stale dan membuang sketsa
+        {
+            quantileService.getQuantiles(userId, "makan", null);
+            quantileService.onLabelRenamed(new CashFlowLabelRenamedEvent(userId, "makan", "konsumsi"));
+            assertEquals(0, quantileService.getSketchCount());
+            quantileService.getQuantiles(userId, "konsumsi", null);
+            verify(cashFlowRepository, times(5)).findLabelAmounts(userId);
+
+            quantileService.onImported(new CashFlowImportedEvent(userId, 100));
+            assertEquals(0, quantileService.getSketchCount());
+            assertEquals(1, quantileService.flush());
+        }
+
+        // Menguji rebuild harian seluruh user
+        {
+            UUID orphanUserId = UUID.randomUUID();
+            when(cashFlowRepository.findDistinctUserIds()).thenReturn(List.of(userId, otherUserId));
+            when(sketchRepository.findDistinctUserIds()).thenReturn(List.of(userId, orphanUserId));
+            assertEquals(3, quantileService.rebuildAll());
+            verify(sketchRepository).deleteByUserId(orphanUserId);
+            verify(sketchRepository, times(9)).saveAll(any());
+        }
+    }
+
+    @Test
+    @DisplayName("Pengujian insert di memori disimpan saat aplikasi berhenti")
+    void testShutdownFlush() {
+        UUID userId = UUID.randomUUID();
+        CashFlowLabelSketchRepository sketchRepository = Mockito.mock(CashFlowLabelSketchRepository.class);
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        CashFlowQuantileService quantileService = new CashFlowQuantileService(sketchRepository, cashFlowRepository,
+                Mockito.mock(PlatformTransactionManager.class), 1 << 20, 1000, 0.95);
+
+        // Menguji insert yang belum di-flush ikut disimpan oleh shutdown
+        {
+            KllSketch stored = new KllSketch();
+            stored.update(1000);
+            LocalDateTime now = LocalDateTime.of(2025, 11, 10, 8, 0);
+            when(sketchRepository.findByUserId(userId))
+                    .thenReturn(List.of(new CashFlowLabelSketch(userId, "makan", stored.toBytes(), now)));
+            quantileService.getQuantiles(userId, "makan", null);
+            Snapshot makan = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 2000, "x", now);
+            quantileService.onCashFlowChanged(new CashFlowChangedEvent(null, makan));
+
+            quantileService.shutdown();
+            verify(sketchRepository).deleteByUserId(userId);
+            verify(sketchRepository).saveAll(anyList());
+            verify(cashFlowRepository, times(0)).findLabelAmounts(userId);
+            assertEquals(0, quantileService.flush());
+        }
+    }
+
+    @Test
+    @DisplayName("Pengujian sketsa yang dimuat bersamaan dengan perubahan atau setelah dibuang dari cache")
+    void testConcurrentLoad() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID dirtyUserId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.of(2025, 11, 10, 8, 0);
+        List<Object[]> labelAmounts = new ArrayList<>();
+        labelAmounts.add(new Object[] { "makan", 1000 });
+        labelAmounts.add(new Object[] { "makan", 2000 });
+        KllSketch stored = new KllSketch();
+        stored.update(1000);
+
+        CashFlowLabelSketchRepository sketchRepository = Mockito.mock(CashFlowLabelSketchRepository.class);
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        when(cashFlowRepository.findLabelAmounts(any())).thenReturn(labelAmounts);
+        when(sketchRepository.findByUserId(dirtyUserId))
+                .thenReturn(List.of(new CashFlowLabelSketch(dirtyUserId, "makan", stored.toBytes(), now)));
+        CashFlowQuantileService quantileService = new CashFlowQuantileService(sketchRepository, cashFlowRepository,
+                Mockito.mock(PlatformTransactionManager.class), 1 << 20, 1, 0.95);
+
+        // Menguji sketsa yang dimuat sebelum commit (sudah berisi baris baru) dibuang, bukan ditambah lagi
+        {
+            Snapshot created = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 2000, "x", now);
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                quantileService.onCashFlowChanged(new CashFlowChangedEvent(null, created));
+                assertEquals(2, quantileService.getQuantiles(userId, "makan", null).count());
+                commit();
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+            assertEquals(0, quantileService.getSketchCount());
+            assertEquals(2, quantileService.getQuantiles(userId, "makan", null).count());
+        }
+
+        // Menguji sketsa dirty yang dibuang dari cache dibangun dari cash_flows, bukan dari tabel sketsa
+        {
+            assertEquals(1, quantileService.getQuantiles(dirtyUserId, "makan", null).count());
+            Snapshot created = new Snapshot(UUID.randomUUID(), dirtyUserId, "Outflow", "Cash", "makan", 2000, "x",
+                    now);
+            quantileService.onCashFlowChanged(new CashFlowChangedEvent(null, created));
+            Thread.sleep(10);
+            assertEquals(2, quantileService.evictIdleSketches());
+
+            assertEquals(2, quantileService.getQuantiles(dirtyUserId, "makan", null).count());
+            verify(sketchRepository, times(1)).findByUserId(dirtyUserId);
+            verify(cashFlowRepository, times(1)).findLabelAmounts(dirtyUserId);
+            assertEquals(2, quantileService.flush());
+            verify(sketchRepository).deleteByUserId(dirtyUserId);
+        }
+    }
+
+    private static void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.delcom.app.dto.CashFlowReceiptUploadStatus;
+import org.delcom.app.entities.CashFlowReceipt;
+import org.delcom.app.entities.CashFlowReceiptUpload;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.repositories.CashFlowReceiptRepository;
+import org.delcom.app.repositories.CashFlowReceiptUploadRepository;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class CashFlowReceiptServiceTests {
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID cashFlowId = UUID.randomUUID();
+    private final byte[] content = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path receiptDir;
+
+    private CashFlowReceiptRepository receiptRepository;
+    private CashFlowReceiptUploadRepository uploadRepository;
+    private CashFlowRepository cashFlowRepository;
+    private final Map<UUID, CashFlowReceiptUpload> uploads = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        receiptRepository = mock(CashFlowReceiptRepository.class);
+        uploadRepository = mock(CashFlowReceiptUploadRepository.class);
+        cashFlowRepository = mock(CashFlowRepository.class);
+        when(cashFlowRepository.existsByUserIdAndId(userId, cashFlowId)).thenReturn(true);
+        when(cashFlowRepository.lockByUserIdAndId(userId, cashFlowId)).thenReturn(1L);
+        when(uploadRepository.save(any())).thenAnswer(invocation -> {
+            CashFlowReceiptUpload upload = invocation.getArgument(0);
+            uploads.put(upload.getId(), upload);
+            return upload;
+        });
+        when(uploadRepository.findByIdAndUserId(any(), eq(userId)))
+                .thenAnswer(invocation -> uploads.get(invocation.getArgument(0)));
+        when(receiptRepository.save(any())).thenAnswer(invocation -> {
+            CashFlowReceipt receipt = invocation.getArgument(0);
+            receipt.setId(UUID.randomUUID());
+            return receipt;
+        });
+    }
+
+    // Chunk 4 byte: isi 10 byte menjadi chunk 4, 4, dan 2 byte
+    private CashFlowReceiptService newService(long uploadTtlMs) {
+        return new CashFlowReceiptService(receiptRepository, uploadRepository, cashFlowRepository,
+                mock(PlatformTransactionManager.class), receiptDir.toString(), 4, 16, uploadTtlMs);
+    }
+
+    private static ByteArrayInputStream body(String chunk) {
+        return new ByteArrayInputStream(chunk.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private CashFlowReceiptUpload uploadAll(CashFlowReceiptService receiptService) throws IOException {
+        CashFlowReceiptUploadStatus status = receiptService.initiateUpload(userId, cashFlowId, "struk.jpg",
+                "image/jpeg", content.length);
+        CashFlowReceiptUpload upload = receiptService.findUpload(userId, status.uploadId());
+        receiptService.writeChunk(upload, 0, body("0123"));
+        receiptService.writeChunk(upload, 1, body("4567"));
+        receiptService.writeChunk(upload, 2, body("89"));
+        return upload;
+    }
+
+    @Test
+    @DisplayName("Upload chunk dengan urutan bebas, dilanjutkan, lalu diselesaikan")
+    void testUploadAndComplete() throws Exception {
+        CashFlowReceiptService receiptService = newService(60_000);
+        assertTrue(receiptService.isSupportedContentType("application/pdf"));
+        assertFalse(receiptService.isSupportedContentType("text/html"));
+        assertEquals(16, receiptService.getMaxBytes());
+
+        // Menguji cash flow yang tidak ditemukan
+        assertNull(receiptService.initiateUpload(userId, UUID.randomUUID(), "a.jpg", "image/jpeg", 10));
+
+        CashFlowReceiptUploadStatus status = receiptService.initiateUpload(userId, cashFlowId, " nota\"/2025\n.jpg ",
+                "image/jpeg", content.length);
+        assertEquals(cashFlowId, status.cashFlowId());
+        assertEquals("nota__2025_.jpg", status.fileName());
+        assertEquals(4, status.chunkSize());
+        assertEquals(3, status.chunkCount());
+        assertEquals(List.of(0, 1, 2), status.missingChunks());
+        assertEquals(255, receiptService.initiateUpload(userId, cashFlowId, "x".repeat(300) + ".jpg", "image/jpeg", 1)
+                .fileName().length());
+        Path part = receiptDir.resolve("uploads").resolve(status.uploadId() + ".part");
+        assertEquals(content.length, Files.size(part));
+
+        // Menguji chunk ditulis langsung di posisinya dan panjang body divalidasi
+        {
+            CashFlowReceiptUpload upload = receiptService.findUpload(userId, status.uploadId());
+            assertEquals(List.of(0, 1), receiptService.writeChunk(upload, 2, body("89")).missingChunks());
+            assertNull(receiptService.writeChunk(upload, 0, body("01")));
+            assertNull(receiptService.writeChunk(upload, 0, body("01234")));
+            assertEquals(List.of(1), receiptService.writeChunk(upload, 0, body("0123")).missingChunks());
+            verify(uploadRepository).markReceived(eq(status.uploadId()), eq(2), any());
+            verify(uploadRepository).markReceived(eq(status.uploadId()), eq(0), any());
+        }
+
+        // Menguji resume: status dari database, chunk yang sudah diterima tidak ditulis ulang
+        {
+            CashFlowReceiptUpload upload = receiptService.findUpload(userId, status.uploadId());
+            assertEquals(List.of(1), receiptService.getStatus(upload).missingChunks());
+            assertEquals(List.of(1), receiptService.writeChunk(upload, 0, body("xxxx")).missingChunks());
+            assertEquals(List.of(), receiptService.writeChunk(upload, 1, body("4567")).missingChunks());
+            assertArrayEquals(content, Files.readAllBytes(part));
+            verify(uploadRepository, times(3)).markReceived(any(), anyInt(), any());
+        }
+
+        // Menguji complete menyimpan file sebagai blob berdasarkan hash SHA-256
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        CashFlowReceipt receipt;
+        {
+            when(uploadRepository.claim(status.uploadId())).thenReturn(1);
+            receipt = receiptService.completeUpload(uploads.get(status.uploadId()));
+            assertEquals(sha256, receipt.getSha256());
+            assertEquals("nota__2025_.jpg", receipt.getFileName());
+            assertEquals("image/jpeg", receipt.getContentType());
+            assertEquals(content.length, receipt.getSize());
+            assertFalse(Files.exists(part));
+            Path blob = receiptService.getReceiptFile(receipt);
+            assertEquals(receiptDir.resolve("blobs").resolve(userId.toString()).resolve(sha256), blob);
+            assertArrayEquals(content, Files.readAllBytes(blob));
+            // Cash flow diperiksa ulang dan blob dikunci sebelum bukti disimpan
+            InOrder order = inOrder(cashFlowRepository, receiptRepository);
+            order.verify(cashFlowRepository).lockByUserIdAndId(userId, cashFlowId);
+            order.verify(receiptRepository).lockBlob(userId, sha256);
+            order.verify(receiptRepository).save(any());
+        }
+
+        // Menguji upload ulang isi yang sama memakai blob dan bukti yang sudah ada
+        {
+            CashFlowReceiptUpload upload = uploadAll(receiptService);
+            when(uploadRepository.claim(upload.getId())).thenReturn(1);
+            when(receiptRepository.findFirstByUserIdAndCashFlowIdAndSha256(userId, cashFlowId, sha256))
+                    .thenReturn(receipt);
+            assertSame(receipt, receiptService.completeUpload(upload));
+            assertFalse(Files.exists(receiptDir.resolve("uploads").resolve(upload.getId() + ".part")));
+            verify(receiptRepository, times(1)).save(any());
+
+            // Upload yang sudah diselesaikan request lain
+            when(uploadRepository.claim(upload.getId())).thenReturn(0);
+            assertNull(receiptService.completeUpload(upload));
+        }
+
+        // Menguji cash flow yang dihapus sebelum complete: bukti tidak disimpan dan file sementara dibuang
+        {
+            CashFlowReceiptUpload upload = uploadAll(receiptService);
+            Path uploadPart = receiptDir.resolve("uploads").resolve(upload.getId() + ".part");
+            Path blob = receiptDir.resolve("blobs").resolve(userId.toString()).resolve(sha256);
+            Files.delete(blob);
+            when(uploadRepository.claim(upload.getId())).thenReturn(1);
+            when(cashFlowRepository.lockByUserIdAndId(userId, cashFlowId)).thenReturn(0L);
+            assertNull(receiptService.completeUpload(upload));
+            assertFalse(Files.exists(uploadPart));
+            assertFalse(Files.exists(blob));
+            verify(receiptRepository, times(1)).save(any());
+            verify(receiptRepository, times(2)).lockBlob(userId, sha256);
+        }
+
+        // Menguji daftar dan pencarian bukti transaksi
+        {
+            when(receiptRepository.findByUserIdAndCashFlowIdOrderByCreatedAt(userId, cashFlowId))
+                    .thenReturn(List.of(receipt));
+            when(receiptRepository.findByUserIdAndId(userId, receipt.getId())).thenReturn(receipt);
+            assertEquals(List.of(receipt), receiptService.findReceipts(userId, cashFlowId));
+            assertSame(receipt, receiptService.findReceipt(userId, receipt.getId()));
+        }
+    }
+
+    @Test
+    @DisplayName("Complete yang gagal dapat diulang dengan file sementara yang sama")
+    void testCompleteFailure() throws Exception {
+        CashFlowReceiptService receiptService = newService(60_000);
+        CashFlowReceiptUpload upload = uploadAll(receiptService);
+        Path part = receiptDir.resolve("uploads").resolve(upload.getId() + ".part");
+        when(uploadRepository.claim(upload.getId())).thenReturn(1);
+
+        // Menguji direktori blob yang tidak dapat dibuat: upload belum diklaim dan file tetap ada
+        {
+            Files.createDirectories(receiptDir.resolve("blobs"));
+            Files.createFile(receiptDir.resolve("blobs").resolve(userId.toString()));
+            assertThrows(IOException.class, () -> receiptService.completeUpload(upload));
+            assertTrue(Files.exists(part));
+            verify(uploadRepository, never()).claim(any());
+            Files.delete(receiptDir.resolve("blobs").resolve(userId.toString()));
+        }
+
+        // Menguji pemindahan file yang gagal setelah klaim: upload disimpan kembali
+        {
+            byte[] saved = Files.readAllBytes(part);
+            when(uploadRepository.claim(upload.getId())).thenAnswer(invocation -> {
+                Files.delete(part);
+                return 1;
+            });
+            assertThrows(NoSuchFileException.class, () -> receiptService.completeUpload(upload));
+            verify(uploadRepository, times(2)).save(upload);
+            Files.write(part, saved);
+        }
+
+        // Menguji complete diulang setelah kegagalan berhasil
+        {
+            doReturn(1).when(uploadRepository).claim(upload.getId());
+            assertEquals(content.length, receiptService.completeUpload(upload).getSize());
+            assertFalse(Files.exists(part));
+        }
+
+        // Menguji file sementara yang sudah dipindahkan request lain
+        {
+            when(uploadRepository.existsById(upload.getId())).thenReturn(false);
+            assertNull(receiptService.completeUpload(upload));
+            when(uploadRepository.existsById(upload.getId())).thenReturn(true);
+            assertThrows(NoSuchFileException.class, () -> receiptService.completeUpload(upload));
+        }
+
+        // Menguji klaim yang didahului request lain setelah file di-hash
+        {
+            Files.write(part, content);
+            doReturn(0).when(uploadRepository).claim(upload.getId());
+            assertNull(receiptService.completeUpload(upload));
+        }
+    }
+
+    @Test
+    @DisplayName("Bukti dan blob yang tidak dipakai lagi dihapus bersama cash flow")
+    void testCashFlowDeleted() throws Exception {
+        CashFlowReceiptService receiptService = newService(60_000);
+        Path userBlobs = receiptDir.resolve("blobs").resolve(userId.toString());
+        Files.createDirectories(userBlobs);
+        Files.writeString(userBlobs.resolve("aaaa"), "a");
+        Files.writeString(userBlobs.resolve("bbbb"), "b");
+        // Blob berupa direktori berisi file: gagal dihapus dan hanya dicatat
+        Files.createDirectories(userBlobs.resolve("cccc"));
+        Files.writeString(userBlobs.resolve("cccc").resolve("x"), "x");
+
+        Snapshot flow = new Snapshot(cashFlowId, userId, "Outflow", "Cash", "makan", 1000, "Nasi", LocalDateTime.now());
+        List<CashFlowReceipt> receipts = List.of(
+                new CashFlowReceipt(userId, cashFlowId, "aaaa", "a.jpg", "image/jpeg", 1, LocalDateTime.now()),
+                new CashFlowReceipt(userId, cashFlowId, "aaaa", "a2.jpg", "image/jpeg", 1, LocalDateTime.now()),
+                new CashFlowReceipt(userId, cashFlowId, "bbbb", "b.jpg", "image/jpeg", 1, LocalDateTime.now()),
+                new CashFlowReceipt(userId, cashFlowId, "cccc", "c.jpg", "image/jpeg", 1, LocalDateTime.now()));
+        when(receiptRepository.findByUserIdAndCashFlowIdOrderByCreatedAt(userId, cashFlowId)).thenReturn(receipts);
+        // bbbb masih dipakai bukti cash flow lain
+        when(receiptRepository.existsByUserIdAndSha256(userId, "bbbb")).thenReturn(true);
+
+        // Menguji create dan update tidak menghapus bukti
+        {
+            receiptService.onCashFlowChanged(new CashFlowChangedEvent(null, flow));
+            receiptService.onCashFlowChanged(new CashFlowChangedEvent(flow, flow));
+            verify(receiptRepository, never()).findByUserIdAndCashFlowIdOrderByCreatedAt(any(), any());
+        }
+
+        // Menguji delete menghapus bukti dan hanya blob yang tidak dipakai lagi
+        {
+            receiptService.onCashFlowChanged(new CashFlowChangedEvent(flow, null));
+            verify(receiptRepository).deleteAll(receipts);
+            assertFalse(Files.exists(userBlobs.resolve("aaaa")));
+            assertTrue(Files.exists(userBlobs.resolve("bbbb")));
+            assertTrue(Files.exists(userBlobs.resolve("cccc")));
+            verify(receiptRepository, times(1)).existsByUserIdAndSha256(userId, "aaaa");
+            // Blob dikunci sebelum diperiksa agar complete yang memakai blob yang sama menunggu
+            InOrder order = inOrder(receiptRepository);
+            order.verify(receiptRepository).lockBlob(userId, "aaaa");
+            order.verify(receiptRepository).existsByUserIdAndSha256(userId, "aaaa");
+        }
+
+        // Menguji cash flow tanpa bukti
+        {
+            Snapshot other = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 1, "Teh",
+                    LocalDateTime.now());
+            when(receiptRepository.findByUserIdAndCashFlowIdOrderByCreatedAt(userId, other.id())).thenReturn(List.of());
+            receiptService.onCashFlowChanged(new CashFlowChangedEvent(other, null));
+            verify(receiptRepository, times(1)).deleteAll(any());
+        }
+    }
+
+    @Test
+    @DisplayName("Upload yang ditinggalkan dihapus beserta file sementaranya")
+    void testCollectAbandonedUploads() throws Exception {
+        // Masa simpan negatif: seluruh upload dianggap sudah lewat masa simpan
+        CashFlowReceiptService receiptService = newService(-60_000);
+        assertEquals(0, receiptService.collectAbandonedUploads());
+
+        UUID activeId = receiptService.initiateUpload(userId, cashFlowId, "a.pdf", "application/pdf", 5).uploadId();
+        UUID abandonedId = receiptService.initiateUpload(userId, cashFlowId, "b.pdf", "application/pdf", 5)
+                .uploadId();
+        when(uploadRepository.existsById(activeId)).thenReturn(true);
+        // File selain file sementara upload dilewati
+        Files.writeString(receiptDir.resolve("uploads").resolve("README"), "x");
+
+        assertEquals(1, receiptService.collectAbandonedUploads());
+        assertTrue(Files.exists(receiptDir.resolve("uploads").resolve(activeId + ".part")));
+        assertFalse(Files.exists(receiptDir.resolve("uploads").resolve(abandonedId + ".part")));
+        assertTrue(Files.exists(receiptDir.resolve("uploads").resolve("README")));
+        verify(uploadRepository, times(2)).deleteByUpdatedAtBefore(any());
+    }
+}
@@ -0,0 +1,163 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.dto.CashFlowReconciliation;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class CashFlowReconcileServiceTests {
+
+    private static InputStream csv(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object[] row(UUID id, String type, int amount, LocalDateTime createdAt, String description) {
+        return new Object[] { id, type, amount, createdAt, description };
+    }
+
+    @Test
+    @DisplayName("Pengujian rekonsiliasi rekening koran dengan hash join")
+    void testReconcile() throws IOException {
+        UUID userId = UUID.randomUUID();
+        UUID makanId = UUID.randomUUID();
+        UUID refundId = UUID.randomUUID();
+        UUID gojekKantorId = UUID.randomUUID();
+        UUID gojekPulangId = UUID.randomUUID();
+        UUID gajiId = UUID.randomUUID();
+        UUID tanpaDeskripsiId = UUID.randomUUID();
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(makanId, "Outflow", 25000, LocalDateTime.of(2025, 11, 2, 12, 30), "Makan siang warteg"));
+        rows.add(row(refundId, "Inflow", 25000, LocalDateTime.of(2025, 11, 2, 9, 0), "Refund"));
+        rows.add(row(gojekKantorId, "Outflow", 15000, LocalDateTime.of(2025, 11, 3, 7, 0), "Gojek kantor"));
+        rows.add(row(gojekPulangId, "Outflow", 15000, LocalDateTime.of(2025, 11, 3, 18, 0), "Gojek pulang"));
+        rows.add(row(gajiId, "Inflow", 5000000, LocalDateTime.of(2025, 11, 1, 8, 0), "Gaji November"));
+        rows.add(row(tanpaDeskripsiId, "Outflow", 50000, LocalDateTime.of(2025, 11, 5, 8, 0), null));
+
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        when(cashFlowRepository.findReconcileColumns(userId, LocalDateTime.of(2025, 10, 27, 0, 0),
+                LocalDateTime.of(2025, 11, 10, 0, 0))).thenReturn(rows);
+        CashFlowReconcileService reconcileService = new CashFlowReconcileService(cashFlowRepository, 3, 0.05);
+
+        // Menguji pembagian baris ke matched, ambiguous, unmatched, dan errors
+        {
+            String statement = String.join("\n",
+                    "date,amount,description,type",
+                    "2025-11-02,-25000,TRSF WARTEG MAKAN SIANG,",
+                    "2025-11-03T10:00:00,-15000,GOJEK,",
+                    "",
+                    "2025-11-01,5000000,Gaji,Inflow",
+                    "2025-11-06,50000.00,,",
+                    "2025-10-30,-25000,makan,",
+                    "2025-11-03,15000,Gojek pulang,Outflow",
+                    "bukan-tanggal,100,x,",
+                    "2025-11-01,abc,x,",
+                    "2025-11-01,0.5,x,",
+                    "2025-11-01,99999999999,x,",
+                    "2025-11-01,1500.50,x,",
+                    "\"2025-11-01,100",
+                    "2025-11-01");
+            CashFlowReconciliation result = reconcileService.reconcile(userId, csv(statement));
+
+            assertEquals(4, result.matched().size());
+            assertEquals(makanId, result.matched().get(0).cashFlowId());
+            assertEquals("Outflow", result.matched().get(0).statement().type());
+            assertEquals(gajiId, result.matched().get(1).cashFlowId());
+            assertEquals(tanpaDeskripsiId, result.matched().get(2).cashFlowId());
+            assertNull(result.matched().get(2).statement().type());
+            // Satu hari selisih dari jendela tiga hari: (0 + 0.75) / 2
+            assertEquals(0.375, result.matched().get(2).score(), 1e-9);
+            assertEquals(gojekPulangId, result.matched().get(3).cashFlowId());
+            assertEquals(1.0, result.matched().get(3).score(), 1e-9);
+
+            assertEquals(1, result.ambiguous().size());
+            assertEquals(3, result.ambiguous().get(0).statement().line());
+            assertEquals(List.of(gojekKantorId, gojekPulangId), result.ambiguous().get(0).candidateIds());
+
+            // Cash flow makan sudah dipakai baris 2
+            assertEquals(1, result.unmatched().size());
+            assertEquals(LocalDate.of(2025, 10, 30), result.unmatched().get(0).date());
+
+            assertEquals(7, result.errors().size());
+            assertEquals(9, result.errors().get(0).line());
+            assertTrue(result.errors().get(0).message().startsWith("Invalid date"));
+            assertTrue(result.errors().get(1).message().startsWith("Invalid amount"));
+            assertTrue(result.errors().get(2).message().startsWith("Invalid amount"));
+            assertTrue(result.errors().get(3).message().startsWith("Invalid amount"));
+            assertEquals(13, result.errors().get(4).line());
+            assertEquals("Invalid amount. Must be a whole number.", result.errors().get(4).message());
+            assertEquals("Malformed CSV line.", result.errors().get(5).message());
+            assertTrue(result.errors().get(6).message().startsWith("Invalid amount"));
+        }
+
+        // Menguji kolom description dan type opsional serta urutan kolom bebas
+        {
+            when(cashFlowRepository.findReconcileColumns(any(), any(), any())).thenReturn(List.of());
+            CashFlowReconciliation result = reconcileService.reconcile(userId,
+                    csv("amount,date\n100\n100,2025-11-01\n"));
+            assertEquals(1, result.unmatched().size());
+            assertEquals("", result.unmatched().get(0).description());
+            assertEquals(1, result.errors().size());
+            assertTrue(result.errors().get(0).message().startsWith("Invalid date"));
+        }
+
+        // Menguji header tidak valid
+        {
+            assertNull(reconcileService.reconcile(userId, csv("")));
+            assertNull(reconcileService.reconcile(userId, csv("\"date,amount\n")));
+            assertNull(reconcileService.reconcile(userId, csv("date,description\n")));
+            assertNull(reconcileService.reconcile(userId, csv("amount,description\n")));
+        }
+    }
+
+    @Test
+    @DisplayName("Jumlah kesalahan yang dilaporkan dibatasi dan database tidak diquery tanpa baris valid")
+    void testErrorsTruncated() throws IOException {
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        CashFlowReconcileService reconcileService = new CashFlowReconcileService(cashFlowRepository, 3, 0.05);
+        StringBuilder statement = new StringBuilder("date,amount\n");
+        for (int i = 0; i <= CashFlowImportService.MAX_REPORTED_ERRORS; i++) {
+            statement.append("2025-11-01,0\n");
+        }
+
+        CashFlowReconciliation result = reconcileService.reconcile(UUID.randomUUID(), csv(statement.toString()));
+        assertEquals(CashFlowImportService.MAX_REPORTED_ERRORS, result.errors().size());
+        assertTrue(result.errorsTruncated());
+        assertEquals(0, result.matched().size() + result.ambiguous().size() + result.unmatched().size());
+        verify(cashFlowRepository, never()).findReconcileColumns(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Kemiripan deskripsi dihitung dari trigram karakter")
+    void testSimilarity() {
+        long[] gojek = CashFlowReconcileService.trigrams("--GOJEK!!");
+        assertEquals(5, gojek.length);
+        assertArrayEquals(gojek, CashFlowReconcileService.trigrams("gojek"));
+        assertEquals(0, CashFlowReconcileService.trigrams("").length);
+        assertEquals(1.0, CashFlowReconcileService.similarity(gojek, gojek), 1e-9);
+        assertEquals(0.0, CashFlowReconcileService.similarity(gojek, new long[0]), 1e-9);
+        assertEquals(0.0, CashFlowReconcileService.similarity(new long[0], gojek), 1e-9);
+        assertEquals(10.0 / 17, CashFlowReconcileService.similarity(gojek,
+                CashFlowReconcileService.trigrams("Gojek kantor")), 1e-9);
+    }
+}
@@ -0,0 +1,220 @@
+package org.delcom.app.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.entities.CashFlowRollup;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.repositories.CashFlowRollupRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class CashFlowRollupServiceTests {
+    @Test
+    @DisplayName("Pengujian pemeliharaan rollup bulanan saat CashFlow berubah")
+    void testOnCashFlowChanged() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID flowId = UUID.randomUUID();
+        LocalDateTime createdAt = LocalDateTime.of(2025, 11, 15, 10, 0);
+        LocalDate month = LocalDate.of(2025, 11, 1);
+
+        Snapshot created = new Snapshot(flowId, userId, "Inflow", "Bank", "gaji", 1000, "Gaji", createdAt);
+        Snapshot amountChanged = new Snapshot(flowId, userId, "Inflow", "Bank", "gaji", 1500, "Gaji", createdAt);
+        Snapshot labelChanged = new Snapshot(flowId, userId, "Inflow", "Bank", "bonus", 1500, "Gaji", createdAt);
+        Snapshot typeChanged = new Snapshot(flowId, userId, "Outflow", "Bank", "bonus", 1500, "Gaji", createdAt);
+        Snapshot noLabel = new Snapshot(flowId, userId, "Outflow", "Bank", null, 1500, "Gaji", createdAt);
+
+        CashFlowRollupRepository rollupRepository = Mockito.mock(CashFlowRollupRepository.class);
+        CashFlowRollupService rollupService = new CashFlowRollupService(rollupRepository,
+                Mockito.mock(CashFlowRepository.class), Mockito.mock(PlatformTransactionManager.class));
+
+        // Create: tambah ke bucket di bawah kunci shared milik user
+        {
+            rollupService.onCashFlowChanged(new CashFlowChangedEvent(null, created));
+            verify(rollupRepository).lockUserShared(userId);
+            verify(rollupRepository).upsertDelta(userId, month, "Inflow", "gaji", 1000, 1);
+        }
+
+        // Update amount di bucket yang sama: satu upsert berisi selisih
+        {
+            rollupService.onCashFlowChanged(new CashFlowChangedEvent(created, amountChanged));
+            verify(rollupRepository).upsertDelta(userId, month, "Inflow", "gaji", 500, 0);
+
+            // Tanpa perubahan amount tidak ada penulisan
+            Mockito.clearInvocations(rollupRepository);
+            rollupService.onCashFlowChanged(new CashFlowChangedEvent(amountChanged, amountChanged));
+            verify(rollupRepository, never()).upsertDelta(any(), any(), any(), any(), anyLong(), anyLong());
+        }
+
+        // Update label/tipe: pindahkan amount antar bucket
+        {
+            rollupService.onCashFlowChanged(new CashFlowChangedEvent(amountChanged, labelChanged));
+            verify(rollupRepository).upsertDelta(userId, month, "Inflow", "gaji", -1500, -1);
+            verify(rollupRepository).deleteIfEmpty(userId, month, "Inflow", "gaji");
+            verify(rollupRepository).upsertDelta(userId, month, "Inflow", "bonus", 1500, 1);
+
+            rollupService.onCashFlowChanged(new CashFlowChangedEvent(labelChanged, typeChanged));
+            verify(rollupRepository).upsertDelta(userId, month, "Outflow", "bonus", 1500, 1);
+        }
+
+        // Delete: kurangi bucket, label null dipetakan ke string kosong
+        {
+            rollupService.onCashFlowChanged(new CashFlowChangedEvent(noLabel, null));
+            verify(rollupRepository).upsertDelta(userId, month, "Outflow", "", -1500, -1);
+            verify(rollupRepository).deleteIfEmpty(userId, month, "Outflow", "");
+        }
+
+        // Rename label: bucket label lama digabung ke label baru
+        {
+            rollupService.onLabelRenamed(new CashFlowLabelRenamedEvent(userId, "gaji", "penghasilan"));
+            verify(rollupRepository).mergeLabel(userId, "gaji", "penghasilan");
+            verify(rollupRepository).deleteByUserIdAndLabel(userId, "gaji");
+            verify(rollupRepository, Mockito.atLeast(2)).lockUserShared(userId);
+        }
+    }
+
+    @Test
+    @DisplayName("Pengujian verifikasi dan rebuild rollup")
+    void testVerifyAndRebuild() throws Exception {
+        UUID consistentUserId = UUID.randomUUID();
+        UUID driftedUserId = UUID.randomUUID();
+        UUID orphanUserId = UUID.randomUUID();
+        LocalDate month = LocalDate.of(2025, 11, 1);
+
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        CashFlowRollupRepository rollupRepository = Mockito.mock(CashFlowRollupRepository.class);
+
+        List<Object[]> rawRows = new ArrayList<>();
+        rawRows.add(new Object[] { "2025-11-01", "Inflow", "gaji", 1000L, 1L });
+        when(cashFlowRepository.aggregateMonthly(consistentUserId)).thenReturn(rawRows);
+        when(cashFlowRepository.aggregateMonthly(driftedUserId)).thenReturn(rawRows);
+        when(cashFlowRepository.aggregateMonthly(orphanUserId)).thenReturn(new ArrayList<>());
+        when(rollupRepository.findByUserId(consistentUserId))
+                .thenReturn(List.of(new CashFlowRollup(consistentUserId, month, "Inflow", "gaji", 1000, 1)));
+        when(rollupRepository.findByUserId(driftedUserId))
+                .thenReturn(List.of(new CashFlowRollup(driftedUserId, month, "Inflow", "gaji", 900, 1)));
+        when(rollupRepository.findByUserId(orphanUserId))
+                .thenReturn(List.of(new CashFlowRollup(orphanUserId, month, "Inflow", "gaji", 900, 1)));
+        when(cashFlowRepository.findDistinctUserIds()).thenReturn(List.of(consistentUserId, driftedUserId));
+        when(rollupRepository.findDistinctUserIds()).thenReturn(List.of(driftedUserId, orphanUserId));
+
+        CashFlowRollupService rollupService = new CashFlowRollupService(rollupRepository, cashFlowRepository,
+                Mockito.mock(PlatformTransactionManager.class));
+
+        // Sebelum diverifikasi, rollup dihitung langsung dari cash_flows
+        {
+            assert (rollupService.isVerified(driftedUserId) == false);
+            List<CashFlowRollup> rollups = rollupService.findRollups(driftedUserId);
+            assert (rollups.size() == 1);
+            assert (rollups.get(0).getMonth().equals(month));
+            assert (rollups.get(0).getLabel().equals("gaji"));
+            assert (rollups.get(0).getTotalAmount() == 1000);
+            assert (rollups.get(0).getTxCount() == 1);
+            assert (rollupService.sumBalanceBefore(driftedUserId, month) == 0);
+            assert (rollupService.sumBalanceBefore(driftedUserId, month.plusMonths(1)) == 1000);
+            verify(rollupRepository, never()).findByUserId(driftedUserId);
+        }
+
+        // Rollup konsisten tidak disentuh
+        {
+            assert (rollupService.verifyAndRebuild(consistentUserId) == true);
+            verify(rollupRepository).lockUser(consistentUserId);
+            verify(rollupRepository, never()).deleteByUserId(consistentUserId);
+            assert (rollupService.isVerified(consistentUserId) == true);
+        }
+
+        // Rollup berbeda dibangun ulang dari cash_flows, lalu dibaca dari rollup
+        {
+            assert (rollupService.verifyAndRebuild(driftedUserId) == false);
+            verify(rollupRepository).deleteByUserId(driftedUserId);
+            verify(rollupRepository).rebuildForUser(driftedUserId);
+            assert (rollupService.isVerified(driftedUserId) == true);
+
+            when(rollupRepository.sumBalanceBefore(driftedUserId, month)).thenReturn(700L);
+            assert (rollupService.findRollups(driftedUserId).get(0).getTotalAmount() == 900);
+            assert (rollupService.sumBalanceBefore(driftedUserId, month) == 700);
+        }
+
+        // Job memverifikasi user dari kedua tabel (termasuk rollup tanpa cash flow)
+        {
+            assert (rollupService.isVerified(orphanUserId) == false);
+            assert (rollupService.verifyAll() == 2);
+            verify(rollupRepository).deleteByUserId(orphanUserId);
+
+            // Setelah verifikasi penuh, user baru pun langsung dibaca dari rollup
+            assert (rollupService.isVerified(UUID.randomUUID()) == true);
+        }
+
+        // Bulan dari tanggal transaksi
+        {
+            assert (CashFlowRollupService.monthOf(LocalDateTime.of(2025, 2, 28, 23, 59)).equals(LocalDate.of(2025, 2, 1)));
+        }
+    }
+
+    @Test
+    @DisplayName("Verifikasi rollup saat startup dan saldo dari agregasi langsung")
+    void testVerifyOnStartup() throws Exception {
+        UUID userId = UUID.randomUUID();
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        CashFlowRollupRepository rollupRepository = Mockito.mock(CashFlowRollupRepository.class);
+        List<Object[]> rawRows = new ArrayList<>();
+        rawRows.add(new Object[] { "2025-10-01", "Inflow", "gaji", 5000L, 1L });
+        rawRows.add(new Object[] { "2025-10-01", "Outflow", "makan", 1500L, 2L });
+        rawRows.add(new Object[] { "2025-10-01", "Transfer", "", 300L, 1L });
+        when(cashFlowRepository.aggregateMonthly(userId)).thenReturn(rawRows);
+        when(cashFlowRepository.findDistinctUserIds()).thenThrow(new RuntimeException("database down"));
+
+        CashFlowRollupService rollupService = new CashFlowRollupService(rollupRepository, cashFlowRepository,
+                Mockito.mock(PlatformTransactionManager.class));
+
+        // Saldo dari agregasi langsung: Inflow - Outflow, tipe lain diabaikan
+        assert (rollupService.sumBalanceBefore(userId, LocalDate.of(2025, 11, 1)) == 3500);
+
+        // Verifikasi gagal tidak melempar exception dan user tetap belum terverifikasi
+        {
+            rollupService.verifyAllSafely();
+            assert (rollupService.isVerified(userId) == false);
+        }
+
+        // Verifikasi startup berjalan di background thread
+        {
+            Mockito.reset(cashFlowRepository);
+            when(cashFlowRepository.findDistinctUserIds()).thenReturn(List.of());
+            rollupService.verifyOnStartup();
+            for (int i = 0; i < 500 && !rollupService.isVerified(userId); i++) {
+                Thread.sleep(10);
+            }
+            assert (rollupService.isVerified(userId) == true);
+        }
+
+        // Kegagalan satu user tidak menghentikan verifikasi user lain
+        {
+            UUID failingUserId = UUID.randomUUID();
+            when(cashFlowRepository.findDistinctUserIds()).thenReturn(List.of(failingUserId, userId));
+            when(cashFlowRepository.aggregateMonthly(failingUserId)).thenThrow(new RuntimeException("timeout"));
+            when(cashFlowRepository.aggregateMonthly(userId)).thenReturn(rawRows);
+            CashFlowRollupService freshService = new CashFlowRollupService(rollupRepository, cashFlowRepository,
+                    Mockito.mock(PlatformTransactionManager.class));
+
+            assert (freshService.verifyAll() == 1);
+            verify(rollupRepository).rebuildForUser(userId);
+            assert (freshService.isVerified(userId) == true);
+            assert (freshService.isVerified(failingUserId) == false);
+            assert (freshService.isVerified(UUID.randomUUID()) == false);
+        }
+    }
+}
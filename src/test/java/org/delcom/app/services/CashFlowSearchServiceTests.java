@@ -0,0 +1,237 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.delcom.app.dto.CashFlowSearchResult;
+import org.delcom.app.dto.CashFlowSearchResult.Facet;
+import org.delcom.app.entities.CashFlow;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowChangedEvent.Snapshot;
+import org.delcom.app.events.CashFlowImportedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+
+public class CashFlowSearchServiceTests {
+    @TempDir
+    Path indexDir;
+
+    // Urutan uuid PostgreSQL (byte tanpa tanda), berbeda dari UUID.compareTo
+    private static int compareUuid(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    @Test
+    @DisplayName("Pengujian pencarian full-text cash flow dengan indeks Lucene di disk")
+    void testSearch() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        UUID failingUserId = UUID.randomUUID();
+        LocalDateTime november = LocalDateTime.of(2025, 11, 10, 8, 0);
+        Snapshot goreng = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 25000,
+                "Nasi goreng", november.minusMonths(1));
+        Snapshot padang = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 30000,
+                "Nasi padang", november);
+        Snapshot kotak = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Bank", "kantor", 15000,
+                "Nasi kotak", november);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (Snapshot flow : List.of(goreng, padang, kotak)) {
+            rows.add(new Object[] { flow.id(), flow.type(), flow.source(), flow.label(), flow.amount(),
+                    flow.description(), flow.createdAt() });
+        }
+        rows.sort(Comparator.comparing(row -> (UUID) row[0], CashFlowSearchServiceTests::compareUuid));
+
+        // Pembangunan indeks user lain ditahan agar antrean indexer dapat diamati
+        CountDownLatch otherUserBuilding = new CountDownLatch(1);
+        CountDownLatch releaseOtherUser = new CountDownLatch(1);
+
+        // Database hanya mengembalikan goreng dan kotak (padang sudah dihapus)
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        when(cashFlowRepository.findSearchColumnsAfter(eq(userId), any(), any())).thenAnswer(invocation -> {
+            UUID after = invocation.getArgument(1);
+            Pageable pageable = invocation.getArgument(2);
+            return rows.stream()
+                    .filter(row -> compareUuid((UUID) row[0], after) > 0)
+                    .limit(pageable.getPageSize())
+                    .toList();
+        });
+        when(cashFlowRepository.findSearchColumnsAfter(eq(otherUserId), any(), any())).thenAnswer(invocation -> {
+            otherUserBuilding.countDown();
+            releaseOtherUser.await();
+            return List.of();
+        });
+        when(cashFlowRepository.findSearchColumnsAfter(eq(failingUserId), any(), any()))
+                .thenThrow(new IllegalStateException("down"));
+        when(cashFlowRepository.findAllByUserIdAndIdIn(eq(userId), anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(1);
+            List<CashFlow> flows = new ArrayList<>();
+            for (Snapshot flow : List.of(goreng, kotak)) {
+                if (ids.contains(flow.id())) {
+                    CashFlow cashFlow = new CashFlow(userId, flow.type(), flow.source(), flow.label(),
+                            flow.amount(), flow.description());
+                    cashFlow.setId(flow.id());
+                    flows.add(cashFlow);
+                }
+            }
+            return flows;
+        });
+        CashFlowSearchService searchService = new CashFlowSearchService(cashFlowRepository, indexDir.toString(), 2);
+
+        // Menguji user yang belum diindeks dibangun di thread indexer, bukan di thread request
+        {
+            CashFlowSearchResult building = searchService.search(userId, "nasi", 10);
+            assertTrue(building.indexing());
+            searchService.awaitIndexing();
+            assertEquals(1, searchService.getBuiltCount());
+            // 3 baris dengan batch 2: dua halaman berisi dan satu halaman kosong
+            verify(cashFlowRepository, times(3)).findSearchColumnsAfter(eq(userId), any(), any());
+        }
+
+        // Menguji hits, facet terurut, dan hits yang tidak ada di database dilewati
+        {
+            CashFlowSearchResult result = searchService.search(userId, "nasi", 10);
+            assertFalse(result.indexing());
+            assertEquals("nasi", result.query());
+            assertEquals(3, result.total());
+            assertEquals(2, result.hits().size());
+            assertEquals(List.of(new Facet("makan", 2), new Facet("kantor", 1)), result.byLabel());
+            assertEquals(List.of(new Facet("Outflow", 3)), result.byType());
+            assertEquals(List.of(new Facet("2025-11", 2), new Facet("2025-10", 1)), result.byMonth());
+        }
+
+        // Menguji limit 0 dan query tanpa hasil tidak memuat cash flow dari database
+        {
+            CashFlowSearchResult facetsOnly = searchService.search(userId, "nasi", 0);
+            assertEquals(3, facetsOnly.total());
+            assertEquals(0, facetsOnly.hits().size());
+            assertEquals(0, searchService.search(userId, "sushi", 10).total());
+            verify(cashFlowRepository, times(1)).findAllByUserIdAndIdIn(any(), anyCollection());
+        }
+
+        // Menguji insert, update, dan delete diterapkan oleh thread indexer dan terlihat setelah refresh
+        {
+            Snapshot soto = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 20000,
+                    "Soto ayam", november);
+            searchService.onCashFlowChanged(new CashFlowChangedEvent(null, soto));
+            Snapshot mie = new Snapshot(goreng.id(), userId, "Outflow", "Cash", "makan", 25000, "Mie goreng",
+                    goreng.createdAt());
+            searchService.onCashFlowChanged(new CashFlowChangedEvent(goreng, mie));
+            searchService.awaitIndexing();
+            assertEquals(0, searchService.getPendingCount());
+            assertEquals(2, searchService.getIndexedCount());
+            assertEquals(0, searchService.search(userId, "soto", 10).total());
+            searchService.refresh();
+            assertEquals(1, searchService.search(userId, "soto", 10).total());
+            assertEquals(2, searchService.search(userId, "nasi", 10).total());
+            assertEquals(1, searchService.search(userId, "mie", 10).total());
+
+            searchService.onCashFlowChanged(new CashFlowChangedEvent(soto, null));
+            searchService.awaitIndexing();
+            searchService.refresh();
+            assertEquals(3, searchService.getIndexedCount());
+            assertEquals(0, searchService.search(userId, "soto", 10).total());
+
+            // Perubahan yang gagal diterapkan tidak dihitung
+            Snapshot invalid = new Snapshot(UUID.randomUUID(), userId, "Outflow", "Cash", "makan", 1, "Kopi", null);
+            searchService.onCashFlowChanged(new CashFlowChangedEvent(null, invalid));
+            searchService.awaitIndexing();
+            assertEquals(3, searchService.getIndexedCount());
+        }
+
+        // Menguji pemeriksaan konsistensi jumlah dan total amount terhadap database
+        {
+            when(cashFlowRepository.countAndSumByUserId(userId))
+                    .thenReturn(List.<Object[]>of(new Object[] { 3L, 70000L }));
+            assertEquals(0, searchService.checkConsistency());
+            // Tidak ada user aktif sejak pemeriksaan terakhir
+            assertEquals(0, searchService.checkConsistency());
+
+            // Jumlah tidak cocok: user dibangun ulang dari database
+            searchService.search(userId, "nasi", 0);
+            when(cashFlowRepository.countAndSumByUserId(userId))
+                    .thenReturn(List.<Object[]>of(new Object[] { 4L, 70000L }));
+            assertEquals(1, searchService.checkConsistency());
+            assertEquals(2, searchService.getBuiltCount());
+            assertEquals(3, searchService.search(userId, "nasi", 10).total());
+
+            // Total amount tidak cocok
+            when(cashFlowRepository.countAndSumByUserId(userId))
+                    .thenReturn(List.<Object[]>of(new Object[] { 3L, 71000L }));
+            assertEquals(1, searchService.checkConsistency());
+            assertEquals(2, searchService.getInconsistentCount());
+
+            // User yang belum pernah dibangun tidak dicocokkan
+            Snapshot gaji = new Snapshot(UUID.randomUUID(), otherUserId, "Inflow", "Bank", "gaji", 1, "Gaji", november);
+            searchService.onCashFlowChanged(new CashFlowChangedEvent(null, gaji));
+            searchService.awaitIndexing();
+            assertEquals(0, searchService.checkConsistency());
+            verify(cashFlowRepository, never()).countAndSumByUserId(otherUserId);
+        }
+
+        // Menguji rename label dan import membangun ulang indeks user sekali walaupun diantrekan berulang
+        {
+            searchService.search(otherUserId, "gaji", 0);
+            otherUserBuilding.await();
+            searchService.onLabelRenamed(new CashFlowLabelRenamedEvent(userId, "makan", "konsumsi"));
+            searchService.onImported(new CashFlowImportedEvent(userId, 100));
+            releaseOtherUser.countDown();
+            searchService.awaitIndexing();
+            assertEquals(5, searchService.getBuiltCount());
+            assertFalse(searchService.search(otherUserId, "gaji", 0).indexing());
+        }
+
+        // Menguji kegagalan membangun indeks tidak menghentikan antrean dan dicoba ulang pada pencarian berikutnya
+        {
+            assertTrue(searchService.search(failingUserId, "nasi", 0).indexing());
+            searchService.awaitIndexing();
+            assertEquals(5, searchService.getBuiltCount());
+            when(cashFlowRepository.countAndSumByUserId(otherUserId))
+                    .thenReturn(List.<Object[]>of(new Object[] { 0L, 0L }));
+            assertEquals(0, searchService.checkConsistency());
+            assertTrue(searchService.search(failingUserId, "nasi", 0).indexing());
+            searchService.awaitIndexing();
+            verify(cashFlowRepository, times(2)).findSearchColumnsAfter(eq(failingUserId), any(), any());
+        }
+
+        // Menguji rebuild harian seluruh user yang sudah diindeks
+        {
+            assertEquals(2, searchService.rebuildAll());
+            searchService.awaitIndexing();
+            assertEquals(7, searchService.getBuiltCount());
+            searchService.shutdown();
+        }
+
+        // Menguji indeks tetap tersedia setelah aplikasi dijalankan ulang
+        {
+            CashFlowSearchService restarted = new CashFlowSearchService(cashFlowRepository, indexDir.toString(), 2);
+            CashFlowSearchResult result = restarted.search(userId, "nasi", 0);
+            assertFalse(result.indexing());
+            assertEquals(3, result.total());
+            restarted.shutdown();
+        }
+    }
+}
@@ -3,15 +3,24 @@ package org.delcom.app.services;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq; // 👈 Import eq
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.LocalDate;
 import java.util.UUID;
 
+import org.delcom.app.dto.CashFlowSummary;
 import org.delcom.app.entities.CashFlow;
+import org.delcom.app.entities.CashFlowTerm;
+import org.delcom.app.events.CashFlowChangedEvent;
+import org.delcom.app.events.CashFlowLabelRenamedEvent;
 import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.repositories.CashFlowRollupRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
 
 public class CashFlowServiceTest {
     @Test
@@ -37,8 +46,8 @@ public class CashFlowServiceTest {
         // 2. READ ALL / SEARCH
         // Untuk pencarian dengan keyword
         when(cashFlowRepository.findByKeyword(eq(userId), eq("BANK"))).thenReturn(java.util.List.of(cashFlow));
-        // Untuk findAll (sekarang diimplementasikan sebagai findByKeyword dengan keyword kosong di Service)
-        when(cashFlowRepository.findByKeyword(eq(userId), eq(""))).thenReturn(java.util.List.of(cashFlow));
+        // Untuk findAll (keyword kosong tidak lagi memakai predikat LIKE)
+        when(cashFlowRepository.findAllByUserId(eq(userId))).thenReturn(java.util.List.of(cashFlow));
 
         // 3. READ BY ID (Menggunakan findByUserIdAndId)
         when(cashFlowRepository.findByUserIdAndId(eq(userId), eq(cashFlowId))).thenReturn(cashFlow);
@@ -58,8 +67,16 @@ public class CashFlowServiceTest {
         when(cashFlowRepository.existsByUserIdAndId(eq(userId), eq(nonexistentCashFlowId))).thenReturn(false);
         doNothing().when(cashFlowRepository).deleteById(any(UUID.class));
 
+        // 7. KAMUS type/source/label
+        CashFlowTermService cashFlowTermService = Mockito.mock(CashFlowTermService.class);
+        when(cashFlowTermService.resolve(eq(userId), any(), any())).thenAnswer(
+                invocation -> new CashFlowTerm(userId, invocation.getArgument(1), invocation.getArgument(2)));
+
         // Membuat instance service
-        CashFlowService cashFlowService = new CashFlowService(cashFlowRepository);
+        ApplicationEventPublisher eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        CashFlowService cashFlowService = new CashFlowService(cashFlowRepository,
+                Mockito.mock(CashFlowRollupRepository.class), Mockito.mock(CashFlowRollupService.class),
+                cashFlowTermService, eventPublisher);
         assert (cashFlowService != null);
 
         // ------------------------------------------------------------------------------------------
@@ -73,6 +90,12 @@ public class CashFlowServiceTest {
             assert (createdCashFlow.getUserId().equals(userId)); // 👈 Uji userId
             assert (createdCashFlow.getType().equals("IN"));
             // ... assertion lain tetap sama
+            verify(eventPublisher).publishEvent(Mockito.<CashFlowChangedEvent>argThat(
+                    event -> event.before() == null && event.after().id().equals(cashFlowId)));
+            // Kamus user dikunci sebelum entri di-resolve
+            InOrder order = Mockito.inOrder(cashFlowTermService);
+            order.verify(cashFlowTermService).lock(userId);
+            order.verify(cashFlowTermService, Mockito.times(3)).resolve(eq(userId), any(), any());
         }
 
         // Menguji getAllCashFlows
@@ -93,6 +116,54 @@ public class CashFlowServiceTest {
             assert (cashFlows.size() == 1);
         }
 
+        // Menguji getCashFlowPage dengan keyset pagination
+        {
+            CashFlow older = new CashFlow(userId, "IN", "BANK", "Salary", 500, "Older");
+            older.setId(UUID.randomUUID());
+            CashFlow oldest = new CashFlow(userId, "IN", "BANK", "Salary", 250, "Oldest");
+            oldest.setId(UUID.randomUUID());
+            older.onCreate();
+            when(cashFlowRepository.findPage(eq(userId), any(), any(), any(), any(), any(), any(), any()))
+                    .thenReturn(java.util.List.of(cashFlow, older, oldest));
+
+            // Halaman penuh menghasilkan cursor dari item terakhir
+            var page = cashFlowService.getCashFlowPage(userId, null, null, null, null, null, 2);
+            assert (page.items().size() == 2);
+            assert (page.nextCursor().equals(CashFlowService.encodeCursor(older.getCreatedAt(), older.getId())));
+            verify(cashFlowRepository).findPage(eq(userId), eq(LocalDate.of(1970, 1, 1).atStartOfDay()),
+                    eq(LocalDate.of(9999, 1, 1).atStartOfDay()), eq(LocalDate.of(9999, 1, 1).atStartOfDay()),
+                    eq(new UUID(-1L, -1L)), eq(null), eq(null),
+                    eq(org.springframework.data.domain.PageRequest.of(0, 3)));
+
+            // Halaman terakhir tanpa cursor berikutnya; cursor dan filter diteruskan ke repository
+            CashFlowTerm typeTerm = Mockito.mock(CashFlowTerm.class);
+            when(typeTerm.getId()).thenReturn(7);
+            CashFlowTerm labelTerm = Mockito.mock(CashFlowTerm.class);
+            when(labelTerm.getId()).thenReturn(9);
+            when(cashFlowTermService.find(userId, CashFlowTerm.Kind.TYPE, "IN")).thenReturn(typeTerm);
+            when(cashFlowTermService.find(userId, CashFlowTerm.Kind.LABEL, "Salary")).thenReturn(labelTerm);
+            page = cashFlowService.getCashFlowPage(userId, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31),
+                    "IN", "Salary", page.nextCursor(), 5);
+            assert (page.items().size() == 3);
+            assert (page.nextCursor() == null);
+            verify(cashFlowRepository).findPage(eq(userId), eq(LocalDate.of(2025, 1, 1).atStartOfDay()),
+                    eq(LocalDate.of(2025, 2, 1).atStartOfDay()), eq(older.getCreatedAt()), eq(older.getId()),
+                    eq(7), eq(9), eq(org.springframework.data.domain.PageRequest.of(0, 6)));
+
+            // Tipe atau label yang tidak ada di kamus menghasilkan halaman kosong
+            page = cashFlowService.getCashFlowPage(userId, null, null, "OUT", null, null, 5);
+            assert (page.items().isEmpty() && page.nextCursor() == null);
+            page = cashFlowService.getCashFlowPage(userId, null, null, null, "Unknown", null, 5);
+            assert (page.items().isEmpty() && page.nextCursor() == null);
+
+            // Cursor yang tidak valid
+            assert (cashFlowService.getCashFlowPage(userId, null, null, null, null, "%%%", 5) == null);
+            String noSeparator = java.util.Base64.getUrlEncoder().encodeToString("abc".getBytes());
+            assert (cashFlowService.getCashFlowPage(userId, null, null, null, null, noSeparator, 5) == null);
+            String badDate = java.util.Base64.getUrlEncoder().encodeToString(("kemarin|" + userId).getBytes());
+            assert (cashFlowService.getCashFlowPage(userId, null, null, null, null, badDate, 5) == null);
+        }
+
         // Menguji getCashFlowById
         {
             // 👈 Tambahkan userId
@@ -115,6 +186,12 @@ public class CashFlowServiceTest {
             var labels = cashFlowService.getCashFlowLabels(userId);
             assert (labels.size() == 1);
             assert (labels.get(0).equals("Salary"));
+
+            // findDistinctLabels mengikat Kind.LABEL sebagai parameter (bukan ordinal tetap)
+            CashFlowRepository labelRepository = Mockito.mock(CashFlowRepository.class, Mockito.CALLS_REAL_METHODS);
+            Mockito.doReturn(java.util.List.of("Salary")).when(labelRepository)
+                    .findTermNames(userId, CashFlowTerm.Kind.LABEL);
+            assert (labelRepository.findDistinctLabels(userId).equals(java.util.List.of("Salary")));
         }
 
         // Menguji updateCashFlow
@@ -131,6 +208,20 @@ public class CashFlowServiceTest {
             assert (updatedCashFlow != null);
             assert (updatedCashFlow.getUserId().equals(userId)); // 👈 Uji userId
             // ...
+            verify(eventPublisher).publishEvent(Mockito.<CashFlowChangedEvent>argThat(
+                    event -> event.before() != null && event.after() != null
+                            && event.before().type().equals("IN") && event.after().type().equals("OUT")));
+            assert (updatedCashFlow.getLabelTerm().getName().equals("Withdraw"));
+
+            // Label dan source yang sama tidak memicu penghapusan entri kamus
+            CashFlowTerm label = updatedCashFlow.getLabelTerm();
+            CashFlowTerm source = updatedCashFlow.getSourceTerm();
+            when(cashFlowTermService.resolve(userId, CashFlowTerm.Kind.LABEL, "Withdraw")).thenReturn(label);
+            when(cashFlowTermService.resolve(userId, CashFlowTerm.Kind.SOURCE, "ATM")).thenReturn(source);
+            cashFlowService.updateCashFlow(cashFlowId, userId, updatedType, updatedSource, updatedLabel,
+                    updatedAmount, updatedDescription);
+            verify(cashFlowTermService, Mockito.never()).pruneIfUnused(label);
+            verify(cashFlowTermService, Mockito.never()).pruneIfUnused(source);
         }
 
         // Menguji update CashFlow dengan ID yang tidak ada
@@ -150,6 +241,11 @@ public class CashFlowServiceTest {
             // 👈 Tambahkan userId
             boolean deleted = cashFlowService.deleteCashFlow(cashFlowId, userId);
             assert (deleted == true);
+            verify(cashFlowTermService).pruneIfUnused(cashFlow.getLabelTerm());
+            verify(eventPublisher).publishEvent(Mockito.<CashFlowChangedEvent>argThat(
+                    event -> event.after() == null && event.userId().equals(userId)));
+            // Create, dua update, dan delete masing-masing mengunci kamus user
+            verify(cashFlowTermService, Mockito.times(4)).lock(userId);
         }
 
         // Menguji deleteCashFlow dengan ID yang tidak ada
@@ -159,4 +255,144 @@ public class CashFlowServiceTest {
             assert (deleted == false);
         }
     }
+
+    @Test
+    @DisplayName("Pengujian ringkasan (GROUP BY) pada service CashFlow")
+    void testCashFlowSummary() throws Exception {
+        UUID userId = UUID.randomUUID();
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        CashFlowRollupRepository cashFlowRollupRepository = Mockito.mock(CashFlowRollupRepository.class);
+
+        CashFlowSummary inflow = new CashFlowSummary("Inflow", "Inflow", 5000, 2);
+        when(cashFlowRepository.sumByType(eq(userId), any(), any())).thenReturn(java.util.List.of(inflow));
+        when(cashFlowRepository.sumByLabel(eq(userId), any(), any()))
+                .thenReturn(java.util.List.of(new CashFlowSummary("gaji", "Inflow", 5000, 2)));
+        when(cashFlowRepository.sumBySource(eq(userId), any(), any()))
+                .thenReturn(java.util.List.of(new CashFlowSummary("Bank", "Inflow", 5000, 2)));
+        java.util.List<Object[]> periodRows = new java.util.ArrayList<>();
+        periodRows.add(new Object[] { "2025-11-01", "Inflow", 5000L, 2L });
+        when(cashFlowRepository.sumByPeriod(eq(userId), any(), any(), any())).thenReturn(periodRows);
+
+        CashFlowSummary rollupRow = new CashFlowSummary("2025-11-01", "Inflow", 7000, 3);
+        when(cashFlowRollupRepository.sumByType(eq(userId), any(), any())).thenReturn(java.util.List.of(rollupRow));
+        when(cashFlowRollupRepository.sumByLabel(eq(userId), any(), any())).thenReturn(java.util.List.of(rollupRow));
+        when(cashFlowRollupRepository.sumByMonth(eq(userId), any(), any())).thenReturn(java.util.List.of(rollupRow));
+
+        CashFlowRollupService cashFlowRollupService = Mockito.mock(CashFlowRollupService.class);
+        when(cashFlowRollupService.isVerified(userId)).thenReturn(true);
+
+        CashFlowService cashFlowService = new CashFlowService(cashFlowRepository, cashFlowRollupRepository,
+                cashFlowRollupService, Mockito.mock(CashFlowTermService.class),
+                Mockito.mock(ApplicationEventPublisher.class));
+
+        LocalDate midFrom = LocalDate.of(2025, 1, 5);
+        LocalDate midTo = LocalDate.of(2025, 1, 20);
+
+        // Rentang tanpa batas dibaca dari rollup bulanan
+        {
+            var summary = cashFlowService.getCashFlowSummary(userId, "type", null, null);
+            assert (summary.get(0).total() == 7000);
+            verify(cashFlowRollupRepository).sumByType(userId, LocalDate.of(1970, 1, 1), LocalDate.of(9998, 12, 1));
+        }
+
+        // Rentang per bulan penuh (tanggal akhir inklusif) juga dibaca dari rollup
+        {
+            var summary = cashFlowService.getCashFlowSummary(userId, "label", LocalDate.of(2025, 1, 1),
+                    LocalDate.of(2025, 3, 31));
+            assert (summary.get(0).total() == 7000);
+            verify(cashFlowRollupRepository).sumByLabel(userId, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 1));
+
+            summary = cashFlowService.getCashFlowSummary(userId, "month", null, null);
+            assert (summary.get(0).count() == 3);
+        }
+
+        // Rollup yang belum diverifikasi (mis. cash flow lama sebelum rollup ada) tidak dibaca
+        {
+            UUID unverifiedUserId = UUID.randomUUID();
+            when(cashFlowRepository.sumByType(eq(unverifiedUserId), any(), any()))
+                    .thenReturn(java.util.List.of(inflow));
+            var summary = cashFlowService.getCashFlowSummary(unverifiedUserId, "type", null, null);
+            assert (summary.get(0).total() == 5000);
+            verify(cashFlowRollupRepository, Mockito.never()).sumByType(eq(unverifiedUserId), any(), any());
+        }
+
+        // Rentang di tengah bulan memakai GROUP BY di tabel cash_flows
+        {
+            var summary = cashFlowService.getCashFlowSummary(userId, "type", midFrom, midTo);
+            assert (summary.get(0).total() == 5000);
+            verify(cashFlowRepository).sumByType(userId, midFrom.atStartOfDay(), LocalDate.of(2025, 1, 21).atStartOfDay());
+
+            summary = cashFlowService.getCashFlowSummary(userId, "label", midFrom, null);
+            assert (summary.get(0).key().equals("gaji"));
+        }
+
+        // Group by source dan periode
+        {
+            assert (cashFlowService.getCashFlowSummary(userId, "source", null, null).get(0).key().equals("Bank"));
+
+            var summary = cashFlowService.getCashFlowSummary(userId, "month", null, midTo);
+            assert (summary.size() == 1);
+            assert (summary.get(0).key().equals("2025-11-01"));
+            assert (summary.get(0).type().equals("Inflow"));
+            assert (summary.get(0).total() == 5000);
+            assert (summary.get(0).count() == 2);
+
+            assert (cashFlowService.getCashFlowSummary(userId, "day", null, null).size() == 1);
+            assert (cashFlowService.getCashFlowSummary(userId, "week", null, null).size() == 1);
+        }
+
+        // groupBy tidak dikenal
+        {
+            assert (cashFlowService.getCashFlowSummary(userId, "year", null, null) == null);
+        }
+    }
+
+    @Test
+    @DisplayName("Pengujian rename label pada service CashFlow")
+    void testRenameLabel() throws Exception {
+        UUID userId = UUID.randomUUID();
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        CashFlowTermService cashFlowTermService = Mockito.mock(CashFlowTermService.class);
+        ApplicationEventPublisher eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        CashFlowService cashFlowService = new CashFlowService(cashFlowRepository,
+                Mockito.mock(CashFlowRollupRepository.class), Mockito.mock(CashFlowRollupService.class),
+                cashFlowTermService, eventPublisher);
+
+        CashFlowTerm makan = new CashFlowTerm(userId, CashFlowTerm.Kind.LABEL, "makan");
+        CashFlowTerm konsumsi = new CashFlowTerm(userId, CashFlowTerm.Kind.LABEL, "konsumsi");
+        when(cashFlowTermService.find(userId, CashFlowTerm.Kind.LABEL, "makan")).thenReturn(makan);
+        when(cashFlowTermService.find(userId, CashFlowTerm.Kind.LABEL, "konsumsi")).thenReturn(konsumsi);
+
+        // Menguji label yang tidak ada
+        {
+            assert (!cashFlowService.renameLabel(userId, "tidak-ada", "baru"));
+        }
+
+        // Menguji rename ke nama yang sama tidak mengubah apa pun
+        {
+            assert (cashFlowService.renameLabel(userId, "makan", "makan"));
+            verify(eventPublisher, Mockito.never()).publishEvent(any(Object.class));
+        }
+
+        // Menguji rename ke label baru cukup mengubah entri kamus
+        {
+            assert (cashFlowService.renameLabel(userId, "makan", "jajan"));
+            assert (makan.getName().equals("jajan"));
+            verify(cashFlowRepository, Mockito.never()).relabel(any(), any(), any());
+            verify(eventPublisher).publishEvent(new CashFlowLabelRenamedEvent(userId, "makan", "jajan"));
+        }
+
+        // Menguji rename ke label yang sudah ada menggabungkan kedua label
+        {
+            CashFlowTerm lain = new CashFlowTerm(userId, CashFlowTerm.Kind.LABEL, "snack");
+            when(cashFlowTermService.find(userId, CashFlowTerm.Kind.LABEL, "snack")).thenReturn(lain);
+
+            assert (cashFlowService.renameLabel(userId, "snack", "konsumsi"));
+            verify(cashFlowRepository).relabel(userId, lain, konsumsi);
+            verify(cashFlowTermService).delete(lain);
+            verify(eventPublisher).publishEvent(new CashFlowLabelRenamedEvent(userId, "snack", "konsumsi"));
+            // Setiap rename mengunci kamus user sebelum mencari label
+            verify(cashFlowTermService, Mockito.times(4)).lock(userId);
+        }
+    }
 }
\ No newline at end of file
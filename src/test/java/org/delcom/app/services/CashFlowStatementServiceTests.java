@@ -0,0 +1,231 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.delcom.app.dto.CashFlowMonthlyStatement;
+import org.delcom.app.dto.CashFlowSummary;
+import org.delcom.app.entities.CashFlowStatement;
+import org.delcom.app.entities.CashFlowStatementRun;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.repositories.CashFlowStatementRepository;
+import org.delcom.app.repositories.CashFlowStatementRunRepository;
+import org.delcom.app.repositories.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class CashFlowStatementServiceTests {
+    private static final LocalDate NOVEMBER = LocalDate.of(2025, 11, 1);
+
+    private final List<UUID> userIds = new ArrayList<>();
+    private final Map<CashFlowStatement.Key, CashFlowStatement> statements = new ConcurrentHashMap<>();
+    private final Map<LocalDate, CashFlowStatementRun> runs = new ConcurrentHashMap<>();
+
+    private final UserRepository userRepository = Mockito.mock(UserRepository.class);
+    private final CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+    private final CashFlowRollupService rollupService = Mockito.mock(CashFlowRollupService.class);
+    private final CashFlowStatementRepository statementRepository = Mockito.mock(CashFlowStatementRepository.class);
+    private final CashFlowStatementRunRepository runRepository = Mockito.mock(CashFlowStatementRunRepository.class);
+
+    // Repository in-memory: user berurutan sesuai list, laporan dan run disimpan di map
+    @SuppressWarnings("unchecked")
+    private CashFlowStatementService newService(int maxUsersPerSecond) {
+        for (int i = 0; i < 5; i++) {
+            userIds.add(UUID.randomUUID());
+        }
+        when(userRepository.findIdsAfter(any(), any())).thenAnswer(invocation -> {
+            UUID after = invocation.getArgument(0);
+            Pageable pageable = invocation.getArgument(1);
+            int from = userIds.indexOf(after) + 1;
+            return List.copyOf(userIds.subList(from, Math.min(from + pageable.getPageSize(), userIds.size())));
+        });
+        when(statementRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            for (CashFlowStatement statement : (List<CashFlowStatement>) invocation.getArgument(0)) {
+                statements.put(new CashFlowStatement.Key(statement.getUserId(), statement.getMonth()), statement);
+            }
+            return invocation.getArgument(0);
+        });
+        when(statementRepository.findById(any()))
+                .thenAnswer(invocation -> Optional.ofNullable(statements.get(invocation.getArgument(0))));
+        when(runRepository.save(any())).thenAnswer(invocation -> {
+            CashFlowStatementRun run = invocation.getArgument(0);
+            runs.put(run.getMonth(), run);
+            return run;
+        });
+        when(runRepository.findById(any()))
+                .thenAnswer(invocation -> Optional.ofNullable(runs.get(invocation.getArgument(0))));
+        when(runRepository.findByStatus(CashFlowStatementRun.RUNNING)).thenAnswer(invocation -> runs.values()
+                .stream().filter(run -> run.getStatus().equals(CashFlowStatementRun.RUNNING)).toList());
+
+        return new CashFlowStatementService(statementRepository, runRepository, userRepository, cashFlowRepository,
+                rollupService, Mockito.mock(PlatformTransactionManager.class), 2, 2, maxUsersPerSecond, 2);
+    }
+
+    @Test
+    @DisplayName("Pengujian batch laporan bulanan paralel dengan checkpoint")
+    void testGenerate() {
+        CashFlowStatementService statementService = newService(1_000_000);
+        UUID userId = userIds.get(0);
+        UUID failingUserId = userIds.get(2);
+        LocalDateTime from = NOVEMBER.atStartOfDay();
+        LocalDateTime to = NOVEMBER.plusMonths(1).atStartOfDay();
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { UUID.randomUUID(), "Inflow", "Bank", "gaji", 5000000, from.plusHours(8) });
+        rows.add(new Object[] { UUID.randomUUID(), "Outflow", "Cash", "makan", 25000, from.plusDays(1) });
+        rows.add(new Object[] { UUID.randomUUID(), "Outflow", "Cash", null, 15000, from.plusDays(2) });
+        rows.add(new Object[] { UUID.randomUUID(), "Outflow", "Cash", "makan", 50000, from.plusDays(3) });
+        rows.add(new Object[] { UUID.randomUUID(), "Transfer", "Bank", "tabungan", 1000, from.plusDays(4) });
+        when(cashFlowRepository.findColumnsInRange(userId, from, to)).thenReturn(rows);
+        when(rollupService.sumBalanceBefore(userId, NOVEMBER)).thenReturn(100000L);
+        when(cashFlowRepository.findColumnsInRange(failingUserId, from, to))
+                .thenThrow(new IllegalStateException("replica down"));
+
+        // Menguji seluruh user diproses per gelombang dan run tetap RUNNING selama ada user gagal
+        {
+            CashFlowStatementRun run = statementService.generate(NOVEMBER);
+            assertEquals(CashFlowStatementRun.RUNNING, run.getStatus());
+            assertEquals(4, run.getProcessedUsers());
+            assertEquals(1, run.getFailedUsers());
+            assertEquals(Set.of(failingUserId), run.getFailedUserIds());
+            assertEquals(userIds.get(4), run.getCheckpointUserId());
+            assertNull(run.getCompletedAt());
+            assertEquals(4, statementService.getGeneratedUserCount());
+            // Gagal di gelombang dan saat dicoba ulang
+            assertEquals(2, statementService.getFailedUserCount());
+            assertTrue(statementService.getLastRunElapsedMs() >= 0);
+            assertTrue(statementService.getLastRunUsersPerMinute() > 0);
+            verify(userRepository, times(3)).findIdsAfter(any(), any());
+        }
+
+        // Menguji isi laporan
+        {
+            CashFlowMonthlyStatement statement = statementService.getStatement(userId, NOVEMBER.plusDays(14));
+            assertEquals(NOVEMBER, statement.month());
+            assertEquals(100000, statement.openingBalance());
+            assertEquals(5000000, statement.totalInflow());
+            assertEquals(90000, statement.totalOutflow());
+            assertEquals(5010000, statement.closingBalance());
+            assertEquals(5, statement.txCount());
+            assertEquals(List.of(new CashFlowSummary("Inflow", "Inflow", 5000000, 1),
+                    new CashFlowSummary("Outflow", "Outflow", 90000, 3),
+                    new CashFlowSummary("Transfer", "Transfer", 1000, 1)), statement.byType());
+            assertEquals(List.of(new CashFlowSummary("", "Outflow", 15000, 1),
+                    new CashFlowSummary("gaji", "Inflow", 5000000, 1),
+                    new CashFlowSummary("makan", "Outflow", 75000, 2),
+                    new CashFlowSummary("tabungan", "Transfer", 1000, 1)), statement.byLabel());
+            assertEquals(2, statement.topExpenses().size());
+            assertEquals(50000, statement.topExpenses().get(0).amount());
+            assertEquals(25000, statement.topExpenses().get(1).amount());
+
+            CashFlowStatement stored = statements.get(new CashFlowStatement.Key(userId, NOVEMBER));
+            assertEquals(5010000, stored.getClosingBalance());
+            assertEquals(5, stored.getTxCount());
+            assertEquals(statement.generatedAt(), stored.getGeneratedAt());
+
+            CashFlowMonthlyStatement empty = statementService.getStatement(userIds.get(1), NOVEMBER);
+            assertEquals(0, empty.closingBalance());
+            assertEquals(0, empty.topExpenses().size());
+            assertNull(statementService.getStatement(failingUserId, NOVEMBER));
+        }
+
+        // Menguji user gagal dicoba ulang oleh resume sebelum run ditandai selesai
+        {
+            Mockito.doReturn(List.of()).when(cashFlowRepository).findColumnsInRange(failingUserId, from, to);
+            statementService.resumeIncomplete();
+            CashFlowStatementRun run = runs.get(NOVEMBER);
+            assertEquals(CashFlowStatementRun.COMPLETED, run.getStatus());
+            assertEquals(5, run.getProcessedUsers());
+            assertEquals(0, run.getFailedUsers());
+            assertEquals(run.getUpdatedAt(), run.getCompletedAt());
+            assertTrue(!run.getStartedAt().isAfter(run.getCompletedAt()));
+            assertEquals(0, statementService.getStatement(failingUserId, NOVEMBER).closingBalance());
+            verify(cashFlowRepository, times(1)).findColumnsInRange(userId, from, to);
+            verify(userRepository, times(4)).findIdsAfter(any(), any());
+        }
+
+        // Menguji run yang sudah selesai tidak diulang
+        {
+            CashFlowStatementRun run = statementService.generate(NOVEMBER);
+            assertEquals(CashFlowStatementRun.COMPLETED, run.getStatus());
+            verify(userRepository, times(4)).findIdsAfter(any(), any());
+        }
+    }
+
+    @Test
+    @DisplayName("Run yang terputus dilanjutkan dari checkpoint terakhir")
+    void testResume() {
+        CashFlowStatementService statementService = newService(0);
+        AtomicInteger saveCalls = new AtomicInteger();
+        Mockito.doAnswer(invocation -> {
+            // Gelombang kedua (chunk ketiga) gagal disimpan
+            if (saveCalls.incrementAndGet() == 3) {
+                throw new IllegalStateException("connection reset");
+            }
+            return invocation.getArgument(0);
+        }).when(statementRepository).saveAll(anyList());
+
+        // Menguji kegagalan menyimpan chunk menghentikan run di checkpoint gelombang sebelumnya
+        {
+            assertThrows(CompletionException.class, () -> statementService.generate(NOVEMBER));
+            CashFlowStatementRun run = runs.get(NOVEMBER);
+            assertEquals(CashFlowStatementRun.RUNNING, run.getStatus());
+            assertEquals(userIds.get(3), run.getCheckpointUserId());
+            assertEquals(4, run.getProcessedUsers());
+            assertNull(run.getCompletedAt());
+        }
+
+        // Menguji resume hanya memproses user setelah checkpoint
+        {
+            statementService.resumeIncomplete();
+            CashFlowStatementRun run = runs.get(NOVEMBER);
+            assertEquals(CashFlowStatementRun.COMPLETED, run.getStatus());
+            assertEquals(5, run.getProcessedUsers());
+            verify(userRepository, times(2)).findIdsAfter(eq(userIds.get(3)), any());
+            verify(cashFlowRepository, times(1)).findColumnsInRange(eq(userIds.get(0)), any(), any());
+            verify(cashFlowRepository, times(2)).findColumnsInRange(eq(userIds.get(4)), any(), any());
+        }
+    }
+
+    @Test
+    @DisplayName("Batch bulan sebelumnya dan batch yang sedang berjalan tidak dijalankan ganda")
+    void testGeneratePreviousMonth() {
+        CashFlowStatementService statementService = newService(0);
+        userIds.clear();
+        List<CashFlowStatementRun> nested = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            nested.add(statementService.generate(NOVEMBER));
+            return List.of();
+        }).when(userRepository).findIdsAfter(any(), any());
+
+        statementService.generatePreviousMonth();
+        LocalDate previousMonth = LocalDate.now().minusMonths(1).withDayOfMonth(1);
+        assertEquals(CashFlowStatementRun.COMPLETED, runs.get(previousMonth).getStatus());
+        assertEquals(0, runs.get(previousMonth).getProcessedUsers());
+        assertEquals(1, nested.size());
+        assertNull(nested.get(0));
+    }
+}
@@ -0,0 +1,88 @@
+package org.delcom.app.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.entities.CashFlowTerm;
+import org.delcom.app.entities.CashFlowTerm.Kind;
+import org.delcom.app.repositories.CashFlowTermRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class CashFlowTermServiceTests {
+    @Test
+    @DisplayName("Pengujian kamus type/source/label CashFlow")
+    void testCashFlowTermService() throws Exception {
+        UUID userId = UUID.randomUUID();
+        CashFlowTermRepository termRepository = Mockito.mock(CashFlowTermRepository.class);
+        CashFlowTermService termService = new CashFlowTermService(termRepository);
+
+        CashFlowTerm gaji = new CashFlowTerm(userId, Kind.LABEL, "gaji");
+        gaji.setId(1);
+        CashFlowTerm bank = new CashFlowTerm(userId, Kind.SOURCE, "Bank");
+        bank.setId(2);
+        CashFlowTerm inflow = new CashFlowTerm(userId, Kind.TYPE, "Inflow");
+        inflow.setId(3);
+
+        // Menguji resolve untuk entri yang sudah ada
+        {
+            when(termRepository.findByUserIdAndKindAndName(userId, Kind.LABEL, "gaji")).thenReturn(gaji);
+
+            assert (termService.resolve(userId, Kind.LABEL, "gaji") == gaji);
+            assert (termService.find(userId, Kind.LABEL, "gaji") == gaji);
+            verify(termRepository, never()).insertIfAbsent(any(), anyInt(), any());
+        }
+
+        // Menguji resolve membuat entri baru
+        {
+            when(termRepository.findByUserIdAndKindAndName(userId, Kind.SOURCE, "Bank")).thenReturn(null, bank);
+
+            assert (termService.resolve(userId, Kind.SOURCE, "Bank") == bank);
+            verify(termRepository).insertIfAbsent(userId, 1, "Bank");
+        }
+
+        // Menguji resolve nilai null
+        {
+            assert (termService.resolve(userId, Kind.LABEL, null) == null);
+        }
+
+        // Menguji daftar nama dan hapus entri
+        {
+            when(termRepository.findNames(userId, Kind.LABEL)).thenReturn(List.of("gaji"));
+            assert (termService.getNames(userId, Kind.LABEL).equals(List.of("gaji")));
+
+            termService.delete(gaji);
+            verify(termRepository).delete(gaji);
+        }
+
+        // Menguji kunci kamus per user
+        {
+            termService.lock(userId);
+            verify(termRepository).lockUser(userId);
+        }
+
+        // Menguji penghapusan entri yang tidak dipakai
+        {
+            termService.pruneIfUnused(gaji);
+            verify(termRepository).deleteLabelIfUnused(1);
+
+            termService.pruneIfUnused(bank);
+            verify(termRepository).deleteSourceIfUnused(2);
+
+            // Type, null, dan entri yang belum disimpan diabaikan
+            termService.pruneIfUnused(inflow);
+            termService.pruneIfUnused(null);
+            termService.pruneIfUnused(new CashFlowTerm(userId, Kind.LABEL, "baru"));
+            verify(termRepository, never()).deleteLabelIfUnused(3);
+            verify(termRepository, never()).deleteSourceIfUnused(3);
+            verify(termRepository, never()).deleteLabelIfUnused(null);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.delcom.app.dto.CashFlowSummary;
+import org.delcom.app.dto.DashboardSummary;
+import org.delcom.app.dto.TodoProgress;
+import org.delcom.app.entities.Todo;
+import org.delcom.app.entities.User;
+import org.delcom.app.repositories.CashFlowRepository;
+import org.delcom.app.repositories.CashFlowRollupRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class DashboardServiceTests {
+    private final UUID userId = UUID.randomUUID();
+
+    private User user() {
+        User user = new User("Test User", "test@example.com");
+        user.setId(userId);
+        return user;
+    }
+
+    @Test
+    @DisplayName("Seluruh bagian dashboard diambil bersamaan dalam satu payload")
+    void testGetDashboard() {
+        User user = user();
+        Todo todo = new Todo(userId, "Bayar listrik", "Token listrik", false);
+        List<CashFlowSummary> totals = List.of(new CashFlowSummary("Inflow", "Inflow", 5000000, 2),
+                new CashFlowSummary("Outflow", "Outflow", 45000, 3));
+        TodoService todoService = Mockito.mock(TodoService.class);
+        CashFlowService cashFlowService = Mockito.mock(CashFlowService.class);
+        when(todoService.getTodoCounts(userId)).thenReturn(new TodoProgress(4, 1));
+        when(todoService.getRecentTodos(userId)).thenReturn(List.of(todo));
+        when(cashFlowService.getCashFlowSummary(userId, "type", null, null)).thenReturn(totals);
+        when(cashFlowService.getCashFlowLabels(userId)).thenReturn(List.of("gaji", "makan"));
+        DashboardService dashboardService = new DashboardService(todoService, cashFlowService, 5000, 5000);
+
+        DashboardSummary summary = dashboardService.getDashboard(user);
+        assertSame(user, summary.user());
+        assertEquals(new TodoProgress(4, 1), summary.todoCounts());
+        assertEquals(List.of(todo), summary.recentTodos());
+        assertEquals(totals, summary.cashFlowTotals());
+        assertEquals(List.of("gaji", "makan"), summary.labels());
+        assertEquals(List.of(), summary.incompleteSections());
+        assertEquals(0, dashboardService.getIncompleteCount());
+        dashboardService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Total cash flow lama tetap muncul sebelum rollup user diverifikasi")
+    void testDashboardBeforeRollupVerified() {
+        List<CashFlowSummary> rawTotals = List.of(new CashFlowSummary("Inflow", "Inflow", 5000000, 2),
+                new CashFlowSummary("Outflow", "Outflow", 45000, 3));
+        CashFlowRepository cashFlowRepository = Mockito.mock(CashFlowRepository.class);
+        CashFlowRollupRepository cashFlowRollupRepository = Mockito.mock(CashFlowRollupRepository.class);
+        // Cash flow sudah ada sebelum tabel rollup diisi: rollup masih kosong
+        when(cashFlowRepository.sumByType(eq(userId), any(), any())).thenReturn(rawTotals);
+        when(cashFlowRollupRepository.sumByType(eq(userId), any(), any())).thenReturn(List.of());
+        when(cashFlowRepository.findDistinctLabels(userId)).thenReturn(List.of("gaji"));
+        CashFlowRollupService cashFlowRollupService = new CashFlowRollupService(cashFlowRollupRepository,
+                cashFlowRepository, Mockito.mock(PlatformTransactionManager.class));
+        CashFlowService cashFlowService = new CashFlowService(cashFlowRepository, cashFlowRollupRepository,
+                cashFlowRollupService, Mockito.mock(CashFlowTermService.class),
+                Mockito.mock(ApplicationEventPublisher.class));
+        TodoService todoService = Mockito.mock(TodoService.class);
+        when(todoService.getTodoCounts(userId)).thenReturn(new TodoProgress(0, 0));
+        when(todoService.getRecentTodos(userId)).thenReturn(List.of());
+        DashboardService dashboardService = new DashboardService(todoService, cashFlowService, 5000, 5000);
+
+        // Menguji total dihitung dari tabel cash flow, bukan dari rollup yang belum terisi
+        DashboardSummary summary = dashboardService.getDashboard(user());
+        assertFalse(cashFlowRollupService.isVerified(userId));
+        assertEquals(rawTotals, summary.cashFlowTotals());
+        assertEquals(List.of("gaji"), summary.labels());
+        assertEquals(List.of(), summary.incompleteSections());
+        verify(cashFlowRollupRepository, never()).sumByType(any(), any(), any());
+        dashboardService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Bagian yang gagal atau melewati tenggatnya menghasilkan payload parsial")
+    void testPartialDashboard() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        TodoService todoService = Mockito.mock(TodoService.class);
+        CashFlowService cashFlowService = Mockito.mock(CashFlowService.class);
+        when(todoService.getTodoCounts(userId)).thenReturn(new TodoProgress(0, 0));
+        when(todoService.getRecentTodos(userId)).thenThrow(new IllegalStateException("down"));
+        when(cashFlowService.getCashFlowSummary(userId, "type", null, null)).thenAnswer(invocation -> {
+            release.await();
+            return List.of();
+        });
+        when(cashFlowService.getCashFlowLabels(userId)).thenReturn(List.of("makan"));
+        DashboardService dashboardService = new DashboardService(todoService, cashFlowService, 5000, 50);
+
+        // Menguji bagian yang gagal dan bagian yang lambat tidak menahan bagian lain
+        {
+            DashboardSummary summary = dashboardService.getDashboard(user());
+            assertEquals(new TodoProgress(0, 0), summary.todoCounts());
+            assertNull(summary.recentTodos());
+            assertNull(summary.cashFlowTotals());
+            assertEquals(List.of("makan"), summary.labels());
+            assertEquals(List.of(DashboardService.SECTION_RECENT_TODOS, DashboardService.SECTION_CASH_FLOW_TOTALS),
+                    summary.incompleteSections());
+            assertTrue(summary.elapsedMs() >= 50);
+        }
+
+        // Menguji thread pemanggil yang di-interrupt tidak menunggu bagian mana pun
+        {
+            when(cashFlowService.getCashFlowLabels(userId)).thenAnswer(invocation -> {
+                release.await();
+                return List.of();
+            });
+            when(todoService.getTodoCounts(userId)).thenAnswer(invocation -> {
+                release.await();
+                return null;
+            });
+            Thread.currentThread().interrupt();
+            DashboardSummary summary = dashboardService.getDashboard(user());
+            assertTrue(Thread.interrupted());
+            assertEquals(List.of(DashboardService.SECTION_TODO_COUNTS, DashboardService.SECTION_RECENT_TODOS,
+                    DashboardService.SECTION_CASH_FLOW_TOTALS, DashboardService.SECTION_LABELS),
+                    summary.incompleteSections());
+            assertEquals(6, dashboardService.getIncompleteCount());
+        }
+        release.countDown();
+        dashboardService.shutdown();
+    }
+}
@@ -0,0 +1,351 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.security.Provider;
+import java.security.Security;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.delcom.app.entities.IdempotencyRecord;
+import org.delcom.app.repositories.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+public class IdempotencyServiceTests {
+
+    private static final long TTL = 60_000;
+
+    private final UUID userId = UUID.randomUUID();
+    private final byte[] requestHash = IdempotencyService.hashRequest("todos", "Belajar", "Spring");
+    private final byte[] otherHash = IdempotencyService.hashRequest("todos", "Belajar", "Java");
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private IdempotencyRecordRepository repository;
+    private PlatformTransactionManager transactionManager;
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyRecordRepository.class);
+        when(repository.claim(any(), any(), any(), any(), any())).thenReturn(1);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        idempotencyService = new IdempotencyService(repository, transactionManager, TTL, 5_000, 2, 2, now::get);
+    }
+
+    @Test
+    @DisplayName("Request pertama diproses, request ulang mendapat response tersimpan")
+    void testExecuteAndReplay() {
+        ResponseEntity<?> first = idempotencyService.execute(userId, "key-1", requestHash,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body(Map.of("id", "todo-1")));
+
+        // Menguji response asli dikembalikan dan disimpan ke tabel
+        {
+            assertEquals(HttpStatus.CREATED, first.getStatusCode());
+            assertEquals(Map.of("id", "todo-1"), first.getBody());
+            verify(repository).claim(eq(userId), eq("key-1"), eq(requestHash), eq(toDateTime(now.get() + TTL)),
+                    eq(toDateTime(now.get())));
+            verify(repository).complete(userId, "key-1", 201, "{\"id\":\"todo-1\"}");
+        }
+
+        // Menguji request ulang dijawab dari cache tanpa menjalankan action
+        {
+            ResponseEntity<?> replay = idempotencyService.execute(userId, "key-1", requestHash, () -> {
+                throw new AssertionError("action tidak boleh dijalankan ulang");
+            });
+            assertEquals(HttpStatus.CREATED, replay.getStatusCode());
+            assertEquals("{\"id\":\"todo-1\"}", replay.getBody());
+            assertEquals(MediaType.APPLICATION_JSON, replay.getHeaders().getContentType());
+            assertEquals("true", replay.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+            verify(repository, times(1)).claim(any(), any(), any(), any(), any());
+        }
+
+        // Menguji key yang sama dengan isi request berbeda ditolak
+        {
+            assertNull(idempotencyService.execute(userId, "key-1", otherHash, () -> ResponseEntity.ok().build()));
+        }
+    }
+
+    @Test
+    @DisplayName("Key yang sudah diklaim dibaca dari tabel")
+    void testExecuteClaimedElsewhere() {
+        when(repository.claim(any(), any(), any(), any(), any())).thenReturn(0);
+        LocalDateTime expiresAt = toDateTime(now.get() + TTL);
+
+        // Menguji response yang sudah selesai di instance lain diputar ulang lalu di-cache
+        {
+            when(repository.findById(new IdempotencyRecord.Key(userId, "done"))).thenReturn(Optional.of(
+                    new IdempotencyRecord(userId, "done", requestHash, 200, "{\"ok\":true}", expiresAt)));
+            ResponseEntity<?> replay = idempotencyService.execute(userId, "done", requestHash, () -> null);
+            assertEquals(HttpStatus.OK, replay.getStatusCode());
+            assertEquals("{\"ok\":true}", replay.getBody());
+
+            idempotencyService.execute(userId, "done", requestHash, () -> null);
+            verify(repository, times(1)).findById(new IdempotencyRecord.Key(userId, "done"));
+        }
+
+        // Menguji baris yang hilang (request pertama gagal) dan isi request yang berbeda
+        {
+            when(repository.findById(new IdempotencyRecord.Key(userId, "gone"))).thenReturn(Optional.empty());
+            assertNull(idempotencyService.execute(userId, "gone", requestHash, () -> null));
+
+            when(repository.findById(new IdempotencyRecord.Key(userId, "other"))).thenReturn(Optional.of(
+                    new IdempotencyRecord(userId, "other", otherHash, null, null, expiresAt)));
+            assertNull(idempotencyService.execute(userId, "other", requestHash, () -> null));
+        }
+
+        // Menguji menunggu baris yang sedang diproses sampai selesai
+        {
+            when(repository.findById(new IdempotencyRecord.Key(userId, "busy"))).thenReturn(
+                    Optional.of(new IdempotencyRecord(userId, "busy", requestHash, null, null, expiresAt)),
+                    Optional.of(new IdempotencyRecord(userId, "busy", requestHash, 201, "{}", expiresAt)));
+            ResponseEntity<?> replay = idempotencyService.execute(userId, "busy", requestHash, () -> null);
+            assertEquals(HttpStatus.CREATED, replay.getStatusCode());
+        }
+
+        // Menguji batas waktu menunggu baris yang tidak kunjung selesai
+        {
+            when(repository.findById(new IdempotencyRecord.Key(userId, "stuck"))).thenAnswer(invocation -> {
+                now.addAndGet(3_000);
+                return Optional.of(new IdempotencyRecord(userId, "stuck", requestHash, null, null, expiresAt));
+            });
+            assertNull(idempotencyService.execute(userId, "stuck", requestHash, () -> null));
+            verify(repository, times(2)).findById(new IdempotencyRecord.Key(userId, "stuck"));
+        }
+
+        // Menguji thread yang di-interrupt berhenti menunggu
+        {
+            Thread.currentThread().interrupt();
+            when(repository.findById(new IdempotencyRecord.Key(userId, "interrupted"))).thenReturn(Optional.of(
+                    new IdempotencyRecord(userId, "interrupted", requestHash, null, null, expiresAt)));
+            assertNull(idempotencyService.execute(userId, "interrupted", requestHash, () -> null));
+            assertTrue(Thread.interrupted());
+        }
+    }
+
+    @Test
+    @DisplayName("Response 5xx dan exception me-rollback klaim beserta tulisan request")
+    void testExecuteFailure() {
+        ArgumentCaptor<TransactionStatus> committed = ArgumentCaptor.forClass(TransactionStatus.class);
+
+        // Menguji response 5xx: transaksi (klaim + tulisan action) ditandai rollback
+        {
+            ResponseEntity<?> error = idempotencyService.execute(userId, "key-1", requestHash,
+                    () -> ResponseEntity.internalServerError().body("Failed"));
+            assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, error.getStatusCode());
+            verify(transactionManager).commit(committed.capture());
+            assertTrue(committed.getValue().isRollbackOnly());
+            verify(repository, never()).complete(any(), any(), anyInt(), any());
+        }
+
+        // Menguji exception me-rollback transaksi dan diteruskan
+        {
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                    () -> idempotencyService.execute(userId, "key-2", requestHash, () -> {
+                        throw new IllegalStateException("database down");
+                    }));
+            assertEquals("database down", e.getMessage());
+            verify(transactionManager).rollback(any());
+        }
+
+        // Menguji complete yang gagal setelah action menulis juga me-rollback tulisan tersebut
+        {
+            doThrow(new IllegalStateException("complete failed")).when(repository)
+                    .complete(eq(userId), eq("key-3"), anyInt(), any());
+            assertThrows(IllegalStateException.class, () -> idempotencyService.execute(userId, "key-3",
+                    requestHash, () -> ResponseEntity.status(HttpStatus.CREATED).body("created")));
+            verify(transactionManager, times(2)).rollback(any());
+        }
+
+        // Menguji request ulang diproses kembali
+        {
+            ResponseEntity<?> retry = idempotencyService.execute(userId, "key-1", requestHash,
+                    () -> ResponseEntity.ok("done"));
+            assertEquals("done", retry.getBody());
+            verify(repository, times(2)).claim(eq(userId), eq("key-1"), any(), any(), any());
+            verify(repository).complete(userId, "key-1", 200, "\"done\"");
+        }
+    }
+
+    @Test
+    @DisplayName("Duplikat bersamaan menunggu hasil request pertama")
+    void testConcurrentDuplicates() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<ResponseEntity<?>> firstResponse = new AtomicReference<>();
+        Thread first = Thread.ofPlatform().start(() -> firstResponse.set(
+                idempotencyService.execute(userId, "key-1", requestHash, () -> {
+                    started.countDown();
+                    awaitQuietly(release);
+                    return ResponseEntity.status(HttpStatus.CREATED).body("created");
+                })));
+        started.await();
+
+        // Menguji duplikat menunggu di future request pertama
+        AtomicReference<ResponseEntity<?>> duplicateResponse = new AtomicReference<>();
+        Thread duplicate = Thread.ofPlatform().start(() -> duplicateResponse.set(
+                idempotencyService.execute(userId, "key-1", requestHash, () -> {
+                    throw new AssertionError("duplikat tidak boleh diproses");
+                })));
+        while (duplicate.getState() != Thread.State.TIMED_WAITING) {
+            Thread.onSpinWait();
+        }
+
+        // Menguji duplikat dengan isi berbeda ditolak setelah request pertama selesai
+        AtomicReference<ResponseEntity<?>> mismatchResponse = new AtomicReference<>(ResponseEntity.ok().build());
+        Thread mismatch = Thread.ofPlatform().start(() -> mismatchResponse.set(
+                idempotencyService.execute(userId, "key-1", otherHash, () -> null)));
+        while (mismatch.getState() != Thread.State.TIMED_WAITING) {
+            Thread.onSpinWait();
+        }
+
+        release.countDown();
+        first.join();
+        duplicate.join();
+        mismatch.join();
+
+        assertEquals("created", firstResponse.get().getBody());
+        assertEquals(HttpStatus.CREATED, duplicateResponse.get().getStatusCode());
+        assertEquals("\"created\"", duplicateResponse.get().getBody());
+        assertNull(mismatchResponse.get());
+        verify(repository, times(1)).claim(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Duplikat bersamaan berhenti menunggu setelah batas waktu")
+    void testConcurrentDuplicateTimeout() throws Exception {
+        IdempotencyService shortWait = new IdempotencyService(repository, transactionManager, TTL, 50, 2, 2, now::get);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = Thread.ofPlatform().start(() -> shortWait.execute(userId, "key-1", requestHash, () -> {
+            started.countDown();
+            awaitQuietly(release);
+            return ResponseEntity.ok().build();
+        }));
+        started.await();
+
+        // Menguji batas waktu menunggu
+        assertNull(shortWait.execute(userId, "key-1", requestHash, () -> null));
+
+        // Menguji thread yang di-interrupt berhenti menunggu
+        Thread.currentThread().interrupt();
+        assertNull(shortWait.execute(userId, "key-1", requestHash, () -> null));
+        assertTrue(Thread.interrupted());
+
+        release.countDown();
+        first.join();
+    }
+
+    @Test
+    @DisplayName("Key kedaluwarsa dihapus dari cache dan tabel per batch")
+    void testPurgeExpired() {
+        idempotencyService.execute(userId, "old", requestHash, () -> ResponseEntity.ok("old"));
+        now.addAndGet(TTL / 2);
+        idempotencyService.execute(userId, "new", requestHash, () -> ResponseEntity.ok("new"));
+        now.addAndGet(TTL / 2);
+        when(repository.deleteExpiredBatch(toDateTime(now.get()), 2)).thenReturn(2, 2, 1);
+
+        // Menguji penghapusan berulang sampai batch terakhir tidak penuh
+        {
+            assertEquals(5, idempotencyService.purgeExpired());
+            verify(repository, times(3)).deleteExpiredBatch(toDateTime(now.get()), 2);
+        }
+
+        // Menguji key lama diproses ulang, key baru masih diputar ulang dari cache
+        {
+            assertEquals("\"new\"", idempotencyService.execute(userId, "new", requestHash, () -> null).getBody());
+            assertEquals("again", idempotencyService.execute(userId, "old", requestHash,
+                    () -> ResponseEntity.ok("again")).getBody());
+        }
+
+        // Menguji cache kedaluwarsa saat dibaca dan batas jumlah entri cache
+        {
+            now.addAndGet(TTL);
+            assertEquals("fresh", idempotencyService.execute(userId, "new", requestHash,
+                    () -> ResponseEntity.ok("fresh")).getBody());
+            idempotencyService.execute(userId, "a", requestHash, () -> ResponseEntity.ok("a"));
+            idempotencyService.execute(userId, "b", requestHash, () -> ResponseEntity.ok("b"));
+            idempotencyService.execute(userId, "new", requestHash, () -> ResponseEntity.ok("evicted"));
+            verify(repository, times(3)).claim(eq(userId), eq("new"), any(), any(), any());
+        }
+    }
+
+    @Test
+    @DisplayName("Hash isi request dan validasi key")
+    void testHashAndKey() {
+        // Menguji null dibedakan dari string kosong dan urutan bagian berpengaruh
+        {
+            assertEquals(32, requestHash.length);
+            assertArrayEquals(requestHash, IdempotencyService.hashRequest("todos", "Belajar", "Spring"));
+            assertFalse(Arrays.equals(IdempotencyService.hashRequest((String) null),
+                    IdempotencyService.hashRequest("")));
+            assertFalse(Arrays.equals(IdempotencyService.hashRequest("a", "b"),
+                    IdempotencyService.hashRequest("b", "a")));
+        }
+
+        // Menguji SHA-256 yang tidak tersedia
+        {
+            Provider sun = Security.getProvider("SUN");
+            int position = Arrays.asList(Security.getProviders()).indexOf(sun) + 1;
+            Security.removeProvider("SUN");
+            try {
+                assertThrows(IllegalStateException.class, () -> IdempotencyService.hashRequest("todos"));
+            } finally {
+                Security.insertProviderAt(sun, position);
+            }
+        }
+
+        // Menguji validasi key dan constructor yang dipakai Spring
+        {
+            assertTrue(IdempotencyService.isValidKey("key-1"));
+            assertFalse(IdempotencyService.isValidKey(" "));
+            assertFalse(IdempotencyService.isValidKey("k".repeat(IdempotencyService.MAX_KEY_LENGTH + 1)));
+            IdempotencyService service = new IdempotencyService(repository, transactionManager, TTL, 5_000, 2, 2);
+            assertEquals(HttpStatus.NO_CONTENT, service.execute(userId, "key-1", requestHash,
+                    () -> ResponseEntity.noContent().build()).getStatusCode());
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
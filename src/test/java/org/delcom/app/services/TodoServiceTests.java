@@ -1,16 +1,24 @@
 package org.delcom.app.services;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.UUID;
 
+import org.delcom.app.dto.TodoProgress;
 import org.delcom.app.entities.Todo;
+import org.delcom.app.repositories.TodoClosureRepository;
 import org.delcom.app.repositories.TodoRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
 
 public class TodoServiceTests {
     @Test
@@ -28,6 +36,7 @@ public class TodoServiceTests {
         // Membuat mock TodoRepository
         // Buat mock
         TodoRepository todoRepository = Mockito.mock(TodoRepository.class);
+        TodoClosureRepository todoClosureRepository = Mockito.mock(TodoClosureRepository.class);
 
         // Atur perilaku mock
         when(todoRepository.save(any(Todo.class))).thenReturn(todo);
@@ -40,7 +49,8 @@ public class TodoServiceTests {
         doNothing().when(todoRepository).deleteById(any(UUID.class));
 
         // Membuat instance service
-        TodoService todoService = new TodoService(todoRepository);
+        TodoService todoService = new TodoService(todoRepository, todoClosureRepository,
+                new TodoStatusCoalescer(todoRepository, Mockito.mock(PlatformTransactionManager.class), false, 200));
         assert (todoService != null);
 
         // Menguji create todo
@@ -67,6 +77,15 @@ public class TodoServiceTests {
             assert (todos.size() == 1);
         }
 
+        // Menguji pencarian gabungan: kata digabung spasi dan top-k dibatasi di database
+        {
+            when(todoRepository.searchByTerms(userId, "belajar spring", PageRequest.of(0, 5)))
+                    .thenReturn(new PageImpl<>(java.util.List.of(todo), PageRequest.of(0, 5), 1));
+            var todos = todoService.searchTodos(userId, java.util.List.of("belajar", "spring"), 5);
+            assert (todos.getTotalElements() == 1);
+            assert (todos.getContent().get(0).getId().equals(todoId));
+        }
+
         // Menguji getTodoById
         {
 
@@ -112,6 +131,8 @@ public class TodoServiceTests {
         {
             boolean deleted = todoService.deleteTodo(userId, todoId);
             assert (deleted == true);
+            verify(todoRepository).deleteDescendants(todoId);
+            verify(todoClosureRepository).deleteSubtree(todoId);
         }
 
         // Menguji deleteTodo dengan ID yang tidak ada
@@ -120,4 +141,227 @@ public class TodoServiceTests {
             assert (deleted == false);
         }
     }
+
+    @Test
+    @DisplayName("Pengujian subtask (hierarki todo) pada service Todo")
+    void testTodoServiceSubtasks() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID parentId = UUID.randomUUID();
+        UUID childId = UUID.randomUUID();
+        UUID otherParentId = UUID.randomUUID();
+        UUID nonexistentTodoId = UUID.randomUUID();
+
+        Todo parent = new Todo(userId, "Parent", "Todo induk", false);
+        parent.setId(parentId);
+        Todo child = new Todo(userId, "Child", "Subtask", false);
+        child.setId(childId);
+        child.setParentId(parentId);
+        Todo otherParent = new Todo(userId, "Other", "Todo induk lain", false);
+        otherParent.setId(otherParentId);
+
+        TodoRepository todoRepository = Mockito.mock(TodoRepository.class);
+        TodoClosureRepository todoClosureRepository = Mockito.mock(TodoClosureRepository.class);
+
+        when(todoRepository.save(any(Todo.class))).thenAnswer(invocation -> {
+            Todo saved = invocation.getArgument(0);
+            if (saved.getId() == null) {
+                saved.setId(childId);
+            }
+            return saved;
+        });
+        when(todoRepository.findByUserIdAndId(userId, parentId)).thenReturn(java.util.Optional.of(parent));
+        when(todoRepository.findByUserIdAndId(userId, childId)).thenReturn(java.util.Optional.of(child));
+        when(todoRepository.findByUserIdAndId(userId, otherParentId)).thenReturn(java.util.Optional.of(otherParent));
+        when(todoRepository.findByUserIdAndId(userId, nonexistentTodoId)).thenReturn(java.util.Optional.empty());
+        when(todoRepository.findSubtree(userId, parentId)).thenReturn(java.util.List.of(child));
+        when(todoRepository.countSubtreeProgress(userId, parentId)).thenReturn(new TodoProgress(1, 0));
+        when(todoRepository.countSubtreeProgress(userId, childId)).thenReturn(new TodoProgress(0, 0));
+        when(todoClosureRepository.existsByAncestorIdAndDescendantId(parentId, childId)).thenReturn(true);
+        when(todoRepository.countProgressByUserId(userId)).thenReturn(new TodoProgress(3, 1));
+        when(todoRepository.findFirst5ByUserIdOrderByUpdatedAtDesc(userId)).thenReturn(java.util.List.of(child, parent));
+
+        TodoService todoService = new TodoService(todoRepository, todoClosureRepository,
+                new TodoStatusCoalescer(todoRepository, Mockito.mock(PlatformTransactionManager.class), false, 200));
+
+        // Membuat subtask dengan parent yang tidak ada
+        {
+            Todo createdTodo = todoService.createTodo(userId, "Child", "Subtask", nonexistentTodoId);
+            assert (createdTodo == null);
+        }
+
+        // Membuat subtask dengan parent yang ada
+        {
+            Todo createdTodo = todoService.createTodo(userId, "Child", "Subtask", parentId);
+            assert (createdTodo != null);
+            assert (createdTodo.getParentId().equals(parentId));
+            verify(todoClosureRepository).insertSelf(childId);
+            verify(todoClosureRepository).insertUnderParent(childId, parentId);
+            verify(todoRepository).reopenAncestors(childId);
+        }
+
+        // Mengambil subtree dan progres
+        {
+            assert (todoService.getSubtasks(userId, parentId).size() == 1);
+            assert (todoService.getSubtasks(userId, nonexistentTodoId) == null);
+
+            TodoProgress progress = todoService.getProgress(userId, parentId);
+            assert (progress.total() == 1);
+            assert (progress.finished() == 0);
+            assert (todoService.getProgress(userId, nonexistentTodoId) == null);
+        }
+
+        // Mengambil jumlah todo dan todo terbaru milik user
+        {
+            TodoProgress counts = todoService.getTodoCounts(userId);
+            assert (counts.total() == 3);
+            assert (counts.finished() == 1);
+            assert (todoService.getRecentTodos(userId).equals(java.util.List.of(child, parent)));
+        }
+
+        // Mengecek apakah sebuah todo berada di dalam subtree
+        {
+            assert (todoService.isInSubtree(parentId, parentId) == true);
+            assert (todoService.isInSubtree(parentId, childId) == true);
+            assert (todoService.isInSubtree(childId, parentId) == false);
+        }
+
+        // Menyelesaikan subtask memicu rollup ke parent, membuka kembali memicu reopen
+        {
+            todoService.updateTodo(userId, childId, "Child", "Subtask", true);
+            verify(todoRepository).finishCompletedAncestors(childId);
+
+            todoService.updateTodo(userId, childId, "Child", "Subtask", false);
+            verify(todoRepository, Mockito.times(2)).reopenAncestors(childId);
+
+            todoService.updateTodo(userId, parentId, "Parent", "Todo induk", true);
+            verify(todoRepository, never()).finishCompletedAncestors(parentId);
+        }
+
+        // Memindahkan todo
+        {
+            assert (todoService.moveTodo(userId, nonexistentTodoId, parentId) == null);
+            assert (todoService.moveTodo(userId, childId, nonexistentTodoId) == null);
+
+            Todo movedTodo = todoService.moveTodo(userId, childId, otherParentId);
+            assert (movedTodo.getParentId().equals(otherParentId));
+            verify(todoClosureRepository).detachSubtree(childId);
+            verify(todoClosureRepository).attachSubtree(childId, otherParentId);
+            verify(todoRepository).finishCompletedAncestors(parentId);
+
+            child.setFinished(true);
+            todoService.moveTodo(userId, childId, parentId);
+            verify(todoRepository, Mockito.times(2)).finishCompletedAncestors(childId);
+
+            parent.setFinished(true);
+            movedTodo = todoService.moveTodo(userId, parentId, null);
+            assert (movedTodo.getParentId() == null);
+        }
+
+        // Menghapus subtask memicu rollup ke parent
+        {
+            child.setParentId(parentId);
+            assert (todoService.deleteTodo(userId, childId) == true);
+            verify(todoRepository, Mockito.times(2)).finishCompletedAncestors(parentId);
+        }
+    }
+
+    @Test
+    @DisplayName("Pengujian rollup setelah subtask terakhir parent yang belum selesai dihapus atau dipindah")
+    void testTodoServiceChildlessParent() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID grandparentId = UUID.randomUUID();
+        UUID parentId = UUID.randomUUID();
+        UUID childId = UUID.randomUUID();
+
+        Todo parent = new Todo(userId, "Parent", "Belum selesai", false);
+        parent.setId(parentId);
+        parent.setParentId(grandparentId);
+        Todo child = new Todo(userId, "Child", "Subtask terakhir", true);
+        child.setId(childId);
+        child.setParentId(parentId);
+
+        TodoRepository todoRepository = Mockito.mock(TodoRepository.class);
+        TodoClosureRepository todoClosureRepository = Mockito.mock(TodoClosureRepository.class);
+        when(todoRepository.findByUserIdAndId(userId, childId)).thenReturn(java.util.Optional.of(child));
+        when(todoRepository.save(any(Todo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TodoService todoService = new TodoService(todoRepository, todoClosureRepository,
+                new TodoStatusCoalescer(todoRepository, Mockito.mock(PlatformTransactionManager.class), false, 200));
+
+        // Menguji rollup dimulai dari parent yang kini tanpa subtask, bukan dari grandparent,
+        // agar parent yang belum selesai tetap menahan grandparent
+        {
+            assert (todoService.moveTodo(userId, childId, null) != null);
+            verify(todoRepository).finishCompletedAncestors(parentId);
+
+            child.setParentId(parentId);
+            assert (todoService.deleteTodo(userId, childId) == true);
+            verify(todoRepository, Mockito.times(2)).finishCompletedAncestors(parentId);
+            verify(todoRepository, never()).finishCompletedAncestors(grandparentId);
+            verify(todoRepository, never()).reopenAncestors(any());
+            assert (parent.isFinished() == false);
+        }
+    }
+
+    @Test
+    @DisplayName("Pengujian update status todo dengan dan tanpa write coalescing")
+    void testTodoServiceUpdateStatus() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID todoId = UUID.randomUUID();
+        UUID childId = UUID.randomUUID();
+        UUID nonexistentTodoId = UUID.randomUUID();
+
+        Todo todo = new Todo(userId, "Belajar Spring Boot", "Belajar write coalescing", false);
+        todo.setId(todoId);
+        Todo child = new Todo(userId, "Subtask", "Subtask todo", false);
+        child.setId(childId);
+        child.setParentId(todoId);
+
+        TodoRepository todoRepository = Mockito.mock(TodoRepository.class);
+        TodoClosureRepository todoClosureRepository = Mockito.mock(TodoClosureRepository.class);
+        PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        when(todoRepository.findByUserIdAndId(userId, todoId)).thenReturn(java.util.Optional.of(todo));
+        when(todoRepository.findByUserIdAndId(userId, childId)).thenReturn(java.util.Optional.of(child));
+        when(todoRepository.findByUserIdAndId(userId, nonexistentTodoId)).thenReturn(java.util.Optional.empty());
+
+        // Tanpa coalescing: langsung ditulis ke database
+        {
+            TodoService todoService = new TodoService(todoRepository, todoClosureRepository,
+                    new TodoStatusCoalescer(todoRepository, transactionManager, false, 200));
+
+            assert (todoService.updateTodoStatus(userId, nonexistentTodoId, true) == false);
+            assert (todoService.updateTodoStatus(userId, todoId, true) == true);
+            assert (todo.isFinished() == true);
+            verify(todoRepository).save(todo);
+
+            assert (todoService.updateTodoStatus(userId, childId, true) == true);
+            verify(todoRepository).finishCompletedAncestors(childId);
+        }
+
+        // Dengan coalescing: status ditampung dan terlihat saat dibaca sebelum flush
+        {
+            todo.setFinished(false);
+            TodoStatusCoalescer coalescer = new TodoStatusCoalescer(todoRepository, transactionManager, true, 60_000);
+            TodoService todoService = new TodoService(todoRepository, todoClosureRepository, coalescer);
+
+            assert (todoService.updateTodoStatus(userId, nonexistentTodoId, true) == false);
+            assert (todoService.updateTodoStatus(userId, todoId, true) == true);
+            assert (todoService.updateTodoStatus(userId, todoId, false) == true);
+            assert (todoService.updateTodoStatus(userId, todoId, true) == true);
+            verify(todoRepository, Mockito.times(1)).save(todo);
+
+            todo.setFinished(false);
+            assert (todoService.getTodoById(userId, todoId).isFinished() == true);
+
+            assert (coalescer.flush() == 1);
+            verify(todoRepository).updateFinishedByIds(eq(java.util.List.of(todoId)), eq(true), any());
+
+            // updateTodo penuh membuang status yang masih di buffer
+            todoService.updateTodoStatus(userId, todoId, false);
+            when(todoRepository.save(any(Todo.class))).thenReturn(todo);
+            todoService.updateTodo(userId, todoId, "Judul", "Deskripsi", true);
+            assert (coalescer.flush() == 0);
+            coalescer.shutdown();
+        }
+    }
 }
\ No newline at end of file
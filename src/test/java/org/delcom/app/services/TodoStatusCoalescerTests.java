@@ -0,0 +1,140 @@
+package org.delcom.app.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.delcom.app.entities.Todo;
+import org.delcom.app.repositories.TodoRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class TodoStatusCoalescerTests {
+    @Test
+    @DisplayName("Pengujian buffer dan flush status todo")
+    void testTodoStatusCoalescer() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        UUID todoId = UUID.randomUUID();
+        UUID childId = UUID.randomUUID();
+        UUID reopenedChildId = UUID.randomUUID();
+
+        Todo todo = new Todo(userId, "Todo", "Deskripsi", false);
+        todo.setId(todoId);
+        Todo child = new Todo(userId, "Subtask", "Deskripsi", false);
+        child.setId(childId);
+        child.setParentId(todoId);
+        Todo reopenedChild = new Todo(userId, "Subtask lain", "Deskripsi", true);
+        reopenedChild.setId(reopenedChildId);
+        reopenedChild.setParentId(todoId);
+
+        TodoRepository todoRepository = Mockito.mock(TodoRepository.class);
+        PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+
+        TodoStatusCoalescer coalescer = new TodoStatusCoalescer(todoRepository, transactionManager, true, 60_000);
+        assert (coalescer.isEnabled() == true);
+
+        // Buffer kosong
+        {
+            assert (coalescer.flush() == 0);
+            assert (coalescer.applyPending((Todo) null) == null);
+            assert (coalescer.applyPending(todo).isFinished() == false);
+            assert (coalescer.tryEnqueue(userId, todoId, true) == false);
+        }
+
+        // Toggle berulang hanya menyimpan status terakhir
+        {
+            coalescer.enqueue(todo, true);
+            assert (coalescer.tryEnqueue(otherUserId, todoId, false) == false);
+            assert (coalescer.tryEnqueue(userId, todoId, false) == true);
+            assert (coalescer.tryEnqueue(userId, todoId, true) == true);
+            coalescer.enqueue(child, true);
+            coalescer.enqueue(reopenedChild, false);
+            assert (coalescer.getToggleCount() == 5);
+
+            assert (coalescer.applyPending(todo).isFinished() == true);
+            assert (coalescer.applyPending(List.of(reopenedChild)).get(0).isFinished() == false);
+
+            Todo unrelated = new Todo(userId, "Lain", "Deskripsi", false);
+            unrelated.setId(UUID.randomUUID());
+            assert (coalescer.applyPending(unrelated).isFinished() == false);
+        }
+
+        // Flush menulis satu UPDATE per nilai status, lalu mengosongkan buffer
+        {
+            assert (coalescer.flush() == 3);
+            verify(todoRepository).updateFinishedByIds(Mockito.argThat(ids -> ids.size() == 2
+                    && ids.contains(todoId) && ids.contains(childId)), eq(true), any());
+            verify(todoRepository).updateFinishedByIds(eq(List.of(reopenedChildId)), eq(false), any());
+            verify(todoRepository).finishCompletedAncestors(childId);
+            verify(todoRepository).reopenAncestors(reopenedChildId);
+            verify(todoRepository, never()).finishCompletedAncestors(todoId);
+
+            assert (coalescer.getFlushCount() == 1);
+            assert (coalescer.getFlushedRowCount() == 3);
+            assert (coalescer.flush() == 0);
+        }
+
+        // Flush gagal: entri tetap di buffer untuk dicoba lagi
+        {
+            coalescer.enqueue(todo, false);
+            when(todoRepository.updateFinishedByIds(any(), anyBoolean(), any()))
+                    .thenThrow(new RuntimeException("database down"));
+
+            var scheduledFlush = TodoStatusCoalescer.class.getDeclaredMethod("scheduledFlush");
+            scheduledFlush.setAccessible(true);
+            scheduledFlush.invoke(coalescer);
+            assert (coalescer.tryEnqueue(userId, todoId, false) == true);
+
+            Mockito.reset(todoRepository);
+            coalescer.discard(todoId);
+            assert (coalescer.flush() == 0);
+        }
+
+        // discard menunggu flush yang sedang berjalan agar batch lama tidak commit belakangan
+        {
+            CountDownLatch flushStarted = new CountDownLatch(1);
+            CountDownLatch releaseFlush = new CountDownLatch(1);
+            when(todoRepository.updateFinishedByIds(any(), anyBoolean(), any())).thenAnswer(invocation -> {
+                flushStarted.countDown();
+                releaseFlush.await();
+                return 1;
+            });
+            coalescer.enqueue(todo, true);
+            Thread flusher = Thread.ofVirtual().start(coalescer::flush);
+            flushStarted.await();
+
+            Thread discarder = Thread.ofVirtual().start(() -> coalescer.discard(todoId));
+            discarder.join(100);
+            assert (discarder.isAlive() == true);
+            releaseFlush.countDown();
+            discarder.join();
+            flusher.join();
+            assert (coalescer.flush() == 0);
+            Mockito.reset(todoRepository);
+        }
+
+        // Shutdown melakukan flush terakhir
+        {
+            coalescer.enqueue(todo, true);
+            coalescer.shutdown();
+            verify(todoRepository).updateFinishedByIds(eq(List.of(todoId)), eq(true), any());
+        }
+
+        // Coalescing nonaktif
+        {
+            TodoStatusCoalescer disabled = new TodoStatusCoalescer(todoRepository, transactionManager, false, 200);
+            assert (disabled.isEnabled() == false);
+            disabled.shutdown();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.delcom.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.delcom.app.dto.CashFlowSearchResult;
+import org.delcom.app.dto.UnifiedSearchResult;
+import org.delcom.app.entities.CashFlow;
+import org.delcom.app.entities.Todo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+public class UnifiedSearchServiceTests {
+    private final UUID userId = UUID.randomUUID();
+
+    private Todo todo(String title, String description) {
+        Todo todo = new Todo(userId, title, description, false);
+        todo.setId(UUID.randomUUID());
+        return todo;
+    }
+
+    private CashFlow cashFlow(String description) {
+        CashFlow cashFlow = new CashFlow(userId, "Outflow", "Cash", "makan", 25000, description);
+        cashFlow.setId(UUID.randomUUID());
+        return cashFlow;
+    }
+
+    private static List<UUID> ids(UnifiedSearchResult result) {
+        return result.hits().stream().map(UnifiedSearchResult.Hit::id).toList();
+    }
+
+    @Test
+    @DisplayName("Pencarian todo dan cash flow paralel digabung dengan heap top-k")
+    void testSearch() throws Exception {
+        Todo titleAndDescription = todo("Beli nasi kotak", "Nasi kotak untuk rapat");
+        Todo titleOnly = todo("Beli nasi", "Untuk makan siang");
+        Todo descriptionOnly = todo("Belanja", "Nasi dan lauk");
+        CashFlow best = cashFlow("Nasi kotak");
+        CashFlow second = cashFlow("Nasi kotak kantor");
+
+        TodoService todoService = Mockito.mock(TodoService.class);
+        CashFlowSearchService cashFlowSearchService = Mockito.mock(CashFlowSearchService.class);
+        // Database mengembalikan top-k terurut skor beserta total seluruh todo yang cocok
+        when(todoService.searchTodos(eq(userId), eq(List.of("nasi", "kotak")), anyInt())).thenAnswer(invocation -> {
+            int limit = invocation.getArgument(2);
+            List<Todo> ranked = List.of(titleAndDescription, titleOnly, descriptionOnly);
+            return new PageImpl<>(ranked.subList(0, Math.min(limit, ranked.size())), PageRequest.of(0, limit), 3);
+        });
+        when(cashFlowSearchService.search(userId, "nasi kotak", 3)).thenReturn(new CashFlowSearchResult("nasi kotak",
+                7, List.of(new CashFlowSearchResult.Hit(best, 4.0), new CashFlowSearchResult.Hit(second, 2.0)),
+                List.of(), List.of(), List.of(), false, 0));
+        UnifiedSearchService searchService = new UnifiedSearchService(todoService, cashFlowSearchService, 5000);
+
+        // Menguji skor dinormalisasi per sumber lalu hanya k hits teratas yang dikembalikan
+        UnifiedSearchResult result = searchService.search(userId, "nasi kotak", 3);
+        assertEquals("nasi kotak", result.query());
+        assertEquals(3, result.todoTotal());
+        assertEquals(7, result.cashFlowTotal());
+        assertEquals(List.of(), result.incompleteSources());
+        assertEquals(3, result.hits().size());
+        assertEquals(1.0, result.hits().get(0).score());
+        assertEquals(1.0, result.hits().get(1).score());
+        assertTrue(ids(result).containsAll(List.of(titleAndDescription.getId(), best.getId())));
+        assertEquals(second.getId(), result.hits().get(2).id());
+        assertEquals(UnifiedSearchService.SOURCE_CASH_FLOWS, result.hits().get(2).source());
+        assertEquals(second, result.hits().get(2).item());
+        assertEquals(0.5, result.hits().get(2).score());
+
+        // Menguji k = 1: skor sama tidak menggantikan hit yang sudah ada di heap
+        when(cashFlowSearchService.search(userId, "nasi kotak", 1)).thenReturn(new CashFlowSearchResult("nasi kotak",
+                7, List.of(new CashFlowSearchResult.Hit(best, 4.0)), List.of(), List.of(), List.of(), false, 0));
+        assertEquals(List.of(titleAndDescription.getId()), ids(searchService.search(userId, "nasi kotak", 1)));
+
+        // Menguji urutan dan skor todo saat sumber cash flow tidak memiliki hasil
+        when(cashFlowSearchService.search(userId, "nasi kotak", 5)).thenReturn(new CashFlowSearchResult("nasi kotak",
+                0, List.of(), List.of(), List.of(), List.of(), false, 0));
+        // Skor todo: 1 + 2 per kata di judul + 1 per kata di deskripsi (7, 3, 2), dibagi 7
+        UnifiedSearchResult todosOnly = searchService.search(userId, "nasi kotak", 5);
+        assertEquals(List.of(titleAndDescription.getId(), titleOnly.getId(), descriptionOnly.getId()), ids(todosOnly));
+        assertEquals(3.0 / 7, todosOnly.hits().get(1).score(), 1e-9);
+        assertEquals(2.0 / 7, todosOnly.hits().get(2).score(), 1e-9);
+
+        // Menguji kata berulang dan tanda baca: todo dicari dengan token yang sama seperti cash flow
+        when(cashFlowSearchService.search(userId, "Nasi, NASI-kotak", 5)).thenReturn(new CashFlowSearchResult(
+                "Nasi, NASI-kotak", 0, List.of(), List.of(), List.of(), List.of(), false, 0));
+        assertEquals(ids(todosOnly), ids(searchService.search(userId, "Nasi, NASI-kotak", 5)));
+
+        // Menguji query tanpa token tidak mencari todo sama sekali
+        when(cashFlowSearchService.search(userId, "!!!", 5)).thenReturn(new CashFlowSearchResult("!!!", 0,
+                List.of(), List.of(), List.of(), List.of(), false, 0));
+        UnifiedSearchResult empty = searchService.search(userId, "!!!", 5);
+        assertEquals(0, empty.todoTotal());
+        assertEquals(List.of(), empty.hits());
+        verify(todoService, never()).searchTodos(any(), eq(List.of()), anyInt());
+        assertEquals(0, searchService.getIncompleteCount());
+        searchService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Sumber yang gagal atau melewati tenggat menghasilkan hasil parsial")
+    void testPartialResults() throws Exception {
+        Todo todo = todo("Bayar listrik", "Token listrik");
+        CountDownLatch release = new CountDownLatch(1);
+        TodoService todoService = Mockito.mock(TodoService.class);
+        CashFlowSearchService cashFlowSearchService = Mockito.mock(CashFlowSearchService.class);
+        when(todoService.searchTodos(userId, List.of("listrik"), 5)).thenReturn(new PageImpl<>(List.of(todo)));
+        when(cashFlowSearchService.search(userId, "listrik", 5)).thenAnswer(invocation -> {
+            release.await();
+            return null;
+        });
+        when(cashFlowSearchService.search(userId, "gagal", 5)).thenThrow(new IllegalStateException("down"));
+        when(todoService.searchTodos(userId, List.of("gagal"), 5)).thenReturn(Page.empty());
+        UnifiedSearchService searchService = new UnifiedSearchService(todoService, cashFlowSearchService, 50);
+
+        // Menguji sumber cash flow yang lambat dibatalkan saat tenggat
+        {
+            UnifiedSearchResult result = searchService.search(userId, "listrik", 5);
+            assertEquals(List.of(UnifiedSearchService.SOURCE_CASH_FLOWS), result.incompleteSources());
+            assertEquals(List.of(todo.getId()), ids(result));
+            assertEquals(0, result.cashFlowTotal());
+            assertTrue(result.elapsedMs() >= 50);
+        }
+
+        // Menguji sumber yang gagal dilaporkan tanpa membatalkan sumber lain
+        {
+            UnifiedSearchResult result = searchService.search(userId, "gagal", 5);
+            assertEquals(List.of(UnifiedSearchService.SOURCE_CASH_FLOWS), result.incompleteSources());
+            assertEquals(0, result.todoTotal());
+        }
+
+        // Menguji thread pemanggil yang di-interrupt tidak menunggu sumber mana pun
+        {
+            when(todoService.searchTodos(any(), any(), anyInt())).thenAnswer(invocation -> {
+                release.await();
+                return Page.empty();
+            });
+            Thread.currentThread().interrupt();
+            UnifiedSearchResult result = searchService.search(userId, "listrik", 5);
+            assertTrue(Thread.interrupted());
+            assertEquals(List.of(UnifiedSearchService.SOURCE_TODOS, UnifiedSearchService.SOURCE_CASH_FLOWS),
+                    result.incompleteSources());
+            assertEquals(4, searchService.getIncompleteCount());
+        }
+        release.countDown();
+        searchService.shutdown();
+    }
+}
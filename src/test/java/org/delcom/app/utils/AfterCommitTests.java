@@ -0,0 +1,42 @@
+package org.delcom.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class AfterCommitTests {
+
+    @Test
+    @DisplayName("Pengujian aksi dijalankan setelah commit atau langsung tanpa transaksi")
+    public void testAfterCommit() {
+        AtomicInteger runs = new AtomicInteger();
+
+        // Menguji aksi langsung dijalankan tanpa transaksi
+        {
+            AfterCommit.run(runs::incrementAndGet);
+            assertEquals(1, runs.get());
+        }
+
+        // Menguji aksi ditunda sampai transaksi di-commit
+        {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                AfterCommit.run(runs::incrementAndGet);
+                assertEquals(1, runs.get());
+
+                for (TransactionSynchronization synchronization : TransactionSynchronizationManager
+                        .getSynchronizations()) {
+                    synchronization.afterCommit();
+                }
+                assertEquals(2, runs.get());
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+    }
+}
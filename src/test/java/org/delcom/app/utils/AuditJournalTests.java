@@ -0,0 +1,186 @@
+package org.delcom.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.utils.AuditJournal.Entry;
+import org.delcom.app.utils.AuditJournal.FsyncPolicy;
+import org.delcom.app.utils.AuditJournal.Operation;
+import org.delcom.app.utils.AuditJournal.UserHistory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class AuditJournalTests {
+    // Record dengan type "Inflow", source "Bank", label "gaji", description "x" berukuran 92 byte
+    private static final int RECORD_SIZE = 92;
+
+    @TempDir
+    Path journalDir;
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID otherUserId = UUID.randomUUID();
+    private final LocalDateTime createdAt = LocalDateTime.of(2025, 11, 10, 8, 30, 15, 123_456_000);
+
+    private Entry entry(Operation operation, UUID id, UUID owner, int amount) {
+        return new Entry(operation, 1_700_000_000_000L, id, owner, "Inflow", "Bank", "gaji", amount, "x", createdAt);
+    }
+
+    @Test
+    @DisplayName("Menulis, merotasi, dan membaca ulang jurnal audit")
+    public void testWriteAndRead() throws Exception {
+        new AuditJournal();
+        UUID firstId = UUID.randomUUID();
+        UUID secondId = UUID.randomUUID();
+
+        // Menguji rotasi segmen dan riwayat user dibangun ulang dari beberapa segmen
+        {
+            try (AuditJournal.Writer writer = new AuditJournal.Writer(journalDir, 4 + 3 * RECORD_SIZE,
+                    FsyncPolicy.ALWAYS)) {
+                writer.append(entry(Operation.CREATE, firstId, userId, 1000));
+                writer.append(entry(Operation.CREATE, secondId, userId, 2000));
+                writer.append(entry(Operation.CREATE, UUID.randomUUID(), otherUserId, 5));
+                writer.append(entry(Operation.UPDATE, firstId, userId, 1500));
+                writer.append(new Entry(Operation.DELETE, 1_700_000_000_001L, secondId, userId, "Outflow", null,
+                        null, 2000, null, createdAt));
+                assertEquals(5, writer.getAppendCount());
+                assertEquals(1, writer.getSegmentIndex());
+            }
+
+            UserHistory history = AuditJournal.rebuildUser(journalDir, userId);
+            assertEquals(4, history.entries().size());
+            assertEquals(List.of(firstId), new ArrayList<>(history.current().keySet()));
+            Entry current = history.current().get(firstId);
+            assertEquals(1500, current.amount());
+            assertEquals(createdAt, current.createdAt());
+            assertEquals("gaji", current.label());
+            Entry deleted = history.entries().get(3);
+            assertEquals(Operation.DELETE, deleted.operation());
+            assertNull(deleted.source());
+            assertNull(deleted.description());
+        }
+
+        // Menguji penulisan dilanjutkan setelah record terakhir saat jurnal dibuka ulang
+        {
+            Files.writeString(journalDir.resolve("catatan.txt"), "bukan segmen");
+            Files.writeString(journalDir.resolve("audit-lama.txt"), "bukan segmen");
+            try (AuditJournal.Writer writer = new AuditJournal.Writer(journalDir, 4 + 3 * RECORD_SIZE,
+                    FsyncPolicy.NEVER)) {
+                assertEquals(1, writer.getSegmentIndex());
+                writer.append(entry(Operation.UPDATE, firstId, userId, 1700));
+                writer.force();
+            }
+            UserHistory history = AuditJournal.rebuildUser(journalDir, userId);
+            assertEquals(5, history.entries().size());
+            assertEquals(1700, history.current().get(firstId).amount());
+        }
+
+        // Menguji description panjang dan record yang melebihi ukuran segmen
+        {
+            try (AuditJournal.Writer writer = new AuditJournal.Writer(journalDir, 4096, FsyncPolicy.NEVER)) {
+                String longDescription = "d".repeat(2000);
+                writer.append(new Entry(Operation.CREATE, 1L, UUID.randomUUID(), otherUserId, "Outflow", "Cash",
+                        "makan", 1, longDescription, createdAt));
+                assertThrows(IllegalArgumentException.class, () -> writer.append(new Entry(Operation.CREATE, 1L,
+                        UUID.randomUUID(), otherUserId, "Outflow", "Cash", "makan", 1, "d".repeat(5000),
+                        createdAt)));
+            }
+            UserHistory history = AuditJournal.rebuildUser(journalDir, otherUserId);
+            assertEquals(2000, history.entries().get(1).description().length());
+        }
+
+        // Menguji jurnal yang belum pernah ditulis
+        {
+            assertEquals(0, AuditJournal.rebuildUser(journalDir.resolve("tidak-ada"), userId).entries().size());
+        }
+    }
+
+    @Test
+    @DisplayName("Record terpotong atau rusak dianggap akhir jurnal lalu ditimpa")
+    public void testRecovery() throws Exception {
+        UUID id = UUID.randomUUID();
+        try (AuditJournal.Writer writer = new AuditJournal.Writer(journalDir, 4096, FsyncPolicy.NEVER)) {
+            writer.append(entry(Operation.CREATE, id, userId, 1));
+            writer.append(entry(Operation.UPDATE, id, userId, 2));
+            writer.append(entry(Operation.UPDATE, id, userId, 3));
+        }
+        Path segment = journalDir.resolve(AuditJournal.segmentName(0));
+
+        // Menguji CRC yang tidak cocok pada record terakhir
+        {
+            try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+                file.seek(4 + 2 * RECORD_SIZE + 20);
+                file.write(0x7F);
+            }
+            assertEquals(2, AuditJournal.rebuildUser(journalDir, userId).entries().size());
+
+            try (AuditJournal.Writer writer = new AuditJournal.Writer(journalDir, 4096, FsyncPolicy.NEVER)) {
+                writer.append(entry(Operation.UPDATE, id, userId, 4));
+            }
+            UserHistory history = AuditJournal.rebuildUser(journalDir, userId);
+            assertEquals(3, history.entries().size());
+            assertEquals(4, history.current().get(id).amount());
+        }
+
+        // Menguji panjang record yang tidak masuk akal
+        {
+            try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+                file.seek(4 + 2 * RECORD_SIZE);
+                file.writeInt(10);
+            }
+            assertEquals(2, AuditJournal.rebuildUser(journalDir, userId).entries().size());
+            try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+                file.seek(4 + 2 * RECORD_SIZE);
+                file.writeInt(1 << 20);
+            }
+            assertEquals(2, AuditJournal.rebuildUser(journalDir, userId).entries().size());
+        }
+
+        // Menguji segmen yang terisi penuh tanpa sisa ruang untuk record berikutnya
+        {
+            Path fullDir = journalDir.resolve("penuh");
+            try (AuditJournal.Writer writer = new AuditJournal.Writer(fullDir, 4 + 2 * RECORD_SIZE,
+                    FsyncPolicy.NEVER)) {
+                writer.append(entry(Operation.CREATE, id, userId, 1));
+                writer.append(entry(Operation.UPDATE, id, userId, 2));
+            }
+            try (AuditJournal.Writer writer = new AuditJournal.Writer(fullDir, 4 + 2 * RECORD_SIZE,
+                    FsyncPolicy.NEVER)) {
+                writer.append(entry(Operation.UPDATE, id, userId, 3));
+                assertEquals(1, writer.getSegmentIndex());
+            }
+            assertEquals(3, AuditJournal.rebuildUser(fullDir, userId).entries().size());
+        }
+    }
+
+    @Test
+    @DisplayName("Waktu record dicap saat append dan tidak pernah menurun")
+    public void testTimestamp() throws Exception {
+        UUID id = UUID.randomUUID();
+        long[] ticks = { 5000L, 3000L, 7000L };
+        int[] next = { 0 };
+        try (AuditJournal.Writer writer = new AuditJournal.Writer(journalDir, 4096, FsyncPolicy.NEVER,
+                () -> ticks[next[0]++])) {
+            writer.append(entry(Operation.CREATE, id, userId, 1));
+            writer.append(entry(Operation.UPDATE, id, userId, 2));
+            writer.append(entry(Operation.UPDATE, id, userId, 3));
+        }
+
+        // Menguji timestamp dari pemanggil diabaikan dan jam yang mundur tidak menurunkan waktu
+        {
+            List<Entry> entries = AuditJournal.rebuildUser(journalDir, userId).entries();
+            assertEquals(5000L, entries.get(0).timestamp());
+            assertEquals(5000L, entries.get(1).timestamp());
+            assertEquals(7000L, entries.get(2).timestamp());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.delcom.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.delcom.app.utils.AuditJournal.Entry;
+import org.delcom.app.utils.AuditJournal.FsyncPolicy;
+import org.delcom.app.utils.AuditJournal.Operation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class AuditJournalToolTests {
+    @TempDir
+    Path journalDir;
+
+    @Test
+    @DisplayName("Mencetak riwayat dan state terakhir cash flow user dari jurnal")
+    public void testRun() throws Exception {
+        new AuditJournalTool();
+        UUID userId = UUID.randomUUID();
+        UUID id = UUID.randomUUID();
+        UUID deletedId = UUID.randomUUID();
+        LocalDateTime createdAt = LocalDateTime.of(2025, 11, 10, 8, 0);
+        AtomicLong clock = new AtomicLong();
+        try (AuditJournal.Writer writer = new AuditJournal.Writer(journalDir, 4096, FsyncPolicy.NEVER,
+                clock::getAndIncrement)) {
+            writer.append(new Entry(Operation.CREATE, 0L, id, userId, "Outflow", "Cash", "makan", 25000, "Nasi",
+                    createdAt));
+            writer.append(new Entry(Operation.CREATE, 1L, deletedId, userId, "Outflow", "Cash", "makan", 1, "Salah",
+                    createdAt));
+            writer.append(new Entry(Operation.DELETE, 2L, deletedId, userId, "Outflow", "Cash", "makan", 1, "Salah",
+                    createdAt));
+        }
+
+        // Menguji output riwayat melalui main
+        {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            PrintStream originalOut = System.out;
+            System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+            try {
+                AuditJournalTool.main(new String[] { journalDir.toString(), userId.toString() });
+            } finally {
+                System.setOut(originalOut);
+            }
+            String output = buffer.toString(StandardCharsets.UTF_8);
+            assertTrue(output.contains("# History (3 entries)"));
+            assertTrue(output.contains("1970-01-01T00:00:00.002Z DELETE " + deletedId));
+            assertTrue(output.contains("# Current (1 cash flows)"));
+            assertTrue(output.contains(id + " Outflow Cash makan 25000 2025-11-10T08:00 \"Nasi\""));
+        }
+
+        // Menguji argumen yang tidak valid
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            PrintStream outStream = new PrintStream(out, true, StandardCharsets.UTF_8);
+            PrintStream errStream = new PrintStream(err, true, StandardCharsets.UTF_8);
+            AuditJournalTool.run(new String[] { journalDir.toString() }, outStream, errStream);
+            AuditJournalTool.run(new String[] { journalDir.toString(), "bukan-uuid" }, outStream, errStream);
+            String errors = err.toString(StandardCharsets.UTF_8);
+            assertTrue(errors.contains("Usage: AuditJournalTool"));
+            assertTrue(errors.contains("Invalid userId: bukan-uuid"));
+            assertTrue(out.size() == 0);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.delcom.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class BalanceIndexTests {
+
+    @Test
+    @DisplayName("Indeks saldo Fenwick sama dengan penjumlahan langsung")
+    public void testBalanceIndex() {
+        LocalDate base = LocalDate.of(2025, 1, 1);
+
+        // Menguji indeks kosong
+        {
+            BalanceIndex index = new BalanceIndex();
+            assertEquals(0, index.balanceAt(base));
+            assertEquals(0, index.netFlow(base, base.plusDays(10)));
+            assertEquals(32, index.estimatedBytes());
+            index.add(base, 0);
+            assertEquals(32, index.estimatedBytes());
+        }
+
+        // Menguji saldo sebelum, di dalam, dan setelah rentang tanggal
+        {
+            BalanceIndex index = new BalanceIndex();
+            index.add(base, 1000);
+            index.add(base.plusDays(3), -300);
+            index.add(base.plusDays(3), -200);
+            assertEquals(0, index.balanceAt(base.minusDays(1)));
+            assertEquals(1000, index.balanceAt(base));
+            assertEquals(1000, index.balanceAt(base.plusDays(2)));
+            assertEquals(500, index.balanceAt(base.plusDays(3)));
+            assertEquals(500, index.balanceAt(base.plusYears(5)));
+            assertEquals(-500, index.netFlow(base.plusDays(1), base.plusDays(3)));
+            assertEquals(32 + 8 * 65, index.estimatedBytes());
+        }
+
+        // Menguji perluasan rentang ke kiri dan ke kanan dibandingkan penjumlahan langsung
+        {
+            BalanceIndex index = new BalanceIndex();
+            Random random = new Random(42);
+            int span = 3000;
+            long[] daily = new long[span];
+            int[] days = { 1500, 1510, 1400, 1700, 0, span - 1 };
+            for (int day : days) {
+                long amount = random.nextInt(2001) - 1000;
+                index.add(base.plusDays(day), amount);
+                daily[day] += amount;
+            }
+            for (int i = 0; i < 2000; i++) {
+                int day = random.nextInt(span);
+                long amount = random.nextInt(2001) - 1000;
+                index.add(base.plusDays(day), amount);
+                daily[day] += amount;
+            }
+
+            long balance = 0;
+            for (int day = 0; day < span; day++) {
+                balance += daily[day];
+                assertEquals(balance, index.balanceAt(base.plusDays(day)));
+            }
+            long net = 0;
+            for (int day = 250; day <= 2750; day++) {
+                net += daily[day];
+            }
+            assertEquals(net, index.netFlow(base.plusDays(250), base.plusDays(2750)));
+        }
+    }
+}
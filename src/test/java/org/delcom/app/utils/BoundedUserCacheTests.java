@@ -0,0 +1,150 @@
+package org.delcom.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class BoundedUserCacheTests {
+
+    @Test
+    @DisplayName("Pengujian pemuatan lazy, LRU berdasarkan ukuran, dan eviksi idle")
+    public void testBoundedUserCache() {
+        AtomicLong now = new AtomicLong(1000);
+        BoundedUserCache<String> cache = new BoundedUserCache<>(10, 500, String::length, now::get);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+
+        // Menguji pemuatan lazy dan cache hit
+        {
+            assertNull(cache.getIfPresent(first));
+            assertEquals("aaaa", cache.get(first, id -> {
+                loads.incrementAndGet();
+                return "aaaa";
+            }));
+            assertEquals("aaaa", cache.get(first, id -> "lain"));
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.size());
+            assertEquals(4, cache.weight());
+        }
+
+        // Menguji eviksi LRU saat total ukuran melewati batas
+        {
+            cache.get(second, id -> "bbbb");
+            cache.getIfPresent(first);
+            cache.get(third, id -> "cccc");
+
+            assertEquals(2, cache.size());
+            assertNull(cache.getIfPresent(second));
+            assertEquals("aaaa", cache.getIfPresent(first));
+            assertEquals("cccc", cache.getIfPresent(third));
+        }
+
+        // Menguji nilai yang lebih besar dari batas tetap dikembalikan ke pemanggil
+        {
+            assertEquals("xxxxxxxxxxxx", cache.get(second, id -> "xxxxxxxxxxxx"));
+            assertEquals(1, cache.size());
+            cache.invalidate(second);
+            assertEquals(0, cache.size());
+        }
+
+        // Menguji eviksi idle
+        {
+            cache.get(first, id -> "aaaa");
+            now.addAndGet(400);
+            cache.get(third, id -> "cccc");
+            now.addAndGet(200);
+
+            assertEquals(1, cache.evictIdle());
+            assertNull(cache.getIfPresent(first));
+            assertEquals("cccc", cache.getIfPresent(third));
+        }
+    }
+
+    @Test
+    @DisplayName("Pengujian pemuatan yang bersamaan dengan perubahan data")
+    public void testConcurrentChanges() {
+        BoundedUserCache<String> cache = new BoundedUserCache<>(100, 1000, String::length);
+        UUID userId = UUID.randomUUID();
+
+        // Menguji pemuatan diulang jika data berubah selama pemuatan
+        {
+            AtomicInteger loads = new AtomicInteger();
+            String value = cache.get(userId, id -> {
+                if (loads.incrementAndGet() == 1) {
+                    cache.markChanged(id);
+                    return "basi";
+                }
+                return "baru";
+            });
+
+            assertEquals("baru", value);
+            assertEquals("baru", cache.getIfPresent(userId));
+            assertEquals(2, loads.get());
+        }
+
+        // Menguji data yang terus berubah tidak disimpan ke cache
+        {
+            cache.invalidate(userId);
+            AtomicInteger loads = new AtomicInteger();
+            String value = cache.get(userId, id -> {
+                loads.incrementAndGet();
+                cache.markChanged(id);
+                return "berubah";
+            });
+
+            assertEquals("berubah", value);
+            assertEquals(4, loads.get());
+            assertNull(cache.getIfPresent(userId));
+        }
+
+        // Menguji nilai yang sudah dimuat thread lain dipakai kembali
+        {
+            String winner = new String("pemenang");
+            String value = cache.get(userId, id -> {
+                cache.get(id, other -> winner);
+                return "kalah";
+            });
+
+            assertSame(winner, value);
+            assertSame(winner, cache.getIfPresent(userId));
+        }
+    }
+
+    @Test
+    @DisplayName("Pengujian nilai yang dimuat sebelum dan sesudah perubahan data")
+    public void testGetIfLoadedBefore() {
+        BoundedUserCache<String> cache = new BoundedUserCache<>(100, 1000, String::length);
+        UUID userId = UUID.randomUUID();
+
+        // Menguji user tanpa nilai di cache
+        {
+            assertNull(cache.getIfLoadedBefore(userId, cache.markChanged(userId)));
+        }
+
+        // Menguji nilai yang dimuat sebelum perubahan dikembalikan
+        {
+            cache.get(userId, id -> "lama");
+            long version = cache.markChanged(userId);
+            assertEquals("lama", cache.getIfLoadedBefore(userId, version));
+            assertEquals(1, cache.size());
+        }
+
+        // Menguji nilai yang dimuat sesudah perubahan dibuang dari cache
+        {
+            cache.invalidate(userId);
+            long version = cache.markChanged(userId);
+            cache.get(userId, id -> "baru");
+            assertNull(cache.getIfLoadedBefore(userId, version));
+            assertNull(cache.getIfPresent(userId));
+        }
+    }
+}
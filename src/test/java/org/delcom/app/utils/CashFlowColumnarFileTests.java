@@ -0,0 +1,126 @@
+package org.delcom.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.DeflaterOutputStream;
+
+import org.delcom.app.utils.CashFlowColumnarFile.Row;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CashFlowColumnarFileTests {
+
+    @Test
+    @DisplayName("Menulis dan membaca kembali file kolumnar cash flow")
+    public void testWriteAndRead() throws IOException {
+        new CashFlowColumnarFile();
+        LocalDateTime base = LocalDateTime.of(2025, 11, 1, 8, 0, 0, 123_456_000);
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            rows.add(new Row(UUID.randomUUID(), i % 2 == 0 ? "Inflow" : "Outflow", "Dompet",
+                    i == 3 ? null : "makan", i == 4 ? -7 : 1000L * i, i == 2 ? null : "Nasi \"" + i + "\"",
+                    base.plusMinutes(i)));
+        }
+        rows.add(new Row(UUID.randomUUID(), "Outflow", "", "lama", 1, "", LocalDateTime.of(1969, 12, 31, 23, 59)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CashFlowColumnarFile.Writer writer = new CashFlowColumnarFile.Writer(out, 4);
+        for (Row row : rows) {
+            writer.write(row);
+        }
+        // Menguji row group pertama sudah ditulis setelah 4 baris
+        assertEquals(4, writer.getTotalRows());
+        writer.close();
+        writer.close();
+        assertEquals(6, writer.getTotalRows());
+
+        // Menguji isi file dibaca per row group dengan nilai yang sama
+        {
+            CashFlowColumnarFile.Reader reader = new CashFlowColumnarFile.Reader(
+                    new ByteArrayInputStream(out.toByteArray()));
+            assertEquals(-1, reader.getTotalRows());
+            List<Row> first = reader.nextRowGroup();
+            List<Row> second = reader.nextRowGroup();
+            assertEquals(4, first.size());
+            assertEquals(2, second.size());
+            assertNull(reader.nextRowGroup());
+            assertNull(reader.nextRowGroup());
+            assertEquals(6, reader.getTotalRows());
+
+            List<Row> all = new ArrayList<>(first);
+            all.addAll(second);
+            assertEquals(rows, all);
+        }
+
+        // Menguji file kosong hanya berisi header dan penutup
+        {
+            ByteArrayOutputStream empty = new ByteArrayOutputStream();
+            new CashFlowColumnarFile.Writer(empty, 4).close();
+            CashFlowColumnarFile.Reader reader = new CashFlowColumnarFile.Reader(
+                    new ByteArrayInputStream(empty.toByteArray()));
+            assertNull(reader.nextRowGroup());
+            assertEquals(0, reader.getTotalRows());
+        }
+    }
+
+    @Test
+    @DisplayName("Membaca file kolumnar yang tidak valid")
+    public void testReadInvalid() throws IOException {
+        // Menguji magic yang salah
+        {
+            IOException e = assertThrows(IOException.class,
+                    () -> new CashFlowColumnarFile.Reader(new ByteArrayInputStream("XXXX".getBytes())));
+            assertEquals("Not a cash flow columnar file.", e.getMessage());
+        }
+
+        // Menguji kolom kamus yang terpotong
+        {
+            byte[] file = rowGroup(new byte[0]);
+            CashFlowColumnarFile.Reader reader = new CashFlowColumnarFile.Reader(new ByteArrayInputStream(file));
+            assertThrows(EOFException.class, reader::nextRowGroup);
+        }
+
+        // Menguji varint yang terlalu panjang
+        {
+            byte[] varint = new byte[10];
+            Arrays.fill(varint, (byte) 0xFF);
+            byte[] file = rowGroup(varint);
+            CashFlowColumnarFile.Reader reader = new CashFlowColumnarFile.Reader(new ByteArrayInputStream(file));
+            IOException e = assertThrows(IOException.class, reader::nextRowGroup);
+            assertTrue(e.getMessage().startsWith("Malformed varint"));
+        }
+    }
+
+    // File dengan satu row group berisi satu baris: kolom id valid dan kolom type sesuai parameter
+    private static byte[] rowGroup(byte[] typeColumn) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(CashFlowColumnarFile.MAGIC);
+        out.writeInt(1);
+        writeColumn(out, new byte[16]);
+        writeColumn(out, typeColumn);
+        return bytes.toByteArray();
+    }
+
+    private static void writeColumn(DataOutputStream out, byte[] data) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed)) {
+            deflater.write(data);
+        }
+        out.writeInt(compressed.size());
+        compressed.writeTo(out);
+    }
+}
@@ -0,0 +1,181 @@
+package org.delcom.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.delcom.app.dto.CashFlowSummary;
+import org.delcom.app.dto.CashFlowTopItem;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CashFlowColumnsTests {
+
+    @Test
+    @DisplayName("Pengujian snapshot kolumnar: penulisan, agregasi, dan top-N")
+    public void testCashFlowColumns() {
+        CashFlowColumns columns = new CashFlowColumns();
+        LocalDateTime november = LocalDateTime.of(2025, 11, 10, 8, 0);
+        LocalDateTime december = LocalDateTime.of(2025, 12, 5, 8, 0);
+        long all = Long.MIN_VALUE;
+        long end = Long.MAX_VALUE;
+
+        UUID gaji = UUID.randomUUID();
+        UUID makan = UUID.randomUUID();
+        UUID bensin = UUID.randomUUID();
+        UUID tanpaLabel = UUID.randomUUID();
+
+        columns.upsert(gaji, "Inflow", "Bank", "gaji", 5000, november);
+        columns.upsert(makan, "Outflow", "Cash", "makan", 300, november);
+        columns.upsert(bensin, "Outflow", "Cash", "transport", 200, december);
+        columns.upsert(tanpaLabel, "Outflow", null, null, 100, december);
+
+        // Menguji konversi epoch
+        {
+            assertEquals(november, CashFlowColumns.fromEpoch(CashFlowColumns.toEpoch(november)));
+            assertEquals(4, columns.size());
+            assertTrue(columns.estimatedBytes() > 0);
+        }
+
+        // Menguji sum dengan filter tipe dan rentang waktu
+        {
+            assertEquals(600, columns.sum("Outflow", all, end));
+            assertEquals(300, columns.sum("Outflow", all, CashFlowColumns.toEpoch(december)));
+            assertEquals(0, columns.sum("Lainnya", all, end));
+        }
+
+        // Menguji group-by tipe, label, dan source
+        {
+            assertEquals(List.of(
+                    new CashFlowSummary("Inflow", "Inflow", 5000, 1),
+                    new CashFlowSummary("Outflow", "Outflow", 600, 3)), columns.sumByType(all, end));
+
+            assertEquals(List.of(
+                    new CashFlowSummary("gaji", "Inflow", 5000, 1),
+                    new CashFlowSummary("makan", "Outflow", 300, 1),
+                    new CashFlowSummary("transport", "Outflow", 200, 1),
+                    new CashFlowSummary(null, "Outflow", 100, 1)), columns.sumByLabel(all, end));
+
+            assertEquals(List.of(
+                    new CashFlowSummary("Cash", "Outflow", 200, 1),
+                    new CashFlowSummary(null, "Outflow", 100, 1)),
+                    columns.sumBySource(CashFlowColumns.toEpoch(december), end));
+        }
+
+        // Menguji top-N terurut dari amount terbesar
+        {
+            List<CashFlowTopItem> top = columns.topN(2, null, all, end);
+            assertEquals(2, top.size());
+            assertEquals(new CashFlowTopItem(gaji, "Inflow", "Bank", "gaji", 5000, november), top.get(0));
+            assertEquals(makan, top.get(1).id());
+
+            List<CashFlowTopItem> outflow = columns.topN(10, "Outflow", all, end);
+            assertEquals(List.of(makan, bensin, tanpaLabel), outflow.stream().map(CashFlowTopItem::id).toList());
+
+            assertTrue(columns.topN(3, "Lainnya", all, end).isEmpty());
+            assertTrue(columns.topN(0, null, all, end).isEmpty());
+        }
+
+        // Menguji update dan hapus baris
+        {
+            columns.upsert(makan, "Outflow", "Cash", "makan", 900, november);
+            assertEquals(4, columns.size());
+            assertEquals(1200, columns.sum("Outflow", all, end));
+
+            assertTrue(columns.remove(gaji));
+            assertFalse(columns.remove(gaji));
+            assertTrue(columns.remove(tanpaLabel));
+            assertEquals(2, columns.size());
+            assertEquals(0, columns.sum("Inflow", all, end));
+            assertEquals(1100, columns.sum("Outflow", all, end));
+            assertEquals(List.of(makan, bensin),
+                    columns.topN(5, null, all, end).stream().map(CashFlowTopItem::id).toList());
+        }
+
+        // Menguji label null pada beberapa tipe dan hapus baris terakhir
+        {
+            CashFlowColumns other = new CashFlowColumns();
+            UUID last = UUID.randomUUID();
+            other.upsert(UUID.randomUUID(), "Outflow", "Cash", null, 10, november);
+            other.upsert(last, "Inflow", "Cash", null, 20, november);
+
+            assertEquals(List.of(
+                    new CashFlowSummary(null, "Inflow", 20, 1),
+                    new CashFlowSummary(null, "Outflow", 10, 1)), other.sumByLabel(all, end));
+            assertEquals(0, other.sum(null, all, end));
+
+            assertTrue(other.remove(last));
+            assertEquals(1, other.size());
+            assertEquals(0, other.sum("Inflow", all, end));
+        }
+
+        // Menguji pertumbuhan kapasitas array dan heap top-N yang penuh
+        {
+            for (int i = 0; i < 40; i++) {
+                columns.upsert(UUID.randomUUID(), "Inflow", "Bank", "bonus", (i * 37) % 41, november);
+            }
+            assertEquals(42, columns.size());
+
+            List<CashFlowTopItem> top = columns.topN(5, "Inflow", all, end);
+            assertEquals(List.of(40L, 39L, 38L, 37L, 36L), top.stream().map(CashFlowTopItem::amount).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Pengujian deret saldo berjalan per bucket waktu")
+    public void testBalanceSeries() {
+        CashFlowColumns columns = new CashFlowColumns();
+        LocalDateTime first = LocalDateTime.of(2025, 11, 1, 8, 0);
+        LocalDateTime second = first.plusHours(1);
+        LocalDateTime third = first.plusDays(3);
+        LocalDateTime fourth = first.plusDays(10);
+        long all = Long.MIN_VALUE;
+        long end = Long.MAX_VALUE;
+
+        // Menguji user tanpa Inflow/Outflow tidak memiliki titik saldo
+        {
+            columns.upsert(UUID.randomUUID(), "Transfer", "Bank", null, 999, third);
+            CashFlowColumns.BalanceSeries series = columns.balanceSeries(all, end, 8192);
+            assertEquals(0, series.openingBalance());
+            assertEquals(0, series.times().length);
+        }
+
+        columns.upsert(UUID.randomUUID(), "Inflow", "Bank", "gaji", 1000, first);
+        columns.upsert(UUID.randomUUID(), "Outflow", "Cash", "makan", 300, second);
+        columns.upsert(UUID.randomUUID(), "Outflow", "Cash", "bensin", 200, third);
+        columns.upsert(UUID.randomUUID(), "Inflow", "Bank", "bonus", 50, fourth);
+
+        // Menguji setiap transaksi menjadi satu titik jika bucket cukup banyak
+        {
+            CashFlowColumns.BalanceSeries series = columns.balanceSeries(all, end, 8192);
+            assertEquals(0, series.openingBalance());
+            assertArrayEquals(new long[] { CashFlowColumns.toEpoch(first), CashFlowColumns.toEpoch(second),
+                    CashFlowColumns.toEpoch(third), CashFlowColumns.toEpoch(fourth) }, series.times());
+            assertArrayEquals(new long[] { 1000, 700, 500, 550 }, series.balances());
+        }
+
+        // Menguji saldo awal dari transaksi sebelum rentang dan batas akhir eksklusif
+        {
+            CashFlowColumns.BalanceSeries series = columns.balanceSeries(CashFlowColumns.toEpoch(second),
+                    CashFlowColumns.toEpoch(fourth), 8192);
+            assertEquals(1000, series.openingBalance());
+            assertArrayEquals(new long[] { 700, 500 }, series.balances());
+
+            series = columns.balanceSeries(CashFlowColumns.toEpoch(fourth.plusDays(1)), end, 8192);
+            assertEquals(550, series.openingBalance());
+            assertEquals(0, series.balances().length);
+        }
+
+        // Menguji beberapa transaksi dalam satu bucket digabung pada waktu transaksi terakhir
+        {
+            CashFlowColumns.BalanceSeries series = columns.balanceSeries(all, end, 1);
+            assertArrayEquals(new long[] { CashFlowColumns.toEpoch(fourth) }, series.times());
+            assertArrayEquals(new long[] { 550 }, series.balances());
+        }
+    }
+}
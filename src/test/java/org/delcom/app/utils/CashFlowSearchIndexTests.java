@@ -0,0 +1,198 @@
+package org.delcom.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.delcom.app.utils.CashFlowSearchIndex.Document;
+import org.delcom.app.utils.CashFlowSearchIndex.Hit;
+import org.delcom.app.utils.CashFlowSearchIndex.Result;
+import org.delcom.app.utils.CashFlowSearchIndex.Stats;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CashFlowSearchIndexTests {
+    private static final LocalDateTime NOVEMBER = LocalDateTime.of(2025, 11, 2, 8, 0);
+    private static final UUID USER_ID = UUID.randomUUID();
+    private static final UUID OTHER_USER_ID = UUID.randomUUID();
+
+    @TempDir
+    Path indexDir;
+
+    private final Document goreng = new Document(UUID.randomUUID(), USER_ID, "Outflow", "Cash", "makan", 25000,
+            "Nasi goreng spesial", NOVEMBER.minusMonths(1));
+    private final Document padang = new Document(UUID.randomUUID(), USER_ID, "Outflow", "Cash", "makan", 30000,
+            "Nasi padang", NOVEMBER);
+    private final Document kotak = new Document(UUID.randomUUID(), USER_ID, "Outflow", "Bank", null, 15000,
+            "Nasi kotak kantor", NOVEMBER.plusDays(8));
+    private final Document uduk = new Document(UUID.randomUUID(), USER_ID, "Outflow", "Cash", "makan", 10000,
+            "Nasi uduk dan teh manis hangat untuk sarapan pagi", NOVEMBER.minusMonths(2));
+    private final Document gaji = new Document(UUID.randomUUID(), USER_ID, "Inflow", "Bank", "gaji", 5000000,
+            "Gaji November", NOVEMBER.plusDays(23));
+    // Cash flow user lain dengan kata yang sama tidak boleh ikut terhitung
+    private final Document other = new Document(UUID.randomUUID(), OTHER_USER_ID, "Outflow", "Cash", "makan", 1,
+            "Nasi goreng", NOVEMBER);
+
+    private CashFlowSearchIndex newIndex() throws IOException {
+        CashFlowSearchIndex index = new CashFlowSearchIndex(indexDir);
+        for (Document document : List.of(goreng, padang, kotak, uduk, gaji, other)) {
+            index.add(document);
+        }
+        index.markIndexed(USER_ID);
+        index.refresh();
+        return index;
+    }
+
+    private static Set<UUID> ids(Result result) {
+        return result.hits().stream().map(Hit::id).collect(Collectors.toSet());
+    }
+
+    @Test
+    @DisplayName("Pencarian AND dengan ranking BM25 dan facet label/type/bulan")
+    public void testSearch() throws IOException {
+        try (CashFlowSearchIndex index = newIndex()) {
+            assertEquals(new Stats(5, 5080000), index.getStats(USER_ID));
+            assertEquals(new Stats(1, 1), index.getStats(OTHER_USER_ID));
+
+            // Menguji total, hits, dan facet dari seluruh dokumen yang cocok
+            {
+                Result result = index.search(USER_ID, "nasi", 10);
+                assertEquals(4, result.total());
+                assertEquals(Set.of(goreng.id(), padang.id(), kotak.id(), uduk.id()), ids(result));
+                for (int i = 1; i < result.hits().size(); i++) {
+                    assertTrue(result.hits().get(i - 1).score() >= result.hits().get(i).score());
+                }
+                // Dokumen terpanjang memiliki skor terendah
+                assertEquals(uduk.id(), result.hits().get(3).id());
+                assertEquals(Map.of("makan", 3, "", 1), result.byLabel());
+                assertEquals(Map.of("Outflow", 4), result.byType());
+                assertEquals(Map.of(YearMonth.of(2025, 9), 1, YearMonth.of(2025, 10), 1, YearMonth.of(2025, 11), 2),
+                        result.byMonth());
+                // Pencarian berulang pada reader yang sama menghasilkan facet yang sama
+                assertEquals(result.byLabel(), index.search(USER_ID, "nasi", 10).byLabel());
+            }
+
+            // Menguji seluruh kata query harus cocok (type, source, label, atau deskripsi)
+            {
+                assertEquals(Set.of(goreng.id(), padang.id(), uduk.id()),
+                        ids(index.search(USER_ID, "NASI, Cash makan", 10)));
+                assertEquals(Set.of(padang.id()), ids(index.search(USER_ID, "padang nasi nasi", 10)));
+                assertEquals(Set.of(other.id()), ids(index.search(OTHER_USER_ID, "nasi", 10)));
+                assertEquals(0, index.search(USER_ID, "nasi gaji", 10).total());
+                assertEquals(0, index.search(USER_ID, "sushi", 10).total());
+                assertEquals(0, index.search(USER_ID, "!!!", 10).total());
+                assertEquals(0, index.search(USER_ID, null, 10).total());
+            }
+
+            // Menguji limit membatasi hits tanpa mengubah total dan facet
+            {
+                Result top = index.search(USER_ID, "nasi", 1);
+                assertEquals(4, top.total());
+                assertEquals(1, top.hits().size());
+                assertEquals(Map.of("makan", 3, "", 1), top.byLabel());
+
+                Result facetsOnly = index.search(USER_ID, "nasi", 0);
+                assertEquals(4, facetsOnly.total());
+                assertEquals(0, facetsOnly.hits().size());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Delete, update, dan deleteUser terlihat setelah refresh")
+    public void testDeleteAndUpdate() throws IOException {
+        try (CashFlowSearchIndex index = newIndex()) {
+            index.delete(padang.id());
+            index.refresh();
+            assertEquals(0, index.search(USER_ID, "padang", 10).total());
+            assertEquals(3, index.search(USER_ID, "nasi", 10).total());
+            assertEquals(Map.of("makan", 2, "", 1), index.search(USER_ID, "nasi", 0).byLabel());
+            assertEquals(new Stats(4, 5050000), index.getStats(USER_ID));
+
+            // Upsert: dokumen dengan id sama menggantikan yang lama
+            index.add(new Document(goreng.id(), USER_ID, "Outflow", "Cash", "makan", 20000, "Mie goreng", NOVEMBER));
+            index.refresh();
+            assertEquals(Set.of(goreng.id()), ids(index.search(USER_ID, "mie", 10)));
+            // Facet digabung dari segmen lama dan segmen hasil refresh
+            assertEquals(Map.of(YearMonth.of(2025, 9), 1, YearMonth.of(2025, 11), 2),
+                    index.search(USER_ID, "outflow", 0).byMonth());
+            assertEquals(0, index.search(USER_ID, "spesial", 10).total());
+            assertEquals(new Stats(4, 5045000), index.getStats(USER_ID));
+
+            // Seluruh dokumen dan penanda user dihapus, user lain tidak terpengaruh
+            index.deleteUser(USER_ID);
+            index.refresh();
+            assertFalse(index.isIndexed(USER_ID));
+            assertEquals(new Stats(0, 0), index.getStats(USER_ID));
+            assertEquals(0, index.search(USER_ID, "nasi", 10).total());
+            assertEquals(1, index.search(OTHER_USER_ID, "nasi", 10).total());
+        }
+    }
+
+    @Test
+    @DisplayName("Indeks dan penanda user tetap ada setelah dibuka ulang dari disk")
+    public void testPersistence() throws IOException {
+        try (CashFlowSearchIndex index = new CashFlowSearchIndex(indexDir)) {
+            assertEquals(List.of(), index.getIndexedUsers());
+            assertFalse(index.isIndexed(USER_ID));
+        }
+        try (CashFlowSearchIndex index = newIndex()) {
+            index.commit();
+            assertTrue(index.isIndexed(USER_ID));
+            assertFalse(index.isIndexed(OTHER_USER_ID));
+        }
+
+        try (CashFlowSearchIndex index = new CashFlowSearchIndex(indexDir)) {
+            assertEquals(List.of(USER_ID), index.getIndexedUsers());
+            assertTrue(index.isIndexed(USER_ID));
+            assertEquals(4, index.search(USER_ID, "nasi", 10).total());
+            assertEquals(new Stats(5, 5080000), index.getStats(USER_ID));
+        }
+    }
+
+    @Test
+    @DisplayName("Field kosong tetap terindeks dan dihitung sebagai facet kosong")
+    public void testEmptyFields() throws IOException {
+        try (CashFlowSearchIndex index = new CashFlowSearchIndex(indexDir)) {
+            for (int i = 0; i < 40; i++) {
+                index.add(new Document(UUID.randomUUID(), USER_ID, i % 2 == 0 ? null : "Outflow", "Cash",
+                        i % 4 == 0 ? "" : null, 1000, i % 4 == 0 ? null : "Kopi susu " + i, NOVEMBER.plusDays(i % 20)));
+            }
+            index.refresh();
+            // Belum ada satu pun label di indeks
+            assertEquals(Map.of("", 40), index.search(USER_ID, "cash", 0).byLabel());
+
+            index.add(new Document(UUID.randomUUID(), USER_ID, "", "Cash", "kopi", 1000, "Teh", NOVEMBER));
+            index.refresh();
+
+            Result result = index.search(USER_ID, "cash", 5);
+            assertEquals(41, result.total());
+            assertEquals(5, result.hits().size());
+            assertEquals(Map.of("", 21, "Outflow", 20), result.byType());
+            assertEquals(Map.of("", 40, "kopi", 1), result.byLabel());
+            assertEquals(30, index.search(USER_ID, "susu", 100).total());
+
+            // Tanpa satu pun label di hasil, seluruh hasil dihitung sebagai label kosong
+            assertEquals(Map.of("", 30), index.search(USER_ID, "susu", 0).byLabel());
+        }
+    }
+
+    @Test
+    @DisplayName("Tokenisasi huruf kecil dan pemisah non-alfanumerik")
+    public void testTokenize() {
+        assertEquals(List.of("nasi", "goreng", "2"), CashFlowSearchIndex.tokenize("Nasi-GORENG, 2!"));
+        assertEquals(List.of(), CashFlowSearchIndex.tokenize(null));
+        assertEquals(List.of(), CashFlowSearchIndex.tokenize("  "));
+    }
+}
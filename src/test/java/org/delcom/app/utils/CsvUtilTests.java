@@ -0,0 +1,41 @@
+package org.delcom.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CsvUtilTests {
+
+    @Test
+    @DisplayName("Berbagai pengujian CsvUtil")
+    public void testVariousCsvUtil() {
+        new CsvUtil();
+
+        // Menguji field biasa, field kosong, dan field berkutip
+        {
+            assertEquals(List.of("a", "", "b"), CsvUtil.parseLine("a,,b"));
+            assertEquals(List.of("Makan siang, warteg", "x"), CsvUtil.parseLine("\"Makan siang, warteg\",x"));
+            assertEquals(List.of("kata \"kutip\""), CsvUtil.parseLine("\"kata \"\"kutip\"\"\""));
+            assertEquals(List.of(""), CsvUtil.parseLine(""));
+        }
+
+        // Menguji kutip yang tidak ditutup
+        {
+            assertNull(CsvUtil.parseLine("\"tidak ditutup,x"));
+        }
+
+        // Menguji penulisan field berkutip dapat dibaca kembali
+        {
+            StringBuilder out = new StringBuilder();
+            CsvUtil.appendQuoted(out, "a \"b\", c");
+            out.append(',');
+            CsvUtil.appendQuoted(out, "");
+            assertEquals("\"a \"\"b\"\", c\",\"\"", out.toString());
+            assertEquals(List.of("a \"b\", c", ""), CsvUtil.parseLine(out.toString()));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.delcom.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class KllSketchTests {
+    // Dua kali galat rank 99% untuk k = 200, agar pengujian tidak bergantung pada keberuntungan
+    private static final double TOLERANCE = 0.03;
+
+    @Test
+    @DisplayName("Sketsa KLL memperkirakan kuantil dan rank dalam batas galat")
+    public void testQuantiles() {
+        int total = 100_000;
+        List<Long> values = new ArrayList<>();
+        for (long i = 1; i <= total; i++) {
+            values.add(i);
+        }
+        Collections.shuffle(values, new Random(7));
+
+        KllSketch sketch = new KllSketch();
+        for (long value : values) {
+            sketch.update(value);
+        }
+
+        // Menguji n, min, max eksak dan ukuran sketsa jauh lebih kecil dari jumlah nilai
+        {
+            assertEquals(KllSketch.DEFAULT_K, sketch.getK());
+            assertEquals(total, sketch.getN());
+            assertEquals(1, sketch.getMin());
+            assertEquals(total, sketch.getMax());
+            assertEquals(1, sketch.quantile(0));
+            assertEquals(total, sketch.quantile(1));
+            long bytes = sketch.estimatedBytes();
+            assertTrue(bytes < 64 * 1024);
+            sketch.quantile(0.5);
+            assertTrue(sketch.estimatedBytes() > bytes);
+        }
+
+        // Menguji kuantil dan rank berada dalam batas galat
+        {
+            for (int i = 1; i < 100; i++) {
+                double q = i / 100.0;
+                assertTrue(Math.abs((double) sketch.quantile(q) / total - q) <= TOLERANCE);
+                assertTrue(Math.abs(sketch.rank((long) (q * total)) - q) <= TOLERANCE);
+            }
+            assertEquals(0, sketch.rank(1));
+            assertEquals(1.0, sketch.rank(total + 1));
+            assertEquals(0.0133, KllSketch.normalizedRankError(200), 0.0005);
+        }
+
+        // Menguji serialisasi ringkas menghasilkan sketsa yang sama
+        {
+            byte[] bytes = sketch.toBytes();
+            assertTrue(bytes.length < 8 * 1024);
+            KllSketch restored = KllSketch.fromBytes(bytes);
+            assertEquals(sketch.getN(), restored.getN());
+            assertEquals(sketch.getMin(), restored.getMin());
+            assertEquals(sketch.getMax(), restored.getMax());
+            assertEquals(sketch.quantile(0.5), restored.quantile(0.5));
+            assertEquals(sketch.quantile(0.9), restored.quantile(0.9));
+
+            KllSketch negative = new KllSketch();
+            negative.update(-500);
+            negative.update(Long.MIN_VALUE);
+            negative.update(Long.MAX_VALUE);
+            KllSketch restoredNegative = KllSketch.fromBytes(negative.toBytes());
+            assertEquals(Long.MIN_VALUE, restoredNegative.getMin());
+            assertEquals(Long.MAX_VALUE, restoredNegative.getMax());
+            assertEquals(-500, restoredNegative.quantile(0.5));
+
+            KllSketch empty = KllSketch.fromBytes(new KllSketch().toBytes());
+            assertEquals(0, empty.getN());
+            empty.update(42);
+            assertEquals(42, empty.quantile(0.5));
+        }
+    }
+
+    @Test
+    @DisplayName("Sketsa KLL dapat digabung")
+    public void testMerge() {
+        int total = 50_000;
+        KllSketch lower = new KllSketch();
+        KllSketch upper = new KllSketch(16);
+        for (long i = 1; i <= total; i++) {
+            lower.update(i);
+            upper.update(total + i);
+        }
+
+        // Menguji gabungan dua sketsa berisi
+        {
+            KllSketch merged = KllSketch.fromBytes(lower.toBytes());
+            merged.merge(upper);
+            assertEquals(2L * total, merged.getN());
+            assertEquals(1, merged.getMin());
+            assertEquals(2L * total, merged.getMax());
+            assertTrue(Math.abs((double) merged.quantile(0.5) / (2 * total) - 0.5) <= TOLERANCE);
+            assertEquals(total, upper.getN());
+        }
+
+        // Menguji gabungan ke/dari sketsa kosong
+        {
+            KllSketch merged = new KllSketch();
+            merged.merge(new KllSketch());
+            assertEquals(0, merged.getN());
+            merged.merge(upper);
+            assertEquals(total + 1, merged.getMin());
+            assertEquals(total, merged.getN());
+        }
+
+        // Menguji k yang terlalu kecil
+        {
+            assertThrows(IllegalArgumentException.class, () -> new KllSketch(4));
+        }
+    }
+}
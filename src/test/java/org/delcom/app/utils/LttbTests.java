@@ -0,0 +1,48 @@
+package org.delcom.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class LttbTests {
+
+    @Test
+    @DisplayName("Downsampling LTTB mempertahankan titik ujung dan puncak")
+    public void testDownsample() {
+        new Lttb();
+        long[] x = new long[100];
+        long[] y = new long[100];
+        for (int i = 0; i < 100; i++) {
+            x[i] = 1_700_000_000L + i * 86_400L;
+            y[i] = i == 37 ? 1_000_000 : i == 71 ? -1_000_000 : i;
+        }
+
+        // Menguji jumlah titik, titik ujung, dan puncak/lembah ikut terpilih
+        {
+            int[] selected = Lttb.downsample(x, y, 6);
+            assertEquals(6, selected.length);
+            assertEquals(0, selected[0]);
+            assertEquals(99, selected[5]);
+            assertEquals(37, selected[2]);
+            assertEquals(71, selected[3]);
+            for (int i = 1; i < selected.length; i++) {
+                assertEquals(true, selected[i] > selected[i - 1]);
+            }
+        }
+
+        // Menguji deret yang sudah cukup kecil dikembalikan utuh
+        {
+            assertArrayEquals(new int[] { 0, 1, 2 }, Lttb.downsample(new long[] { 1, 2, 3 },
+                    new long[] { 5, 6, 7 }, 3));
+            assertArrayEquals(new int[0], Lttb.downsample(new long[0], new long[0], 3));
+        }
+
+        // Menguji threshold yang terlalu kecil
+        {
+            assertThrows(IllegalArgumentException.class, () -> Lttb.downsample(x, y, 2));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.delcom.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class MonteCarloForecastBenchmarkTests {
+    @Test
+    @DisplayName("Mencetak throughput path per detik untuk setiap jumlah core")
+    public void testRun() {
+        new MonteCarloForecastBenchmark();
+
+        // Menguji output untuk 1 sampai 2 core
+        {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            MonteCarloForecastBenchmark.run(new String[] { "300", "2", "3", "2" },
+                    new PrintStream(buffer, true, StandardCharsets.UTF_8));
+            String[] lines = buffer.toString(StandardCharsets.UTF_8).split("\\R");
+            assertEquals(3, lines.length);
+            assertEquals("paths=300 labels=2 months=3", lines[0]);
+            assertTrue(lines[1].startsWith("cores=1 paths/s="));
+            assertTrue(lines[1].contains(" speedup=1"));
+            assertTrue(lines[2].startsWith("cores=2 paths/s="));
+        }
+
+        // Menguji main dengan jumlah core default
+        {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            PrintStream originalOut = System.out;
+            System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+            try {
+                MonteCarloForecastBenchmark.main(new String[] { "10", "1", "1" });
+            } finally {
+                System.setOut(originalOut);
+            }
+            String[] lines = buffer.toString(StandardCharsets.UTF_8).split("\\R");
+            assertEquals(Runtime.getRuntime().availableProcessors() + 1, lines.length);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.delcom.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class MonteCarloForecastTests {
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+
+    @Test
+    @DisplayName("Simulasi bootstrap paralel menghasilkan pita persentil yang deterministik")
+    public void testSimulate() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            long[][] history = { { 100, 200, 300 }, { -50, -150 } };
+            long deadline = System.nanoTime() + NO_DEADLINE;
+
+            // Menguji seed yang sama menghasilkan pita yang sama walau path dibagi ke beberapa task
+            {
+                MonteCarloForecast.Result first = MonteCarloForecast.simulate(history, 1000, 6, 1000, 7, deadline,
+                        pool);
+                MonteCarloForecast.Result second = MonteCarloForecast.simulate(history, 1000, 6, 1000, 7, deadline,
+                        pool);
+                assertEquals(1000, first.paths());
+                assertEquals(6, first.bands().length);
+                for (int month = 0; month < 6; month++) {
+                    assertArrayEquals(first.bands()[month], second.bands()[month]);
+                    long[] band = first.bands()[month];
+                    for (int i = 1; i < band.length; i++) {
+                        assertTrue(band[i - 1] <= band[i]);
+                    }
+                    // Perubahan per bulan antara -100 dan +250
+                    assertTrue(band[0] >= 1000 - 100L * (month + 1));
+                    assertTrue(band[4] <= 1000 + 250L * (month + 1));
+                }
+            }
+
+            // Menguji riwayat dengan satu nilai per label menghasilkan saldo pasti
+            {
+                long[][] fixed = { { 100 }, { -30 } };
+                MonteCarloForecast.Result result = MonteCarloForecast.simulate(fixed, 0, 3, 10, 1, deadline, pool);
+                assertArrayEquals(new long[] { 70, 70, 70, 70, 70 }, result.bands()[0]);
+                assertArrayEquals(new long[] { 210, 210, 210, 210, 210 }, result.bands()[2]);
+            }
+
+            // Menguji tanpa riwayat saldo tetap
+            {
+                MonteCarloForecast.Result result = MonteCarloForecast.simulate(new long[0][], 500, 2, 5, 1, deadline,
+                        pool);
+                assertArrayEquals(new long[] { 500, 500, 500, 500, 500 }, result.bands()[1]);
+            }
+
+            // Menguji deadline yang sudah lewat hanya menyimulasikan path pertama
+            {
+                MonteCarloForecast.Result result = MonteCarloForecast.simulate(history, 0, 2, 1000, 1,
+                        System.nanoTime() - 1, pool);
+                assertEquals(1, result.paths());
+                long[] band = result.bands()[0];
+                assertEquals(band[0], band[4]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
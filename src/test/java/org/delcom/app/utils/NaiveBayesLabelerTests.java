@@ -0,0 +1,132 @@
+package org.delcom.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class NaiveBayesLabelerTests {
+
+    private static NaiveBayesLabeler trained() {
+        NaiveBayesLabeler labeler = new NaiveBayesLabeler();
+        labeler.add("makan", "Nasi goreng", 1);
+        labeler.add("makan", "Nasi padang", 1);
+        labeler.add("makan", "Bakso malang", 1);
+        labeler.add("transport", "Bensin motor", 1);
+        labeler.add("transport", "Parkir motor", 1);
+        labeler.add("transport", "Ojek online", 1);
+        return labeler;
+    }
+
+    @Test
+    @DisplayName("Klasifikasi deskripsi ke label dengan peluang posterior")
+    public void testClassify() {
+        NaiveBayesLabeler labeler = trained();
+        assertEquals(6, labeler.getDocuments());
+
+        // Menguji token yang dikenal menentukan label
+        {
+            NaiveBayesLabeler.Prediction prediction = labeler.classify("nasi uduk");
+            assertEquals("makan", prediction.label());
+            assertTrue(prediction.probability() > 0.6 && prediction.probability() < 1);
+            assertEquals("transport", labeler.classify("SERVIS MOTOR").label());
+        }
+
+        // Menguji deskripsi tanpa token yang dikenal dan model kosong
+        {
+            assertNull(labeler.classify("xyz"));
+            assertNull(labeler.classify("a b c"));
+            assertNull(labeler.classify(null));
+            assertNull(new NaiveBayesLabeler().classify("nasi"));
+        }
+
+        // Menguji contoh yang tidak valid diabaikan
+        {
+            labeler.add(null, "nasi", 1);
+            labeler.add("", "nasi", 1);
+            labeler.add("makan", null, 1);
+            labeler.add("makan", "nasi", 0);
+            labeler.add("makan", "a", 1);
+            labeler.add("lainnya", "nasi", -1);
+            assertEquals(6, labeler.getDocuments());
+            assertNull(labeler.classify("lainnya"));
+        }
+    }
+
+    @Test
+    @DisplayName("Contoh yang dihapus mengurangi hitungan model")
+    public void testRemove() {
+        NaiveBayesLabeler labeler = trained();
+        labeler.add("transport", "Bensin motor", -1);
+        labeler.add("transport", "Parkir motor", -1);
+        assertEquals(4, labeler.getDocuments());
+        assertNull(labeler.classify("motor"));
+
+        // Label tanpa contoh tidak pernah dipilih
+        labeler.add("transport", "Ojek online", -1);
+        NaiveBayesLabeler.Prediction prediction = labeler.classify("nasi ojek");
+        assertEquals("makan", prediction.label());
+        assertEquals(1.0, prediction.probability());
+    }
+
+    @Test
+    @DisplayName("Serialisasi model ringkas menghasilkan prediksi yang sama")
+    public void testBytes() {
+        NaiveBayesLabeler labeler = trained();
+        labeler.add("belanja", "Sabun mandi", 1);
+        labeler.add("belanja", "Sabun mandi", -1);
+        byte[] bytes = labeler.toBytes();
+        NaiveBayesLabeler restored = NaiveBayesLabeler.fromBytes(bytes);
+
+        assertEquals(labeler.getDocuments(), restored.getDocuments());
+        assertEquals(labeler.classify("nasi motor"), restored.classify("nasi motor"));
+        assertEquals(labeler.classify("parkir"), restored.classify("parkir"));
+        assertNull(restored.classify("sabun"));
+        assertTrue(bytes.length < 200);
+        assertTrue(restored.estimatedBytes() > bytes.length);
+    }
+
+    @Test
+    @DisplayName("Jumlah label dibatasi oleh lebar indeks label di kunci token")
+    public void testTooManyLabels() {
+        NaiveBayesLabeler labeler = new NaiveBayesLabeler();
+        for (int l = 0; l < 65536; l++) {
+            labeler.add("label" + l, "kopi", 1);
+        }
+        assertEquals(65536, labeler.getDocuments());
+        assertThrows(IllegalStateException.class, () -> labeler.add("label65536", "kopi", 1));
+    }
+
+    @Test
+    @DisplayName("Tabel hitungan open addressing tetap konsisten setelah resize dan hapus")
+    public void testCounts() {
+        NaiveBayesLabeler.Counts counts = new NaiveBayesLabeler.Counts();
+        long[] keys = new long[2000];
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong() | 1;
+            counts.add(keys[i], i + 1);
+        }
+        assertEquals(keys.length, counts.size());
+        assertEquals(keys.length, counts.keys().length);
+        assertTrue(counts.estimatedBytes() >= 12L * keys.length);
+
+        // Hapus separuh kunci (urutan acak) lalu pastikan sisanya masih ditemukan
+        for (int i = 0; i < keys.length; i += 2) {
+            counts.add(keys[i], -(i + 1));
+        }
+        counts.add(keys[1], -1);
+        assertEquals(keys.length / 2, counts.size());
+        for (int i = 0; i < keys.length; i++) {
+            int expected = i % 2 == 0 ? 0 : i == 1 ? 1 : i + 1;
+            assertEquals(expected, counts.get(keys[i]));
+        }
+        counts.add(42L, -1);
+        assertEquals(0, counts.get(42L));
+    }
+}
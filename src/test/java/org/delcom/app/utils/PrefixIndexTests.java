@@ -0,0 +1,70 @@
+package org.delcom.app.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class PrefixIndexTests {
+
+    @Test
+    @DisplayName("Pengujian indeks prefix dengan frekuensi pemakaian")
+    public void testPrefixIndex() {
+        PrefixIndex index = new PrefixIndex();
+        index.add("makan", 5);
+        index.add("Makan Siang", 2);
+        index.add("martabak", 2);
+        index.add("gaji", 10);
+        index.add("minum", 1);
+
+        // Menguji saran diurutkan dari frekuensi tertinggi, lalu alfabetis
+        {
+            assertEquals(List.of("makan", "Makan Siang", "martabak"), index.suggest("ma", 10));
+            assertEquals(List.of("makan", "Makan Siang"), index.suggest("MA", 2));
+            assertEquals(List.of("gaji", "makan"), index.suggest("", 2));
+            assertEquals(List.of("gaji", "makan", "Makan Siang", "martabak", "minum"), index.suggest(null, 10));
+            assertTrue(index.suggest("zz", 5).isEmpty());
+            assertTrue(index.suggest("ma", 0).isEmpty());
+        }
+
+        // Menguji update frekuensi mengubah urutan
+        {
+            index.add("martabak", 10);
+            assertEquals(List.of("martabak", "makan"), index.suggest("ma", 2));
+            assertEquals(12, index.countOf("martabak"));
+            assertEquals(0, index.countOf("tidak-ada"));
+        }
+
+        // Menguji nilai dengan frekuensi 0 dihapus dan input yang diabaikan
+        {
+            index.add("minum", -1);
+            index.add("tidak-ada", -3);
+            index.add(null, 1);
+            index.add("gaji", 0);
+
+            assertEquals(4, index.size());
+            assertTrue(index.suggest("mi", 5).isEmpty());
+            assertTrue(index.estimatedBytes() > 0);
+        }
+
+        // Menguji nilai dengan huruf besar/kecil berbeda disimpan terpisah
+        {
+            index.add("Gaji", 1);
+            assertEquals(List.of("gaji", "Gaji"), index.suggest("ga", 5));
+            index.add("Gaji", -1);
+            assertEquals(List.of("gaji"), index.suggest("GA", 5));
+        }
+
+        // Menguji pertumbuhan kapasitas
+        {
+            for (int i = 0; i < 20; i++) {
+                index.add("label-" + i, i + 1);
+            }
+            assertEquals(24, index.size());
+            assertEquals(List.of("label-19", "label-18", "label-17"), index.suggest("label-", 3));
+        }
+    }
+}